@@ -668,7 +668,7 @@ public abstract class AbstractData implements Data {
 			setSystemObjectPid(objectPid, getDataModel());
 		}
 
-		abstract boolean tryToStorePid(final String objectPid);
+		protected abstract boolean tryToStorePid(final String objectPid);
 
 		@Override
 		public String getSystemObjectPid() {
@@ -681,7 +681,7 @@ public abstract class AbstractData implements Data {
 			}
 		}
 
-		abstract String getStoredPid();
+		protected abstract String getStoredPid();
 	}
 
 	/** Subklasse von <code>AbstractData</code>, abgeleitet von <code>AbstractData.TextValueext</code> zur Bestimmung der Zeit. */
@@ -1019,10 +1019,10 @@ public abstract class AbstractData implements Data {
 			return result;
 		}
 
-		abstract void setLengthUninitialized(int length);
+		protected abstract void setLengthUninitialized(int length);
 		
 		@Override
-		public void set(byte[] bytes) {
+		public void set(byte... bytes) {
 			setLengthUninitialized(bytes.length);
 			for(int i = 0; i < bytes.length; ++i) {
 				getValue(i).set(bytes[i]);
@@ -1030,7 +1030,7 @@ public abstract class AbstractData implements Data {
 		}
 
 		@Override
-		public void set(short[] shorts) {
+		public void set(short... shorts) {
 			setLengthUninitialized(shorts.length);
 			for(int i = 0; i < shorts.length; ++i) {
 				getValue(i).set(shorts[i]);
@@ -1038,7 +1038,7 @@ public abstract class AbstractData implements Data {
 		}
 
 		@Override
-		public void set(int[] ints) {
+		public void set(int... ints) {
 			setLengthUninitialized(ints.length);
 			for(int i = 0; i < ints.length; ++i) {
 				getValue(i).set(ints[i]);
@@ -1046,7 +1046,7 @@ public abstract class AbstractData implements Data {
 		}
 
 		@Override
-		public void set(long[] longs) {
+		public void set(long... longs) {
 			setLengthUninitialized(longs.length);
 			for(int i = 0; i < longs.length; ++i) {
 				getValue(i).set(longs[i]);
@@ -1054,7 +1054,7 @@ public abstract class AbstractData implements Data {
 		}
 
 		@Override
-		public void set(float[] floats) {
+		public void set(float... floats) {
 			setLengthUninitialized(floats.length);
 			for(int i = 0; i < floats.length; ++i) {
 				getValue(i).set(floats[i]);
@@ -1062,7 +1062,7 @@ public abstract class AbstractData implements Data {
 		}
 
 		@Override
-		public void set(double[] doubles) {
+		public void set(double... doubles) {
 			setLengthUninitialized(doubles.length);
 			for(int i = 0; i < doubles.length; ++i) {
 				getValue(i).set(doubles[i]);
@@ -80,6 +80,25 @@ public abstract class DataFactory {
 	 */
 	public abstract Data createModifiableData(AttributeGroup atg, byte[] bytes);
 
+	/**
+	 * Erzeugt ein modifizierbares Data-Objekt einer vorgegebenen Attributgruppe, das direkt auf einer Kopie des serialisierten Datensatzes arbeitet.
+	 * Im Gegensatz zu {@link #createModifiableData} wird der Datensatz nicht in eine Objektstruktur überführt; Änderungen werden direkt in das
+	 * Byte-Array geschrieben, so dass beim Versand keine erneute Serialisierung erforderlich ist.
+	 * @param atg Attributgruppe des Datensatzes
+	 * @param bytes Serialisierter Datensatz, wird kopiert
+	 * @return Modifizierbares Data-Objekt zum Zugriff auf den Datensatz.
+	 */
+	public abstract Data createModifiableByteArrayData(AttributeGroup atg, byte[] bytes);
+
+	/**
+	 * Erzeugt ein modifizierbares Data-Objekt einer vorgegebenen Attributgruppe, in dem jedes Attribut entweder den Default-Wert oder, falls kein
+	 * Default-Wert definiert ist, den "undefiniert"-Wert enthält. Der serialisierte Datensatz wird je Attributgruppe einmal erzeugt und zwischengespeichert,
+	 * weitere Aufrufe kopieren nur noch das Byte-Array. Der Zwischenspeicher wird mit {@link #forget(DataModel)} gelöscht.
+	 * @param atg Attributgruppe des Datensatzes
+	 * @return Modifizierbares Data-Objekt zum Zugriff auf den Datensatz.
+	 */
+	public abstract Data createDefaultData(AttributeGroup atg);
+
 	
 
 
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.AttributeGroupInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DoubleAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vorab aufgelöster Pfad zu einem einfachen Attribut innerhalb einer Attributgruppe. Ein Pfad wird einmal pro Attributgruppe mit {@link
+ * #compile(AttributeGroup, String...)} erzeugt und kann danach beliebig oft benutzt werden, um Werte direkt aus dem Byte-Array eines Datensatzes
+ * zu lesen bzw. in einen mit {@link de.bsvrz.dav.daf.main.ClientDavInterface#createData} erzeugten Datensatz zu schreiben, ohne dass für die
+ * einzelnen Ebenen Data-Objekte erzeugt oder Attributnamen aufgelöst werden müssen.
+ * <p>
+ * Liegen alle Attribute des Pfads an festen Positionen (keine Arrays und keine Attribute variabler Länge vor dem Zielattribut), dann wird die
+ * Position des Zielattributs einmalig beim Erzeugen berechnet.
+ * <p>
+ * Die Getter für ganze Zahlen liefern wie {@link Data#asUnscaledValue()} die unskalierten Werte, {@link #getFloat(Data)} und {@link
+ * #getDouble(Data)} liefern wie {@link Data#asScaledValue()} die skalierten Werte.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class AttributePathHandle {
+
+	private final AttributeInfo _attributeGroupInfo;
+
+	private final String _path;
+
+	/** Beschreibungen der Attribute bzw. Arrays der einzelnen Pfadschritte */
+	private final AttributeInfo[] _steps;
+
+	/** Arrayindex je Pfadschritt oder -1, wenn der Schritt ein Attribut einer Liste bzw. Attributgruppe adressiert */
+	private final int[] _indexes;
+
+	/** Position des Zielattributs relativ zum Datensatzanfang oder -1, wenn die Position vom Inhalt des Datensatzes abhängt */
+	private final int _fixedOffset;
+
+	private final AttributeDefinitionInfo _targetDefinitionInfo;
+
+	private final AttributeType _targetType;
+
+	private AttributePathHandle(
+			final AttributeInfo attributeGroupInfo, final String path, final AttributeInfo[] steps, final int[] indexes, final int fixedOffset) {
+		_attributeGroupInfo = attributeGroupInfo;
+		_path = path;
+		_steps = steps;
+		_indexes = indexes;
+		_fixedOffset = fixedOffset;
+		_targetDefinitionInfo = steps[steps.length - 1].getDefinitionInfo();
+		_targetType = _targetDefinitionInfo.getAttributeType();
+	}
+
+	/**
+	 * Löst einen Attributpfad in einer Attributgruppe auf.
+	 *
+	 * @param atg       Attributgruppe
+	 * @param itemNames Namen der Attribute auf den einzelnen Ebenen. Bei Arrays wird als nächster Name der Index des gewünschten Elements
+	 *                  angegeben, z.B. <code>compile(atg, "Messwerte", "3", "Wert")</code>.
+	 *
+	 * @return Aufgelöster Pfad
+	 *
+	 * @throws IllegalArgumentException Wenn der Pfad nicht zu einem einfachen Attribut der Attributgruppe führt
+	 */
+	public static AttributePathHandle compile(final AttributeGroup atg, final String... itemNames) {
+		if(itemNames.length == 0) throw new IllegalArgumentException("Leerer Attributpfad");
+		final AttributeInfo attributeGroupInfo = AttributeGroupInfo.forAttributeGroup(atg);
+		final String path = atg.getPid() + ":" + join(itemNames);
+		final List<AttributeInfo> steps = new ArrayList<AttributeInfo>(itemNames.length);
+		final int[] indexes = new int[itemNames.length];
+		boolean fixed = true;
+		int fixedOffset = 0;
+		AttributeInfo current = attributeGroupInfo;
+		boolean inArray = false;
+		for(int i = 0; i < itemNames.length; i++) {
+			final String itemName = itemNames[i];
+			if(inArray) {
+				final int index;
+				try {
+					index = Integer.parseInt(itemName);
+				}
+				catch(NumberFormatException e) {
+					throw new IllegalArgumentException("Ungültiger Arrayindex " + itemName + " im Attributpfad " + path);
+				}
+				if(index < 0) throw new IllegalArgumentException("Ungültiger Arrayindex " + itemName + " im Attributpfad " + path);
+				steps.add(current);
+				indexes[i] = index;
+				fixed = false;
+				inArray = false;
+			}
+			else {
+				final AttributeDefinitionInfo definitionInfo = current.getDefinitionInfo();
+				if(!definitionInfo.isList()) {
+					throw new IllegalArgumentException("Attribut " + current.getName() + " im Attributpfad " + path + " hat keine Unterattribute");
+				}
+				final AttributeInfo item = definitionInfo.getItem(itemName);
+				steps.add(item);
+				indexes[i] = -1;
+				if(fixed && item.getOffsetReferral() == null) {
+					fixedOffset = item.getAbsoluteOffset(null, fixedOffset);
+				}
+				else {
+					fixed = false;
+				}
+				current = item;
+				inArray = item.isArray();
+			}
+		}
+		if(inArray || current.getDefinitionInfo().isList()) {
+			throw new IllegalArgumentException("Attributpfad " + path + " führt nicht zu einem einfachen Attribut");
+		}
+		return new AttributePathHandle(
+				attributeGroupInfo, path, steps.toArray(new AttributeInfo[steps.size()]), indexes, fixed ? fixedOffset : -1
+		);
+	}
+
+	private static String join(final String[] itemNames) {
+		final StringBuilder result = new StringBuilder();
+		for(int i = 0; i < itemNames.length; i++) {
+			if(i > 0) result.append('.');
+			result.append(itemNames[i]);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Bestimmt die Position des Zielattributs.
+	 *
+	 * @param bytes      Byte-Array des Datensatzes
+	 * @param baseOffset Position des Datensatzes im Byte-Array
+	 *
+	 * @return Position des Zielattributs im Byte-Array
+	 *
+	 * @throws ArrayIndexOutOfBoundsException Wenn ein Array des Pfads im Datensatz weniger Elemente hat, als der Index im Pfad erfordert
+	 */
+	int getOffset(final byte[] bytes, final int baseOffset) {
+		final int offset = findOffset(bytes, baseOffset);
+		if(offset < 0) {
+			throw new ArrayIndexOutOfBoundsException("Ein Array im Attributpfad " + _path + " hat im Datensatz zu wenige Elemente");
+		}
+		return offset;
+	}
+
+	/**
+	 * Bestimmt die Position des Zielattributs, falls es im Datensatz vorhanden ist.
+	 *
+	 * @param bytes      Byte-Array des Datensatzes
+	 * @param baseOffset Position des Datensatzes im Byte-Array
+	 *
+	 * @return Position des Zielattributs im Byte-Array oder -1, wenn ein Array des Pfads im Datensatz weniger Elemente hat, als der Index im Pfad
+	 *         erfordert
+	 */
+	int findOffset(final byte[] bytes, final int baseOffset) {
+		if(_fixedOffset >= 0) return baseOffset + _fixedOffset;
+		int offset = baseOffset;
+		for(int i = 0; i < _steps.length; i++) {
+			final int index = _indexes[i];
+			if(index < 0) {
+				offset = _steps[i].getAbsoluteOffset(bytes, offset);
+			}
+			else {
+				if(index >= _steps[i].getElementCount(bytes, offset)) return -1;
+				offset = _steps[i].getAbsoluteElementOffset(bytes, offset, index);
+			}
+		}
+		return offset;
+	}
+
+	private ByteArrayData getByteArrayData(final Data data) {
+		if(!(data instanceof ByteArrayData)) {
+			throw new IllegalArgumentException("Datensatz kann nicht über einen Attributpfad gelesen werden: " + data.getClass().getName());
+		}
+		final ByteArrayData byteArrayData = (ByteArrayData)data;
+		checkAttributeGroup(byteArrayData.getInfo());
+		return byteArrayData;
+	}
+
+	private ModifiableBytes getModifiableBytes(final Data data) {
+		final ModifiableLocation location = ((ByteArrayModifiableListData)data).getLocation();
+		if(!location.isRoot()) throw new IllegalArgumentException("Datensatz " + data.getName() + " ist kein vollständiger Datensatz");
+		checkAttributeGroup(location.getInfo());
+		return location.getBuffer();
+	}
+
+	/**
+	 * Bestimmt das Byte-Array eines Datensatzes und prüft dabei, ob der Datensatz zur Attributgruppe dieses Pfads gehört.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Byte-Array des Datensatzes
+	 */
+	private byte[] getBytes(final Data data) {
+		if(data instanceof ByteArrayModifiableListData) return getModifiableBytes(data).getBytes();
+		return getByteArrayData(data).getBytes();
+	}
+
+	/**
+	 * Bestimmt die Position des Zielattributs in dem mit {@link #getBytes(Data)} bestimmten Byte-Array eines Datensatzes.
+	 *
+	 * @param data  Datensatz der Attributgruppe dieses Pfads
+	 * @param bytes Byte-Array des Datensatzes
+	 *
+	 * @return Position des Zielattributs im Byte-Array
+	 */
+	private int getOffset(final Data data, final byte[] bytes) {
+		return getOffset(bytes, data instanceof ByteArrayModifiableListData ? 0 : ((ByteArrayData)data).getOffset());
+	}
+
+	void checkAttributeGroup(final AttributeInfo info) {
+		if(info != _attributeGroupInfo && !info.getName().equals(_attributeGroupInfo.getName())) {
+			throw new IllegalArgumentException("Datensatz der Attributgruppe " + info.getName() + " passt nicht zum Attributpfad " + _path);
+		}
+	}
+
+	AttributeDefinitionInfo getDefinitionInfo() {
+		return _targetDefinitionInfo;
+	}
+
+	AttributeType getAttributeType() {
+		return _targetType;
+	}
+
+	/**
+	 * Liest den unskalierten Wert eines Ganzzahlattributs, das in einem <code>byte</code> dargestellt werden kann.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Unskalierter Wert
+	 */
+	public byte getByte(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.unscaledByteValue(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest den unskalierten Wert eines Ganzzahlattributs, das in einem <code>short</code> dargestellt werden kann.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Unskalierter Wert
+	 */
+	public short getShort(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.unscaledShortValue(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest den unskalierten Wert eines Ganzzahlattributs, das in einem <code>int</code> dargestellt werden kann.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Unskalierter Wert
+	 */
+	public int getInt(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.unscaledIntValue(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest den unskalierten Wert eines Ganzzahlattributs.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Unskalierter Wert
+	 */
+	public long getLong(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.unscaledLongValue(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest den skalierten Wert eines Zahlattributs als <code>float</code>.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Skalierter Wert
+	 */
+	public float getFloat(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.floatValue(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest den skalierten Wert eines Zahlattributs als <code>double</code>.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Skalierter Wert
+	 */
+	public double getDouble(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.doubleValue(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest die Objekt-Id eines Referenzattributs.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Id des referenzierten Objekts oder 0
+	 */
+	public long getId(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.getId(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Liest einen Zeitwert in Millisekunden.
+	 *
+	 * @param data Datensatz der Attributgruppe dieses Pfads
+	 *
+	 * @return Zeitwert in Millisekunden
+	 */
+	public long getMillis(final Data data) {
+		final byte[] bytes = getBytes(data);
+		return _targetDefinitionInfo.getMillis(bytes, getOffset(data, bytes));
+	}
+
+	/**
+	 * Setzt den unskalierten Wert eines Ganzzahlattributs.
+	 *
+	 * @param data  Modifizierbarer Datensatz der Attributgruppe dieses Pfads
+	 * @param value Neuer unskalierter Wert
+	 */
+	public void setByte(final Data data, final byte value) {
+		setLong(data, value);
+	}
+
+	/**
+	 * Setzt den unskalierten Wert eines Ganzzahlattributs.
+	 *
+	 * @param data  Modifizierbarer Datensatz der Attributgruppe dieses Pfads
+	 * @param value Neuer unskalierter Wert
+	 */
+	public void setShort(final Data data, final short value) {
+		setLong(data, value);
+	}
+
+	/**
+	 * Setzt den unskalierten Wert eines Ganzzahlattributs.
+	 *
+	 * @param data  Modifizierbarer Datensatz der Attributgruppe dieses Pfads
+	 * @param value Neuer unskalierter Wert
+	 */
+	public void setInt(final Data data, final int value) {
+		setLong(data, value);
+	}
+
+	/**
+	 * Setzt den unskalierten Wert eines Ganzzahlattributs.
+	 *
+	 * @param data  Modifizierbarer Datensatz der Attributgruppe dieses Pfads
+	 * @param value Neuer unskalierter Wert
+	 *
+	 * @throws IllegalArgumentException Wenn der Wert nicht in der Byte-Anzahl des Attributtyps darstellbar ist
+	 */
+	public void setLong(final Data data, final long value) {
+		if(!(_targetType instanceof IntegerAttributeType)) {
+			throw new UnsupportedOperationException("Attribut " + _path + " ist kein Ganzzahlattribut");
+		}
+		final int byteCount = getDefinitionInfo().getFixedSize();
+		switch(byteCount) {
+			case 1:
+				if(value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) throw new IllegalArgumentException("Wert " + value + " nicht in einem Byte darstellbar");
+				break;
+			case 2:
+				if(value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+					throw new IllegalArgumentException("Wert " + value + " nicht in einem Short darstellbar");
+				}
+				break;
+			case 4:
+				if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("Wert " + value + " nicht in einem Integer darstellbar");
+				}
+				break;
+		}
+		write(data, byteCount, value);
+	}
+
+	/**
+	 * Setzt den Wert eines Fließkommaattributs.
+	 *
+	 * @param data  Modifizierbarer Datensatz der Attributgruppe dieses Pfads
+	 * @param value Neuer Wert
+	 */
+	public void setFloat(final Data data, final float value) {
+		setDouble(data, value);
+	}
+
+	/**
+	 * Setzt den Wert eines Fließkommaattributs.
+	 *
+	 * @param data  Modifizierbarer Datensatz der Attributgruppe dieses Pfads
+	 * @param value Neuer Wert
+	 */
+	public void setDouble(final Data data, final double value) {
+		if(!(_targetType instanceof DoubleAttributeType)) {
+			throw new UnsupportedOperationException("Attribut " + _path + " ist kein Fließkommaattribut");
+		}
+		if(getDefinitionInfo().getFixedSize() == 4) {
+			write(data, 4, Float.floatToIntBits((float)value));
+		}
+		else {
+			write(data, 8, Double.doubleToLongBits(value));
+		}
+	}
+
+	private void write(final Data data, final int size, final long value) {
+		if(!(data instanceof ByteArrayModifiableListData)) {
+			throw new UnsupportedOperationException("Datensatz kann über einen Attributpfad nicht verändert werden: " + data.getClass().getName());
+		}
+		final ModifiableBytes buffer = getModifiableBytes(data);
+		buffer.writeNumber(getOffset(buffer.getBytes(), 0), size, value);
+	}
+
+	/**
+	 * Prüft, ob die Position des Zielattributs unabhängig vom Inhalt der Datensätze ist.
+	 *
+	 * @return <code>true</code>, wenn die Position nur einmal berechnet wurde, sonst <code>false</code>
+	 */
+	public boolean isFixedOffset() {
+		return _fixedOffset >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return "AttributePathHandle{" + _path + (isFixedOffset() ? ", offset: " + _fixedOffset : "") + ", indexes: " + Arrays.toString(_indexes) + "}";
+	}
+}
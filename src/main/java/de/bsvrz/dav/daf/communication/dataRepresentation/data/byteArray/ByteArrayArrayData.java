@@ -27,11 +27,19 @@ package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
 
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.AbsoluteMillisecondsDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.AbsoluteSecondsDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.RelativeMillisecondsDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.RelativeSecondsDefinitionInfo;
 import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerValueRange;
 import de.bsvrz.dav.daf.main.config.ObjectLookup;
 import de.bsvrz.dav.daf.main.config.SystemObject;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -246,6 +254,13 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 	public long[] getSecondsArray() {
 		long[] result = new long[_length];
+		if(readRawTimes(result)) {
+			final int scale = getRawTimeScale();
+			if(scale == 1000) {
+				for(int i = 0; i < _length; ++i) result[i] /= 1000L;
+			}
+			return result;
+		}
 		for(int i = 0; i < _length; ++i) {
 			result[i] = getTimeValue(i).getSeconds();
 		}
@@ -254,10 +269,52 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 	public long[] getMillisArray() {
 		long[] result = new long[_length];
+		getMillisArray(result);
+		return result;
+	}
+
+	public int getMillisArray(final long[] destination) {
+		checkDestinationLength(destination.length);
+		if(readRawTimes(destination)) {
+			if(getRawTimeScale() == 1) {
+				for(int i = 0; i < _length; ++i) destination[i] *= 1000L;
+			}
+			return _length;
+		}
 		for(int i = 0; i < _length; ++i) {
-			result[i] = getTimeValue(i).getMillis();
+			destination[i] = getTimeValue(i).getMillis();
 		}
-		return result;
+		return _length;
+	}
+
+	/**
+	 * Liefert den Faktor zwischen den gespeicherten Zeitwerten und Millisekunden.
+	 *
+	 * @return 1000 bei millisekundengenauen Zeitangaben, 1 bei sekundengenauen Zeitangaben und 0, wenn die Elemente keine Zeitangaben sind
+	 */
+	private int getRawTimeScale() {
+		final AttributeDefinitionInfo definitionInfo = _info.getDefinitionInfo();
+		if(definitionInfo instanceof RelativeMillisecondsDefinitionInfo || definitionInfo instanceof AbsoluteMillisecondsDefinitionInfo) return 1000;
+		if(definitionInfo instanceof RelativeSecondsDefinitionInfo || definitionInfo instanceof AbsoluteSecondsDefinitionInfo) return 1;
+		return 0;
+	}
+
+	/**
+	 * Überträgt die gespeicherten Zeitwerte ohne Umrechnung blockweise in das Zielarray.
+	 *
+	 * @param destination Zielarray
+	 *
+	 * @return <code>true</code>, wenn die Werte übertragen wurden, <code>false</code>, wenn die Elemente keine Zeitangaben sind
+	 */
+	private boolean readRawTimes(final long[] destination) {
+		final AttributeDefinitionInfo definitionInfo = _info.getDefinitionInfo();
+		if(definitionInfo instanceof AbsoluteSecondsDefinitionInfo) {
+			PrimitiveArrayDecoder.readUnsignedInts(_bytes, _offset + 4, _length, destination);
+			return true;
+		}
+		if(getRawTimeScale() == 0) return false;
+		PrimitiveArrayDecoder.readLongs(_bytes, _offset + 4, definitionInfo.getFixedSize(), _length, destination);
+		return true;
 	}
 
 	public Data.TextArray asTextArray() {
@@ -289,8 +346,23 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 	public SystemObject[] getSystemObjectArray() {
 		SystemObject[] result = new SystemObject[_length];
+		if(_length == 0) return result;
+		// Alle Objekte mit einer Anfrage ermitteln, damit unbekannte Objekte nicht einzeln von der Konfiguration angefordert werden
+		final long[] ids = new long[_length];
+		if(_info.getDefinitionInfo().isReferenceAttribute()) {
+			PrimitiveArrayDecoder.readLongs(_bytes, _offset + 4, 8, _length, ids);
+		}
+		else {
+			for(int i = 0; i < _length; ++i) {
+				ids[i] = getReferenceValue(i).getId();
+			}
+		}
+		final List<SystemObject> objects = getAttributeType().getDataModel().getObjects(ids);
 		for(int i = 0; i < _length; ++i) {
-			result[i] = getReferenceValue(i).getSystemObject();
+			if(ids[i] == 0) continue;
+			final SystemObject object = objects.get(i);
+			if(object == null) throw new RuntimeException(new IllegalStateException("Ungültiges Objekt mit id " + ids[i]));
+			result[i] = object;
 		}
 		return result;
 	}
@@ -350,22 +422,40 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 	public int[] getIntArray() {
 		int[] result = new int[_length];
+		getIntArray(result);
+		return result;
+	}
+
+	public int getIntArray(final int[] destination) {
+		checkDestinationLength(destination.length);
+		if(readIntegers(destination, null, true)) return _length;
 		for(int i = 0; i < _length; ++i) {
-			result[i] = getScaledValue(i).intValue();
+			destination[i] = getScaledValue(i).intValue();
 		}
-		return result;
+		return _length;
 	}
 
 	public long[] getLongArray() {
 		long[] result = new long[_length];
+		getLongArray(result);
+		return result;
+	}
+
+	public int getLongArray(final long[] destination) {
+		checkDestinationLength(destination.length);
+		if(readIntegers(null, destination, true)) return _length;
 		for(int i = 0; i < _length; ++i) {
-			result[i] = getScaledValue(i).longValue();
+			destination[i] = getScaledValue(i).longValue();
 		}
-		return result;
+		return _length;
 	}
 
 	public float[] getFloatArray() {
 		float[] result = new float[_length];
+		if(getFloatingPointElementSize() == 4) {
+			PrimitiveArrayDecoder.readFloats(_bytes, _offset + 4, _length, result);
+			return result;
+		}
 		for(int i = 0; i < _length; ++i) {
 			result[i] = getScaledValue(i).floatValue();
 		}
@@ -374,10 +464,95 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 	public double[] getDoubleArray() {
 		double[] result = new double[_length];
+		getDoubleArray(result);
+		return result;
+	}
+
+	public int getDoubleArray(final double[] destination) {
+		checkDestinationLength(destination.length);
+		final int size = getFloatingPointElementSize();
+		if(size > 0) {
+			PrimitiveArrayDecoder.readDoubles(_bytes, _offset + 4, size, _length, destination);
+			return _length;
+		}
 		for(int i = 0; i < _length; ++i) {
-			result[i] = getScaledValue(i).doubleValue();
+			destination[i] = getScaledValue(i).doubleValue();
 		}
-		return result;
+		return _length;
+	}
+
+	private void checkDestinationLength(final int destinationLength) {
+		if(destinationLength < _length) throw new IllegalArgumentException("Zielarray zu klein: " + destinationLength + " < " + _length);
+	}
+
+	/**
+	 * Liefert die Größe der Elemente in Bytes, wenn das Array Ganzzahlen enthält.
+	 *
+	 * @return Anzahl Bytes pro Element oder -1, wenn das Array keine Ganzzahlen enthält
+	 */
+	private int getIntegerElementSize() {
+		final AttributeDefinitionInfo definitionInfo = _info.getDefinitionInfo();
+		if(definitionInfo.isScalableNumberAttribute()) return definitionInfo.getFixedSize();
+		return -1;
+	}
+
+	/**
+	 * Liefert die Größe der Elemente in Bytes, wenn das Array Fließkommazahlen enthält.
+	 *
+	 * @return 4 bei <code>float</code>, 8 bei <code>double</code> oder -1, wenn das Array keine Fließkommazahlen enthält
+	 */
+	private int getFloatingPointElementSize() {
+		final AttributeDefinitionInfo definitionInfo = _info.getDefinitionInfo();
+		if(definitionInfo.isNumberAttribute() && !definitionInfo.isScalableNumberAttribute()) return definitionInfo.getFixedSize();
+		return -1;
+	}
+
+	/**
+	 * Liefert den Wertebereich des Attributtyps, wenn skalierte und unskalierte Werte übereinstimmen.
+	 *
+	 * @return Wertebereich mit Skalierungsfaktor 1 oder <code>null</code>, wenn kein solcher Wertebereich definiert ist
+	 */
+	private IntegerValueRange getUnscaledRange() {
+		final AttributeType type = _info.getDefinitionInfo().getAttributeType();
+		if(!(type instanceof IntegerAttributeType)) return null;
+		final IntegerValueRange range = ((IntegerAttributeType)type).getRange();
+		if(range == null || range.getConversionFactor() != 1) return null;
+		return range;
+	}
+
+	/**
+	 * Überträgt die Ganzzahlelemente blockweise in das Zielarray. Bei skalierten Werten wird wie beim Einzelzugriff geprüft, dass die Werte im
+	 * Wertebereich liegen. Genau eines der beiden Zielarrays muss angegeben werden.
+	 *
+	 * @param intDestination  Zielarray für <code>int</code>-Werte oder <code>null</code>
+	 * @param longDestination Zielarray für <code>long</code>-Werte oder <code>null</code>
+	 * @param scaled          <code>true</code>, wenn die skalierten Werte gefordert sind
+	 *
+	 * @return <code>true</code>, wenn die Werte übertragen wurden, <code>false</code>, wenn der Einzelzugriff verwendet werden muss
+	 */
+	private boolean readIntegers(final int[] intDestination, final long[] longDestination, final boolean scaled) {
+		final int size = getIntegerElementSize();
+		if(size < 0 || (intDestination != null && size > 4)) return false;
+		final IntegerValueRange range = scaled ? getUnscaledRange() : null;
+		if(scaled && range == null) return false;
+		if(intDestination != null) {
+			PrimitiveArrayDecoder.readInts(_bytes, _offset + 4, size, _length, intDestination);
+		}
+		else {
+			PrimitiveArrayDecoder.readLongs(_bytes, _offset + 4, size, _length, longDestination);
+		}
+		if(range != null) {
+			final long minimum = range.getMinimum();
+			final long maximum = range.getMaximum();
+			for(int i = 0; i < _length; ++i) {
+				final long value = intDestination != null ? intDestination[i] : longDestination[i];
+				if(value < minimum || value > maximum) {
+					// Löst dieselbe Ausnahme wie der Einzelzugriff aus
+					_info.getDefinitionInfo().longValue(_bytes, _offset + 4 + i * size);
+				}
+			}
+		}
+		return true;
 	}
 
 	public Data.NumberArray asUnscaledArray() {
@@ -478,18 +653,32 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 		public int[] getIntArray() {
 			int[] result = new int[_length];
+			getIntArray(result);
+			return result;
+		}
+
+		public int getIntArray(final int[] destination) {
+			checkDestinationLength(destination.length);
+			if(readIntegers(destination, null, false)) return _length;
 			for(int i = 0; i < _length; ++i) {
-				result[i] = getUnscaledValue(i).intValue();
+				destination[i] = getUnscaledValue(i).intValue();
 			}
-			return result;
+			return _length;
 		}
 
 		public long[] getLongArray() {
 			long[] result = new long[_length];
+			getLongArray(result);
+			return result;
+		}
+
+		public int getLongArray(final long[] destination) {
+			checkDestinationLength(destination.length);
+			if(readIntegers(null, destination, false)) return _length;
 			for(int i = 0; i < _length; ++i) {
-				result[i] = getUnscaledValue(i).longValue();
+				destination[i] = getUnscaledValue(i).longValue();
 			}
-			return result;
+			return _length;
 		}
 
 		public float[] getFloatArray() {
@@ -502,10 +691,21 @@ public class ByteArrayArrayData extends ByteArrayStructuredData implements Data.
 
 		public double[] getDoubleArray() {
 			double[] result = new double[_length];
+			getDoubleArray(result);
+			return result;
+		}
+
+		public int getDoubleArray(final double[] destination) {
+			checkDestinationLength(destination.length);
+			final int size = getIntegerElementSize();
+			if(size > 0) {
+				PrimitiveArrayDecoder.readIntegersAsDoubles(_bytes, _offset + 4, size, _length, destination);
+				return _length;
+			}
 			for(int i = 0; i < _length; ++i) {
-				result[i] = getUnscaledValue(i).doubleValue();
+				destination[i] = getUnscaledValue(i).doubleValue();
 			}
-			return result;
+			return _length;
 		}
 
 	}
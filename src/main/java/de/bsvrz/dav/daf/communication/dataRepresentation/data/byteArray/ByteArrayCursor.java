@@ -0,0 +1,448 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerValueState;
+
+import java.util.Arrays;
+
+/**
+ * Wiederverwendbarer Cursor zum Durchlaufen von Datensätzen im serialisierten Format ({@link ByteArrayData}), ohne dass für die einzelnen
+ * Attribute und Arrayelemente Data-Objekte erzeugt werden. Der Cursor steht immer auf genau einem Attribut bzw. Arrayelement. Mit {@link
+ * #enter()} wird in eine Attributliste bzw. ein Array abgestiegen, mit {@link #next()} zum nächsten Attribut derselben Ebene gewechselt und mit
+ * {@link #leave()} zur übergeordneten Ebene zurückgekehrt. Die Werte einfacher Attribute können über die typisierten Getter direkt aus dem
+ * Byte-Array gelesen werden.
+ * <p>
+ * Mit {@link #accept(Visitor)} kann ein ganzer Datensatz bzw. Teilbaum durchlaufen werden. Nach einer Anlaufphase, in der die internen Arrays
+ * auf die Schachtelungstiefe der Attributgruppe wachsen, werden dabei keine Objekte mehr erzeugt. Mit {@link #reset(Data)} kann derselbe Cursor
+ * für weitere Datensätze verwendet werden.
+ * <p>
+ * Die Klasse ist nicht threadsicher.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class ByteArrayCursor {
+
+	private byte[] _bytes;
+
+	/** Aktuelle Ebene, 0 ist der Datensatz bzw. das Attribut, mit dem der Cursor initialisiert wurde. */
+	private int _depth;
+
+	/** Beschreibung des aktuellen Attributs je Ebene */
+	private AttributeInfo[] _infos = new AttributeInfo[8];
+
+	/** Position des aktuellen Attributs je Ebene */
+	private int[] _offsets = new int[8];
+
+	/** Index des aktuellen Attributs innerhalb der übergeordneten Liste bzw. des übergeordneten Arrays je Ebene */
+	private int[] _indexes = new int[8];
+
+	/** Anzahl Attribute bzw. Elemente je Ebene */
+	private int[] _counts = new int[8];
+
+	/** <code>true</code>, wenn die Attribute der Ebene Elemente eines Arrays sind */
+	private boolean[] _arrayElements = new boolean[8];
+
+	/** Name des Attributs auf Ebene 0 */
+	private String _rootName;
+
+	/**
+	 * Erzeugt einen Cursor, der auf dem übergebenen Datensatz steht.
+	 *
+	 * @param data Datensatz bzw. Attribut im serialisierten Format, wie es beim Empfang von Daten geliefert wird
+	 *
+	 * @throws IllegalArgumentException Wenn das übergebene Objekt nicht auf einem Byte-Array basiert
+	 */
+	public ByteArrayCursor(final Data data) {
+		reset(data);
+	}
+
+	/**
+	 * Positioniert den Cursor auf einem anderen Datensatz.
+	 *
+	 * @param data Datensatz bzw. Attribut im serialisierten Format
+	 *
+	 * @throws IllegalArgumentException Wenn das übergebene Objekt nicht auf einem Byte-Array basiert
+	 */
+	public void reset(final Data data) {
+		if(!(data instanceof ByteArrayData)) {
+			throw new IllegalArgumentException("Cursor wird nur für serialisierte Datensätze unterstützt: " + (data == null ? null : data.getClass().getName()));
+		}
+		final ByteArrayData byteArrayData = (ByteArrayData)data;
+		_bytes = byteArrayData._bytes;
+		_depth = 0;
+		_infos[0] = byteArrayData._info;
+		_offsets[0] = byteArrayData._offset;
+		_indexes[0] = 0;
+		_counts[0] = 1;
+		_arrayElements[0] = false;
+		_rootName = byteArrayData.getName();
+	}
+
+	/**
+	 * Liefert die aktuelle Ebene.
+	 *
+	 * @return 0 für den Datensatz bzw. das Attribut, mit dem der Cursor initialisiert wurde, 1 für dessen Unterattribute usw.
+	 */
+	public int getDepth() {
+		return _depth;
+	}
+
+	/**
+	 * Liefert den Namen des aktuellen Attributs. Bei Arrayelementen wird der Index als Text geliefert, dafür wird jeweils ein neues
+	 * String-Objekt erzeugt; zur allokationsfreien Verarbeitung sollte dort {@link #getIndex()} verwendet werden.
+	 *
+	 * @return Name des Attributs
+	 */
+	public String getName() {
+		if(_depth == 0) return _rootName;
+		if(_arrayElements[_depth]) return String.valueOf(_indexes[_depth]);
+		return _infos[_depth].getName();
+	}
+
+	/**
+	 * Liefert den Index des aktuellen Attributs innerhalb der übergeordneten Attributliste bzw. des übergeordneten Arrays.
+	 *
+	 * @return Index
+	 */
+	public int getIndex() {
+		return _indexes[_depth];
+	}
+
+	/**
+	 * Prüft, ob das aktuelle Attribut ein Element eines Arrays ist.
+	 *
+	 * @return <code>true</code> bei Arrayelementen, sonst <code>false</code>
+	 */
+	public boolean isArrayElement() {
+		return _arrayElements[_depth];
+	}
+
+	public boolean isArray() {
+		return _infos[_depth].isArray();
+	}
+
+	public boolean isList() {
+		final AttributeInfo info = _infos[_depth];
+		return !info.isArray() && info.getDefinitionInfo().isList();
+	}
+
+	public boolean isPlain() {
+		final AttributeInfo info = _infos[_depth];
+		return !info.isArray() && !info.getDefinitionInfo().isList();
+	}
+
+	/**
+	 * Liefert den Attributtyp des aktuellen Attributs bzw. bei Arrays den Attributtyp der Elemente.
+	 *
+	 * @return Attributtyp
+	 */
+	public AttributeType getAttributeType() {
+		return _infos[_depth].getDefinitionInfo().getAttributeType();
+	}
+
+	/**
+	 * Liefert die Anzahl der Unterattribute einer Attributliste bzw. die Anzahl der Elemente eines Arrays.
+	 *
+	 * @return Anzahl der Unterattribute bzw. Elemente, 0 bei einfachen Attributen
+	 */
+	public int getChildCount() {
+		final AttributeInfo info = _infos[_depth];
+		if(info.isArray()) return info.getElementCount(_bytes, _offsets[_depth]);
+		final AttributeDefinitionInfo definitionInfo = info.getDefinitionInfo();
+		if(definitionInfo.isList()) return definitionInfo.getItemCount();
+		return 0;
+	}
+
+	/**
+	 * Steigt in die aktuelle Attributliste bzw. das aktuelle Array ab und positioniert den Cursor auf dem ersten Unterattribut bzw. Element.
+	 *
+	 * @return <code>true</code>, wenn der Cursor auf dem ersten Unterattribut bzw. Element steht, <code>false</code>, wenn das aktuelle Attribut
+	 *         ein einfaches Attribut, eine leere Liste oder ein leeres Array ist. In diesem Fall bleibt der Cursor unverändert.
+	 */
+	public boolean enter() {
+		final AttributeInfo info = _infos[_depth];
+		final int offset = _offsets[_depth];
+		if(info.isArray()) {
+			final int count = info.getElementCount(_bytes, offset);
+			if(count == 0) return false;
+			push(info.getElementInfo(), offset + 4, 0, count, true);
+			return true;
+		}
+		final AttributeDefinitionInfo definitionInfo = info.getDefinitionInfo();
+		if(!definitionInfo.isList()) return false;
+		final int count = definitionInfo.getItemCount();
+		if(count == 0) return false;
+		push(definitionInfo.getItem(0), offset, 0, count, false);
+		return true;
+	}
+
+	/**
+	 * Steigt in die aktuelle Attributliste ab und positioniert den Cursor auf dem angegebenen Unterattribut.
+	 *
+	 * @param itemName Name des Unterattributs
+	 *
+	 * @throws IllegalArgumentException Wenn das aktuelle Attribut keine Attributliste ist oder kein Unterattribut mit dem Namen enthält
+	 */
+	public void enter(final String itemName) {
+		final AttributeInfo info = _infos[_depth];
+		final AttributeDefinitionInfo definitionInfo = info.getDefinitionInfo();
+		if(info.isArray() || !definitionInfo.isList()) {
+			throw new IllegalArgumentException("Attribut " + getName() + " ist keine Attributliste");
+		}
+		final AttributeInfo item;
+		try {
+			item = definitionInfo.getItem(itemName);
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Attribut " + itemName + " in " + getName() + " nicht gefunden", e);
+		}
+		final int count = definitionInfo.getItemCount();
+		int index = 0;
+		while(index < count && definitionInfo.getItem(index) != item) index++;
+		push(item, item.getAbsoluteOffset(_bytes, _offsets[_depth]), index, count, false);
+	}
+
+	/**
+	 * Steigt in das aktuelle Array ab und positioniert den Cursor auf dem angegebenen Element.
+	 *
+	 * @param elementIndex Index des Elements
+	 *
+	 * @throws IllegalArgumentException       Wenn das aktuelle Attribut kein Array ist
+	 * @throws ArrayIndexOutOfBoundsException Wenn der Index ungültig ist
+	 */
+	public void enter(final int elementIndex) {
+		final AttributeInfo info = _infos[_depth];
+		if(!info.isArray()) throw new IllegalArgumentException("Attribut " + getName() + " ist kein Array");
+		final int offset = _offsets[_depth];
+		final int elementOffset = info.getAbsoluteElementOffset(_bytes, offset, elementIndex);
+		push(info.getElementInfo(), elementOffset, elementIndex, info.getElementCount(_bytes, offset), true);
+	}
+
+	/**
+	 * Wechselt zum nächsten Attribut bzw. Element derselben Ebene.
+	 *
+	 * @return <code>true</code>, wenn der Cursor gewechselt hat, <code>false</code>, wenn der Cursor bereits auf dem letzten Attribut bzw. Element
+	 *         stand. In diesem Fall bleibt der Cursor unverändert.
+	 */
+	public boolean next() {
+		final int depth = _depth;
+		final int index = _indexes[depth] + 1;
+		if(index >= _counts[depth]) return false;
+		final AttributeInfo info = _infos[depth];
+		_offsets[depth] += info.getSize(_bytes, _offsets[depth]);
+		_indexes[depth] = index;
+		if(!_arrayElements[depth]) {
+			_infos[depth] = _infos[depth - 1].getDefinitionInfo().getItem(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Kehrt zur übergeordneten Attributliste bzw. zum übergeordneten Array zurück.
+	 *
+	 * @throws IllegalStateException Wenn der Cursor auf Ebene 0 steht
+	 */
+	public void leave() {
+		if(_depth == 0) throw new IllegalStateException("Cursor steht bereits auf der obersten Ebene");
+		_infos[_depth] = null;
+		_depth--;
+	}
+
+	private void push(final AttributeInfo info, final int offset, final int index, final int count, final boolean arrayElements) {
+		final int depth = _depth + 1;
+		if(depth == _infos.length) grow();
+		_infos[depth] = info;
+		_offsets[depth] = offset;
+		_indexes[depth] = index;
+		_counts[depth] = count;
+		_arrayElements[depth] = arrayElements;
+		_depth = depth;
+	}
+
+	private void grow() {
+		final int newLength = _infos.length * 2;
+		_infos = Arrays.copyOf(_infos, newLength);
+		_offsets = Arrays.copyOf(_offsets, newLength);
+		_indexes = Arrays.copyOf(_indexes, newLength);
+		_counts = Arrays.copyOf(_counts, newLength);
+		_arrayElements = Arrays.copyOf(_arrayElements, newLength);
+	}
+
+	/**
+	 * Durchläuft das aktuelle Attribut und alle darin enthaltenen Attribute in der Reihenfolge der Serialisierung. Nach dem Durchlauf steht der
+	 * Cursor wieder auf dem aktuellen Attribut.
+	 *
+	 * @param visitor Objekt, das über die einzelnen Attribute informiert wird
+	 */
+	public void accept(final Visitor visitor) {
+		final int startDepth = _depth;
+		while(true) {
+			if(isPlain()) {
+				visitor.visitPlain(this);
+			}
+			else if(visitor.startStructure(this)) {
+				if(enter()) continue;
+				visitor.endStructure(this);
+			}
+			// Zum nächsten Attribut wechseln, dabei abgeschlossene Listen und Arrays verlassen
+			while(true) {
+				if(_depth == startDepth) return;
+				if(next()) break;
+				leave();
+				visitor.endStructure(this);
+			}
+		}
+	}
+
+	private AttributeDefinitionInfo getDefinitionInfo() {
+		return _infos[_depth].getDefinitionInfo();
+	}
+
+	/**
+	 * Liefert den unskalierten Wert des aktuellen Ganzzahlattributs.
+	 *
+	 * @return Unskalierter Wert
+	 */
+	public long getUnscaledLong() {
+		return getDefinitionInfo().unscaledLongValue(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Liefert den unskalierten Wert des aktuellen Ganzzahlattributs, das in einem <code>int</code> darstellbar sein muss.
+	 *
+	 * @return Unskalierter Wert
+	 */
+	public int getUnscaledInt() {
+		return getDefinitionInfo().unscaledIntValue(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Liefert den skalierten Wert des aktuellen Zahlattributs.
+	 *
+	 * @return Skalierter Wert
+	 */
+	public double getScaledDouble() {
+		return getDefinitionInfo().doubleValue(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Prüft, ob das aktuelle Ganzzahlattribut einen Wert innerhalb des definierten Wertebereichs enthält.
+	 *
+	 * @return <code>true</code>, wenn der Wert im Wertebereich liegt
+	 */
+	public boolean isNumber() {
+		return getDefinitionInfo().isNumber(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Liefert den Zustand des aktuellen Ganzzahlattributs.
+	 *
+	 * @return Zustand oder <code>null</code>, wenn der Wert keinem Zustand entspricht
+	 */
+	public IntegerValueState getState() {
+		return getDefinitionInfo().getState(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Liefert den Wert des aktuellen Zeitattributs in Millisekunden.
+	 *
+	 * @return Zeitwert in Millisekunden
+	 */
+	public long getMillis() {
+		return getDefinitionInfo().getMillis(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Liefert die Objekt-Id des aktuellen Referenzattributs.
+	 *
+	 * @return Id des referenzierten Objekts oder 0
+	 */
+	public long getId() {
+		return getDefinitionInfo().getId(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Liefert den Wert des aktuellen Attributs als Text ohne Einheit.
+	 *
+	 * @return Text des Werts
+	 */
+	public String getValueText() {
+		return getDefinitionInfo().getValueText(_bytes, _offsets[_depth]);
+	}
+
+	/**
+	 * Erzeugt ein Data-Objekt für das aktuelle Attribut, z.B. um es an Methoden zu übergeben, die ein Data-Objekt erwarten.
+	 *
+	 * @return Neues Data-Objekt für das aktuelle Attribut
+	 */
+	public Data toData() {
+		if(_arrayElements[_depth]) return ByteArrayData.create(_bytes, _offsets[_depth], _infos[_depth], _indexes[_depth]);
+		return ByteArrayData.create(_bytes, _offsets[_depth], _infos[_depth]);
+	}
+
+	@Override
+	public String toString() {
+		return "ByteArrayCursor{" + "Ebene: " + _depth + ", Attribut: " + getName() + ", Position: " + _offsets[_depth] + "}";
+	}
+
+	/**
+	 * Schnittstelle zum Durchlaufen eines Datensatzes mit {@link ByteArrayCursor#accept(Visitor)}. Die Methoden erhalten den Cursor, der auf dem
+	 * jeweiligen Attribut steht; der Cursor darf in den Methoden gelesen, aber nicht verschoben werden.
+	 */
+	public interface Visitor {
+
+		/**
+		 * Wird für jedes einfache Attribut bzw. Element eines Arrays mit einfachen Attributen aufgerufen.
+		 *
+		 * @param cursor Cursor, der auf dem Attribut steht
+		 */
+		void visitPlain(ByteArrayCursor cursor);
+
+		/**
+		 * Wird beim Erreichen einer Attributliste bzw. eines Arrays aufgerufen.
+		 *
+		 * @param cursor Cursor, der auf der Attributliste bzw. dem Array steht
+		 *
+		 * @return <code>true</code>, wenn die enthaltenen Attribute besucht werden sollen, <code>false</code>, wenn sie übersprungen werden sollen.
+		 *         Im zweiten Fall wird {@link #endStructure(ByteArrayCursor)} nicht aufgerufen.
+		 */
+		boolean startStructure(ByteArrayCursor cursor);
+
+		/**
+		 * Wird nach dem Besuch aller Attribute einer Attributliste bzw. eines Arrays aufgerufen.
+		 *
+		 * @param cursor Cursor, der wieder auf der Attributliste bzw. dem Array steht
+		 */
+		void endStructure(ByteArrayCursor cursor);
+	}
+}
@@ -30,10 +30,14 @@ import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.Abst
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.ReferenceDefinitionInfo;
 import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DataModel;
 import de.bsvrz.dav.daf.main.config.StringAttributeType;
 import de.bsvrz.dav.daf.main.config.UndefinedAttributeValueAccess;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Klasse, die noch zu dokumentieren ist.
@@ -282,19 +286,32 @@ public abstract class ByteArrayData implements Data {
 
 	/**
 	 * Diese Methode betrachtet rekursiv alle Attribute und sorgt mit entsprechenden Konfigurationsanfragen dafür, dass
-	 * Referenzen auf lokal noch nicht bekannte Objekte aufgelöst werden.
+	 * Referenzen auf lokal noch nicht bekannte Objekte aufgelöst werden. Dazu werden zuerst die Ids aller referenzierten Objekte gesammelt und dann pro
+	 * Datenmodell mit einem einzigen Aufruf von {@link DataModel#getObjects(long...)} abgefragt, so dass für alle noch nicht bekannten Objekte zusammen nur
+	 * eine Konfigurationsanfrage erforderlich ist.
 	 */
 	public void resolveReferences() {
+		final ReferenceCollector referenceCollector = new ReferenceCollector();
+		collectReferences(referenceCollector);
+		referenceCollector.resolve();
+	}
+
+	/**
+	 * Sammelt rekursiv die Ids aller in diesem Attribut referenzierten Objekte.
+	 *
+	 * @param referenceCollector Objekt, in dem die Ids gesammelt werden
+	 */
+	private void collectReferences(final ReferenceCollector referenceCollector) {
 		if(isPlain()) {
 			if(getInfo().getDefinitionInfo() instanceof ReferenceDefinitionInfo) {
-				asReferenceValue().getSystemObject();
+				referenceCollector.add(getAttributeType().getDataModel(), asReferenceValue().getId());
 			}
 		}
 		else {
 			for(final Data subData : this) {
 				try {
 					ByteArrayData item = (ByteArrayData) subData;
-					item.resolveReferences();
+					item.collectReferences(referenceCollector);
 				}
 				catch(Exception ignored) {
 				}
@@ -302,4 +319,53 @@ public abstract class ByteArrayData implements Data {
 		}
 	}
 
+	/** Sammelt Objekt-Ids pro Datenmodell, um sie gemeinsam aufzulösen. */
+	private static final class ReferenceCollector {
+
+		private final Map<DataModel, IdList> _idLists = new IdentityHashMap<DataModel, IdList>();
+
+		void add(final DataModel dataModel, final long id) {
+			if(id == 0) return;
+			IdList idList = _idLists.get(dataModel);
+			if(idList == null) {
+				idList = new IdList();
+				_idLists.put(dataModel, idList);
+			}
+			idList.add(id);
+		}
+
+		void resolve() {
+			for(Map.Entry<DataModel, IdList> entry : _idLists.entrySet()) {
+				entry.getKey().getObjects(entry.getValue().getDistinctIds());
+			}
+		}
+	}
+
+	/** Liste von Objekt-Ids */
+	private static final class IdList {
+
+		private long[] _ids = new long[16];
+
+		private int _count = 0;
+
+		void add(final long id) {
+			if(_count == _ids.length) _ids = Arrays.copyOf(_ids, _count * 2);
+			_ids[_count++] = id;
+		}
+
+		/**
+		 * Liefert die gesammelten Ids ohne Duplikate, damit mehrfach referenzierte Objekte nur einmal angefragt werden.
+		 *
+		 * @return Sortiertes Array der Ids
+		 */
+		long[] getDistinctIds() {
+			Arrays.sort(_ids, 0, _count);
+			int distinct = 0;
+			for(int i = 0; i < _count; i++) {
+				if(distinct == 0 || _ids[distinct - 1] != _ids[i]) _ids[distinct++] = _ids[i];
+			}
+			return Arrays.copyOf(_ids, distinct);
+		}
+	}
+
 }
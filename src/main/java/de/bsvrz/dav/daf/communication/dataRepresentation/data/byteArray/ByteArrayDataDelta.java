@@ -0,0 +1,342 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.AttributeGroupInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Strukturelle Differenz zwischen zwei serialisierten Datensätzen derselben Attributgruppe. Die Differenz besteht aus den geänderten einfachen
+ * Attributen bzw. Arrayelementen mit ihrem neuen serialisierten Wert. Hat sich die Größe eines Arrays geändert, dann wird das gesamte Array
+ * ersetzt.
+ * <p>
+ * Eine Differenz kann zur Änderungserkennung ({@link #isEmpty()}, {@link #getChangedPaths()}) verwendet, auf den Ausgangsdatensatz angewendet
+ * ({@link #apply(Data)}) und für eine kompakte Speicherung von Datensatzverläufen serialisiert werden ({@link #toByteArray()}, {@link
+ * #fromByteArray(AttributeGroup, byte[])}).
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class ByteArrayDataDelta {
+
+	/** Version des serialisierten Formats */
+	private static final int FORMAT_VERSION = 1;
+
+	private final AttributeInfo _info;
+
+	/** Indexpfade der geänderten Attribute in der Reihenfolge der Serialisierung */
+	private final List<int[]> _paths;
+
+	/** Neue serialisierte Werte der geänderten Attribute */
+	private final List<byte[]> _values;
+
+	private ByteArrayDataDelta(final AttributeInfo info, final List<int[]> paths, final List<byte[]> values) {
+		_info = info;
+		_paths = paths;
+		_values = values;
+	}
+
+	/**
+	 * Bestimmt die Differenz zwischen zwei Datensätzen derselben Attributgruppe.
+	 *
+	 * @param base   Ausgangsdatensatz
+	 * @param target Neuer Datensatz
+	 *
+	 * @return Differenz, die angewendet auf <code>base</code> den Datensatz <code>target</code> ergibt
+	 *
+	 * @throws IllegalArgumentException Wenn die Datensätze nicht serialisiert vorliegen oder nicht zur selben Attributgruppe gehören
+	 */
+	public static ByteArrayDataDelta compute(final Data base, final Data target) {
+		final ByteArrayData baseData = toByteArrayData(base);
+		final ByteArrayData targetData = toByteArrayData(target);
+		final AttributeInfo info = baseData._info;
+		if(info != targetData._info && !info.getName().equals(targetData._info.getName())) {
+			throw new IllegalArgumentException("Datensätze unterschiedlicher Attribute können nicht verglichen werden: " + info.getName() + ", " + targetData._info.getName());
+		}
+		final ByteArrayDataDelta delta = new ByteArrayDataDelta(info, new ArrayList<int[]>(), new ArrayList<byte[]>());
+		delta.diff(info, baseData._bytes, baseData._offset, targetData._bytes, targetData._offset, new int[8], 0);
+		return delta;
+	}
+
+	private static ByteArrayData toByteArrayData(final Data data) {
+		if(!(data instanceof ByteArrayData)) {
+			throw new IllegalArgumentException("Differenzen werden nur für serialisierte Datensätze unterstützt: " + (data == null ? null : data.getClass().getName()));
+		}
+		return (ByteArrayData)data;
+	}
+
+	private void diff(
+			final AttributeInfo info,
+			final byte[] baseBytes,
+			final int baseOffset,
+			final byte[] targetBytes,
+			final int targetOffset,
+			int[] path,
+			final int pathLength) {
+		final int baseSize = info.getSize(baseBytes, baseOffset);
+		final int targetSize = info.getSize(targetBytes, targetOffset);
+		if(baseSize == targetSize && rangeEquals(baseBytes, baseOffset, targetBytes, targetOffset, baseSize)) return;
+		if(pathLength == path.length) path = Arrays.copyOf(path, path.length * 2);
+		if(info.isArray()) {
+			final int count = info.getElementCount(baseBytes, baseOffset);
+			if(count != info.getElementCount(targetBytes, targetOffset)) {
+				addChange(path, pathLength, targetBytes, targetOffset, targetSize);
+				return;
+			}
+			final AttributeInfo elementInfo = info.getElementInfo();
+			int baseElementOffset = baseOffset + 4;
+			int targetElementOffset = targetOffset + 4;
+			for(int i = 0; i < count; i++) {
+				path[pathLength] = i;
+				diff(elementInfo, baseBytes, baseElementOffset, targetBytes, targetElementOffset, path, pathLength + 1);
+				baseElementOffset += elementInfo.getSize(baseBytes, baseElementOffset);
+				targetElementOffset += elementInfo.getSize(targetBytes, targetElementOffset);
+			}
+			return;
+		}
+		final AttributeDefinitionInfo definitionInfo = info.getDefinitionInfo();
+		if(definitionInfo.isList()) {
+			final int itemCount = definitionInfo.getItemCount();
+			int baseItemOffset = baseOffset;
+			int targetItemOffset = targetOffset;
+			for(int i = 0; i < itemCount; i++) {
+				final AttributeInfo item = definitionInfo.getItem(i);
+				path[pathLength] = i;
+				diff(item, baseBytes, baseItemOffset, targetBytes, targetItemOffset, path, pathLength + 1);
+				baseItemOffset += item.getSize(baseBytes, baseItemOffset);
+				targetItemOffset += item.getSize(targetBytes, targetItemOffset);
+			}
+			return;
+		}
+		addChange(path, pathLength, targetBytes, targetOffset, targetSize);
+	}
+
+	private void addChange(final int[] path, final int pathLength, final byte[] bytes, final int offset, final int size) {
+		_paths.add(Arrays.copyOf(path, pathLength));
+		_values.add(Arrays.copyOfRange(bytes, offset, offset + size));
+	}
+
+	private static boolean rangeEquals(final byte[] a, final int aOffset, final byte[] b, final int bOffset, final int length) {
+		for(int i = 0; i < length; i++) {
+			if(a[aOffset + i] != b[bOffset + i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Prüft, ob sich die verglichenen Datensätze unterscheiden.
+	 *
+	 * @return <code>true</code>, wenn die Datensätze gleich sind, sonst <code>false</code>
+	 */
+	public boolean isEmpty() {
+		return _paths.isEmpty();
+	}
+
+	/**
+	 * Liefert die Anzahl der geänderten Attribute.
+	 *
+	 * @return Anzahl der geänderten einfachen Attribute, Arrayelemente und in der Größe geänderten Arrays
+	 */
+	public int size() {
+		return _paths.size();
+	}
+
+	/**
+	 * Liefert die Pfade der geänderten Attribute in der Reihenfolge der Serialisierung. Die Namen der einzelnen Ebenen sind durch Punkte getrennt,
+	 * bei Arrayelementen wird der Index angegeben, z.B. <code>"Messwerte.3.Wert"</code>.
+	 *
+	 * @return Unveränderliche Liste der Pfade
+	 */
+	public List<String> getChangedPaths() {
+		final List<String> result = new ArrayList<String>(_paths.size());
+		for(int[] path : _paths) {
+			final StringBuilder text = new StringBuilder();
+			AttributeInfo info = _info;
+			for(int index : path) {
+				if(text.length() > 0) text.append('.');
+				if(info.isArray()) {
+					text.append(index);
+					info = info.getElementInfo();
+				}
+				else {
+					info = info.getDefinitionInfo().getItem(index);
+					text.append(info.getName());
+				}
+			}
+			result.add(text.toString());
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Wendet die Differenz auf einen Ausgangsdatensatz an.
+	 *
+	 * @param base Ausgangsdatensatz, muss dem bei der Berechnung verwendeten Ausgangsdatensatz entsprechen
+	 *
+	 * @return Neuer nicht modifizierbarer Datensatz
+	 *
+	 * @throws IllegalArgumentException Wenn der Datensatz nicht zur Attributgruppe der Differenz passt
+	 */
+	public Data apply(final Data base) {
+		final ByteArrayData baseData = toByteArrayData(base);
+		if(baseData._info != _info && !baseData._info.getName().equals(_info.getName())) {
+			throw new IllegalArgumentException("Datensatz " + baseData._info.getName() + " passt nicht zur Differenz für " + _info.getName());
+		}
+		final byte[] bytes = baseData._bytes;
+		final int start = baseData._offset;
+		final int end = start + _info.getSize(bytes, start);
+		int resultSize = end - start;
+		final int[] offsets = new int[_paths.size()];
+		final int[] sizes = new int[_paths.size()];
+		for(int i = 0; i < offsets.length; i++) {
+			locate(bytes, start, _paths.get(i), offsets, sizes, i);
+			resultSize += _values.get(i).length - sizes[i];
+		}
+		final byte[] result = new byte[resultSize];
+		int position = start;
+		int resultPosition = 0;
+		for(int i = 0; i < offsets.length; i++) {
+			final int unchangedLength = offsets[i] - position;
+			System.arraycopy(bytes, position, result, resultPosition, unchangedLength);
+			resultPosition += unchangedLength;
+			final byte[] value = _values.get(i);
+			System.arraycopy(value, 0, result, resultPosition, value.length);
+			resultPosition += value.length;
+			position = offsets[i] + sizes[i];
+		}
+		System.arraycopy(bytes, position, result, resultPosition, end - position);
+		return ByteArrayData.create(result, 0, _info);
+	}
+
+	/** Bestimmt Position und Größe eines geänderten Attributs im Ausgangsdatensatz. */
+	private void locate(final byte[] bytes, final int start, final int[] path, final int[] offsets, final int[] sizes, final int entry) {
+		AttributeInfo info = _info;
+		int offset = start;
+		for(int index : path) {
+			if(info.isArray()) {
+				offset = info.getAbsoluteElementOffset(bytes, offset, index);
+				info = info.getElementInfo();
+			}
+			else {
+				final AttributeDefinitionInfo definitionInfo = info.getDefinitionInfo();
+				if(!definitionInfo.isList() || index >= definitionInfo.getItemCount()) {
+					throw new IllegalArgumentException("Differenz passt nicht zur Struktur des Datensatzes " + _info.getName());
+				}
+				info = definitionInfo.getItem(index);
+				offset = info.getAbsoluteOffset(bytes, offset);
+			}
+		}
+		if(entry > 0 && offset < offsets[entry - 1] + sizes[entry - 1]) {
+			throw new IllegalArgumentException("Überlappende Änderungen in der Differenz für " + _info.getName());
+		}
+		offsets[entry] = offset;
+		sizes[entry] = info.getSize(bytes, offset);
+	}
+
+	/**
+	 * Serialisiert die Differenz.
+	 *
+	 * @return Serialisierte Differenz
+	 */
+	public byte[] toByteArray() {
+		final ByteArrayOutputStream byteBuffer = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(byteBuffer);
+		try {
+			out.writeByte(FORMAT_VERSION);
+			out.writeInt(_paths.size());
+			for(int i = 0; i < _paths.size(); i++) {
+				final int[] path = _paths.get(i);
+				out.writeShort(path.length);
+				for(int index : path) {
+					out.writeInt(index);
+				}
+				final byte[] value = _values.get(i);
+				out.writeInt(value.length);
+				out.write(value);
+			}
+			out.close();
+		}
+		catch(IOException e) {
+			// Kann bei einem ByteArrayOutputStream nicht auftreten
+			throw new IllegalStateException(e);
+		}
+		return byteBuffer.toByteArray();
+	}
+
+	/**
+	 * Deserialisiert eine mit {@link #toByteArray()} erzeugte Differenz.
+	 *
+	 * @param atg   Attributgruppe der Datensätze
+	 * @param bytes Serialisierte Differenz
+	 *
+	 * @return Differenz
+	 *
+	 * @throws IllegalArgumentException Wenn die Bytes keine gültige Differenz enthalten
+	 */
+	public static ByteArrayDataDelta fromByteArray(final AttributeGroup atg, final byte[] bytes) {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		try {
+			final int version = in.readUnsignedByte();
+			if(version != FORMAT_VERSION) throw new IllegalArgumentException("Nicht unterstützte Version einer Datensatzdifferenz: " + version);
+			final int count = in.readInt();
+			final List<int[]> paths = new ArrayList<int[]>(count);
+			final List<byte[]> values = new ArrayList<byte[]>(count);
+			for(int i = 0; i < count; i++) {
+				final int[] path = new int[in.readUnsignedShort()];
+				for(int j = 0; j < path.length; j++) {
+					path[j] = in.readInt();
+				}
+				final byte[] value = new byte[in.readInt()];
+				in.readFully(value);
+				paths.add(path);
+				values.add(value);
+			}
+			return new ByteArrayDataDelta(AttributeGroupInfo.forAttributeGroup(atg), paths, values);
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException("Ungültige Datensatzdifferenz", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ByteArrayDataDelta{" + _info.getName() + ", geänderte Attribute: " + getChangedPaths() + "}";
+	}
+}
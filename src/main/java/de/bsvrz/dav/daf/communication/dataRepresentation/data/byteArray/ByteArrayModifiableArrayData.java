@@ -0,0 +1,477 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.AbstractData;
+import de.bsvrz.dav.daf.communication.dataRepresentation.ArrayRelaxedRangeCheckSupport;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DoubleAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerValueRange;
+import de.bsvrz.dav.daf.main.config.IntegerValueState;
+import de.bsvrz.dav.daf.main.config.ObjectLookup;
+import de.bsvrz.dav.daf.main.config.ReferenceAttributeType;
+import de.bsvrz.dav.daf.main.config.StringAttributeType;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.dav.daf.main.config.TimeAttributeType;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Modifizierbares Array-Attribut in einem Byte-Array-Datensatz. Beim Ändern der Arraygröße werden die betroffenen Bytes im Puffer des
+ * Datensatzes eingefügt bzw. entfernt, neue Elemente werden mit einer vorab berechneten Byte-Vorlage gefüllt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class ByteArrayModifiableArrayData extends AbstractData.ArrayData {
+
+	private final ModifiableLocation _location;
+
+	private ArrayView _arrayView = null;
+
+	ByteArrayModifiableArrayData(final ModifiableLocation location) {
+		_location = location;
+	}
+
+	public String getName() {
+		return _location.getName();
+	}
+
+	public AttributeType getAttributeType() {
+		return _location.getDefinitionInfo().getAttributeType();
+	}
+
+	public Data getItem(final String itemName) {
+		final int itemIndex;
+		try {
+			itemIndex = Integer.parseInt(itemName);
+		}
+		catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Ungültiger Index " + itemName + " beim Zugriff auf Array " + getName());
+		}
+		return asArray().getItem(itemIndex);
+	}
+
+	public Iterator<Data> iterator() {
+		return new ArrayDataIterator();
+	}
+
+	public Data.Array asArray() {
+		if(_arrayView == null) _arrayView = new ArrayView();
+		return _arrayView;
+	}
+
+	private int getLength() {
+		return _location.getInfo().getElementCount(_location.getBytes(), _location.getOffset());
+	}
+
+	private class ArrayDataIterator implements Iterator<Data> {
+
+		private int _position = 0;
+
+		public boolean hasNext() {
+			return _position < getLength();
+		}
+
+		public Data next() {
+			if(!hasNext()) throw new NoSuchElementException();
+			return asArray().getItem(_position++);
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Erzeugt die Bytes, mit denen ein neues Element dieses Arrays initial gefüllt wird. Arrays mit variabler Größe innerhalb des Elements
+	 * werden leer angelegt, Arrays mit fester Größe erhalten die vorgegebene Anzahl Elemente.
+	 *
+	 * @return Initiale Bytes eines Arrayelements
+	 */
+	private byte[] createInitialElementBytes() {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		appendInitialBytes(out, _location.getDefinitionInfo());
+		return out.toByteArray();
+	}
+
+	private static void appendInitialBytes(final ByteArrayOutputStream out, final AttributeInfo info) {
+		if(info.isArray()) {
+			final int count = info.isCountVariable() ? 0 : info.getMaxCount();
+			appendNumber(out, 4, count);
+			for(int i = 0; i < count; i++) {
+				appendInitialBytes(out, info.getDefinitionInfo());
+			}
+		}
+		else {
+			appendInitialBytes(out, info.getDefinitionInfo());
+		}
+	}
+
+	private static void appendInitialBytes(final ByteArrayOutputStream out, final AttributeDefinitionInfo definitionInfo) {
+		if(definitionInfo.isList()) {
+			final int itemCount = definitionInfo.getItemCount();
+			for(int i = 0; i < itemCount; i++) {
+				appendInitialBytes(out, definitionInfo.getItem(i));
+			}
+			return;
+		}
+		final AttributeType type = definitionInfo.getAttributeType();
+		if(type instanceof StringAttributeType) {
+			// Leerer Text: nur die Längenangabe
+			appendNumber(out, 2, 0);
+		}
+		else if(type instanceof IntegerAttributeType) {
+			appendNumber(out, definitionInfo.getFixedSize(), getInitialIntegerValue((IntegerAttributeType)type));
+		}
+		else if(definitionInfo.isSizeFixed()) {
+			appendNumber(out, definitionInfo.getFixedSize(), 0);
+		}
+		else {
+			throw new IllegalStateException("Initialwert für Attributtyp " + type.getPidOrNameOrId() + " kann nicht bestimmt werden");
+		}
+	}
+
+	private static long getInitialIntegerValue(final IntegerAttributeType type) {
+		final IntegerValueRange range = type.getRange();
+		if(range != null) return range.getMinimum();
+		final List<IntegerValueState> states = type.getStates();
+		if(states.size() > 0) return states.get(0).getValue();
+		return 0;
+	}
+
+	private static void appendNumber(final ByteArrayOutputStream out, final int size, final long value) {
+		for(int i = size - 1; i >= 0; i--) {
+			out.write((int)(value >>> (i * 8)));
+		}
+	}
+
+	private class ArrayView extends AbstractData.Array implements ArrayRelaxedRangeCheckSupport {
+
+		private byte[] _initialElementBytes = null;
+
+		public String toString() {
+			return ByteArrayModifiableArrayData.this.toString();
+		}
+
+		public boolean isCountVariable() {
+			return _location.getInfo().isCountVariable();
+		}
+
+		public boolean isCountLimited() {
+			return _location.getInfo().isCountLimited();
+		}
+
+		public int getMaxCount() {
+			return _location.getInfo().getMaxCount();
+		}
+
+		public int getLength() {
+			return ByteArrayModifiableArrayData.this.getLength();
+		}
+
+		public Data getItem(final int itemIndex) {
+			return _location.getElementLocation(itemIndex).createData();
+		}
+
+		public void setLength(final int newLength) {
+			setLength(newLength, true, false);
+		}
+
+		void setLengthUninitialized(final int newLength) {
+			setLength(newLength, false, false);
+		}
+
+		public void setLengthRelaxedRangeCheck(final int newLength) {
+			setLength(newLength, false, true);
+		}
+
+		private void setLength(final int newLength, final boolean initializeElements, final boolean relaxedRangeCheck) {
+			if(newLength < 0 || (!isCountVariable() && (newLength != getMaxCount())) || (isCountLimited() && (newLength > getMaxCount())
+					&& !relaxedRangeCheck)) {
+				throw new IllegalArgumentException(
+						"Arraygröße " + newLength + " ist beim Attribut " + getName() + " vom Typ " + getAttributeType().getPid() + " nicht erlaubt"
+				);
+			}
+			final int oldLength = getLength();
+			if(oldLength == newLength) return;
+			final ModifiableBytes buffer = _location.getBuffer();
+			final AttributeInfo info = _location.getInfo();
+			final int arrayOffset = _location.getOffset();
+			final int arrayEnd = arrayOffset + info.getSize(buffer.getBytes(), arrayOffset);
+			if(newLength < oldLength) {
+				final int removeOffset = newLength == 0 ? arrayOffset + 4 : info.getAbsoluteElementOffset(buffer.getBytes(), arrayOffset, newLength);
+				buffer.resize(removeOffset, arrayEnd - removeOffset, 0);
+			}
+			else {
+				if(_initialElementBytes == null) _initialElementBytes = createInitialElementBytes();
+				final int elementSize = _initialElementBytes.length;
+				final int addedElements = newLength - oldLength;
+				buffer.resize(arrayEnd, 0, addedElements * elementSize);
+				final byte[] bytes = buffer.getBytes();
+				for(int i = 0; i < addedElements; i++) {
+					System.arraycopy(_initialElementBytes, 0, bytes, arrayEnd + i * elementSize, elementSize);
+				}
+			}
+			buffer.writeNumber(arrayOffset, 4, newLength);
+			if(initializeElements) {
+				// Alle neuen Elemente müssen auf den Default-Wert gesetzt werden
+				for(int i = oldLength; i < newLength; ++i) {
+					getItem(i).setToDefault();
+				}
+			}
+		}
+
+		public Data.NumberArray asUnscaledArray() {
+			final AttributeType type = getAttributeType();
+			if(type instanceof IntegerAttributeType || type instanceof DoubleAttributeType) return new NumberArrayView(false);
+			return super.asUnscaledArray();
+		}
+
+		public Data.NumberArray asScaledArray() {
+			final AttributeType type = getAttributeType();
+			if(type instanceof IntegerAttributeType) return new NumberArrayView(true);
+			// Bei Fließkommazahlen gibt es keinen Unterschied zwischen skalierter und unskalierter Darstellung
+			if(type instanceof DoubleAttributeType) return new NumberArrayView(false);
+			return super.asScaledArray();
+		}
+
+		public Data.TextArray asTextArray() {
+			if(!_location.getDefinitionInfo().isList()) return new TextArrayView();
+			return super.asTextArray();
+		}
+
+		public Data.TimeArray asTimeArray() {
+			if(getAttributeType() instanceof TimeAttributeType) return new TimeArrayView();
+			return super.asTimeArray();
+		}
+
+		public Data.ReferenceArray asReferenceArray() {
+			if(getAttributeType() instanceof ReferenceAttributeType) return new ReferenceArrayView();
+			return super.asReferenceArray();
+		}
+	}
+
+	private class NumberArrayView extends AbstractData.NumberArray {
+
+		private final boolean _scaled;
+
+		NumberArrayView(final boolean scaled) {
+			_scaled = scaled;
+		}
+
+		public int getLength() {
+			return _arrayView.getLength();
+		}
+
+		public void setLength(final int newLength) {
+			_arrayView.setLength(newLength);
+		}
+
+		protected void setLengthUninitialized(final int length) {
+			_arrayView.setLengthUninitialized(length);
+		}
+
+		public Data.NumberValue getValue(final int itemIndex) {
+			final Data item = _arrayView.getItem(itemIndex);
+			return _scaled ? item.asScaledValue() : item.asUnscaledValue();
+		}
+	}
+
+	private class TextArrayView implements Data.TextArray {
+
+		public int getLength() {
+			return _arrayView.getLength();
+		}
+
+		public void setLength(final int newLength) {
+			_arrayView.setLength(newLength);
+		}
+
+		public Data.TextValue getTextValue(final int itemIndex) {
+			return _arrayView.getItem(itemIndex).asTextValue();
+		}
+
+		public Data.TextValue[] getTextValues() {
+			final int length = getLength();
+			final Data.TextValue[] results = new Data.TextValue[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getTextValue(i);
+			}
+			return results;
+		}
+
+		public void set(final String... strings) {
+			_arrayView.setLengthUninitialized(strings.length);
+			for(int i = 0; i < strings.length; ++i) {
+				getTextValue(i).setText(strings[i]);
+			}
+		}
+
+		public String getText(final int itemIndex) {
+			return getTextValue(itemIndex).getText();
+		}
+
+		public String[] getTextArray() {
+			final int length = getLength();
+			final String[] results = new String[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getText(i);
+			}
+			return results;
+		}
+	}
+
+	private class TimeArrayView implements Data.TimeArray {
+
+		public int getLength() {
+			return _arrayView.getLength();
+		}
+
+		public void setLength(final int newLength) {
+			_arrayView.setLength(newLength);
+		}
+
+		public Data.TimeValue getTimeValue(final int itemIndex) {
+			return _arrayView.getItem(itemIndex).asTimeValue();
+		}
+
+		public Data.TimeValue[] getTimeValues() {
+			final int length = getLength();
+			final Data.TimeValue[] results = new Data.TimeValue[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getTimeValue(i);
+			}
+			return results;
+		}
+
+		public long getSeconds(final int itemIndex) {
+			return getTimeValue(itemIndex).getSeconds();
+		}
+
+		public long getMillis(final int itemIndex) {
+			return getTimeValue(itemIndex).getMillis();
+		}
+
+		public void setMillis(final long... millis) {
+			_arrayView.setLengthUninitialized(millis.length);
+			for(int i = 0; i < millis.length; ++i) {
+				getTimeValue(i).setMillis(millis[i]);
+			}
+		}
+
+		public void setSeconds(final long... seconds) {
+			_arrayView.setLengthUninitialized(seconds.length);
+			for(int i = 0; i < seconds.length; ++i) {
+				getTimeValue(i).setSeconds(seconds[i]);
+			}
+		}
+
+		public long[] getSecondsArray() {
+			final int length = getLength();
+			final long[] results = new long[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getSeconds(i);
+			}
+			return results;
+		}
+
+		public long[] getMillisArray() {
+			final int length = getLength();
+			final long[] results = new long[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getMillis(i);
+			}
+			return results;
+		}
+	}
+
+	private class ReferenceArrayView implements Data.ReferenceArray {
+
+		public int getLength() {
+			return _arrayView.getLength();
+		}
+
+		public void setLength(final int newLength) {
+			_arrayView.setLength(newLength);
+		}
+
+		public Data.ReferenceValue getReferenceValue(final int itemIndex) {
+			return _arrayView.getItem(itemIndex).asReferenceValue();
+		}
+
+		public Data.ReferenceValue[] getReferenceValues() {
+			final int length = getLength();
+			final Data.ReferenceValue[] results = new Data.ReferenceValue[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getReferenceValue(i);
+			}
+			return results;
+		}
+
+		public SystemObject getSystemObject(final int itemIndex) {
+			return getReferenceValue(itemIndex).getSystemObject();
+		}
+
+		public void set(final SystemObject... systemObjects) {
+			_arrayView.setLengthUninitialized(systemObjects.length);
+			for(int i = 0; i < systemObjects.length; ++i) {
+				getReferenceValue(i).setSystemObject(systemObjects[i]);
+			}
+		}
+
+		public void set(final String... systemObjectPids) {
+			_arrayView.setLengthUninitialized(systemObjectPids.length);
+			for(int i = 0; i < systemObjectPids.length; ++i) {
+				getReferenceValue(i).setSystemObjectPid(systemObjectPids[i]);
+			}
+		}
+
+		public void set(final ObjectLookup dataModel, final String... systemObjectPids) {
+			_arrayView.setLengthUninitialized(systemObjectPids.length);
+			for(int i = 0; i < systemObjectPids.length; ++i) {
+				getReferenceValue(i).setSystemObjectPid(systemObjectPids[i], dataModel);
+			}
+		}
+
+		public SystemObject[] getSystemObjectArray() {
+			final int length = getLength();
+			final SystemObject[] results = new SystemObject[length];
+			for(int i = 0; i < length; ++i) {
+				results[i] = getSystemObject(i);
+			}
+			return results;
+		}
+	}
+}
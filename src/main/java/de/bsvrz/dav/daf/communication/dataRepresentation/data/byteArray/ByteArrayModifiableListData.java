@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.AbstractData;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Modifizierbarer Datensatz bzw. modifizierbare Attributliste, deren Werte direkt in einem Byte-Array im serialisierten Format gespeichert
+ * werden. Im Gegensatz zu den Datensätzen aus {@link de.bsvrz.dav.daf.communication.dataRepresentation.AttributeBaseValueDataFactory} ist
+ * kein Objektbaum für die Attributwerte erforderlich und {@link #createUnmodifiableCopy()} muss den Datensatz nicht neu serialisieren,
+ * sondern kopiert nur das Byte-Array.
+ * <p>
+ * Die Klasse ist nicht threadsicher.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class ByteArrayModifiableListData extends AbstractData.ListData {
+
+	private final ModifiableLocation _location;
+
+	/**
+	 * Erzeugt einen modifizierbaren Datensatz mit einer Kopie eines serialisierten Datensatzes als Anfangswert.
+	 *
+	 * @param bytes              Serialisierter Datensatz, wird nicht verändert
+	 * @param attributeGroupInfo Beschreibung der Attributgruppe des Datensatzes
+	 *
+	 * @return Modifizierbarer Datensatz
+	 */
+	public static Data create(final byte[] bytes, final AttributeInfo attributeGroupInfo) {
+		final ModifiableBytes buffer = new ModifiableBytes(Arrays.copyOf(bytes, bytes.length), bytes.length);
+		return new ByteArrayModifiableListData(ModifiableLocation.forRoot(buffer, attributeGroupInfo));
+	}
+
+	ByteArrayModifiableListData(final ModifiableLocation location) {
+		_location = location;
+	}
+
+	ModifiableLocation getLocation() {
+		return _location;
+	}
+
+	@Override
+	public Data createModifiableCopy() {
+		if(!_location.isRoot()) return super.createModifiableCopy();
+		return new ByteArrayModifiableListData(ModifiableLocation.forRoot(_location.getBuffer().copy(), _location.getInfo()));
+	}
+
+	@Override
+	public Data createUnmodifiableCopy() {
+		if(!_location.isRoot()) return super.createUnmodifiableCopy();
+		return ByteArrayData.create(_location.getBuffer().toByteArray(), _location.getInfo());
+	}
+
+	public String getName() {
+		return _location.getName();
+	}
+
+	public AttributeType getAttributeType() {
+		return _location.getDefinitionInfo().getAttributeType();
+	}
+
+	@Override
+	public Data getItem(final String itemName) {
+		return _location.getItemLocation(_location.getDefinitionInfo().getItem(itemName)).createData();
+	}
+
+	public Iterator<Data> iterator() {
+		return new ListDataIterator();
+	}
+
+	private class ListDataIterator implements Iterator<Data> {
+
+		private final AttributeDefinitionInfo _definitionInfo = _location.getDefinitionInfo();
+
+		private int _nextItemIndex = 0;
+
+		public boolean hasNext() {
+			return _nextItemIndex < _definitionInfo.getItemCount();
+		}
+
+		public Data next() {
+			if(_nextItemIndex >= _definitionInfo.getItemCount()) throw new NoSuchElementException();
+			return _location.getItemLocation(_definitionInfo.getItem(_nextItemIndex++)).createData();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,563 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.AbstractData;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.DoubleAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerValueRange;
+import de.bsvrz.dav.daf.main.config.IntegerValueState;
+import de.bsvrz.dav.daf.main.config.ReferenceAttributeType;
+import de.bsvrz.dav.daf.main.config.ReferenceType;
+import de.bsvrz.dav.daf.main.config.StringAttributeType;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.dav.daf.main.config.TimeAttributeType;
+import de.bsvrz.dav.daf.main.config.UndefinedAttributeValueAccess;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Modifizierbares einfaches Attribut bzw. Element eines Arrays mit einfachen Attributen in einem Byte-Array-Datensatz. Gelesen wird über die
+ * Beschreibungsobjekte des Datenmodells direkt aus dem Byte-Array, geschrieben wird direkt in das Byte-Array. Die Semantik der
+ * Schreibzugriffe (Bereichsprüfungen, Skalierung, Zustände) entspricht der von {@link de.bsvrz.dav.daf.communication.dataRepresentation.AttributeBaseValueDataFactory}.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class ByteArrayModifiablePrimitiveData extends AbstractData.PlainData {
+
+	private static final Pattern _locationDistancePattern = Pattern.compile("[0-9]{1,5}\\s*-\\s*[0-9]{1,3}");
+
+	private final ModifiableLocation _location;
+
+	ByteArrayModifiablePrimitiveData(final ModifiableLocation location) {
+		_location = location;
+	}
+
+	public String getName() {
+		return _location.getName();
+	}
+
+	public AttributeType getAttributeType() {
+		return _location.getDefinitionInfo().getAttributeType();
+	}
+
+	public boolean isDefined() {
+		final AttributeType attributeType = getAttributeType();
+		// Alle Attribute, die einen "undefiniert Wert" zu Verfügung stellen, implementieren
+		// das Interface "UndefinedAttributeValueAccess"
+		if(attributeType instanceof UndefinedAttributeValueAccess) {
+			// Bei Texten ist der Wert auf jeden Fall definiert, wenn ein Default-Wert vorhanden ist, weil "_Undefiniert_" dann ein gültiger Wert ist.
+			if(attributeType instanceof StringAttributeType) {
+				final Attribute attribute = _location.getAttribute();
+				if((attribute != null && attribute.getDefaultAttributeValue() != null) || attributeType.getDefaultAttributeValue() != null) {
+					return true;
+				}
+			}
+			return ((UndefinedAttributeValueAccess)attributeType).isDefined(this);
+		}
+		else {
+			// Für diesen Attributtyp wurde kein "undefiniert Wert" festgelegt, alle Werte sind gültig.
+			return true;
+		}
+	}
+
+	public void setToDefault() {
+		// Reihenfolge: Default-Wert des Attributs, Default-Wert des Attributtyps, "undefiniert Wert" des Attributtyps
+		final Attribute attribute = _location.getAttribute();
+		String defaultValueString = attribute == null ? null : attribute.getDefaultAttributeValue();
+		if(defaultValueString != null) {
+			asTextValue().setText(defaultValueString);
+			return;
+		}
+		final AttributeType attributeType = getAttributeType();
+		defaultValueString = attributeType.getDefaultAttributeValue();
+		if(defaultValueString != null) {
+			asTextValue().setText(defaultValueString);
+		}
+		else if(attributeType instanceof UndefinedAttributeValueAccess) {
+			((UndefinedAttributeValueAccess)attributeType).setToUndefined(this);
+		}
+		else {
+			throw new IllegalStateException(
+					"Es wurde kein Default-Wert definiert, auch ein undefiniert Wert ist nicht definiert. Attributtyp: " + attributeType.getPidOrNameOrId()
+			);
+		}
+	}
+
+	public Data.TextValue asTextValue() {
+		final AttributeType type = getAttributeType();
+		if(type instanceof IntegerAttributeType) {
+			return asScaledValue();
+		}
+		else if(type instanceof StringAttributeType) {
+			return new TextValueView();
+		}
+		else if(type instanceof ReferenceAttributeType) {
+			return new ReferenceValueView();
+		}
+		else if(type instanceof TimeAttributeType) {
+			return asTimeValue();
+		}
+		else if(type instanceof DoubleAttributeType) {
+			return new DoubleValueView();
+		}
+		throw new UnsupportedOperationException("Attribut " + getName() + " kann nicht als Text dargestellt werden");
+	}
+
+	@Override
+	public Data.NumberValue asScaledValue() {
+		final AttributeType type = getAttributeType();
+		if(type instanceof IntegerAttributeType) return new IntegerValueView((IntegerAttributeType)type, true);
+		if(type instanceof DoubleAttributeType) return new DoubleValueView();
+		throw new UnsupportedOperationException("Attribut " + getName() + " kann nicht als skalierte Zahl dargestellt werden");
+	}
+
+	@Override
+	public Data.NumberValue asUnscaledValue() {
+		final AttributeType type = getAttributeType();
+		if(type instanceof IntegerAttributeType) return new IntegerValueView((IntegerAttributeType)type, false);
+		if(type instanceof DoubleAttributeType) return new DoubleValueView();
+		throw new UnsupportedOperationException("Attribut " + getName() + " kann nicht als unskalierte Zahl dargestellt werden");
+	}
+
+	@Override
+	public Data.ReferenceValue asReferenceValue() {
+		if(getAttributeType() instanceof ReferenceAttributeType) return new ReferenceValueView();
+		return super.asReferenceValue();
+	}
+
+	@Override
+	public Data.TimeValue asTimeValue() {
+		final AttributeType type = getAttributeType();
+		if(type instanceof TimeAttributeType) {
+			final TimeAttributeType timeType = (TimeAttributeType)type;
+			if(timeType.getAccuracy() == TimeAttributeType.MILLISECONDS) {
+				return timeType.isRelative() ? new RelativeMillisTimeValueView() : new AbsoluteMillisTimeValueView();
+			}
+			else {
+				return timeType.isRelative() ? new RelativeSecondsTimeValueView() : new AbsoluteSecondsTimeValueView();
+			}
+		}
+		return super.asTimeValue();
+	}
+
+	private byte[] getBytes() {
+		return _location.getBytes();
+	}
+
+	private int getOffset() {
+		return _location.getOffset();
+	}
+
+	private AttributeDefinitionInfo getDefinitionInfo() {
+		return _location.getDefinitionInfo();
+	}
+
+	private void write(final int size, final long value) {
+		_location.getBuffer().writeNumber(getOffset(), size, value);
+	}
+
+	/** Sicht auf Ganzzahlattribute, wahlweise mit oder ohne Berücksichtigung des Skalierungsfaktors. */
+	private class IntegerValueView extends AbstractData.NumberValue {
+
+		private final IntegerAttributeType _type;
+
+		private final boolean _scaled;
+
+		private final int _byteCount;
+
+		IntegerValueView(final IntegerAttributeType type, final boolean scaled) {
+			_type = type;
+			_scaled = scaled;
+			_byteCount = getDefinitionInfo().getFixedSize();
+		}
+
+		private long getUnscaledLongValue() {
+			return getDefinitionInfo().unscaledLongValue(getBytes(), getOffset());
+		}
+
+		private void setUnscaledLongValue(final long value) {
+			switch(_byteCount) {
+				case 1:
+					if(value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) throw new IllegalArgumentException("Wert " + value + " nicht in einem Byte darstellbar");
+					break;
+				case 2:
+					if(value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+						throw new IllegalArgumentException("Wert " + value + " nicht in einem Short darstellbar");
+					}
+					break;
+				case 4:
+					if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+						throw new IllegalArgumentException("Wert " + value + " nicht in einem Integer darstellbar");
+					}
+					break;
+			}
+			write(_byteCount, value);
+		}
+
+		public String getValueText() {
+			if(_scaled) return getDefinitionInfo().getValueText(getBytes(), getOffset());
+			return getDefinitionInfo().getUnscaledValueText(getBytes(), getOffset());
+		}
+
+		public String getSuffixText() {
+			if(_scaled) return getDefinitionInfo().getSuffixText(getBytes(), getOffset());
+			return getDefinitionInfo().getUnscaledSuffixText(getBytes(), getOffset());
+		}
+
+		public boolean isNumber() {
+			if(_scaled) return getDefinitionInfo().isNumber(getBytes(), getOffset());
+			return true;
+		}
+
+		public IntegerValueState getState() {
+			try {
+				return getDefinitionInfo().getState(getBytes(), getOffset());
+			}
+			catch(Exception e) {
+				return null;
+			}
+		}
+
+		public byte byteValue() {
+			if(_byteCount > 1) return super.byteValue();
+			return (byte)longValue();
+		}
+
+		public short shortValue() {
+			if(_byteCount > 2) return super.shortValue();
+			return (short)longValue();
+		}
+
+		public int intValue() {
+			if(_byteCount > 4) return super.intValue();
+			return (int)longValue();
+		}
+
+		public long longValue() {
+			if(_scaled) return getDefinitionInfo().longValue(getBytes(), getOffset());
+			return getUnscaledLongValue();
+		}
+
+		public double doubleValue() {
+			if(_scaled) return getDefinitionInfo().doubleValue(getBytes(), getOffset());
+			return getUnscaledLongValue();
+		}
+
+		public void set(final long value) {
+			if(!_scaled) {
+				setUnscaledLongValue(value);
+				return;
+			}
+			final double conversionFactor = getConversionFactor();
+			//Folgende Fallunterscheidung ist erforderlich um Rundungsfehler zu vermeiden
+			//Beispielsweise führt Math.round(0.95 / 0.1) zum falschen Ergebnis 9
+			//aber Math.round(0.95 * (1 / 0.1)) führt zum richtigen Ergebnis 10
+			if(conversionFactor < 1.0) {
+				setUnscaledLongValue(Math.round((double)value * (1 / conversionFactor)));
+			}
+			else if(conversionFactor > 1.0) {
+				setUnscaledLongValue(Math.round((double)value / conversionFactor));
+			}
+			else {
+				setUnscaledLongValue(value);
+			}
+		}
+
+		public void set(final double value) {
+			if(!_scaled) {
+				if(value < Long.MIN_VALUE || value > Long.MAX_VALUE) {
+					throw new IllegalArgumentException("Fließkommawert " + value + " kann nicht in Ganzzahlwert konvertiert werden");
+				}
+				setUnscaledLongValue(Math.round(value));
+				return;
+			}
+			final double conversionFactor = getConversionFactor();
+			if(conversionFactor < 1.0) {
+				setUnscaledLongValue(Math.round(value * (1 / conversionFactor)));
+			}
+			else if(conversionFactor > 1.0) {
+				setUnscaledLongValue(Math.round(value / conversionFactor));
+			}
+			else {
+				setUnscaledLongValue(Math.round(value));
+			}
+		}
+
+		private double getConversionFactor() {
+			final IntegerValueRange range = _type.getRange();
+			if(range == null) throw new IllegalArgumentException("kein Zahlenbereich definiert");
+			return range.getConversionFactor();
+		}
+
+		public void setText(String text) {
+			text = text.trim();
+			final List<IntegerValueState> states = _type.getStates();
+			int matchLength = 0;
+			IntegerValueState longestMatch = null;
+			for(IntegerValueState state : states) {
+				if(text.equals(state.getName())) {
+					setUnscaledLongValue(state.getValue());
+					return;
+				}
+				if(text.startsWith(state.getName()) && state.getName().length() > matchLength) {
+					longestMatch = state;
+					matchLength = state.getName().length();
+				}
+			}
+			if(longestMatch != null) {
+				setUnscaledLongValue(longestMatch.getValue());
+				return;
+			}
+
+			// Ist der Text im location-distance Format?
+			if(_locationDistancePattern.matcher(text).matches()) {
+				String[] locationDistance = text.split("\\s*-\\s*");
+				int location = Integer.parseInt(locationDistance[0]);
+				int distance = Integer.parseInt(locationDistance[1]);
+				if(location > 65535) {
+					throw new IllegalArgumentException("Wert im Location-Distance Format aber Location zu groß: " + location);
+				}
+				if(distance > 255) {
+					throw new IllegalArgumentException("Wert im Location-Distance Format aber Distance zu groß: " + distance);
+				}
+				setUnscaledLongValue((location * 256) + distance);
+				return;
+			}
+
+			try {
+				super.setText(text);
+			}
+			catch(RuntimeException e) {
+				throw new IllegalArgumentException(
+						"kein passender Werte-Zustand und " + e.getMessage() + " Attribut: " + getName() + ", Wert: " + text + (_scaled ? "" : "(unskaliert)")
+				);
+			}
+		}
+
+		public void setState(final IntegerValueState newState) {
+			for(IntegerValueState state : _type.getStates()) {
+				if(state.getId() == newState.getId()) {
+					setUnscaledLongValue(state.getValue());
+					return;
+				}
+			}
+			throw new IllegalArgumentException("Zustand ungültig " + newState);
+		}
+	}
+
+	/** Sicht auf Fließkommaattribute */
+	private class DoubleValueView extends AbstractData.NumberValue {
+
+		private final boolean _float = getDefinitionInfo().getFixedSize() == 4;
+
+		public String getValueText() {
+			return getDefinitionInfo().getValueText(getBytes(), getOffset());
+		}
+
+		public String getSuffixText() {
+			return getDefinitionInfo().getSuffixText(getBytes(), getOffset());
+		}
+
+		public float floatValue() {
+			return getDefinitionInfo().floatValue(getBytes(), getOffset());
+		}
+
+		public double doubleValue() {
+			return getDefinitionInfo().doubleValue(getBytes(), getOffset());
+		}
+
+		public void set(final double value) {
+			if(_float) {
+				write(4, Float.floatToIntBits((float)value));
+			}
+			else {
+				write(8, Double.doubleToLongBits(value));
+			}
+		}
+	}
+
+	/** Sicht auf Textattribute */
+	private class TextValueView extends AbstractData.TextValue {
+
+		public String getValueText() {
+			return getDefinitionInfo().getValueText(getBytes(), getOffset());
+		}
+
+		public void setText(final String text) {
+			_location.getBuffer().writeString(getOffset(), text);
+		}
+	}
+
+	/** Sicht auf Referenzattribute */
+	private class ReferenceValueView extends AbstractData.ReferenceValue {
+
+		protected DataModel getDataModel() {
+			return getAttributeType().getDataModel();
+		}
+
+		public long getId() {
+			return getDefinitionInfo().getId(getBytes(), getOffset());
+		}
+
+		public void setSystemObject(final SystemObject object) {
+			final long id;
+			if(object == null) {
+				id = 0;
+			}
+			else {
+				checkObject(object, _location.getAttribute());
+				id = object.getId();
+			}
+			write(8, id);
+			_location.getBuffer().setUnresolvedPid(getOffset(), null);
+		}
+
+		protected boolean tryToStorePid(final String objectPid) {
+			if(((ReferenceAttributeType)getAttributeType()).getReferenceType() == ReferenceType.ASSOCIATION) {
+				write(8, 0);
+				_location.getBuffer().setUnresolvedPid(getOffset(), objectPid);
+				return true;
+			}
+			return false;
+		}
+
+		protected String getStoredPid() {
+			final String pid = _location.getBuffer().getUnresolvedPid(getOffset());
+			return pid == null ? "" : pid;
+		}
+	}
+
+	/** Sicht auf relative sekundengenaue Zeitattribute */
+	private class RelativeSecondsTimeValueView extends AbstractData.RelativeTimeValue {
+
+		public long getMillis() {
+			return getDefinitionInfo().getMillis(getBytes(), getOffset());
+		}
+
+		public long getSeconds() {
+			return getDefinitionInfo().getSeconds(getBytes(), getOffset());
+		}
+
+		public void setMillis(final long milliSeconds) {
+			setSeconds(milliSeconds / 1000);
+		}
+
+		public void setSeconds(final long seconds) {
+			if(seconds > Integer.MAX_VALUE) throw new RuntimeException("Zeitangabe größer als in einem relativen sekundengenauen Zeitstempel darstellbar");
+			if(seconds < Integer.MIN_VALUE) throw new RuntimeException("Zeitangabe kleiner als in einem relativen sekundengenauen Zeitstempel darstellbar");
+			write(4, seconds);
+		}
+	}
+
+	/** Sicht auf relative millisekundengenaue Zeitattribute */
+	private class RelativeMillisTimeValueView extends AbstractData.RelativeTimeValue {
+
+		public long getMillis() {
+			return getDefinitionInfo().getMillis(getBytes(), getOffset());
+		}
+
+		public long getSeconds() {
+			return getDefinitionInfo().getSeconds(getBytes(), getOffset());
+		}
+
+		public void setMillis(final long milliSeconds) {
+			write(8, milliSeconds);
+		}
+
+		public void setSeconds(final long seconds) {
+			if(seconds > Long.MAX_VALUE / 1000) {
+				throw new RuntimeException("Zeitangabe größer als in einem relativen millisekundengenauen Zeitstempel darstellbar");
+			}
+			if(seconds < Long.MIN_VALUE / 1000) {
+				throw new RuntimeException("Zeitangabe kleiner als in einem relativen millisekundengenauen Zeitstempel darstellbar");
+			}
+			write(8, seconds * 1000);
+		}
+	}
+
+	/** Sicht auf absolute sekundengenaue Zeitattribute */
+	private class AbsoluteSecondsTimeValueView extends AbstractData.AbsoluteSecondsTimeValue {
+
+		public long getMillis() {
+			return getDefinitionInfo().getMillis(getBytes(), getOffset());
+		}
+
+		public long getSeconds() {
+			return getDefinitionInfo().getSeconds(getBytes(), getOffset());
+		}
+
+		public void setMillis(final long milliSeconds) {
+			if(milliSeconds < 0) throw new RuntimeException("Negative Zeitangaben sind bei absoluten Zeitstempeln nicht erlaubt");
+			setSeconds(milliSeconds / 1000);
+		}
+
+		public void setSeconds(final long seconds) {
+			if(seconds < 0) throw new RuntimeException("Negative Zeitangaben sind bei absoluten Zeitstempeln nicht erlaubt");
+			if(seconds > 0xffffffffL) {
+				throw new RuntimeException(
+						"Zeitangabe liegt nach dem größten darstellbaren Wert von absoluten sekundengenauen Zeitstempeln (07.02.2106 07:28:15)"
+				);
+			}
+			// Die Sekunden werden als vorzeichenloser 32-Bit-Wert gespeichert
+			write(4, seconds);
+		}
+	}
+
+	/** Sicht auf absolute millisekundengenaue Zeitattribute */
+	private class AbsoluteMillisTimeValueView extends AbstractData.AbsoluteMillisTimeValue {
+
+		public long getMillis() {
+			return getDefinitionInfo().getMillis(getBytes(), getOffset());
+		}
+
+		public long getSeconds() {
+			return getDefinitionInfo().getSeconds(getBytes(), getOffset());
+		}
+
+		public void setMillis(final long milliSeconds) {
+			if(milliSeconds < 0) throw new RuntimeException("Negative Zeitangaben sind bei absoluten Zeitstempeln nicht erlaubt");
+			write(8, milliSeconds);
+		}
+
+		public void setSeconds(final long seconds) {
+			if(seconds < 0) throw new RuntimeException("Negative Zeitangaben sind bei absoluten Zeitstempeln nicht erlaubt");
+			//Sekundenwert ist zu groß, wenn er größer als Long.MAX_VALUE/1000 (==9223372036854775L) ist
+			if(seconds > 9223372036854775L) {
+				throw new RuntimeException("Zeitangabe liegt nach dem größten darstellbaren Wert von absoluten Zeitstempeln");
+			}
+			write(8, seconds * 1000);
+		}
+	}
+}
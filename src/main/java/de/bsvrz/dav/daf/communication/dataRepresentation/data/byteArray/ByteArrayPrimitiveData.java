@@ -25,7 +25,9 @@
  */
 package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
 
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.StringDefinitionInfo;
 import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.config.IntegerValueState;
 import de.bsvrz.dav.daf.main.config.ObjectLookup;
@@ -103,6 +105,22 @@ public class ByteArrayPrimitiveData extends ByteArrayData implements Data.TextVa
 		return _info.getDefinitionInfo().getSuffixText(_bytes, _offset);
 	}
 
+	/**
+	 * Vergleicht den Wert eines Textattributs mit einem vorgegebenen Text. Bei Textattributen erfolgt der Vergleich direkt auf den serialisierten
+	 * Bytes, ohne dass ein String-Objekt erzeugt wird.
+	 *
+	 * @param text Vergleichstext
+	 *
+	 * @return <code>true</code>, wenn der Wert mit dem Vergleichstext übereinstimmt, sonst <code>false</code>
+	 */
+	public boolean textEquals(CharSequence text) {
+		final AttributeDefinitionInfo definitionInfo = _info.getDefinitionInfo();
+		if(definitionInfo instanceof StringDefinitionInfo) {
+			return ((StringDefinitionInfo)definitionInfo).textEquals(_bytes, _offset, text);
+		}
+		return getValueText().contentEquals(text);
+	}
+
 	public void setText(String text) {
 //		Thread.dumpStack();
 		throw new UnsupportedOperationException("setText: Das Attribut " + getName() + " darf nicht verändert werden");
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Wachsender Puffer, der einen serialisierten Datensatz für die modifizierbaren Byte-Array-Datensätze enthält. Änderungen der Größe von
+ * Attributen (Arraylängen, Texte) werden durch Verschieben der folgenden Bytes im Puffer durchgeführt. Jede solche Strukturänderung erhöht
+ * einen Zähler, an dem die Sichten auf einzelne Attribute erkennen, dass ihr zwischengespeicherter Offset neu bestimmt werden muss.
+ * <p>
+ * Die Klasse ist nicht threadsicher.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+final class ModifiableBytes {
+
+	private byte[] _bytes;
+
+	private int _length;
+
+	private int _structureVersion = 0;
+
+	/**
+	 * Pids von optionalen Referenzen, die nicht aufgelöst werden konnten, mit dem Offset des Referenzattributs als Schlüssel. Im serialisierten
+	 * Datensatz werden solche Referenzen mit der Id 0 gespeichert.
+	 */
+	private TreeMap<Integer, String> _unresolvedPids = null;
+
+	/**
+	 * Erzeugt einen neuen Puffer. Das übergebene Array wird nicht kopiert, sondern direkt verwendet.
+	 *
+	 * @param bytes  Initialer Inhalt
+	 * @param length Anzahl der gültigen Bytes
+	 */
+	ModifiableBytes(final byte[] bytes, final int length) {
+		_bytes = bytes;
+		_length = length;
+	}
+
+	/**
+	 * Liefert das aktuelle Byte-Array. Nach einer Strukturänderung kann ein anderes Array zurückgegeben werden.
+	 *
+	 * @return Byte-Array, in dem die ersten {@link #getLength()} Bytes gültig sind
+	 */
+	byte[] getBytes() {
+		return _bytes;
+	}
+
+	int getLength() {
+		return _length;
+	}
+
+	/**
+	 * Liefert einen Zähler, der bei jeder Änderung der Größe eines Attributs erhöht wird.
+	 *
+	 * @return Zähler der Strukturänderungen
+	 */
+	int getStructureVersion() {
+		return _structureVersion;
+	}
+
+	/**
+	 * Erzeugt eine Kopie der gültigen Bytes.
+	 *
+	 * @return Neues Byte-Array mit dem serialisierten Datensatz
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(_bytes, _length);
+	}
+
+	/**
+	 * Erzeugt eine unabhängige Kopie dieses Puffers.
+	 *
+	 * @return Kopie
+	 */
+	ModifiableBytes copy() {
+		final ModifiableBytes copy = new ModifiableBytes(toByteArray(), _length);
+		if(_unresolvedPids != null && !_unresolvedPids.isEmpty()) copy._unresolvedPids = new TreeMap<Integer, String>(_unresolvedPids);
+		return copy;
+	}
+
+	/**
+	 * Ändert die Größe eines Bereichs im Puffer. Die Bytes hinter dem Bereich werden entsprechend verschoben, neu hinzugekommene Bytes werden
+	 * mit 0 initialisiert.
+	 *
+	 * @param offset  Anfang des Bereichs
+	 * @param oldSize Bisherige Größe des Bereichs
+	 * @param newSize Neue Größe des Bereichs
+	 */
+	void resize(final int offset, final int oldSize, final int newSize) {
+		if(oldSize == newSize) return;
+		final int tailOffset = offset + oldSize;
+		final int tailLength = _length - tailOffset;
+		final int newLength = _length - oldSize + newSize;
+		if(newLength > _bytes.length) {
+			final byte[] newBytes = new byte[Math.max(newLength, _bytes.length + (_bytes.length >> 1) + 16)];
+			System.arraycopy(_bytes, 0, newBytes, 0, tailOffset);
+			System.arraycopy(_bytes, tailOffset, newBytes, offset + newSize, tailLength);
+			_bytes = newBytes;
+		}
+		else {
+			System.arraycopy(_bytes, tailOffset, _bytes, offset + newSize, tailLength);
+			if(newSize > oldSize) Arrays.fill(_bytes, tailOffset, offset + newSize, (byte)0);
+		}
+		_length = newLength;
+		_structureVersion++;
+		if(_unresolvedPids != null && !_unresolvedPids.isEmpty()) moveUnresolvedPids(offset, oldSize, newSize);
+	}
+
+	private void moveUnresolvedPids(final int offset, final int oldSize, final int newSize) {
+		final SortedMap<Integer, String> tail = _unresolvedPids.tailMap(offset);
+		if(tail.isEmpty()) return;
+		final List<Map.Entry<Integer, String>> entries = new ArrayList<Map.Entry<Integer, String>>(tail.entrySet());
+		tail.clear();
+		for(Map.Entry<Integer, String> entry : entries) {
+			final int pidOffset = entry.getKey();
+			// Pids im entfernten bzw. ersetzten Bereich werden verworfen
+			if(pidOffset >= offset + oldSize) _unresolvedPids.put(pidOffset - oldSize + newSize, entry.getValue());
+		}
+	}
+
+	/**
+	 * Schreibt eine Ganzzahl im Big-Endian-Format.
+	 *
+	 * @param offset Position im Puffer
+	 * @param size   Anzahl Bytes (1, 2, 4 oder 8)
+	 * @param value  Wert, von dem die niederwertigen <code>size</code> Bytes geschrieben werden
+	 */
+	void writeNumber(final int offset, final int size, long value) {
+		for(int i = size - 1; i >= 0; i--) {
+			_bytes[offset + i] = (byte)value;
+			value >>= 8;
+		}
+	}
+
+	/**
+	 * Ersetzt den Text an einer Position im Puffer. Die Kodierung entspricht {@link java.io.DataOutputStream#writeUTF(String)}: 2 Bytes
+	 * Längenangabe gefolgt von den Zeichen in modifiziertem UTF-8.
+	 *
+	 * @param offset Position des bisherigen Textes im Puffer
+	 * @param text   Neuer Text
+	 *
+	 * @throws IllegalArgumentException Wenn der kodierte Text länger als 65535 Bytes ist
+	 */
+	void writeString(final int offset, final String text) {
+		final int textLength = text.length();
+		int utfLength = 0;
+		for(int i = 0; i < textLength; i++) {
+			final char c = text.charAt(i);
+			if(c >= 0x0001 && c <= 0x007f) {
+				utfLength++;
+			}
+			else if(c > 0x07ff) {
+				utfLength += 3;
+			}
+			else {
+				utfLength += 2;
+			}
+		}
+		if(utfLength > 65535) throw new IllegalArgumentException("Text zu lang, kodierte Länge: " + utfLength + " Bytes");
+		final int oldSize = 2 + ((_bytes[offset] & 0xff) << 8 | _bytes[offset + 1] & 0xff);
+		resize(offset, oldSize, 2 + utfLength);
+		writeNumber(offset, 2, utfLength);
+		int position = offset + 2;
+		for(int i = 0; i < textLength; i++) {
+			final char c = text.charAt(i);
+			if(c >= 0x0001 && c <= 0x007f) {
+				_bytes[position++] = (byte)c;
+			}
+			else if(c > 0x07ff) {
+				_bytes[position++] = (byte)(0xe0 | ((c >> 12) & 0x0f));
+				_bytes[position++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+				_bytes[position++] = (byte)(0x80 | (c & 0x3f));
+			}
+			else {
+				_bytes[position++] = (byte)(0xc0 | ((c >> 6) & 0x1f));
+				_bytes[position++] = (byte)(0x80 | (c & 0x3f));
+			}
+		}
+	}
+
+	/**
+	 * Merkt sich die Pid einer nicht auflösbaren Referenz bzw. löscht sie.
+	 *
+	 * @param offset Position des Referenzattributs im Puffer
+	 * @param pid    Pid des Objekts oder <code>null</code>, wenn keine Pid gespeichert werden soll
+	 */
+	void setUnresolvedPid(final int offset, final String pid) {
+		if(pid == null) {
+			if(_unresolvedPids != null) _unresolvedPids.remove(offset);
+		}
+		else {
+			if(_unresolvedPids == null) _unresolvedPids = new TreeMap<Integer, String>();
+			_unresolvedPids.put(offset, pid);
+		}
+	}
+
+	/**
+	 * Liefert die Pid einer nicht auflösbaren Referenz.
+	 *
+	 * @param offset Position des Referenzattributs im Puffer
+	 *
+	 * @return Pid oder <code>null</code>, falls keine Pid gespeichert wurde
+	 */
+	String getUnresolvedPid(final int offset) {
+		if(_unresolvedPids == null) return null;
+		return _unresolvedPids.get(offset);
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.AbstractAttributeInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+
+/**
+ * Position eines Attributs in einem modifizierbaren Byte-Array-Datensatz. Die Position wird relativ zum übergeordneten Attribut beschrieben
+ * (Unterattribut einer Liste oder Element eines Arrays). Der absolute Offset im Puffer wird bei Bedarf bestimmt und bis zur nächsten
+ * Strukturänderung des Puffers zwischengespeichert.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+final class ModifiableLocation {
+
+	private final ModifiableBytes _buffer;
+
+	private final AttributeInfo _info;
+
+	private final ModifiableLocation _parent;
+
+	private final int _itemIndex;
+
+	private int _offset;
+
+	private int _offsetVersion;
+
+	private ModifiableLocation(final ModifiableBytes buffer, final AttributeInfo info, final ModifiableLocation parent, final int itemIndex) {
+		_buffer = buffer;
+		_info = info;
+		_parent = parent;
+		_itemIndex = itemIndex;
+		_offsetVersion = buffer.getStructureVersion() - 1;
+	}
+
+	/**
+	 * Erzeugt die Position eines ganzen Datensatzes.
+	 *
+	 * @param buffer             Puffer mit dem serialisierten Datensatz
+	 * @param attributeGroupInfo Beschreibung der Attributgruppe
+	 *
+	 * @return Position des Datensatzes
+	 */
+	static ModifiableLocation forRoot(final ModifiableBytes buffer, final AttributeInfo attributeGroupInfo) {
+		return new ModifiableLocation(buffer, attributeGroupInfo, null, -1);
+	}
+
+	/**
+	 * Erzeugt die Position eines Unterattributs dieser Attributliste.
+	 *
+	 * @param subInfo Beschreibung des Unterattributs
+	 *
+	 * @return Position des Unterattributs
+	 */
+	ModifiableLocation getItemLocation(final AttributeInfo subInfo) {
+		return new ModifiableLocation(_buffer, subInfo, this, -1);
+	}
+
+	/**
+	 * Erzeugt die Position eines Elements dieses Arrays.
+	 *
+	 * @param itemIndex Index des Elements
+	 *
+	 * @return Position des Elements
+	 */
+	ModifiableLocation getElementLocation(final int itemIndex) {
+		return new ModifiableLocation(_buffer, _info.getElementInfo(), this, itemIndex);
+	}
+
+	/**
+	 * Erzeugt ein Data-Objekt für das Attribut an dieser Position.
+	 *
+	 * @return Modifizierbares Data-Objekt
+	 */
+	Data createData() {
+		if(_info.isArray()) {
+			return new ByteArrayModifiableArrayData(this);
+		}
+		else if(_info.getDefinitionInfo().isList()) {
+			return new ByteArrayModifiableListData(this);
+		}
+		else {
+			return new ByteArrayModifiablePrimitiveData(this);
+		}
+	}
+
+	ModifiableBytes getBuffer() {
+		return _buffer;
+	}
+
+	byte[] getBytes() {
+		return _buffer.getBytes();
+	}
+
+	AttributeInfo getInfo() {
+		return _info;
+	}
+
+	AttributeDefinitionInfo getDefinitionInfo() {
+		return _info.getDefinitionInfo();
+	}
+
+	boolean isRoot() {
+		return _parent == null;
+	}
+
+	/**
+	 * Liefert den Namen des Attributs bzw. bei Array-Elementen den Index als Text.
+	 *
+	 * @return Name des Attributs
+	 */
+	String getName() {
+		if(_itemIndex >= 0) return String.valueOf(_itemIndex);
+		return _info.getName();
+	}
+
+	/**
+	 * Liefert das Attribut an dieser Position bzw. bei Array-Elementen das Array-Attribut.
+	 *
+	 * @return Attribut oder <code>null</code> bei einem ganzen Datensatz
+	 */
+	Attribute getAttribute() {
+		final AttributeInfo attributeInfo = _itemIndex >= 0 ? _parent._info : _info;
+		if(attributeInfo instanceof AbstractAttributeInfo) {
+			return ((AbstractAttributeInfo)attributeInfo).getAttribute();
+		}
+		return null;
+	}
+
+	/**
+	 * Bestimmt den absoluten Offset des Attributs im Puffer.
+	 *
+	 * @return Offset im Puffer
+	 */
+	int getOffset() {
+		final int structureVersion = _buffer.getStructureVersion();
+		if(_offsetVersion != structureVersion) {
+			if(_parent == null) {
+				_offset = 0;
+			}
+			else if(_itemIndex < 0) {
+				_offset = _info.getAbsoluteOffset(_buffer.getBytes(), _parent.getOffset());
+			}
+			else {
+				_offset = _parent._info.getAbsoluteElementOffset(_buffer.getBytes(), _parent.getOffset(), _itemIndex);
+			}
+			_offsetVersion = structureVersion;
+		}
+		return _offset;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hilfsmethoden zum blockweisen Dekodieren von Arrays mit Elementen fester Größe. Die Elemente liegen im serialisierten Datensatz direkt
+ * hintereinander im Big-Endian-Format, so dass sie ohne Erzeugung von Objekten pro Element in ein Java-Array übertragen werden können.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+final class PrimitiveArrayDecoder {
+
+	private PrimitiveArrayDecoder() {
+	}
+
+	/**
+	 * Dekodiert vorzeichenbehaftete Ganzzahlen.
+	 *
+	 * @param bytes       Byte-Array mit den serialisierten Werten
+	 * @param offset      Position des ersten Werts
+	 * @param width       Anzahl Bytes pro Wert (1, 2, 4 oder 8)
+	 * @param count       Anzahl Werte
+	 * @param destination Zielarray
+	 */
+	static void readLongs(final byte[] bytes, final int offset, final int width, final int count, final long[] destination) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count * width);
+		switch(width) {
+			case 8:
+				buffer.asLongBuffer().get(destination, 0, count);
+				break;
+			case 4:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getInt();
+				break;
+			case 2:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getShort();
+				break;
+			case 1:
+				for(int i = 0; i < count; i++) destination[i] = buffer.get();
+				break;
+			default:
+				throw new IllegalArgumentException("Ungültige Anzahl Bytes: " + width);
+		}
+	}
+
+	/**
+	 * Dekodiert vorzeichenbehaftete Ganzzahlen mit maximal 4 Bytes.
+	 *
+	 * @param bytes       Byte-Array mit den serialisierten Werten
+	 * @param offset      Position des ersten Werts
+	 * @param width       Anzahl Bytes pro Wert (1, 2 oder 4)
+	 * @param count       Anzahl Werte
+	 * @param destination Zielarray
+	 */
+	static void readInts(final byte[] bytes, final int offset, final int width, final int count, final int[] destination) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count * width);
+		switch(width) {
+			case 4:
+				buffer.asIntBuffer().get(destination, 0, count);
+				break;
+			case 2:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getShort();
+				break;
+			case 1:
+				for(int i = 0; i < count; i++) destination[i] = buffer.get();
+				break;
+			default:
+				throw new IllegalArgumentException("Ungültige Anzahl Bytes: " + width);
+		}
+	}
+
+	/**
+	 * Dekodiert vorzeichenlose 32-Bit-Ganzzahlen.
+	 *
+	 * @param bytes       Byte-Array mit den serialisierten Werten
+	 * @param offset      Position des ersten Werts
+	 * @param count       Anzahl Werte
+	 * @param destination Zielarray
+	 */
+	static void readUnsignedInts(final byte[] bytes, final int offset, final int count, final long[] destination) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count * 4);
+		for(int i = 0; i < count; i++) destination[i] = buffer.getInt() & 0xffffffffL;
+	}
+
+	/**
+	 * Dekodiert Fließkommazahlen.
+	 *
+	 * @param bytes       Byte-Array mit den serialisierten Werten
+	 * @param offset      Position des ersten Werts
+	 * @param width       Anzahl Bytes pro Wert (4 bei <code>float</code>, 8 bei <code>double</code>)
+	 * @param count       Anzahl Werte
+	 * @param destination Zielarray
+	 */
+	static void readDoubles(final byte[] bytes, final int offset, final int width, final int count, final double[] destination) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count * width);
+		switch(width) {
+			case 8:
+				buffer.asDoubleBuffer().get(destination, 0, count);
+				break;
+			case 4:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getFloat();
+				break;
+			default:
+				throw new IllegalArgumentException("Ungültige Anzahl Bytes: " + width);
+		}
+	}
+
+	/**
+	 * Dekodiert vorzeichenbehaftete Ganzzahlen in ein <code>double</code>-Array.
+	 *
+	 * @param bytes       Byte-Array mit den serialisierten Werten
+	 * @param offset      Position des ersten Werts
+	 * @param width       Anzahl Bytes pro Wert (1, 2, 4 oder 8)
+	 * @param count       Anzahl Werte
+	 * @param destination Zielarray
+	 */
+	static void readIntegersAsDoubles(final byte[] bytes, final int offset, final int width, final int count, final double[] destination) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count * width);
+		switch(width) {
+			case 8:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getLong();
+				break;
+			case 4:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getInt();
+				break;
+			case 2:
+				for(int i = 0; i < count; i++) destination[i] = buffer.getShort();
+				break;
+			case 1:
+				for(int i = 0; i < count; i++) destination[i] = buffer.get();
+				break;
+			default:
+				throw new IllegalArgumentException("Ungültige Anzahl Bytes: " + width);
+		}
+	}
+
+	/**
+	 * Dekodiert Fließkommazahlen mit einfacher Genauigkeit.
+	 *
+	 * @param bytes       Byte-Array mit den serialisierten Werten
+	 * @param offset      Position des ersten Werts
+	 * @param count       Anzahl Werte
+	 * @param destination Zielarray
+	 */
+	static void readFloats(final byte[] bytes, final int offset, final int count, final float[] destination) {
+		ByteBuffer.wrap(bytes, offset, count * 4).asFloatBuffer().get(destination, 0, count);
+	}
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray;
+
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeDefinitionInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.AttributeGroupInfo;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+
+import java.util.BitSet;
+
+/**
+ * Spaltenorientierte Sicht auf mehrere Ergebnisdatensätze derselben Attributgruppe, wie sie z.B. mit {@link
+ * de.bsvrz.dav.daf.main.ClientReceiverInterface#update(ResultData[])} übergeben werden. Zu einem Attributpfad wird der Wert aus allen Datensätzen
+ * des Blocks in ein primitives Array übernommen, so dass Auswertungen über einen Block ohne Data-Objekte je Datensatz und Ebene auskommen.
+ * <p>
+ * Die Werte werden direkt aus den serialisierten Datensätzen gelesen. Empfangene Datensätze werden dafür nicht dekodiert (siehe {@link
+ * ResultData#getDataBytes()}). Zu jeder Spalte gibt es eine Bitmap, die angibt, in welchen Zeilen ein gültiger Wert vorliegt. Ungültig sind Zeilen
+ * ohne Datensatz, Zeilen, in denen ein Array des Attributpfads weniger Elemente hat als der Index im Pfad, sowie Zahlattribute, deren Wert ein
+ * Zustand oder undefiniert ist.
+ * <p>
+ * Die Klasse ist nicht threadsafe.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class ResultDataColumns {
+
+	private final AttributeGroup _atg;
+
+	private final AttributeInfo _attributeGroupInfo;
+
+	private final ResultData[] _results;
+
+	/** Byte-Array des Datensatzes je Zeile oder <code>null</code>, wenn die Zeile keinen Datensatz enthält */
+	private final byte[][] _rowBytes;
+
+	/** Position des Datensatzes im Byte-Array je Zeile */
+	private final int[] _rowOffsets;
+
+	private ResultDataColumns(final AttributeGroup atg, final ResultData[] results) {
+		_atg = atg;
+		_attributeGroupInfo = AttributeGroupInfo.forAttributeGroup(atg);
+		_results = results.clone();
+		_rowBytes = new byte[_results.length][];
+		_rowOffsets = new int[_results.length];
+		for(int row = 0; row < _results.length; row++) {
+			final ResultData result = _results[row];
+			if(!atg.equals(result.getDataDescription().getAttributeGroup())) {
+				throw new IllegalArgumentException(
+						"Datensatz " + row + " hat die Attributgruppe " + result.getDataDescription().getAttributeGroup().getPid() + ", erwartet: "
+						+ atg.getPid()
+				);
+			}
+			if(!result.hasData()) continue;
+			final byte[] dataBytes = result.getDataBytes();
+			if(dataBytes != null) {
+				_rowBytes[row] = dataBytes;
+				continue;
+			}
+			locate(row, result.getData());
+		}
+	}
+
+	/**
+	 * Erzeugt eine spaltenorientierte Sicht auf einen Block von Ergebnisdatensätzen.
+	 *
+	 * @param atg     Attributgruppe aller Datensätze des Blocks
+	 * @param results Ergebnisdatensätze. Ergebnisse ohne Datensatz werden als Zeilen ohne gültige Werte übernommen.
+	 *
+	 * @return Spaltenorientierte Sicht
+	 *
+	 * @throws IllegalArgumentException Wenn ein Ergebnis zu einer anderen Attributgruppe gehört
+	 */
+	public static ResultDataColumns of(final AttributeGroup atg, final ResultData[] results) {
+		return new ResultDataColumns(atg, results);
+	}
+
+	/**
+	 * Bestimmt Byte-Array und Position eines lokal erzeugten Datensatzes.
+	 *
+	 * @param row  Zeile
+	 * @param data Datensatz
+	 */
+	private void locate(final int row, final Data data) {
+		if(data instanceof ByteArrayModifiableListData) {
+			final ModifiableLocation location = ((ByteArrayModifiableListData)data).getLocation();
+			if(location.isRoot()) {
+				_rowBytes[row] = location.getBuffer().getBytes();
+				_rowOffsets[row] = 0;
+				return;
+			}
+		}
+		else if(data instanceof ByteArrayData && ((ByteArrayData)data).getInfo() == _attributeGroupInfo) {
+			_rowBytes[row] = ((ByteArrayData)data).getBytes();
+			_rowOffsets[row] = ((ByteArrayData)data).getOffset();
+			return;
+		}
+		final ByteArrayData copy = (ByteArrayData)data.createUnmodifiableCopy();
+		_rowBytes[row] = copy.getBytes();
+		_rowOffsets[row] = copy.getOffset();
+	}
+
+	/**
+	 * Anzahl der Zeilen.
+	 *
+	 * @return Anzahl der Ergebnisdatensätze des Blocks
+	 */
+	public int size() {
+		return _results.length;
+	}
+
+	/**
+	 * Attributgruppe der Datensätze.
+	 *
+	 * @return Attributgruppe
+	 */
+	public AttributeGroup getAttributeGroup() {
+		return _atg;
+	}
+
+	/**
+	 * Liefert das Ergebnis einer Zeile.
+	 *
+	 * @param row Zeile
+	 *
+	 * @return Ergebnisdatensatz
+	 */
+	public ResultData getResult(final int row) {
+		return _results[row];
+	}
+
+	/**
+	 * Liefert eine Spalte mit den unskalierten Werten eines Ganzzahlattributs, den Millisekunden eines Zeitattributs oder den Objekt-Ids eines
+	 * Referenzattributs.
+	 *
+	 * @param itemNames Attributpfad wie bei {@link AttributePathHandle#compile(AttributeGroup, String...)}
+	 *
+	 * @return Spalte
+	 */
+	public LongColumn getLongColumn(final String... itemNames) {
+		return getLongColumn(AttributePathHandle.compile(_atg, itemNames));
+	}
+
+	/**
+	 * Liefert eine Spalte mit den unskalierten Werten eines Ganzzahlattributs, den Millisekunden eines Zeitattributs oder den Objekt-Ids eines
+	 * Referenzattributs.
+	 *
+	 * @param handle Attributpfad in der Attributgruppe dieses Blocks
+	 *
+	 * @return Spalte
+	 *
+	 * @throws IllegalArgumentException Wenn der Pfad nicht zur Attributgruppe passt oder nicht zu einem der genannten Attributtypen führt
+	 */
+	public LongColumn getLongColumn(final AttributePathHandle handle) {
+		handle.checkAttributeGroup(_attributeGroupInfo);
+		final AttributeDefinitionInfo definitionInfo = handle.getDefinitionInfo();
+		final AttributeType attributeType = handle.getAttributeType();
+		final int kind;
+		if(attributeType instanceof IntegerAttributeType) {
+			kind = 0;
+		}
+		else if(definitionInfo.isTimeAttribute()) {
+			kind = 1;
+		}
+		else if(definitionInfo.isReferenceAttribute()) {
+			kind = 2;
+		}
+		else {
+			throw new IllegalArgumentException("Attributpfad " + handle + " führt nicht zu einem Ganzzahl-, Zeit- oder Referenzattribut");
+		}
+		final long[] values = new long[_results.length];
+		final BitSet validity = new BitSet(_results.length);
+		for(int row = 0; row < _results.length; row++) {
+			final byte[] bytes = _rowBytes[row];
+			if(bytes == null) continue;
+			final int offset = handle.findOffset(bytes, _rowOffsets[row]);
+			if(offset < 0) continue;
+			switch(kind) {
+				case 0:
+					values[row] = definitionInfo.unscaledLongValue(bytes, offset);
+					if(definitionInfo.isNumber(bytes, offset)) validity.set(row);
+					break;
+				case 1:
+					values[row] = definitionInfo.getMillis(bytes, offset);
+					validity.set(row);
+					break;
+				default:
+					values[row] = definitionInfo.getId(bytes, offset);
+					validity.set(row);
+			}
+		}
+		return new LongColumn(values, validity);
+	}
+
+	/**
+	 * Liefert eine Spalte mit den skalierten Werten eines Zahlattributs.
+	 *
+	 * @param itemNames Attributpfad wie bei {@link AttributePathHandle#compile(AttributeGroup, String...)}
+	 *
+	 * @return Spalte
+	 */
+	public DoubleColumn getDoubleColumn(final String... itemNames) {
+		return getDoubleColumn(AttributePathHandle.compile(_atg, itemNames));
+	}
+
+	/**
+	 * Liefert eine Spalte mit den skalierten Werten eines Zahlattributs. Ungültige Zeilen enthalten den Wert {@link Double#NaN}.
+	 *
+	 * @param handle Attributpfad in der Attributgruppe dieses Blocks
+	 *
+	 * @return Spalte
+	 *
+	 * @throws IllegalArgumentException Wenn der Pfad nicht zur Attributgruppe passt oder nicht zu einem Zahlattribut führt
+	 */
+	public DoubleColumn getDoubleColumn(final AttributePathHandle handle) {
+		handle.checkAttributeGroup(_attributeGroupInfo);
+		final AttributeDefinitionInfo definitionInfo = handle.getDefinitionInfo();
+		if(!definitionInfo.isNumberAttribute()) {
+			throw new IllegalArgumentException("Attributpfad " + handle + " führt nicht zu einem Zahlattribut");
+		}
+		final double[] values = new double[_results.length];
+		final BitSet validity = new BitSet(_results.length);
+		for(int row = 0; row < _results.length; row++) {
+			final byte[] bytes = _rowBytes[row];
+			if(bytes != null) {
+				final int offset = handle.findOffset(bytes, _rowOffsets[row]);
+				if(offset >= 0 && definitionInfo.isNumber(bytes, offset)) {
+					values[row] = definitionInfo.doubleValue(bytes, offset);
+					validity.set(row);
+					continue;
+				}
+			}
+			values[row] = Double.NaN;
+		}
+		return new DoubleColumn(values, validity);
+	}
+
+	/** Gemeinsame Eigenschaften der Spalten. */
+	private abstract static class Column {
+
+		final BitSet _validity;
+
+		private Column(final BitSet validity) {
+			_validity = validity;
+		}
+
+		/**
+		 * Prüft, ob eine Zeile einen gültigen Wert enthält.
+		 *
+		 * @param row Zeile
+		 *
+		 * @return <code>true</code>, wenn ein gültiger Wert vorliegt, sonst <code>false</code>
+		 */
+		public boolean isValid(final int row) {
+			return _validity.get(row);
+		}
+
+		/**
+		 * Liefert eine Kopie der Bitmap der gültigen Zeilen.
+		 *
+		 * @return Bitmap, in der die Bits der Zeilen mit gültigem Wert gesetzt sind
+		 */
+		public BitSet getValidity() {
+			return (BitSet)_validity.clone();
+		}
+
+		/**
+		 * Anzahl der Zeilen mit gültigem Wert.
+		 *
+		 * @return Anzahl gültiger Werte
+		 */
+		public int getValidCount() {
+			return _validity.cardinality();
+		}
+	}
+
+	/** Spalte mit ganzzahligen Werten. */
+	public static final class LongColumn extends Column {
+
+		private final long[] _values;
+
+		private LongColumn(final long[] values, final BitSet validity) {
+			super(validity);
+			_values = values;
+		}
+
+		/**
+		 * Liefert den Wert einer Zeile. Bei ungültigen Zeilen ist der Wert nicht definiert.
+		 *
+		 * @param row Zeile
+		 *
+		 * @return Wert
+		 */
+		public long get(final int row) {
+			return _values[row];
+		}
+
+		/**
+		 * Liefert die Werte aller Zeilen. Das Array wird nicht kopiert und darf nicht verändert werden.
+		 *
+		 * @return Werte, bei ungültigen Zeilen ist der Wert nicht definiert
+		 */
+		public long[] getValues() {
+			return _values;
+		}
+
+		/**
+		 * Summe der gültigen Werte.
+		 *
+		 * @return Summe oder 0, falls keine gültigen Werte vorliegen
+		 */
+		public long sum() {
+			long sum = 0;
+			for(int row = _validity.nextSetBit(0); row >= 0; row = _validity.nextSetBit(row + 1)) {
+				sum += _values[row];
+			}
+			return sum;
+		}
+
+		/**
+		 * Kleinster gültiger Wert.
+		 *
+		 * @return Minimum oder {@link Long#MAX_VALUE}, falls keine gültigen Werte vorliegen
+		 */
+		public long min() {
+			long min = Long.MAX_VALUE;
+			for(int row = _validity.nextSetBit(0); row >= 0; row = _validity.nextSetBit(row + 1)) {
+				if(_values[row] < min) min = _values[row];
+			}
+			return min;
+		}
+
+		/**
+		 * Größter gültiger Wert.
+		 *
+		 * @return Maximum oder {@link Long#MIN_VALUE}, falls keine gültigen Werte vorliegen
+		 */
+		public long max() {
+			long max = Long.MIN_VALUE;
+			for(int row = _validity.nextSetBit(0); row >= 0; row = _validity.nextSetBit(row + 1)) {
+				if(_values[row] > max) max = _values[row];
+			}
+			return max;
+		}
+
+		/**
+		 * Mittelwert der gültigen Werte.
+		 *
+		 * @return Mittelwert oder {@link Double#NaN}, falls keine gültigen Werte vorliegen
+		 */
+		public double average() {
+			final int count = getValidCount();
+			return count == 0 ? Double.NaN : (double)sum() / count;
+		}
+	}
+
+	/** Spalte mit Fließkommawerten. */
+	public static final class DoubleColumn extends Column {
+
+		private final double[] _values;
+
+		private DoubleColumn(final double[] values, final BitSet validity) {
+			super(validity);
+			_values = values;
+		}
+
+		/**
+		 * Liefert den Wert einer Zeile.
+		 *
+		 * @param row Zeile
+		 *
+		 * @return Wert oder {@link Double#NaN} bei ungültigen Zeilen
+		 */
+		public double get(final int row) {
+			return _values[row];
+		}
+
+		/**
+		 * Liefert die Werte aller Zeilen. Das Array wird nicht kopiert und darf nicht verändert werden.
+		 *
+		 * @return Werte, ungültige Zeilen enthalten {@link Double#NaN}
+		 */
+		public double[] getValues() {
+			return _values;
+		}
+
+		/**
+		 * Summe der gültigen Werte.
+		 *
+		 * @return Summe oder 0, falls keine gültigen Werte vorliegen
+		 */
+		public double sum() {
+			double sum = 0;
+			for(int row = _validity.nextSetBit(0); row >= 0; row = _validity.nextSetBit(row + 1)) {
+				sum += _values[row];
+			}
+			return sum;
+		}
+
+		/**
+		 * Kleinster gültiger Wert.
+		 *
+		 * @return Minimum oder {@link Double#NaN}, falls keine gültigen Werte vorliegen
+		 */
+		public double min() {
+			double min = Double.NaN;
+			for(int row = _validity.nextSetBit(0); row >= 0; row = _validity.nextSetBit(row + 1)) {
+				if(!(_values[row] >= min)) min = _values[row];
+			}
+			return min;
+		}
+
+		/**
+		 * Größter gültiger Wert.
+		 *
+		 * @return Maximum oder {@link Double#NaN}, falls keine gültigen Werte vorliegen
+		 */
+		public double max() {
+			double max = Double.NaN;
+			for(int row = _validity.nextSetBit(0); row >= 0; row = _validity.nextSetBit(row + 1)) {
+				if(!(_values[row] <= max)) max = _values[row];
+			}
+			return max;
+		}
+
+		/**
+		 * Mittelwert der gültigen Werte.
+		 *
+		 * @return Mittelwert oder {@link Double#NaN}, falls keine gültigen Werte vorliegen
+		 */
+		public double average() {
+			final int count = getValidCount();
+			return count == 0 ? Double.NaN : sum() / count;
+		}
+	}
+}
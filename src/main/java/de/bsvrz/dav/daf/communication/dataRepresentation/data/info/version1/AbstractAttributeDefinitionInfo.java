@@ -40,35 +40,33 @@ public abstract class AbstractAttributeDefinitionInfo implements AttributeDefini
 	private static final SystemObjectCache<AttributeType, AttributeDefinitionInfo> _AttributType2DefinitionInfoMap = new SystemObjectCache<AttributeType, AttributeDefinitionInfo>();
 
 	public static void forgetDataModel(DataModel dataModel) {
-		synchronized(_AttributSet2InfoMap) {
-			_AttributSet2InfoMap.forgetDataModel(dataModel);
-		}
-		synchronized(_AttributType2DefinitionInfoMap) {
-			_AttributType2DefinitionInfoMap.forgetDataModel(dataModel);
-		}
+		_AttributSet2InfoMap.forgetDataModel(dataModel);
+		_AttributType2DefinitionInfoMap.forgetDataModel(dataModel);
 	}
 
 	public static AttributeDefinitionInfo forAttributSet(final AttributeSet attributeSet) {
-		synchronized(_AttributSet2InfoMap) {
-			AttributeDefinitionInfo definitionInfo = _AttributSet2InfoMap.get(attributeSet);
+		AttributeDefinitionInfo definitionInfo = _AttributSet2InfoMap.get(attributeSet);
+		if(definitionInfo == null) {
+			// Die Beschreibung wird ohne Sperre erzeugt, bei gleichzeitigen Aufrufen wird die zuerst gespeicherte Beschreibung verwendet
+			final AttributeDefinitionInfo newDefinitionInfo = new AttributeSetDefinitionInfo(attributeSet);
+			definitionInfo = _AttributSet2InfoMap.putIfAbsent(attributeSet, newDefinitionInfo);
 			if(definitionInfo == null) {
-				definitionInfo = new AttributeSetDefinitionInfo(attributeSet);
-				_AttributSet2InfoMap.put(attributeSet, definitionInfo);
+				definitionInfo = newDefinitionInfo;
 			}
-			return definitionInfo;
 		}
+		return definitionInfo;
 	}
 
 	public static AttributeDefinitionInfo forAttributeType(AttributeType attributeType) {
-		synchronized(_AttributType2DefinitionInfoMap) {
-			AttributeDefinitionInfo definitionInfo;
-			definitionInfo = _AttributType2DefinitionInfoMap.get(attributeType);
+		AttributeDefinitionInfo definitionInfo = _AttributType2DefinitionInfoMap.get(attributeType);
+		if(definitionInfo == null) {
+			final AttributeDefinitionInfo newDefinitionInfo = createDefinition(attributeType);
+			definitionInfo = _AttributType2DefinitionInfoMap.putIfAbsent(attributeType, newDefinitionInfo);
 			if(definitionInfo == null) {
-				definitionInfo = createDefinition(attributeType);
-				_AttributType2DefinitionInfoMap.put(attributeType, definitionInfo);
+				definitionInfo = newDefinitionInfo;
 			}
-			return definitionInfo;
 		}
+		return definitionInfo;
 	}
 
 	private static AttributeDefinitionInfo createDefinition(AttributeType attributeType) {
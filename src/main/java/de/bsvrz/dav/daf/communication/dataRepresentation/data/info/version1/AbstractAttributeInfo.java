@@ -76,7 +76,7 @@ public abstract class AbstractAttributeInfo implements AttributeInfo {
 		}
 	}
 
-	protected Attribute getAttribute() {
+	public Attribute getAttribute() {
 		return _attribute;
 	}
 
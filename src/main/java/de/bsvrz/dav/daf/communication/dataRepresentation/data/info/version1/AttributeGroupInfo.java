@@ -52,20 +52,20 @@ public class AttributeGroupInfo implements AttributeInfo {
 	}
 
 	public static AttributeInfo forAttributeGroup(final AttributeGroup atg) {
-		synchronized(_Atg2AttributeInfo) {
-			AttributeInfo info = _Atg2AttributeInfo.get(atg);
+		AttributeInfo info = _Atg2AttributeInfo.get(atg);
+		if(info == null) {
+			// Die Beschreibung wird ohne Sperre erzeugt, bei gleichzeitigen Aufrufen wird die zuerst gespeicherte Beschreibung verwendet
+			final AttributeInfo newInfo = new AttributeGroupInfo(atg);
+			info = _Atg2AttributeInfo.putIfAbsent(atg, newInfo);
 			if(info == null) {
-				info = new AttributeGroupInfo(atg);
-				_Atg2AttributeInfo.put(atg,info);
+				info = newInfo;
 			}
-			return info;
 		}
+		return info;
 	}
 
 	public static void forgetDataModel(DataModel dataModel) {
-		synchronized(_Atg2AttributeInfo) {
-			_Atg2AttributeInfo.forgetDataModel(dataModel);
-		}
+		_Atg2AttributeInfo.forgetDataModel(dataModel);
 	}
 
 	public String getName() {
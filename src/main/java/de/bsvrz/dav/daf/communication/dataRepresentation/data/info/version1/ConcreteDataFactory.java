@@ -32,6 +32,7 @@ import de.bsvrz.dav.daf.communication.dataRepresentation.AttributeBaseValueDataF
 import de.bsvrz.dav.daf.communication.dataRepresentation.AttributeHelper;
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.DataFactory;
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray.ByteArrayData;
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray.ByteArrayModifiableListData;
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.AttributeInfo;
 import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.DataValue;
 import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.StreamFetcher;
@@ -53,6 +54,12 @@ import java.util.List;
 public final class ConcreteDataFactory extends DataFactory {
 	private static DataFactory _Instance = new ConcreteDataFactory();
 
+	/**
+	 * Serialisierte Datensätze je Attributgruppe, in denen alle Attribute auf den Default-Wert bzw. den "undefiniert"-Wert gesetzt sind. Die Byte-Arrays
+	 * werden nie verändert, sondern bei jeder Verwendung kopiert.
+	 */
+	private static final SystemObjectCache<AttributeGroup, byte[]> _Atg2DefaultBytes = new SystemObjectCache<AttributeGroup, byte[]>();
+
 	/**
 	 * Löscht die für eine Datenverteilerverbindung bzw. eine DataModel-Implementierung zwischengespeicherten Datenstrukturen. Diese Methode sollte
 	 * aufgerufen werden, wenn eine Datenverteilerverbindung bzw. eine DataModel-Implementierung nicht mehr zur Verfügung steht und die zwischengespeicherten
@@ -62,6 +69,7 @@ public final class ConcreteDataFactory extends DataFactory {
 	public static void forgetDataModel(DataModel dataModel) {
 		AttributeGroupInfo.forgetDataModel(dataModel);
 		AbstractAttributeDefinitionInfo.forgetDataModel(dataModel);
+		_Atg2DefaultBytes.forgetDataModel(dataModel);
 	}
 
 	/**
@@ -80,6 +88,37 @@ public final class ConcreteDataFactory extends DataFactory {
 		return ByteArrayData.create(bytes, info);
 	}
 
+	public Data createModifiableByteArrayData(AttributeGroup atg, byte[] bytes) {
+		return ByteArrayModifiableListData.create(bytes, AttributeGroupInfo.forAttributeGroup(atg));
+	}
+
+	public Data createDefaultData(AttributeGroup atg) {
+		byte[] defaultBytes = _Atg2DefaultBytes.get(atg);
+		if(defaultBytes == null) {
+			// Der Datensatz wird ohne Sperre erzeugt, bei gleichzeitigen Aufrufen wird der zuerst gespeicherte Datensatz verwendet
+			final byte[] newDefaultBytes = createDefaultBytes(atg);
+			defaultBytes = _Atg2DefaultBytes.putIfAbsent(atg, newDefaultBytes);
+			if(defaultBytes == null) {
+				defaultBytes = newDefaultBytes;
+			}
+		}
+		return createModifiableByteArrayData(atg, defaultBytes);
+	}
+
+	/**
+	 * Erzeugt einen Datensatz, in dem jedes Attribut entweder den Default-Wert oder, falls kein Default-Wert definiert ist, den "undefiniert"-Wert enthält,
+	 * und liefert dessen serialisierte Form.
+	 *
+	 * @param atg Attributgruppe des Datensatzes
+	 *
+	 * @return Serialisierter Datensatz
+	 */
+	private static byte[] createDefaultBytes(final AttributeGroup atg) {
+		final Data data = AttributeBaseValueDataFactory.createAdapter(atg, AttributeHelper.getAttributesValues(atg));
+		data.setToDefault();
+		return ((ByteArrayData)data.createUnmodifiableCopy()).getBytes();
+	}
+
 	public Data createModifiableData(AttributeGroup atg, byte[] bytes) {
 		try {
 			// Erzeugt eine Liste von AttributeBaseValue Objekte, für jedes Attribut auf oberstem Level der ATG jeweils
@@ -46,7 +46,30 @@ public abstract class NumberDefinitionInfo extends AttributeTypeDefinitionInfo {
 
 	private final String _unit;
 	private final String _unscaledUnit;
-	private final Map _value2StateMap;
+
+	/** Maximale Größe des Wertebereichs der Zustände, bis zu der die Zustände in einem direkt indizierten Array gespeichert werden. */
+	private static final int MAX_DENSE_STATE_RANGE = 1024;
+
+	/** Kleinster Wert eines Zustands, bei Attributtypen ohne Zustände <code>Long.MAX_VALUE</code>. */
+	private final long _minStateValue;
+
+	/** Größter Wert eines Zustands, bei Attributtypen ohne Zustände <code>Long.MIN_VALUE</code>. */
+	private final long _maxStateValue;
+
+	/**
+	 * Sortierte Werte der Zustände für die binäre Suche oder <code>null</code>, wenn die folgenden Tabellen direkt mit <code>value -
+	 * _minStateValue</code> indiziert werden.
+	 */
+	private final long[] _stateValues;
+
+	/** Zustände, indiziert wie in {@link #getStateIndex(long)} beschrieben. */
+	private final IntegerValueState[] _states;
+
+	/** Namen der Zustände, die bei jedem Zugriff auf den Werttext unverändert zurückgegeben werden. */
+	private final String[] _stateNames;
+
+	/** Vorab berechnete Texte der Zustände für {@link #getUnscaledSuffixText(byte[], int)}. */
+	private final String[] _unscaledStateSuffixes;
 
 	protected static final NumberFormat _integerNumberFormat;
 	protected static final NumberFormat _precisionTestNumberFormat;
@@ -95,10 +118,47 @@ public abstract class NumberDefinitionInfo extends AttributeTypeDefinitionInfo {
 			}
 
 			List states= att.getStates();
-			_value2StateMap = new HashMap(states.size());
+			// Bei mehreren Zuständen mit gleichem Wert wird wie bisher der zuletzt definierte Zustand verwendet
+			final SortedMap<Long, IntegerValueState> value2State = new TreeMap<Long, IntegerValueState>();
 			for(Iterator iterator = states.iterator(); iterator.hasNext();) {
 				IntegerValueState state = (IntegerValueState)iterator.next();
-				_value2StateMap.put(new Long(state.getValue()), state);
+				value2State.put(state.getValue(), state);
+			}
+			if(value2State.isEmpty()) {
+				_minStateValue = Long.MAX_VALUE;
+				_maxStateValue = Long.MIN_VALUE;
+				_stateValues = null;
+				_states = new IntegerValueState[0];
+			}
+			else {
+				_minStateValue = value2State.firstKey();
+				_maxStateValue = value2State.lastKey();
+				final long stateRange = _maxStateValue - _minStateValue;
+				if(stateRange >= 0 && stateRange < MAX_DENSE_STATE_RANGE) {
+					_stateValues = null;
+					_states = new IntegerValueState[(int)stateRange + 1];
+					for(Map.Entry<Long, IntegerValueState> entry : value2State.entrySet()) {
+						_states[(int)(entry.getKey() - _minStateValue)] = entry.getValue();
+					}
+				}
+				else {
+					_stateValues = new long[value2State.size()];
+					_states = new IntegerValueState[value2State.size()];
+					int index = 0;
+					for(Map.Entry<Long, IntegerValueState> entry : value2State.entrySet()) {
+						_stateValues[index] = entry.getKey();
+						_states[index] = entry.getValue();
+						index++;
+					}
+				}
+			}
+			_stateNames = new String[_states.length];
+			_unscaledStateSuffixes = new String[_states.length];
+			for(int i = 0; i < _states.length; i++) {
+				if(_states[i] == null) continue;
+				final String name = _states[i].getName();
+				_stateNames[i] = name == null ? null : name.intern();
+				_unscaledStateSuffixes[i] = "(" + name + ")";
 			}
 		}
 		catch(ConfigurationException e) {
@@ -147,20 +207,19 @@ public abstract class NumberDefinitionInfo extends AttributeTypeDefinitionInfo {
 	}
 
 	public String getUnscaledSuffixText(byte[] bytes, int offset) {
-		StringBuffer text= new StringBuffer();
 		try {
 			long value= unscaledLongValue(bytes, offset);
 			IntegerAttributeType type = (IntegerAttributeType)getAttributeType();
-			IntegerValueState state= getState(value);
-			if(state!=null) return text.append("(").append(state.getName()).append(")").toString();
+			final int stateIndex = getStateIndex(value);
+			if(stateIndex >= 0) return _unscaledStateSuffixes[stateIndex];
 			IntegerValueRange range= type.getRange();
 			if(range==null || value<range.getMinimum() || value>range.getMaximum()) {
-				return text.append("<<ungültiger Wert>>").toString();
+				return "<<ungültiger Wert>>";
 			}
 			return _unscaledUnit;
 		}
 		catch(Exception e) {
-			return text.append("<<" + e.getMessage() + ">>").toString();
+			return "<<" + e.getMessage() + ">>";
 		}
 	}
 
@@ -168,8 +227,8 @@ public abstract class NumberDefinitionInfo extends AttributeTypeDefinitionInfo {
 		try {
 			long value= unscaledLongValue(bytes, offset);
 			IntegerAttributeType type=(IntegerAttributeType)getAttributeType();
-			IntegerValueState state= getState(value);
-			if(state!=null) return state.getName();
+			final int stateIndex = getStateIndex(value);
+			if(stateIndex >= 0) return _stateNames[stateIndex];
 			IntegerValueRange range= type.getRange();
 			if(range==null || value<range.getMinimum() || value>range.getMaximum()) {
 				return " <<ungültiger Wert (" + value + ")>>";
@@ -203,7 +262,28 @@ public abstract class NumberDefinitionInfo extends AttributeTypeDefinitionInfo {
 	}
 
 	protected IntegerValueState getState(long value) {
-		return (IntegerValueState)_value2StateMap.get(new Long(value));
+		final int index = getStateIndex(value);
+		if(index < 0) return null;
+		return _states[index];
+	}
+
+	/**
+	 * Bestimmt den Index eines Zustands in den Zustandstabellen. Bei einem kleinen Wertebereich der Zustände ist dies <code>value -
+	 * _minStateValue</code>, sonst die Position in den sortierten Zustandswerten.
+	 *
+	 * @param value Unskalierter Wert
+	 *
+	 * @return Index oder -1, wenn der Wert keinem Zustand entspricht
+	 */
+	private int getStateIndex(long value) {
+		// Enthält auch den Fall, dass keine Zustände definiert sind
+		if(value < _minStateValue || value > _maxStateValue) return -1;
+		if(_stateValues == null) {
+			final int index = (int)(value - _minStateValue);
+			return _states[index] == null ? -1 : index;
+		}
+		final int index = Arrays.binarySearch(_stateValues, value);
+		return index < 0 ? -1 : index;
 	}
 
 	public byte byteValue(byte[] bytes, int offset) {
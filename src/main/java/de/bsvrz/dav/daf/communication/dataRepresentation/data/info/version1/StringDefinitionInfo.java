@@ -27,6 +27,8 @@ package de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1;
 
 import de.bsvrz.dav.daf.main.config.StringAttributeType;
 
+import java.util.Arrays;
+
 /**
  * Klasse, die noch zu dokumentieren ist.
  *
@@ -35,6 +37,19 @@ import de.bsvrz.dav.daf.main.config.StringAttributeType;
  * @version $Revision$ / $Date$ / ($Author$)
  */
 public class StringDefinitionInfo extends AttributeTypeDefinitionInfo {
+
+	/** Anzahl Einträge im Cache der dekodierten Texte (Zweierpotenz) */
+	private static final int TEXT_CACHE_SIZE = 64;
+
+	/** Maximale Länge der kodierten Texte in Bytes, die im Cache gehalten werden */
+	private static final int MAX_CACHED_TEXT_LENGTH = 64;
+
+	/**
+	 * Cache der zuletzt dekodierten kurzen Texte dieses Attributtyps. Die Einträge sind unveränderlich, konkurrierende Zugriffe können daher
+	 * höchstens dazu führen, dass ein Eintrag überschrieben und ein Text erneut dekodiert wird.
+	 */
+	private final CachedText[] _textCache = new CachedText[TEXT_CACHE_SIZE];
+
 	public StringDefinitionInfo(StringAttributeType stringAttributeType) {
 		super(stringAttributeType);
 	}
@@ -58,38 +73,97 @@ public class StringDefinitionInfo extends AttributeTypeDefinitionInfo {
 		return "";
 	}
 
-	public String getValueText(final byte[] bytes, int offset) {
+	public String getValueText(final byte[] bytes, final int offset) {
+		final int utf8Length = ((bytes[offset] & 0xff) << 8 | bytes[offset + 1] & 0xff);
+		if(utf8Length == 0) return "";
+		if(utf8Length > MAX_CACHED_TEXT_LENGTH) return decode(bytes, offset + 2, utf8Length);
+		// Kurze Texte werden über einen kleinen direkt adressierten Cache wiederverwendet, der mit dem Inhalt der Bytes adressiert wird
+		final int hash = hash(bytes, offset + 2, utf8Length);
+		final int slot = hash & (TEXT_CACHE_SIZE - 1);
+		final CachedText cached = _textCache[slot];
+		if(cached != null && cached._hash == hash && cached.matches(bytes, offset + 2, utf8Length)) return cached._text;
+		final String text = decode(bytes, offset + 2, utf8Length);
+		_textCache[slot] = new CachedText(Arrays.copyOfRange(bytes, offset + 2, offset + 2 + utf8Length), hash, text);
+		return text;
+	}
+
+	/**
+	 * Vergleicht den Text an einer Position im Byte-Array mit einem vorgegebenen Text, ohne den Text zu dekodieren.
+	 *
+	 * @param bytes  Byte-Array
+	 * @param offset Position des Textattributs
+	 * @param text   Vergleichstext
+	 *
+	 * @return <code>true</code>, wenn beide Texte übereinstimmen, sonst <code>false</code>
+	 */
+	public boolean textEquals(final byte[] bytes, final int offset, final CharSequence text) {
 		final int utf8Length = ((bytes[offset] & 0xff) << 8 | bytes[offset + 1] & 0xff);
-		offset += 2;
-		//return new String(bytes, offset, byteCount, "UTF8");
-		StringBuffer result;
+		final int textLength = text.length();
+		int position = offset + 2;
+		final int endOffset = position + utf8Length;
+		int charIndex = 0;
+		while(position < endOffset) {
+			if(charIndex >= textLength) return false;
+			final byte b = bytes[position];
+			final char c;
+			if((b & 0x80) == 0) {
+				c = (char)b;
+				position += 1;
+			}
+			else if((b & 0xe0) == 0xc0) {
+				c = (char)(((b & 0x1f) << 6) | (bytes[position + 1] & 0x3f));
+				position += 2;
+			}
+			else if((b & 0xe0) == 0xe0) {
+				c = (char)(((b & 0x1f) << 12) | ((bytes[position + 1] & 0x3f) << 6) | (bytes[position + 2] & 0x3f));
+				position += 3;
+			}
+			else {
+				throw new RuntimeException("Ungültige utf8 kodierung: " + (int)b);
+			}
+			if(c != text.charAt(charIndex++)) return false;
+		}
+		return charIndex == textLength;
+	}
+
+	private static int hash(final byte[] bytes, final int offset, final int length) {
+		int hash = length;
+		for(int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static String decode(final byte[] bytes, int offset, final int utf8Length) {
+		// Die Anzahl Zeichen ist höchstens so groß wie die Anzahl Bytes
+		final char[] result = new char[utf8Length];
+		int length = 0;
 		byte b;
-		result = new StringBuffer();
 		final int endOffset = offset + utf8Length;
 		while(offset < endOffset) {
 			b = bytes[offset];
 			if((b & 0x80) == 0) {
 				// 1 Byte für Zeichen 0x0001 .. 0x007f
-				result.append((char)b);
+				result[length++] = (char)b;
 				offset += 1;
 			}
 			else {
 				switch(b & 0xe0) {
 				case 0xc0:
 					// 2 Bytes für Zeichen 0x0000 und 0x0080 .. 0x07ff
-					result.append((char)(
+					result[length++] = (char)(
 										  ((bytes[offset + 0] & 0x1f) << 6) |
 						                    ((bytes[offset + 1] & 0x3f) << 0)
-					                    ));
+					                    );
 					offset += 2;
 					break;
 				case 0xe0:
 					// 3 Bytes für Zeichen 0x0800 .. 0xffff
-					result.append((char)(
+					result[length++] = (char)(
 					        ((bytes[offset + 0] & 0x1f) << 12) |
 					        ((bytes[offset + 1] & 0x3f) << 6) |
 					        ((bytes[offset + 2] & 0x3f) << 0)
-					));
+					);
 					offset += 3;
 					break;
 				default:
@@ -97,6 +171,30 @@ public class StringDefinitionInfo extends AttributeTypeDefinitionInfo {
 				}
 			}
 		}
-		return result.toString();
+		return new String(result, 0, length);
+	}
+
+	/** Eintrag im Cache der dekodierten Texte */
+	private static final class CachedText {
+
+		private final byte[] _encoded;
+
+		private final int _hash;
+
+		private final String _text;
+
+		CachedText(final byte[] encoded, final int hash, final String text) {
+			_encoded = encoded;
+			_hash = hash;
+			_text = text;
+		}
+
+		boolean matches(final byte[] bytes, final int offset, final int length) {
+			if(_encoded.length != length) return false;
+			for(int i = 0; i < length; i++) {
+				if(_encoded[i] != bytes[offset + i]) return false;
+			}
+			return true;
+		}
 	}
 }
@@ -29,77 +29,228 @@ package de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1;
 import de.bsvrz.dav.daf.main.config.DataModel;
 import de.bsvrz.dav.daf.main.config.SystemObject;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Map-Ähnliche Klasse, die Systemobjekte als Keys pro Datenmodell verwaltet und so die Objekte eines einzelnen Datenmodells schnell löschen kann.
- * 
- * Die Implementierung ist aktuell nicht threadsafe, es muss also extern synchronisiert werden.
+ * <p>
+ * Die Implementierung ist threadsafe und für lesende Zugriffe optimiert, lesende Zugriffe erfolgen ohne Sperren. Implementiert ein Key die Schnittstelle
+ * {@link Slots}, dann wird der Wert zusätzlich direkt im Key-Objekt abgelegt, so dass ein lesender Zugriff nur noch einen Feldzugriff erfordert und weder
+ * das Datenmodell des Objekts ermittelt noch eine Map durchsucht werden muss. Schreibende Zugriffe ändern Map und Platz gemeinsam unter einer Sperre, damit
+ * ein Platz nie einen Wert enthält, der nicht mehr in der Map gespeichert ist.
  *
  * @author Kappich Systemberatung
  */
 public class SystemObjectCache<K extends SystemObject, V> {
-	
-	private final Map<DataModel, Map<K, V>> _dataModels = new WeakHashMap<>();
-	
+
+	/** Anzahl der Plätze, die Objekte mit der Schnittstelle {@link Slots} zur Verfügung stellen müssen */
+	public static final int SLOT_COUNT = 4;
+
+	/** Nächster freier Platz für neu erzeugte Caches */
+	private static final AtomicInteger _nextSlot = new AtomicInteger();
+
+	/** Platz dieses Caches in den Key-Objekten oder -1, falls alle Plätze bereits vergeben waren */
+	private final int _slot;
+
+	/** Maps der einzelnen Datenmodelle. Das Array wird bei Änderungen kopiert und ersetzt. */
+	private volatile DataModelEntry<K, V>[] _dataModels = newEntries(0);
+
+	/** Erzeugt einen neuen leeren Cache. */
+	public SystemObjectCache() {
+		final int slot = _nextSlot.getAndIncrement();
+		_slot = slot < SLOT_COUNT ? slot : -1;
+	}
+
 	public int size() {
-		return _dataModels.values().stream().mapToInt(Map::size).sum();
+		int size = 0;
+		for(DataModelEntry<K, V> entry : _dataModels) {
+			size += entry._map.size();
+		}
+		return size;
 	}
-	
+
 	public boolean isEmpty() {
-		return _dataModels.values().stream().allMatch(Map::isEmpty);
+		for(DataModelEntry<K, V> entry : _dataModels) {
+			if(!entry._map.isEmpty()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Bestimmt die Map eines Datenmodells.
+	 *
+	 * @param dataModel Datenmodell
+	 * @param create    <code>true</code>, falls die Map angelegt werden soll, wenn sie noch nicht existiert
+	 *
+	 * @return Map oder <code>null</code>, falls nicht vorhanden und <code>create</code> <code>false</code> ist
+	 */
+	private Map<K, V> getDataModelMap(final DataModel dataModel, final boolean create) {
+		for(DataModelEntry<K, V> entry : _dataModels) {
+			if(entry.get() == dataModel) return entry._map;
+		}
+		if(!create) return null;
+		synchronized(this) {
+			final DataModelEntry<K, V>[] dataModels = _dataModels;
+			final List<DataModelEntry<K, V>> newDataModels = new ArrayList<DataModelEntry<K, V>>(dataModels.length + 1);
+			for(DataModelEntry<K, V> entry : dataModels) {
+				final DataModel entryDataModel = entry.get();
+				if(entryDataModel == dataModel) return entry._map;
+				// Einträge von nicht mehr referenzierten Datenmodellen werden entfernt
+				if(entryDataModel != null) newDataModels.add(entry);
+			}
+			final DataModelEntry<K, V> newEntry = new DataModelEntry<K, V>(dataModel);
+			newDataModels.add(newEntry);
+			_dataModels = newDataModels.toArray(newEntries(newDataModels.size()));
+			return newEntry._map;
+		}
+	}
+
+	private Map<K, V> getDataModelMap(final Object key, final boolean create) {
+		return getDataModelMap(((SystemObject)key).getDataModel(), create);
 	}
 
-	private Map<K, V> getDataModelMap(final Object key) {
-		SystemObject systemObject = (SystemObject) key;
-		DataModel dataModel = systemObject.getDataModel();
-		
-		Map<K, V> dataModelMap = _dataModels.get(dataModel);
-		if(dataModelMap == null){
-			dataModelMap = new HashMap<K, V>();
-			_dataModels.put(dataModel, dataModelMap);
+	private AtomicReferenceArray<Object> getSlots(final Object key) {
+		if(_slot >= 0 && key instanceof Slots) {
+			return ((Slots)key).getSystemObjectCacheSlots();
 		}
-		return dataModelMap;
+		return null;
 	}
 
 	public boolean containsKey(final Object key) {
-		return getDataModelMap(key).containsKey(key);
+		return get(key) != null;
 	}
 
 	public boolean containsValue(final Object value) {
-		return _dataModels.values().stream().allMatch(map -> map.containsValue(value));
+		for(DataModelEntry<K, V> entry : _dataModels) {
+			if(entry._map.containsValue(value)) return true;
+		}
+		return false;
 	}
-	
+
+	@SuppressWarnings("unchecked")
 	public V get(final Object key) {
-		return getDataModelMap(key).get(key);
+		final AtomicReferenceArray<Object> slots = getSlots(key);
+		if(slots != null) {
+			final Object value = slots.get(_slot);
+			if(value != null) return (V)value;
+		}
+		final Map<K, V> dataModelMap = getDataModelMap(key, false);
+		return dataModelMap == null ? null : dataModelMap.get(key);
 	}
-	
+
 	public V put(final K key, final V value) {
-		return getDataModelMap(key).put(key, value);
+		synchronized(this) {
+			final V oldValue = getDataModelMap(key, true).put(key, value);
+			setSlot(key, value);
+			return oldValue;
+		}
+	}
+
+	/**
+	 * Speichert einen Wert, falls zum Key noch kein Wert gespeichert ist.
+	 *
+	 * @param key   Key
+	 * @param value Wert
+	 *
+	 * @return Bereits vorher gespeicherter Wert oder <code>null</code>, falls der übergebene Wert gespeichert wurde.
+	 */
+	public V putIfAbsent(final K key, final V value) {
+		synchronized(this) {
+			final V oldValue = getDataModelMap(key, true).putIfAbsent(key, value);
+			setSlot(key, oldValue == null ? value : oldValue);
+			return oldValue;
+		}
 	}
 
-	
 	public V remove(final Object key) {
-		return getDataModelMap(key).remove(key);
+		synchronized(this) {
+			setSlot(key, null);
+			final Map<K, V> dataModelMap = getDataModelMap(key, false);
+			return dataModelMap == null ? null : dataModelMap.remove(key);
+		}
+	}
+
+	private void setSlot(final Object key, final V value) {
+		final AtomicReferenceArray<Object> slots = getSlots(key);
+		if(slots != null) {
+			slots.set(_slot, value);
+		}
 	}
 
-	
 	public void putAll(final Map<? extends K, ? extends V> m) {
 		m.forEach(this::put);
 	}
 
-	
-	public void clear() {
-		_dataModels.clear();
+	public synchronized void clear() {
+		final DataModelEntry<K, V>[] dataModels = _dataModels;
+		_dataModels = newEntries(0);
+		for(DataModelEntry<K, V> entry : dataModels) {
+			clearSlots(entry._map);
+		}
 	}
 
 	/**
 	 * Löscht alle Keys, die das angegeben Datenmodell verwenden
 	 * @param dataModel Datenmodell
 	 */
-	public void forgetDataModel(final DataModel dataModel) {
-		_dataModels.remove(dataModel);
+	public synchronized void forgetDataModel(final DataModel dataModel) {
+		Map<K, V> forgottenMap = null;
+		final DataModelEntry<K, V>[] dataModels = _dataModels;
+		final List<DataModelEntry<K, V>> newDataModels = new ArrayList<DataModelEntry<K, V>>(dataModels.length);
+		for(DataModelEntry<K, V> entry : dataModels) {
+			final DataModel entryDataModel = entry.get();
+			if(entryDataModel == dataModel) {
+				forgottenMap = entry._map;
+			}
+			else if(entryDataModel != null) {
+				newDataModels.add(entry);
+			}
+		}
+		_dataModels = newDataModels.toArray(newEntries(newDataModels.size()));
+		if(forgottenMap != null) {
+			clearSlots(forgottenMap);
+		}
+	}
+
+	/** Muss mit Sperre auf diesem Objekt aufgerufen werden */
+	private void clearSlots(final Map<K, V> map) {
+		for(K key : map.keySet()) {
+			setSlot(key, null);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K extends SystemObject, V> DataModelEntry<K, V>[] newEntries(final int size) {
+		return (DataModelEntry<K, V>[])new DataModelEntry<?, ?>[size];
+	}
+
+	/** Map der Objekte eines Datenmodells, das nur schwach referenziert wird. */
+	private static final class DataModelEntry<K, V> extends WeakReference<DataModel> {
+
+		private final Map<K, V> _map = new ConcurrentHashMap<K, V>();
+
+		private DataModelEntry(final DataModel dataModel) {
+			super(dataModel);
+		}
+	}
+
+	/**
+	 * Schnittstelle für Systemobjekte, in denen {@link SystemObjectCache}-Objekte ihre Werte direkt ablegen können.
+	 */
+	public interface Slots {
+
+		/**
+		 * Liefert die Plätze für Werte von {@link SystemObjectCache}-Objekten. Das zurückgegebene Array muss bei jedem Aufruf dasselbe sein und mindestens
+		 * {@link SystemObjectCache#SLOT_COUNT} Elemente haben.
+		 *
+		 * @return Plätze für die Werte
+		 */
+		AtomicReferenceArray<Object> getSystemObjectCacheSlots();
 	}
 }
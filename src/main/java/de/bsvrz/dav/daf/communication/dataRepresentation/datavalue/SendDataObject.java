@@ -27,6 +27,7 @@
 
 package de.bsvrz.dav.daf.communication.dataRepresentation.datavalue;
 
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
 
 import java.io.DataInputStream;
@@ -65,6 +66,9 @@ public class SendDataObject {
 	/** Der zu sendende Bytestrom */
 	private byte _data[] = null;
 
+	/** Zeitstempel der Latenzmessung eines empfangenen Datensatzes oder <code>null</code>. Wird nicht übertragen. */
+	private LatencyTrace _latencyTrace = null;
+
 	/** Erzeugt ein neues Objekt ohne Parameter. Die Parameter werden zu einem Späteren Zeitpunkt über die read-Methode eingelesen. */
 	public SendDataObject() {
 	}
@@ -143,6 +147,24 @@ public class SendDataObject {
 		return _errorFlag;
 	}
 
+	/**
+	 * Liefert die Zeitstempel der Latenzmessung dieses Datensatzes.
+	 *
+	 * @return Zeitstempel oder <code>null</code>, falls der Datensatz nicht erfasst wird
+	 */
+	public final LatencyTrace getLatencyTrace() {
+		return _latencyTrace;
+	}
+
+	/**
+	 * Setzt die Zeitstempel der Latenzmessung dieses Datensatzes.
+	 *
+	 * @param latencyTrace Zeitstempel oder <code>null</code>
+	 */
+	public final void setLatencyTrace(final LatencyTrace latencyTrace) {
+		_latencyTrace = latencyTrace;
+	}
+
 	/**
 	 * Gibt den Indikator zu den einzelnen Attributen der Attributgruppe zurück.
 	 *
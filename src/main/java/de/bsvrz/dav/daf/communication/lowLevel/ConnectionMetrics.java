@@ -0,0 +1,435 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.DataTelegram;
+import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Kennzahlen einer Datenverteilerverbindung. Die Kennzahlen werden von {@link LowLevelCommunication} und der Protokollschicht ohne Sperren erfasst und
+ * können jederzeit abgefragt oder mit {@link #registerMBean(String)} per JMX veröffentlicht werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ * @see LowLevelCommunicationInterface#getMetrics()
+ */
+public final class ConnectionMetrics implements ConnectionMetricsMXBean {
+
+	/** Domain der JMX-Objektnamen */
+	public static final String JMX_DOMAIN = "de.bsvrz.dav.daf";
+
+	private static final int PRIORITY_COUNT = CommunicationConstant.MAX_PRIORITY + 1;
+
+	private final AtomicLongArray _sentTelegrams = new AtomicLongArray(PRIORITY_COUNT);
+
+	private final AtomicLongArray _sentBytes = new AtomicLongArray(PRIORITY_COUNT);
+
+	private final AtomicLongArray _receivedTelegrams = new AtomicLongArray(PRIORITY_COUNT);
+
+	private final AtomicLongArray _receivedBytes = new AtomicLongArray(PRIORITY_COUNT);
+
+	private final Log2Histogram _sendQueueSizes = new Log2Histogram();
+
+	private final Log2Histogram _sendQueueWaitTimes = new Log2Histogram();
+
+	private final Log2Histogram _receiveQueueSizes = new Log2Histogram();
+
+	private final Log2Histogram _receiveQueueWaitTimes = new Log2Histogram();
+
+	private final Log2Histogram _encryptionTimes = new Log2Histogram();
+
+	private final Log2Histogram _decryptionTimes = new Log2Histogram();
+
+	private final Log2Histogram _roundTripTimes = new Log2Histogram();
+
+	private final AtomicLong _lastRoundTripTime = new AtomicLong(-1);
+
+	private final LatencyTracer _latencyTracer = new LatencyTracer();
+
+	private final TelegramQueue<?> _sendQueue;
+
+	private final TelegramQueue<?> _receiveQueue;
+
+	/** Zusätzliche Empfangs-Queues, deren Verweildauer ebenfalls in {@link #_receiveQueueWaitTimes} erfasst wird */
+	private final List<TelegramQueue<?>> _additionalReceiveQueues = new CopyOnWriteArrayList<TelegramQueue<?>>();
+
+	/** <code>true</code>, wenn die Verweildauer der Telegramme in den Queues gemessen wird */
+	private volatile boolean _queueWaitTimeEnabled = false;
+
+	private volatile SendCoalescer _sendCoalescer;
+
+	/** Tabellen, in denen Teiltelegramme zusammengebaut werden */
+	private final List<SplittedApplicationTelegramsTable> _reassemblyTables = new CopyOnWriteArrayList<SplittedApplicationTelegramsTable>();
+
+	/** Name, unter dem dieses Objekt beim MBeanServer angemeldet ist, oder <code>null</code> */
+	private ObjectName _objectName = null;
+
+	/**
+	 * Erzeugt die Kennzahlen einer Verbindung und meldet die Histogramme der Queues an. Die Verweildauer wird erst nach {@link
+	 * #setQueueWaitTimeEnabled(boolean)} gemessen.
+	 *
+	 * @param sendQueue     Sende-Queue
+	 * @param receiveQueue  Empfangs-Queue
+	 * @param sendCoalescer Steuerung der Bündelung von zu versendenden Telegrammen
+	 */
+	ConnectionMetrics(final TelegramQueue<?> sendQueue, final TelegramQueue<?> receiveQueue, final SendCoalescer sendCoalescer) {
+		_sendQueue = sendQueue;
+		_receiveQueue = receiveQueue;
+		_sendCoalescer = sendCoalescer;
+		sendQueue.setHistograms(_sendQueueSizes, null);
+		receiveQueue.setHistograms(_receiveQueueSizes, null);
+	}
+
+	/**
+	 * Meldet eine zusätzliche Empfangs-Queue an, deren Verweildauer im Histogramm der Empfangs-Queue erfasst wird, solange die Messung aktiviert ist.
+	 *
+	 * @param queue Empfangs-Queue
+	 */
+	synchronized void addReceiveQueue(final TelegramQueue<?> queue) {
+		_additionalReceiveQueues.add(queue);
+		queue.setHistograms(null, _queueWaitTimeEnabled ? _receiveQueueWaitTimes : null);
+	}
+
+	void setSendCoalescer(final SendCoalescer sendCoalescer) {
+		_sendCoalescer = sendCoalescer;
+	}
+
+	void sentTelegram(final DataTelegram telegram) {
+		final int priority = telegram.getPriority();
+		_sentTelegrams.incrementAndGet(priority);
+		_sentBytes.addAndGet(priority, telegram.getSize());
+	}
+
+	void receivedTelegram(final DataTelegram telegram) {
+		final int priority = telegram.getPriority();
+		_receivedTelegrams.incrementAndGet(priority);
+		_receivedBytes.addAndGet(priority, telegram.getSize());
+	}
+
+	void encrypted(final long nanos) {
+		_encryptionTimes.record(nanos / 1000);
+	}
+
+	void decrypted(final long nanos) {
+		_decryptionTimes.record(nanos / 1000);
+	}
+
+	/**
+	 * Erfasst eine gemessene Telegrammlaufzeit zum Datenverteiler und zurück.
+	 *
+	 * @param millis Laufzeit in Millisekunden
+	 */
+	public void recordRoundTripTime(final long millis) {
+		if(millis < 0) return;
+		_roundTripTimes.record(millis);
+		_lastRoundTripTime.set(millis);
+	}
+
+	/**
+	 * Meldet eine Tabelle an, deren Belegung in {@link #getReassemblyPendingDataSets()} und {@link #getReassemblyPendingTelegrams()} berücksichtigt wird.
+	 *
+	 * @param table Tabelle zum Zusammenbau von Teiltelegrammen
+	 */
+	public void addReassemblyTable(final SplittedApplicationTelegramsTable table) {
+		_reassemblyTables.add(table);
+	}
+
+	/**
+	 * Liefert die Latenzmessung empfangener Datensätze dieser Verbindung.
+	 *
+	 * @return Latenzmessung
+	 */
+	public LatencyTracer getLatencyTracer() {
+		return _latencyTracer;
+	}
+
+	private static long[] toArray(final AtomicLongArray values) {
+		final long[] result = new long[values.length()];
+		for(int i = 0; i < result.length; i++) {
+			result[i] = values.get(i);
+		}
+		return result;
+	}
+
+	private static long sum(final AtomicLongArray values) {
+		long result = 0;
+		for(int i = 0; i < values.length(); i++) {
+			result += values.get(i);
+		}
+		return result;
+	}
+
+	@Override
+	public long[] getSentTelegrams() {
+		return toArray(_sentTelegrams);
+	}
+
+	@Override
+	public long[] getSentBytes() {
+		return toArray(_sentBytes);
+	}
+
+	@Override
+	public long[] getReceivedTelegrams() {
+		return toArray(_receivedTelegrams);
+	}
+
+	@Override
+	public long[] getReceivedBytes() {
+		return toArray(_receivedBytes);
+	}
+
+	/**
+	 * Gesamtzahl der versendeten Bytes über alle Prioritäten.
+	 *
+	 * @return Anzahl Bytes
+	 */
+	public long getTotalSentBytes() {
+		return sum(_sentBytes);
+	}
+
+	/**
+	 * Gesamtzahl der empfangenen Bytes über alle Prioritäten.
+	 *
+	 * @return Anzahl Bytes
+	 */
+	public long getTotalReceivedBytes() {
+		return sum(_receivedBytes);
+	}
+
+	@Override
+	public int getSendQueueSize() {
+		return _sendQueue.getSize();
+	}
+
+	@Override
+	public int getSendQueueCapacity() {
+		return _sendQueue.getCapacity();
+	}
+
+	@Override
+	public int getReceiveQueueSize() {
+		return _receiveQueue.getSize();
+	}
+
+	@Override
+	public int getReceiveQueueCapacity() {
+		return _receiveQueue.getCapacity();
+	}
+
+	@Override
+	public Log2Histogram getSendQueueSizeHistogram() {
+		return _sendQueueSizes;
+	}
+
+	@Override
+	public Log2Histogram getSendQueueWaitTimeHistogram() {
+		return _sendQueueWaitTimes;
+	}
+
+	@Override
+	public Log2Histogram getReceiveQueueSizeHistogram() {
+		return _receiveQueueSizes;
+	}
+
+	@Override
+	public Log2Histogram getReceiveQueueWaitTimeHistogram() {
+		return _receiveQueueWaitTimes;
+	}
+
+	@Override
+	public long getFlushCount() {
+		return _sendCoalescer.getFlushSizeHistogram().getCount();
+	}
+
+	@Override
+	public Log2Histogram getFlushSizeHistogram() {
+		return _sendCoalescer.getFlushSizeHistogram();
+	}
+
+	@Override
+	public Log2Histogram getFlushDelayHistogram() {
+		return _sendCoalescer.getFlushDelayHistogram();
+	}
+
+	@Override
+	public Log2Histogram getEncryptionTimeHistogram() {
+		return _encryptionTimes;
+	}
+
+	@Override
+	public Log2Histogram getDecryptionTimeHistogram() {
+		return _decryptionTimes;
+	}
+
+	@Override
+	public int getReassemblyPendingDataSets() {
+		int result = 0;
+		for(SplittedApplicationTelegramsTable table : _reassemblyTables) {
+			result += table.getPendingDataSetCount();
+		}
+		return result;
+	}
+
+	@Override
+	public int getReassemblyPendingTelegrams() {
+		int result = 0;
+		for(SplittedApplicationTelegramsTable table : _reassemblyTables) {
+			result += table.getPendingTelegramCount();
+		}
+		return result;
+	}
+
+	@Override
+	public Log2Histogram getRoundTripTimeHistogram() {
+		return _roundTripTimes;
+	}
+
+	@Override
+	public long getLastRoundTripTime() {
+		return _lastRoundTripTime.get();
+	}
+
+	@Override
+	public boolean isQueueWaitTimeEnabled() {
+		return _queueWaitTimeEnabled;
+	}
+
+	@Override
+	public synchronized void setQueueWaitTimeEnabled(final boolean enabled) {
+		_queueWaitTimeEnabled = enabled;
+		_sendQueue.setHistograms(_sendQueueSizes, enabled ? _sendQueueWaitTimes : null);
+		_receiveQueue.setHistograms(_receiveQueueSizes, enabled ? _receiveQueueWaitTimes : null);
+		for(TelegramQueue<?> queue : _additionalReceiveQueues) {
+			queue.setHistograms(null, enabled ? _receiveQueueWaitTimes : null);
+		}
+	}
+
+	@Override
+	public int getLatencySampleInterval() {
+		return _latencyTracer.getSampleInterval();
+	}
+
+	@Override
+	public void setLatencySampleInterval(final int sampleInterval) {
+		_latencyTracer.setSampleInterval(sampleInterval);
+	}
+
+	@Override
+	public Log2Histogram getLatencyReceiveQueueHistogram() {
+		return _latencyTracer.getReceiveQueueHistogram();
+	}
+
+	@Override
+	public Log2Histogram getLatencyProcessingHistogram() {
+		return _latencyTracer.getProcessingHistogram();
+	}
+
+	@Override
+	public Log2Histogram getLatencyDispatchHistogram() {
+		return _latencyTracer.getDispatchHistogram();
+	}
+
+	@Override
+	public Log2Histogram getLatencyDeliveryHistogram() {
+		return _latencyTracer.getDeliveryHistogram();
+	}
+
+	@Override
+	public Log2Histogram getLatencyTotalHistogram() {
+		return _latencyTracer.getTotalHistogram();
+	}
+
+	@Override
+	public void reset() {
+		for(int i = 0; i < PRIORITY_COUNT; i++) {
+			_sentTelegrams.set(i, 0);
+			_sentBytes.set(i, 0);
+			_receivedTelegrams.set(i, 0);
+			_receivedBytes.set(i, 0);
+		}
+		_sendQueueSizes.reset();
+		_sendQueueWaitTimes.reset();
+		_receiveQueueSizes.reset();
+		_receiveQueueWaitTimes.reset();
+		_encryptionTimes.reset();
+		_decryptionTimes.reset();
+		_roundTripTimes.reset();
+		_lastRoundTripTime.set(-1);
+		_latencyTracer.reset();
+		final SendCoalescer sendCoalescer = _sendCoalescer;
+		sendCoalescer.getFlushSizeHistogram().reset();
+		sendCoalescer.getFlushDelayHistogram().reset();
+	}
+
+	/**
+	 * Meldet die Kennzahlen beim MBeanServer der Plattform an. Eine bestehende Anmeldung dieses Objekts wird vorher aufgehoben. Beim Abbau der Verbindung wird
+	 * die Anmeldung automatisch aufgehoben.
+	 *
+	 * @param name Name der Verbindung, wird als Eigenschaft <code>name</code> in den Objektnamen übernommen
+	 *
+	 * @return Objektname, unter dem die Kennzahlen angemeldet wurden
+	 *
+	 * @throws JMException Wenn die Anmeldung nicht möglich war, z.B. weil bereits ein anderes Objekt unter diesem Namen angemeldet ist
+	 */
+	public synchronized ObjectName registerMBean(final String name) throws JMException {
+		unregisterMBean();
+		final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ConnectionMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		_objectName = objectName;
+		return objectName;
+	}
+
+	/** Hebt die Anmeldung beim MBeanServer auf, falls die Kennzahlen mit {@link #registerMBean(String)} angemeldet wurden. */
+	public synchronized void unregisterMBean() {
+		if(_objectName == null) return;
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if(server.isRegistered(_objectName)) server.unregisterMBean(_objectName);
+		}
+		catch(JMException ignored) {
+			// Wurde zwischenzeitlich von anderer Stelle abgemeldet
+		}
+		_objectName = null;
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionMetrics{gesendet=" + getTotalSentBytes() + " Byte, empfangen=" + getTotalReceivedBytes() + " Byte, Sende-Queue=" + getSendQueueSize()
+		       + "/" + getSendQueueCapacity() + " Byte, Empfangs-Queue=" + getReceiveQueueSize() + "/" + getReceiveQueueCapacity() + " Byte, Laufzeit="
+		       + getLastRoundTripTime() + " ms}";
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+/**
+ * Schnittstelle für den Zugriff auf die Kennzahlen einer Datenverteilerverbindung über JMX. Alle Werte werden bei jedem Zugriff neu ermittelt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ * @see ConnectionMetrics
+ */
+public interface ConnectionMetricsMXBean {
+
+	/**
+	 * Anzahl der versendeten Telegramme je Priorität. Bei verschlüsselten Verbindungen werden die in den verschlüsselten Telegrammen enthaltenen Telegramme
+	 * gezählt.
+	 *
+	 * @return Array mit einem Element je Priorität
+	 */
+	long[] getSentTelegrams();
+
+	/**
+	 * Anzahl der versendeten Bytes je Priorität.
+	 *
+	 * @return Array mit einem Element je Priorität
+	 */
+	long[] getSentBytes();
+
+	/**
+	 * Anzahl der empfangenen Telegramme je Priorität.
+	 *
+	 * @return Array mit einem Element je Priorität
+	 */
+	long[] getReceivedTelegrams();
+
+	/**
+	 * Anzahl der empfangenen Bytes je Priorität.
+	 *
+	 * @return Array mit einem Element je Priorität
+	 */
+	long[] getReceivedBytes();
+
+	/**
+	 * Aktuelle Belegung der Sende-Queue.
+	 *
+	 * @return Gesamtgröße der zwischengespeicherten Telegramme in Bytes
+	 */
+	int getSendQueueSize();
+
+	/**
+	 * Kapazität der Sende-Queue.
+	 *
+	 * @return Maximale Gesamtgröße der zwischengespeicherten Telegramme in Bytes
+	 */
+	int getSendQueueCapacity();
+
+	/**
+	 * Aktuelle Belegung der Empfangs-Queue.
+	 *
+	 * @return Gesamtgröße der zwischengespeicherten Telegramme in Bytes
+	 */
+	int getReceiveQueueSize();
+
+	/**
+	 * Kapazität der Empfangs-Queue.
+	 *
+	 * @return Maximale Gesamtgröße der zwischengespeicherten Telegramme in Bytes
+	 */
+	int getReceiveQueueCapacity();
+
+	/**
+	 * Histogramm der Belegung der Sende-Queue nach jedem Einfügen eines Telegramms.
+	 *
+	 * @return Histogramm mit Werten in Bytes
+	 */
+	Log2Histogram getSendQueueSizeHistogram();
+
+	/**
+	 * Histogramm der Verweildauer von Telegrammen in der Sende-Queue. Wird nur erfasst, solange die Messung mit {@link #setQueueWaitTimeEnabled(boolean)}
+	 * aktiviert ist.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getSendQueueWaitTimeHistogram();
+
+	/**
+	 * Histogramm der Belegung der Empfangs-Queue nach jedem Einfügen eines Telegramms.
+	 *
+	 * @return Histogramm mit Werten in Bytes
+	 */
+	Log2Histogram getReceiveQueueSizeHistogram();
+
+	/**
+	 * Histogramm der Verweildauer von Telegrammen in der Empfangs-Queue. Wird nur erfasst, solange die Messung mit {@link #setQueueWaitTimeEnabled(boolean)}
+	 * aktiviert ist.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getReceiveQueueWaitTimeHistogram();
+
+	/**
+	 * Bestimmt, ob die Verweildauer der Telegramme in der Sende- und den Empfangs-Queues gemessen wird.
+	 *
+	 * @return <code>true</code>, wenn die Verweildauer gemessen wird, sonst <code>false</code>
+	 */
+	boolean isQueueWaitTimeEnabled();
+
+	/**
+	 * Legt fest, ob die Verweildauer der Telegramme in der Sende- und den Empfangs-Queues gemessen wird. Die Messung erfordert eine Zeitabfrage je Telegramm
+	 * und ist deshalb standardmäßig deaktiviert. Telegramme, die vor dem Aktivieren gespeichert wurden, werden nicht erfasst.
+	 *
+	 * @param enabled <code>true</code>, wenn die Verweildauer gemessen werden soll, sonst <code>false</code>
+	 */
+	void setQueueWaitTimeEnabled(boolean enabled);
+
+	/**
+	 * Anzahl der Übertragungen des Ausgabestroms.
+	 *
+	 * @return Anzahl
+	 */
+	long getFlushCount();
+
+	/**
+	 * Histogramm der Anzahl Bytes je Übertragung des Ausgabestroms.
+	 *
+	 * @return Histogramm mit Werten in Bytes
+	 */
+	Log2Histogram getFlushSizeHistogram();
+
+	/**
+	 * Histogramm der Verzögerung zwischen dem Schreiben des ersten Telegramms und der Übertragung des Ausgabestroms.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getFlushDelayHistogram();
+
+	/**
+	 * Histogramm der Zeit für das Verschlüsseln von Telegrammen.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getEncryptionTimeHistogram();
+
+	/**
+	 * Histogramm der Zeit für das Entschlüsseln von Telegrammen.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getDecryptionTimeHistogram();
+
+	/**
+	 * Anzahl der Datensätze, die gerade aus Teiltelegrammen zusammengebaut werden.
+	 *
+	 * @return Anzahl der unvollständigen Datensätze
+	 */
+	int getReassemblyPendingDataSets();
+
+	/**
+	 * Anzahl der zwischengespeicherten Teiltelegramme unvollständiger Datensätze.
+	 *
+	 * @return Anzahl der Teiltelegramme
+	 */
+	int getReassemblyPendingTelegrams();
+
+	/**
+	 * Histogramm der gemessenen Telegrammlaufzeiten zum Datenverteiler und zurück.
+	 *
+	 * @return Histogramm mit Werten in Millisekunden
+	 */
+	Log2Histogram getRoundTripTimeHistogram();
+
+	/**
+	 * Zuletzt gemessene Telegrammlaufzeit zum Datenverteiler und zurück.
+	 *
+	 * @return Laufzeit in Millisekunden oder -1, falls noch keine Laufzeit gemessen wurde
+	 */
+	long getLastRoundTripTime();
+
+	/**
+	 * Bestimmt, jeder wievielte empfangene Datensatz bei der Latenzmessung erfasst wird.
+	 *
+	 * @return Intervall der Stichproben, 0 falls die Latenzmessung deaktiviert ist
+	 * @see LatencyTracer
+	 */
+	int getLatencySampleInterval();
+
+	/**
+	 * Legt fest, jeder wievielte empfangene Datensatz bei der Latenzmessung erfasst wird.
+	 *
+	 * @param sampleInterval Intervall der Stichproben, 0 deaktiviert die Latenzmessung
+	 */
+	void setLatencySampleInterval(int sampleInterval);
+
+	/**
+	 * Histogramm der Verweildauer erfasster Datensätze in der Empfangs-Queue.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getLatencyReceiveQueueHistogram();
+
+	/**
+	 * Histogramm der Zeit für den Zusammenbau erfasster Datensätze und deren Ablage im Cache.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getLatencyProcessingHistogram();
+
+	/**
+	 * Histogramm der Zeit für die Verteilung erfasster Datensätze an die Empfänger.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getLatencyDispatchHistogram();
+
+	/**
+	 * Histogramm der Wartezeit erfasster Datensätze bis zum Aufruf der Empfangsapplikation.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getLatencyDeliveryHistogram();
+
+	/**
+	 * Histogramm der Gesamtzeit erfasster Datensätze vom Empfang bis zum Aufruf der Empfangsapplikation.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	Log2Histogram getLatencyTotalHistogram();
+
+	/** Setzt alle Zähler und Histogramme zurück. */
+	void reset();
+}
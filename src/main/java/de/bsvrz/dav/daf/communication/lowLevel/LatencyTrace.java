@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+/**
+ * Zeitstempel eines einzelnen Datensatzes auf dem Weg vom Empfang am Socket bis zur Übergabe an die Empfangsapplikation. Objekte dieser Klasse werden nur
+ * für ausgewählte Datensätze von {@link LatencyTracer#startTrace()} erzeugt und mit dem Datensatz über die Empfangs-Queue, die Protokollschicht, den Cache und
+ * die Anmeldeverwaltung weitergereicht. Wird ein Datensatz an mehrere Empfänger ausgeliefert, dann verwenden alle Ergebnisse dasselbe Objekt. Die
+ * Zeiten werden dann nur einmal erfasst, sobald der Datensatz an alle Empfänger verteilt und erstmals ausgeliefert wurde. Da die Auslieferung in anderen
+ * Threads erfolgen kann als die Verteilung, sind die Methoden synchronisiert.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class LatencyTrace {
+
+	/** Telegramm wurde vom Socket gelesen */
+	public static final int RECEIVED = 0;
+
+	/** Telegramm wurde vom Worker-Thread aus der Empfangs-Queue entnommen */
+	public static final int DEQUEUED = 1;
+
+	/** Datensatz wurde zusammengebaut und im Cache abgelegt */
+	public static final int CACHED = 2;
+
+	/** Datensatz wurde an alle Empfänger verteilt bzw. in deren Auslieferungspuffer eingetragen oder erstmals direkt ausgeliefert */
+	public static final int DISPATCHED = 3;
+
+	private static final int STAGE_COUNT = 4;
+
+	private final LatencyTracer _tracer;
+
+	private final long[] _times = new long[STAGE_COUNT];
+
+	/** Zeitpunkt der ersten Auslieferung oder 0 */
+	private long _deliveredNanos = 0;
+
+	/** <code>true</code>, wenn die Zeiten bereits in die Histogramme eingetragen wurden */
+	private boolean _recorded = false;
+
+	LatencyTrace(final LatencyTracer tracer, final long receivedNanos) {
+		_tracer = tracer;
+		_times[RECEIVED] = receivedNanos;
+	}
+
+	/**
+	 * Speichert die aktuelle Zeit für einen Verarbeitungsschritt. Wurde der Schritt bereits erfasst, bleibt der erste Zeitstempel erhalten.
+	 *
+	 * @param stage Verarbeitungsschritt, z.B. {@link #CACHED}
+	 */
+	public synchronized void stamp(final int stage) {
+		if(_times[stage] == 0) _times[stage] = System.nanoTime();
+	}
+
+	/**
+	 * Liefert den Zeitstempel eines Verarbeitungsschritts.
+	 *
+	 * @param stage Verarbeitungsschritt, z.B. {@link #CACHED}
+	 *
+	 * @return Zeitstempel im Format von {@link System#nanoTime()} oder 0, falls der Schritt nicht erfasst wurde
+	 */
+	public synchronized long getTime(final int stage) {
+		return _times[stage];
+	}
+
+	/**
+	 * Wird aufgerufen, nachdem der Datensatz an alle Empfänger verteilt wurde, und speichert den Zeitstempel für {@link #DISPATCHED}.
+	 */
+	public synchronized void dispatched() {
+		stamp(DISPATCHED);
+		recordIfComplete();
+	}
+
+	/**
+	 * Wird unmittelbar vor dem Aufruf einer Empfangsapplikation aufgerufen. Bei der ersten Auslieferung werden die Zeiten der einzelnen
+	 * Verarbeitungsschritte in die Histogramme des zugehörigen {@link LatencyTracer} eingetragen, sobald auch die Verteilung abgeschlossen ist. Weitere
+	 * Auslieferungen desselben Datensatzes an andere Empfänger werden nicht erfasst.
+	 */
+	public synchronized void delivered() {
+		if(_deliveredNanos == 0) _deliveredNanos = System.nanoTime();
+		recordIfComplete();
+	}
+
+	/**
+	 * Wird unmittelbar vor dem direkten Aufruf einer Empfangsapplikation im Verteilungsthread aufgerufen (siehe
+	 * {@link de.bsvrz.dav.daf.main.impl.NonQueueingReceiver}). Verteilung und Auslieferung fallen hier zusammen, deshalb wird {@link #DISPATCHED} auf denselben
+	 * Zeitpunkt wie die Auslieferung gesetzt, falls er noch nicht erfasst wurde. So geht die Laufzeit der Empfangsapplikation nicht in die Verteilungszeit
+	 * ein.
+	 */
+	public synchronized void deliveredDirectly() {
+		final long now = System.nanoTime();
+		if(_times[DISPATCHED] == 0) _times[DISPATCHED] = now;
+		if(_deliveredNanos == 0) _deliveredNanos = now;
+		recordIfComplete();
+	}
+
+	private void recordIfComplete() {
+		if(_recorded || _deliveredNanos == 0 || _times[DISPATCHED] == 0) return;
+		_recorded = true;
+		_tracer.record(this, _deliveredNanos);
+	}
+
+	@Override
+	public synchronized String toString() {
+		final long received = _times[RECEIVED];
+		return "LatencyTrace{dequeued=" + micros(received, _times[DEQUEUED]) + "µs, cached=" + micros(received, _times[CACHED]) + "µs, dispatched="
+		       + micros(received, _times[DISPATCHED]) + "µs}";
+	}
+
+	private static long micros(final long from, final long to) {
+		if(to == 0) return -1;
+		return (to - from) / 1000;
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+/**
+ * Erfasst die Verweildauer empfangener Datensätze in den einzelnen Verarbeitungsschritten einer Verbindung. Die Erfassung ist per Stichprobe konfigurierbar
+ * ({@link #setSampleInterval(int)}), so dass sie auch im Produktivbetrieb aktiviert bleiben kann: Nicht ausgewählte Datensätze verursachen lediglich einen
+ * Zählerzugriff im Empfangsthread.
+ * <p>
+ * Die Histogramme enthalten Werte in Mikrosekunden für folgende Abschnitte:
+ * <ul>
+ * <li>Empfangs-Queue: vom Lesen des Telegramms bis zur Entnahme durch den Worker-Thread</li>
+ * <li>Verarbeitung: Zusammenbau aus Teiltelegrammen und Ablage im Cache</li>
+ * <li>Verteilung: Zuordnung zu den Empfängern und Eintragen in deren Auslieferungspuffer</li>
+ * <li>Auslieferung: Wartezeit im Auslieferungspuffer bis zum ersten Aufruf einer Empfangsapplikation, 0 bei direkter Auslieferung an einen
+ * {@link de.bsvrz.dav.daf.main.impl.NonQueueingReceiver}</li>
+ * <li>Gesamt: vom Lesen des Telegramms bis zum ersten Aufruf einer Empfangsapplikation</li>
+ * </ul>
+ * Jeder erfasste Datensatz wird unabhängig von der Anzahl seiner Empfänger genau einmal in die Histogramme eingetragen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ * @see ConnectionMetrics#getLatencyTracer()
+ */
+public final class LatencyTracer {
+
+	private final Log2Histogram _receiveQueueTimes = new Log2Histogram();
+
+	private final Log2Histogram _processingTimes = new Log2Histogram();
+
+	private final Log2Histogram _dispatchTimes = new Log2Histogram();
+
+	private final Log2Histogram _deliveryTimes = new Log2Histogram();
+
+	private final Log2Histogram _totalTimes = new Log2Histogram();
+
+	/** Jeder wievielte Datensatz erfasst wird, 0 bedeutet keine Erfassung */
+	private volatile int _sampleInterval = 0;
+
+	/** Anzahl der seit der letzten Stichprobe empfangenen Datensätze, wird nur vom Empfangsthread verwendet */
+	private int _skipped = 0;
+
+	LatencyTracer() {
+	}
+
+	/**
+	 * Legt fest, jeder wievielte empfangene Datensatz erfasst wird.
+	 *
+	 * @param sampleInterval 0 deaktiviert die Erfassung, 1 erfasst jeden Datensatz, n erfasst jeden n-ten Datensatz
+	 */
+	public void setSampleInterval(final int sampleInterval) {
+		if(sampleInterval < 0) throw new IllegalArgumentException("Ungültiges Intervall für die Latenzmessung: " + sampleInterval);
+		_sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * Bestimmt, jeder wievielte empfangene Datensatz erfasst wird.
+	 *
+	 * @return Intervall der Stichproben, 0 falls die Erfassung deaktiviert ist
+	 */
+	public int getSampleInterval() {
+		return _sampleInterval;
+	}
+
+	/**
+	 * Wird vom Empfangsthread für jeden empfangenen Datensatz aufgerufen und entscheidet, ob der Datensatz erfasst wird.
+	 *
+	 * @return Neues Objekt für die Zeitstempel des Datensatzes oder <code>null</code>, falls der Datensatz nicht erfasst wird
+	 */
+	LatencyTrace startTrace() {
+		final int sampleInterval = _sampleInterval;
+		if(sampleInterval == 0) return null;
+		if(++_skipped < sampleInterval) return null;
+		_skipped = 0;
+		return new LatencyTrace(this, System.nanoTime());
+	}
+
+	void record(final LatencyTrace trace, final long deliveredNanos) {
+		final long received = trace.getTime(LatencyTrace.RECEIVED);
+		final long dequeued = trace.getTime(LatencyTrace.DEQUEUED);
+		final long cached = trace.getTime(LatencyTrace.CACHED);
+		final long dispatched = trace.getTime(LatencyTrace.DISPATCHED);
+		record(_receiveQueueTimes, received, dequeued);
+		record(_processingTimes, dequeued, cached);
+		record(_dispatchTimes, cached, dispatched);
+		record(_deliveryTimes, dispatched, deliveredNanos);
+		record(_totalTimes, received, deliveredNanos);
+	}
+
+	private static void record(final Log2Histogram histogram, final long from, final long to) {
+		if(from == 0 || to == 0) return;
+		histogram.record(Math.max(0, to - from) / 1000);
+	}
+
+	/**
+	 * Histogramm der Verweildauer von Datensätzen in der Empfangs-Queue.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	public Log2Histogram getReceiveQueueHistogram() {
+		return _receiveQueueTimes;
+	}
+
+	/**
+	 * Histogramm der Zeit für den Zusammenbau von Datensätzen und deren Ablage im Cache.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	public Log2Histogram getProcessingHistogram() {
+		return _processingTimes;
+	}
+
+	/**
+	 * Histogramm der Zeit für die Verteilung von Datensätzen an die angemeldeten Empfänger.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	public Log2Histogram getDispatchHistogram() {
+		return _dispatchTimes;
+	}
+
+	/**
+	 * Histogramm der Wartezeit von Datensätzen bis zum Aufruf der Empfangsapplikation.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	public Log2Histogram getDeliveryHistogram() {
+		return _deliveryTimes;
+	}
+
+	/**
+	 * Histogramm der Gesamtzeit vom Empfang eines Datensatzes bis zum Aufruf der Empfangsapplikation.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	public Log2Histogram getTotalHistogram() {
+		return _totalTimes;
+	}
+
+	/** Setzt alle Histogramme zurück. */
+	public void reset() {
+		_receiveQueueTimes.reset();
+		_processingTimes.reset();
+		_dispatchTimes.reset();
+		_deliveryTimes.reset();
+		_totalTimes.reset();
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramm mit Klassen, deren Grenzen Zweierpotenzen sind. Klasse 0 enthält den Wert 0, Klasse <code>i</code> (i &gt; 0) die Werte von
+ * <code>2<sup>i-1</sup></code> bis <code>2<sup>i</sup> - 1</code>. Negative Werte werden wie 0 gezählt.
+ * <p>
+ * Das Erfassen eines Werts erfordert keine Sperren und erzeugt keine Objekte, so dass das Histogramm auch in zeitkritischen Threads benutzt werden kann. Die
+ * Auswertung kann aus beliebigen Threads erfolgen, liefert bei gleichzeitigem Erfassen aber nur eine näherungsweise konsistente Momentaufnahme.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class Log2Histogram {
+
+	/** Anzahl der Klassen, damit ist jeder <code>long</code>-Wert darstellbar */
+	public static final int BUCKET_COUNT = 64;
+
+	private final AtomicLongArray _counts = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong _sum = new AtomicLong();
+
+	private final AtomicLong _max = new AtomicLong();
+
+	/**
+	 * Erfasst einen Wert.
+	 *
+	 * @param value Wert
+	 */
+	public void record(final long value) {
+		final long v = value < 0 ? 0 : value;
+		_counts.incrementAndGet(getBucket(v));
+		_sum.addAndGet(v);
+		long max = _max.get();
+		while(v > max && !_max.compareAndSet(max, v)) {
+			max = _max.get();
+		}
+	}
+
+	/**
+	 * Bestimmt die Klasse eines Werts.
+	 *
+	 * @param value nicht negativer Wert
+	 *
+	 * @return Klasse
+	 */
+	public static int getBucket(final long value) {
+		return value == 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * Bestimmt die obere Grenze einer Klasse.
+	 *
+	 * @param bucket Klasse
+	 *
+	 * @return Größter Wert, der in der Klasse gezählt wird
+	 */
+	public static long getUpperBound(final int bucket) {
+		if(bucket == 0) return 0;
+		if(bucket >= BUCKET_COUNT - 1) return Long.MAX_VALUE;
+		return (1L << bucket) - 1;
+	}
+
+	/**
+	 * Liefert die Anzahl der erfassten Werte je Klasse.
+	 *
+	 * @return Neues Array mit {@link #BUCKET_COUNT} Elementen
+	 */
+	public long[] getCounts() {
+		final long[] counts = new long[BUCKET_COUNT];
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] = _counts.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * Anzahl der erfassten Werte.
+	 *
+	 * @return Anzahl
+	 */
+	public long getCount() {
+		long count = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			count += _counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Summe der erfassten Werte.
+	 *
+	 * @return Summe
+	 */
+	public long getSum() {
+		return _sum.get();
+	}
+
+	/**
+	 * Größter erfasster Wert.
+	 *
+	 * @return Maximum oder 0, falls noch kein Wert erfasst wurde
+	 */
+	public long getMax() {
+		return _max.get();
+	}
+
+	/**
+	 * Mittelwert der erfassten Werte.
+	 *
+	 * @return Mittelwert oder 0, falls noch kein Wert erfasst wurde
+	 */
+	public double getMean() {
+		final long count = getCount();
+		return count == 0 ? 0 : (double)getSum() / count;
+	}
+
+	/**
+	 * Bestimmt eine obere Schranke für ein Quantil der erfassten Werte.
+	 *
+	 * @param quantile Quantil zwischen 0 und 1, z.B. 0.99
+	 *
+	 * @return Obere Grenze der Klasse, in der das Quantil liegt, höchstens jedoch der größte erfasste Wert
+	 */
+	public long getQuantileUpperBound(final double quantile) {
+		if(quantile < 0 || quantile > 1) throw new IllegalArgumentException("Quantil muss zwischen 0 und 1 liegen: " + quantile);
+		final long[] counts = getCounts();
+		long total = 0;
+		for(long count : counts) {
+			total += count;
+		}
+		if(total == 0) return 0;
+		final long rank = Math.max(1, (long)Math.ceil(quantile * total));
+		long cumulated = 0;
+		for(int i = 0; i < counts.length; i++) {
+			cumulated += counts[i];
+			if(cumulated >= rank) return Math.min(getUpperBound(i), getMax());
+		}
+		return getMax();
+	}
+
+	/** Setzt alle Zähler zurück. */
+	public void reset() {
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			_counts.set(i, 0);
+		}
+		_sum.set(0);
+		_max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder result = new StringBuilder();
+		result.append("Log2Histogram{anzahl=").append(getCount()).append(", mittelwert=").append(String.format("%.1f", getMean())).append(", max=")
+				.append(getMax()).append(", klassen=[");
+		final long[] counts = getCounts();
+		boolean first = true;
+		for(int i = 0; i < counts.length; i++) {
+			if(counts[i] == 0) continue;
+			if(!first) result.append(", ");
+			first = false;
+			result.append("<=").append(getUpperBound(i)).append(':').append(counts[i]);
+		}
+		return result.append("]}").toString();
+	}
+}
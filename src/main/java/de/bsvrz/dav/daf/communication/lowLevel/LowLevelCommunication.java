@@ -34,6 +34,7 @@ import de.bsvrz.dav.daf.communication.lowLevel.telegrams.*;
 import de.bsvrz.dav.daf.communication.srpAuthentication.SrpTelegramEncryption;
 import de.bsvrz.dav.daf.main.ConnectionException;
 import de.bsvrz.dav.daf.main.EncryptionStatus;
+import de.bsvrz.dav.daf.main.SendCoalescingMode;
 import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
 import de.bsvrz.dav.daf.main.impl.config.AttributeGroupUsageIdentifications;
 import de.bsvrz.sys.funclib.debug.Debug;
@@ -43,6 +44,7 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -106,6 +108,12 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 	/** Der Aktuallisierungsthread */
 	private WorkerThread _updater;
 
+	/** Zusätzliche Aktualisierungsthreads, falls die Verarbeitung empfangener Telegramme nach Klassen getrennt wird */
+	private final List<WorkerThread> _laneUpdaters = new ArrayList<WorkerThread>();
+
+	/** Verteilung empfangener Telegramme auf getrennte Queues oder <code>null</code>, falls alle Telegramme über {@link #_receiveQueue} verarbeitet werden */
+	private ReceivePipeline _receivePipeline = null;
+
 	/** Queue, in der zu versendende Telegramme zwischengespeichert werden. */
 	private TelegramQueue<DataTelegram> _sendQueue;
 
@@ -155,6 +163,12 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 	
 	private volatile SrpTelegramEncryption _encryption = null;
 
+	/** Entscheidet, wann die in den Ausgabestrom geschriebenen Telegramme übertragen werden. Wird nur unter der Sperre auf den Ausgabestrom benutzt. */
+	private SendCoalescer _sendCoalescer = new SendCoalescer(SendCoalescingMode.LOW_LATENCY, CommunicationConstant.MAX_SPLIT_THRESHOLD, 0);
+
+	/** Kennzahlen dieser Verbindung */
+	private final ConnectionMetrics _metrics;
+
 	/**
 	 * @param connection              Verbindungsobjekt über dass die Kommunikation mit dem Kommunikationspartner realisiert wird.
 	 * @param sendBufferSize          Sendetabellenkapazität (in Byte)
@@ -188,6 +202,10 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 		_sendQueue = new TelegramQueue<DataTelegram>(sendBufferSize, CommunicationConstant.MAX_PRIORITY);
 		_throughputChecker = new ThroughputChecker();
 		_receiveQueue = new TelegramQueue<DataTelegram>(receiveBufferSize, CommunicationConstant.MAX_PRIORITY);
+		_metrics = new ConnectionMetrics(_sendQueue, _receiveQueue, _sendCoalescer);
+		if(_splittedTelegramsTable != null) {
+			_metrics.addReassemblyTable(_splittedTelegramsTable);
+		}
 		_keepAliveSendTimeOut = keepAliveSendTimeOut * 1000000; // umrechnen un ns
 		_keepAliveReceiveTimeOut = keepAliveReceiveTimeOut * 1000000; // umrechnen un ns
 		if(connected) {
@@ -246,6 +264,53 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 		return _updater;
 	}
 
+	/**
+	 * Legt fest, wie zu versendende Telegramme vor der Übertragung gebündelt werden. Die Methode muss vor {@link #setHighLevelComponent} aufgerufen werden.
+	 *
+	 * @param mode           Modus der Bündelung
+	 * @param byteThreshold  Anzahl Bytes, ab der gesammelte Telegramme sofort übertragen werden
+	 * @param maxDelayMillis Maximale Verzögerung in Millisekunden, um die die Übertragung eines Telegramms zur Bündelung hinausgezögert wird
+	 *
+	 * @throws IllegalStateException Wenn der Sendethread bereits gestartet wurde
+	 */
+	public final void setSendCoalescing(final SendCoalescingMode mode, final int byteThreshold, final long maxDelayMillis) {
+		if(_sendingChannel != null) throw new IllegalStateException("Der Sendethread wurde bereits gestartet");
+		_sendCoalescer = new SendCoalescer(mode, byteThreshold, maxDelayMillis);
+		_metrics.setSendCoalescer(_sendCoalescer);
+	}
+
+	/**
+	 * Legt fest, ob empfangene Telegramme nach Klassen getrennt von eigenen Threads verarbeitet werden. Systemtelegramme und Antworten der Konfiguration,
+	 * Online-Datensätze sowie nachgelieferte Datensätze und Datensätze von Simulationen werden dann in getrennten Queues gepuffert, so dass viele Datensätze einer
+	 * Klasse die Verarbeitung der anderen Klassen nicht verzögern. Die Reihenfolge der Datensätze einer Datenidentifikation bleibt erhalten. Die Methode muss
+	 * vor {@link #setHighLevelComponent} aufgerufen werden. Die Methoden der höheren Ebene werden anschließend von mehreren Threads gleichzeitig aufgerufen.
+	 *
+	 * @param onlineWeight 0, wenn alle Telegramme von einem Thread verarbeitet werden sollen, sonst die Anzahl Online-Datensätze, die bei gleichzeitigem Bedarf
+	 *                     je nachgeliefertem oder simuliertem Datensatz verarbeitet werden
+	 *
+	 * @throws IllegalStateException Wenn die Aktualisierungsthreads bereits gestartet wurden
+	 */
+	public final void setReceivePipeline(final int onlineWeight) {
+		if(_updater != null) throw new IllegalStateException("Die Aktualisierungsthreads wurden bereits gestartet");
+		if(onlineWeight < 0) throw new IllegalArgumentException("Die Gewichtung darf nicht negativ sein: " + onlineWeight);
+		_receivePipeline = onlineWeight == 0 ? null : new ReceivePipeline(_receiveQueue, onlineWeight, _metrics);
+	}
+
+	/**
+	 * Liefert die Steuerung der Bündelung von zu versendenden Telegrammen, über die z.B. die Histogramme der Übertragungsgrößen und -verzögerungen abgefragt
+	 * werden können.
+	 *
+	 * @return Steuerung der Bündelung
+	 */
+	public final SendCoalescer getSendCoalescer() {
+		return _sendCoalescer;
+	}
+
+	@Override
+	public final ConnectionMetrics getMetrics() {
+		return _metrics;
+	}
+
 	@Override
 	public final ConnectionInterface getConnectionInterface() {
 		return _connection;
@@ -256,12 +321,19 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 		if(highLevelComponent == null) throw new IllegalArgumentException("highLevelComponent darf nicht null sein");
 		_highLevelComponent = highLevelComponent;
 
-		_updater = new WorkerThread();
+		_updater = new WorkerThread("LLWorker", _receiveQueue, ReceivePipeline.SYSTEM_LANE);
+		if(_receivePipeline != null) {
+			_laneUpdaters.add(new WorkerThread("LLWorkerOnline", _receivePipeline.getQueue(ReceivePipeline.ONLINE_LANE), ReceivePipeline.ONLINE_LANE));
+			_laneUpdaters.add(new WorkerThread("LLWorkerBulk", _receivePipeline.getQueue(ReceivePipeline.BULK_LANE), ReceivePipeline.BULK_LANE));
+		}
 		_receivingChannel = new ReceivingChannel();
 		_sendingChannel = new SendingChannel();
 		_keepAliveThread = new KeepAliveThread();
 
 		_updater.start();
+		for(WorkerThread laneUpdater : _laneUpdaters) {
+			laneUpdater.start();
+		}
 		_receivingChannel.start();
 		_sendingChannel.start();
 		_keepAliveThread.start();
@@ -425,14 +497,17 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 			_receivingChannel.interrupt();
 		}
 
+		final ReceivePipeline receivePipeline = _receivePipeline;
 		if(error) {
 			_receiveQueue.abort();
+			if(receivePipeline != null) receivePipeline.abort();
 		}
 		else {
 			_receiveQueue.close();
+			if(receivePipeline != null) receivePipeline.close();
 		}
 		try {
-			while(_receiveQueue.getSize() > 0 && _connection.isConnected()) {
+			while((_receiveQueue.getSize() > 0 || (receivePipeline != null && receivePipeline.getSize() > 0)) && _connection.isConnected()) {
 				_debug.fine("Warte auf die Verarbeitung von gepufferten empfangenen Telegrammen");
 				Thread.sleep(200);
 			}
@@ -457,6 +532,7 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 		}
 		catch(IOException ex) {
 		}
+		_metrics.unregisterMBean();
 	}
 
 	private void handleAbnormalBehaviour(boolean sendTermination, final String message) {
@@ -546,8 +622,22 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 			_debug.fine(getRemotePrefix() + "Thread LowLevelCommunication.SendingChannel startet");
 			try {
 				ArrayList<DataTelegram> telegrams = new ArrayList<>();
-				while(!interrupted() && _sendQueue.takeMultiple(_encryption == null ? 0 : CommunicationConstant.MAX_SPLIT_THRESHOLD, telegrams) != -1) {
-					sendDirect(telegrams);
+				while(!interrupted()) {
+					final long waitNanos;
+					final int sizeLimit;
+					synchronized(_outStream) {
+						waitNanos = _sendCoalescer.getWaitNanos(System.nanoTime());
+						sizeLimit = _encryption == null ? _sendCoalescer.getTakeSizeLimit() : CommunicationConstant.MAX_SPLIT_THRESHOLD;
+					}
+					// Solange gesammelte Telegramme auf die Übertragung warten, wird nur bis zum Ablauf der maximalen Verzögerung auf weitere Telegramme gewartet
+					final int takenSize = waitNanos < 0
+					                      ? _sendQueue.takeMultiple(sizeLimit, telegrams)
+					                      : _sendQueue.takeMultiple(sizeLimit, telegrams, waitNanos);
+					if(takenSize == -1) break;
+					sendCoalesced(telegrams);
+				}
+				synchronized(_outStream) {
+					flushOutStream();
 				}
 				if(_terminationTelegram != null) {
 					_debug.info(getRemotePrefix() + Thread.currentThread().getName() + " sendet ein Terminierungstelegramm, weil die Sende-Queue geschlossen wurde");
@@ -592,22 +682,11 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 	@Override
 	public void sendDirect(final Collection<DataTelegram> telegrams) {
 		try {
-			int size = 0;
+			int size;
 			synchronized(_outStream) {
-				if(_encryption == null) {
-					for(DataTelegram telegram : telegrams) {
-						_outStream.writeByte(telegram.getType());
-						telegram.write(_outStream);
-						size += telegram.getSize();
-					}
-				}
-				else {
-					EncryptedTelegram encryptedTelegram = new EncryptedTelegram(_encryption, telegrams);
-					_outStream.writeByte(encryptedTelegram.getType());
-					encryptedTelegram.write(_outStream);
-					size += encryptedTelegram.getSize();
-				}
-				_outStream.flush();
+				size = writeTelegrams(telegrams);
+				_sendCoalescer.written(size, true, System.nanoTime());
+				flushOutStream();
 			}
 			_keepAliveThread.sentTelegram();
 			_throughputChecker.sentTelegram(size);
@@ -619,6 +698,81 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 		}
 	}
 
+	/**
+	 * Schreibt Telegramme aus der Sende-Queue in den Ausgabestrom und überträgt diesen, wenn die Bündelungssteuerung dies vorsieht.
+	 *
+	 * @param telegrams Telegramme, kann leer sein, wenn nur geprüft werden soll, ob die maximale Verzögerung abgelaufen ist
+	 *
+	 * @throws IOException Bei Fehlern beim Schreiben
+	 */
+	private void sendCoalesced(final Collection<DataTelegram> telegrams) throws IOException {
+		int size = 0;
+		synchronized(_outStream) {
+			final long now = System.nanoTime();
+			if(!telegrams.isEmpty()) {
+				size = writeTelegrams(telegrams);
+				_sendCoalescer.written(size, containsHighPriorityTelegram(telegrams), now);
+			}
+			if(_sendCoalescer.shouldFlush(_sendQueue.getSize() == 0, now)) {
+				flushOutStream();
+			}
+		}
+		if(size > 0) {
+			_keepAliveThread.sentTelegram();
+			_throughputChecker.sentTelegram(size);
+		}
+	}
+
+	private static boolean containsHighPriorityTelegram(final Collection<DataTelegram> telegrams) {
+		for(DataTelegram telegram : telegrams) {
+			if(telegram.getPriority() >= CommunicationConstant.SYSTEM_HIGH_TELEGRAM_PRIORITY) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Schreibt Telegramme in den Ausgabestrom, ohne diesen zu übertragen. Der Aufrufer muss die Sperre auf den Ausgabestrom halten.
+	 *
+	 * @param telegrams Telegramme
+	 *
+	 * @return Anzahl geschriebener Bytes
+	 *
+	 * @throws IOException Bei Fehlern beim Schreiben
+	 */
+	private int writeTelegrams(final Collection<DataTelegram> telegrams) throws IOException {
+		int size = 0;
+		if(_encryption == null) {
+			for(DataTelegram telegram : telegrams) {
+				_outStream.writeByte(telegram.getType());
+				telegram.write(_outStream);
+				size += telegram.getSize();
+				_metrics.sentTelegram(telegram);
+			}
+		}
+		else {
+			final long start = System.nanoTime();
+			EncryptedTelegram encryptedTelegram = new EncryptedTelegram(_encryption, telegrams);
+			_metrics.encrypted(System.nanoTime() - start);
+			for(DataTelegram telegram : telegrams) {
+				_metrics.sentTelegram(telegram);
+			}
+			_outStream.writeByte(encryptedTelegram.getType());
+			encryptedTelegram.write(_outStream);
+			size += encryptedTelegram.getSize();
+		}
+		return size;
+	}
+
+	/**
+	 * Überträgt den Ausgabestrom. Der Aufrufer muss die Sperre auf den Ausgabestrom halten.
+	 *
+	 * @throws IOException Bei Fehlern beim Schreiben
+	 */
+	private void flushOutStream() throws IOException {
+		_outStream.flush();
+		_sendCoalescer.flushed(System.nanoTime());
+	}
+
 	class ReceivingChannel extends LowLevelThread {
 
 		private ReceivingChannel() {
@@ -654,7 +808,10 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 			else {
 				if(telegram.getType() == DataTelegram.ENCRYPTED_TYPE){
 					EncryptedTelegram encryptedTelegram = (EncryptedTelegram) telegram;
-					return encryptedTelegram.getTelegrams(encryption);
+					final long start = System.nanoTime();
+					final Collection<DataTelegram> decryptedTelegrams = encryptedTelegram.getTelegrams(encryption);
+					_metrics.decrypted(System.nanoTime() - start);
+					return decryptedTelegrams;
 				}
 				else {
 					// Unverschlüsselte Telegramme werden bei bestehender Verschlüsselung nicht zugelassen!
@@ -724,8 +881,18 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 						Collection<DataTelegram> telegrams = readNextTelegrams();
 						for(DataTelegram telegram : telegrams) {
 							_keepAliveThread.receivedTelegram();
+							_metrics.receivedTelegram(telegram);
 							if(handleWithoutQueueing(telegram)) continue;
-							_receiveQueue.put(telegram);
+							if(telegram.getType() == DataTelegram.APPLICATION_DATA_TELEGRAM_TYPE) {
+								final LatencyTrace trace = _metrics.getLatencyTracer().startTrace();
+								if(trace != null) ((ApplicationDataTelegram)telegram).setLatencyTrace(trace);
+							}
+							if(_receivePipeline == null) {
+								_receiveQueue.put(telegram);
+							}
+							else {
+								_receivePipeline.route(telegram).put(telegram);
+							}
 						}
 					}
 					catch(EOFException ex) {
@@ -803,8 +970,16 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 
 	class WorkerThread extends LowLevelThread {
 
-		private WorkerThread() {
-			super("LLWorker");
+		/** Queue, aus der die Telegramme entnommen werden */
+		private final TelegramQueue<DataTelegram> _queue;
+
+		/** Klasse der verarbeiteten Telegramme, falls die Verarbeitung nach Klassen getrennt wird */
+		private final int _lane;
+
+		private WorkerThread(final String name, final TelegramQueue<DataTelegram> queue, final int lane) {
+			super(name);
+			_queue = queue;
+			_lane = lane;
 		}
 
 		/** The run loop method of this _connection thread */
@@ -813,7 +988,13 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 			_debug.fine("Thread LowLevelCommunication.WorkerThread startet");
 			try {
 				DataTelegram telegram = null;
-				while(!interrupted() && (telegram = _receiveQueue.take()) != null) {
+				final ReceivePipeline receivePipeline = _receivePipeline;
+				while(!interrupted() && (telegram = _queue.take()) != null) {
+					if(receivePipeline != null) receivePipeline.awaitTurn(_lane);
+					if(telegram.getType() == DataTelegram.APPLICATION_DATA_TELEGRAM_TYPE) {
+						final LatencyTrace trace = ((ApplicationDataTelegram)telegram).getLatencyTrace();
+						if(trace != null) trace.stamp(LatencyTrace.DEQUEUED);
+					}
 					try {
 						_highLevelComponent.update(telegram);
 					}
@@ -821,6 +1002,9 @@ public class LowLevelCommunication implements LowLevelCommunicationInterface {
 						_debug.warning(getRemotePrefix() + "Ausnahme bei der Verarbeitung eines empfangenen Telegramms: " + telegram, e);
 						e.printStackTrace();
 					}
+					finally {
+						if(receivePipeline != null) receivePipeline.processed(_lane, telegram);
+					}
 				}
 			}
 			catch(InterruptedException e) {
@@ -143,6 +143,15 @@ public interface LowLevelCommunicationInterface {
 	 */
 	void disableEncryption();
 
+	/**
+	 * Gibt die Kennzahlen dieser Verbindung zurück, z.B. Anzahl übertragener Telegramme und Bytes, Belegung der Queues und Übertragungszeiten.
+	 *
+	 * @return Kennzahlen oder <code>null</code>, wenn die Implementierung keine Kennzahlen erfasst
+	 */
+	default ConnectionMetrics getMetrics() {
+		return null;
+	}
+
 	/**
 	 * Gibt den Verschlüsselungsstatus zurück
 	 *
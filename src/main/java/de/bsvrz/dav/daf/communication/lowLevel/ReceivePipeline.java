@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.DataTelegram;
+import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
+import de.bsvrz.dav.daf.main.impl.config.AttributeGroupUsageIdentifications;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Verteilt empfangene Telegramme auf getrennte Queues, die jeweils von einem eigenen Worker-Thread abgearbeitet werden. Damit können viele nachgelieferte
+ * Datensätze oder Datensätze von Simulationen die Verarbeitung von Online-Daten und Systemtelegrammen nicht mehr verzögern.
+ * <p>
+ * Es werden drei Klassen unterschieden:
+ * <ul>
+ * <li>{@link #SYSTEM_LANE}: Systemtelegramme und Antworten der Konfiguration. Dafür wird die bisherige Empfangs-Queue verwendet.</li>
+ * <li>{@link #ONLINE_LANE}: Online-Datensätze der Simulationsvariante 0</li>
+ * <li>{@link #BULK_LANE}: Nachgelieferte Datensätze und Datensätze von Simulationen</li>
+ * </ul>
+ * Solange Online-Datensätze zur Verarbeitung anstehen, verarbeitet der Worker-Thread von {@link #BULK_LANE} höchstens einen Datensatz je
+ * <code>onlineWeight</code> verarbeiteten Online-Datensätzen.
+ * <p>
+ * Die Reihenfolge der Datensätze einer Datenidentifikation bleibt erhalten: Solange von einer Datenidentifikation noch Telegramme in einer Queue zur
+ * Verarbeitung anstehen, werden weitere Telegramme dieser Datenidentifikation unabhängig von ihrer Klasse in dieselbe Queue eingetragen. Damit werden auch
+ * alle Teiltelegramme eines Datensatzes im gleichen Thread zusammengebaut.
+ * <p>
+ * Jede zusätzliche Queue hat die gleiche Kapazität wie die Empfangs-Queue, so dass insgesamt bis zum Dreifachen des Empfangspuffers belegt werden kann.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ * @see LowLevelCommunication#setReceivePipeline(int)
+ */
+final class ReceivePipeline {
+
+	/** Klasse der Systemtelegramme und Antworten der Konfiguration */
+	static final int SYSTEM_LANE = 0;
+
+	/** Klasse der Online-Datensätze */
+	static final int ONLINE_LANE = 1;
+
+	/** Klasse der nachgelieferten Datensätze und der Datensätze von Simulationen */
+	static final int BULK_LANE = 2;
+
+	/** Maximale Wartezeit des Worker-Threads von {@link #BULK_LANE} in Millisekunden, damit dieser bei blockierter Online-Verarbeitung nicht verhungert */
+	private static final long MAX_BULK_WAIT = 50;
+
+	/** Bisherige Empfangs-Queue für {@link #SYSTEM_LANE} */
+	private final TelegramQueue<DataTelegram> _systemQueue;
+
+	/** Queue für {@link #ONLINE_LANE} */
+	private final TelegramQueue<DataTelegram> _onlineQueue;
+
+	/** Queue für {@link #BULK_LANE} */
+	private final TelegramQueue<DataTelegram> _bulkQueue;
+
+	private final int _onlineWeight;
+
+	/** Anzahl noch nicht verarbeiteter Telegramme je Datenidentifikation und die Queue, in die sie eingetragen wurden */
+	private final Map<BaseSubscriptionInfo, PendingTelegrams> _pendingTelegrams = new HashMap<BaseSubscriptionInfo, PendingTelegrams>();
+
+	/** Anzahl der bisher verarbeiteten Online-Telegramme, wird mit dem Monitor dieses Objekts synchronisiert */
+	private long _onlineProcessed = 0;
+
+	/** <code>true</code>, wenn der Worker-Thread von {@link #BULK_LANE} auf die Verarbeitung von Online-Telegrammen wartet */
+	private boolean _bulkWaiting = false;
+
+	/**
+	 * Erzeugt die zusätzlichen Queues.
+	 *
+	 * @param systemQueue  Bisherige Empfangs-Queue, die für {@link #SYSTEM_LANE} verwendet wird
+	 * @param onlineWeight Anzahl Online-Telegramme, die bei gleichzeitigem Bedarf je nachgeliefertem oder simuliertem Telegramm verarbeitet werden
+	 * @param metrics      Kennzahlen der Verbindung, bei denen die zusätzlichen Queues für die Messung der Verweildauer angemeldet werden
+	 */
+	ReceivePipeline(final TelegramQueue<DataTelegram> systemQueue, final int onlineWeight, final ConnectionMetrics metrics) {
+		if(onlineWeight <= 0) throw new IllegalArgumentException("Die Gewichtung muss positiv sein: " + onlineWeight);
+		_onlineWeight = onlineWeight;
+		_systemQueue = systemQueue;
+		_onlineQueue = createQueue(systemQueue.getCapacity(), metrics);
+		_bulkQueue = createQueue(systemQueue.getCapacity(), metrics);
+	}
+
+	private static TelegramQueue<DataTelegram> createQueue(final int capacity, final ConnectionMetrics metrics) {
+		final TelegramQueue<DataTelegram> queue = new TelegramQueue<DataTelegram>(capacity, CommunicationConstant.MAX_PRIORITY);
+		metrics.addReceiveQueue(queue);
+		return queue;
+	}
+
+	/**
+	 * Liefert die Queue einer Klasse.
+	 *
+	 * @param lane Klasse, z.B. {@link #ONLINE_LANE}
+	 *
+	 * @return Queue
+	 */
+	TelegramQueue<DataTelegram> getQueue(final int lane) {
+		switch(lane) {
+			case SYSTEM_LANE:
+				return _systemQueue;
+			case ONLINE_LANE:
+				return _onlineQueue;
+			case BULK_LANE:
+				return _bulkQueue;
+			default:
+				throw new IllegalArgumentException("Unbekannte Klasse: " + lane);
+		}
+	}
+
+	/**
+	 * Bestimmt die Queue, in die ein empfangenes Telegramm eingetragen werden muss, und vermerkt das Telegramm als zur Verarbeitung anstehend. Wird nur vom
+	 * Empfangsthread aufgerufen.
+	 *
+	 * @param telegram Empfangenes Telegramm
+	 *
+	 * @return Queue, in die das Telegramm eingetragen werden muss
+	 */
+	TelegramQueue<DataTelegram> route(final DataTelegram telegram) {
+		if(telegram.getType() != DataTelegram.APPLICATION_DATA_TELEGRAM_TYPE) return _systemQueue;
+		final ApplicationDataTelegram applicationDataTelegram = (ApplicationDataTelegram)telegram;
+		final BaseSubscriptionInfo info = applicationDataTelegram.getBaseSubscriptionInfo();
+		if(info == null || AttributeGroupUsageIdentifications.isConfigurationReply(info.getUsageIdentification())) return _systemQueue;
+		synchronized(_pendingTelegrams) {
+			PendingTelegrams pending = _pendingTelegrams.get(info);
+			if(pending == null) {
+				final boolean bulk = applicationDataTelegram.getDelayedDataFlag() || info.getSimulationVariant() > 0;
+				pending = new PendingTelegrams(bulk ? BULK_LANE : ONLINE_LANE);
+				_pendingTelegrams.put(info, pending);
+			}
+			pending._count++;
+			return getQueue(pending._lane);
+		}
+	}
+
+	/**
+	 * Wird vom Worker-Thread einer Klasse aufgerufen, bevor ein entnommenes Telegramm verarbeitet wird. Der Worker-Thread von {@link #BULK_LANE} wartet hier,
+	 * solange Online-Telegramme anstehen und seit dem letzten Aufruf weniger als <code>onlineWeight</code> Online-Telegramme verarbeitet wurden.
+	 *
+	 * @param lane Klasse des Worker-Threads
+	 *
+	 * @throws InterruptedException Wenn der Thread während des Wartens unterbrochen wurde
+	 */
+	void awaitTurn(final int lane) throws InterruptedException {
+		if(lane != BULK_LANE) return;
+		synchronized(this) {
+			final long limit = _onlineProcessed + _onlineWeight;
+			final long deadline = System.nanoTime() + MAX_BULK_WAIT * 1000000;
+			try {
+				_bulkWaiting = true;
+				while(_onlineProcessed < limit && _onlineQueue.getSize() > 0) {
+					final long remaining = (deadline - System.nanoTime()) / 1000000;
+					if(remaining <= 0) break;
+					wait(remaining);
+				}
+			}
+			finally {
+				_bulkWaiting = false;
+			}
+		}
+	}
+
+	/**
+	 * Wird vom Worker-Thread einer Klasse aufgerufen, nachdem ein Telegramm verarbeitet wurde.
+	 *
+	 * @param lane     Klasse des Worker-Threads
+	 * @param telegram Verarbeitetes Telegramm
+	 */
+	void processed(final int lane, final DataTelegram telegram) {
+		if(lane == SYSTEM_LANE) return;
+		final BaseSubscriptionInfo info = ((ApplicationDataTelegram)telegram).getBaseSubscriptionInfo();
+		synchronized(_pendingTelegrams) {
+			final PendingTelegrams pending = _pendingTelegrams.get(info);
+			if(pending != null && --pending._count <= 0) _pendingTelegrams.remove(info);
+		}
+		if(lane == ONLINE_LANE) {
+			synchronized(this) {
+				_onlineProcessed++;
+				if(_bulkWaiting) notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Bestimmt die Gesamtgröße der in den zusätzlichen Queues gespeicherten Telegramme.
+	 *
+	 * @return Gesamtgröße in Bytes
+	 */
+	int getSize() {
+		return _onlineQueue.getSize() + _bulkQueue.getSize();
+	}
+
+	/** Schließt die zusätzlichen Queues, bereits gespeicherte Telegramme werden noch verarbeitet. */
+	void close() {
+		_onlineQueue.close();
+		_bulkQueue.close();
+	}
+
+	/** Schließt die zusätzlichen Queues und verwirft bereits gespeicherte Telegramme. */
+	void abort() {
+		_onlineQueue.abort();
+		_bulkQueue.abort();
+	}
+
+	/** Anzahl der noch nicht verarbeiteten Telegramme einer Datenidentifikation */
+	private static final class PendingTelegrams {
+
+		private final int _lane;
+
+		private int _count = 0;
+
+		private PendingTelegrams(final int lane) {
+			_lane = lane;
+		}
+	}
+}
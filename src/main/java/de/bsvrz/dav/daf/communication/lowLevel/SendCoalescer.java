@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.communication.lowLevel;
+
+import de.bsvrz.dav.daf.main.SendCoalescingMode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entscheidet, wann die in den Puffer des Ausgabestroms geschriebenen Telegramme tatsächlich auf die Verbindung übertragen werden. Abhängig vom {@link
+ * SendCoalescingMode} werden Telegramme gesammelt, bis eine Mindestanzahl Bytes erreicht ist, die maximale Verzögerung abgelaufen ist oder keine weiteren
+ * Telegramme zum Versand anstehen. Telegramme mit der Priorität {@link de.bsvrz.dav.daf.main.impl.CommunicationConstant#SYSTEM_HIGH_TELEGRAM_PRIORITY}
+ * werden nie verzögert.
+ * <p>
+ * Zur Auswertung werden die Anzahl Bytes je Übertragung und die Verzögerung zwischen dem Schreiben des ersten Telegramms und der Übertragung in
+ * Histogrammen erfasst.
+ * <p>
+ * Die Methoden zur Steuerung werden von {@link LowLevelCommunication} aufgerufen, während die Sperre auf den Ausgabestrom gehalten wird. Die Histogramme
+ * können aus beliebigen Threads abgefragt werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class SendCoalescer {
+
+	/** Gewichtung eines neuen Schreibabstands im gleitenden Mittelwert als Zweierpotenz (1/8) */
+	private static final int INTERVAL_SMOOTHING_SHIFT = 3;
+
+	private final SendCoalescingMode _mode;
+
+	private final int _byteThreshold;
+
+	private final long _maxDelayNanos;
+
+	/** Anzahl der geschriebenen, aber noch nicht übertragenen Bytes */
+	private int _pendingBytes = 0;
+
+	/** Zeitpunkt (System.nanoTime()), zu dem das erste noch nicht übertragene Telegramm geschrieben wurde */
+	private long _firstPendingTime;
+
+	/** <code>true</code>, wenn ein noch nicht übertragenes Telegramm sofort übertragen werden muss */
+	private boolean _urgent = false;
+
+	/** Zeitpunkt des letzten Schreibvorgangs */
+	private long _lastWriteTime;
+
+	/** Gleitender Mittelwert des Abstands zwischen zwei Schreibvorgängen */
+	private long _averageWriteInterval;
+
+	private final Log2Histogram _flushSizes = new Log2Histogram();
+
+	private final Log2Histogram _flushDelays = new Log2Histogram();
+
+	/**
+	 * Erzeugt eine neue Steuerung.
+	 *
+	 * @param mode           Modus
+	 * @param byteThreshold  Anzahl Bytes, ab der sofort übertragen wird
+	 * @param maxDelayMillis Maximale Verzögerung in Millisekunden, die ein Telegramm im Puffer verbleibt
+	 */
+	public SendCoalescer(final SendCoalescingMode mode, final int byteThreshold, final long maxDelayMillis) {
+		if(mode == null) throw new IllegalArgumentException("mode darf nicht null sein");
+		if(byteThreshold <= 0) throw new IllegalArgumentException("byteThreshold muss positiv sein: " + byteThreshold);
+		if(maxDelayMillis < 0) throw new IllegalArgumentException("maxDelayMillis darf nicht negativ sein: " + maxDelayMillis);
+		_mode = mode;
+		_byteThreshold = byteThreshold;
+		_maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+		_averageWriteInterval = _maxDelayNanos;
+		_lastWriteTime = System.nanoTime();
+	}
+
+	/**
+	 * Liefert die maximale Anzahl Bytes, die als nächstes aus der Sende-Queue entnommen werden sollen.
+	 *
+	 * @return Grenze für {@link TelegramQueue#takeMultiple(int, java.util.Collection)}
+	 */
+	int getTakeSizeLimit() {
+		if(_mode == SendCoalescingMode.LOW_LATENCY) return 0;
+		return Math.max(0, _byteThreshold - _pendingBytes - 1);
+	}
+
+	/**
+	 * Wird aufgerufen, nachdem Telegramme in den Ausgabestrom geschrieben wurden.
+	 *
+	 * @param bytes  Anzahl geschriebener Bytes
+	 * @param urgent <code>true</code>, wenn die Telegramme ohne Verzögerung übertragen werden müssen
+	 * @param now    Aktueller Zeitpunkt (System.nanoTime())
+	 */
+	void written(final int bytes, final boolean urgent, final long now) {
+		if(_pendingBytes == 0) _firstPendingTime = now;
+		_pendingBytes += bytes;
+		_urgent |= urgent;
+		final long interval = now - _lastWriteTime;
+		_averageWriteInterval += (interval - _averageWriteInterval) >> INTERVAL_SMOOTHING_SHIFT;
+		_lastWriteTime = now;
+	}
+
+	/**
+	 * Prüft, ob die geschriebenen Telegramme jetzt übertragen werden sollen.
+	 *
+	 * @param queueEmpty <code>true</code>, wenn keine weiteren Telegramme zum Versand anstehen
+	 * @param now        Aktueller Zeitpunkt (System.nanoTime())
+	 *
+	 * @return <code>true</code>, wenn übertragen werden soll
+	 */
+	boolean shouldFlush(final boolean queueEmpty, final long now) {
+		if(_pendingBytes == 0) return false;
+		if(_mode == SendCoalescingMode.LOW_LATENCY || _urgent || _pendingBytes >= _byteThreshold) return true;
+		if(now - _firstPendingTime >= _maxDelayNanos) return true;
+		if(_mode == SendCoalescingMode.ADAPTIVE && queueEmpty) {
+			// Nur bei dichter Folge von Telegrammen lohnt sich das Warten auf weitere Telegramme
+			return _averageWriteInterval >= (_maxDelayNanos >> 2);
+		}
+		return false;
+	}
+
+	/**
+	 * Bestimmt, wie lange höchstens auf weitere Telegramme gewartet werden darf.
+	 *
+	 * @param now Aktueller Zeitpunkt (System.nanoTime())
+	 *
+	 * @return Wartezeit in Nanosekunden oder -1, wenn keine Telegramme auf die Übertragung warten und beliebig lange gewartet werden kann
+	 */
+	long getWaitNanos(final long now) {
+		if(_pendingBytes == 0) return -1;
+		return Math.max(0, _firstPendingTime + _maxDelayNanos - now);
+	}
+
+	/**
+	 * Wird aufgerufen, nachdem der Ausgabestrom übertragen wurde.
+	 *
+	 * @param now Aktueller Zeitpunkt (System.nanoTime())
+	 */
+	void flushed(final long now) {
+		if(_pendingBytes == 0) return;
+		_flushSizes.record(_pendingBytes);
+		_flushDelays.record(TimeUnit.NANOSECONDS.toMicros(now - _firstPendingTime));
+		_pendingBytes = 0;
+		_urgent = false;
+	}
+
+	/**
+	 * Modus der Bündelung.
+	 *
+	 * @return Modus
+	 */
+	public SendCoalescingMode getMode() {
+		return _mode;
+	}
+
+	/**
+	 * Anzahl Bytes, ab der sofort übertragen wird.
+	 *
+	 * @return Anzahl Bytes
+	 */
+	public int getByteThreshold() {
+		return _byteThreshold;
+	}
+
+	/**
+	 * Maximale Verzögerung eines Telegramms.
+	 *
+	 * @return Verzögerung in Millisekunden
+	 */
+	public long getMaxDelayMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(_maxDelayNanos);
+	}
+
+	/**
+	 * Histogramm der Anzahl Bytes je Übertragung.
+	 *
+	 * @return Histogramm
+	 */
+	public Log2Histogram getFlushSizeHistogram() {
+		return _flushSizes;
+	}
+
+	/**
+	 * Histogramm der Verzögerung zwischen dem Schreiben des ersten Telegramms und der Übertragung.
+	 *
+	 * @return Histogramm mit Werten in Mikrosekunden
+	 */
+	public Log2Histogram getFlushDelayHistogram() {
+		return _flushDelays;
+	}
+
+	@Override
+	public String toString() {
+		return "SendCoalescer{mode=" + _mode + ", byteThreshold=" + _byteThreshold + ", maxDelayMillis=" + getMaxDelayMillis() + ", flushSizes=" + _flushSizes
+		       + ", flushDelaysMicros=" + _flushDelays + "}";
+	}
+}
@@ -31,6 +31,7 @@ import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ApplicationDataTelegram
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
 
 import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -44,6 +45,12 @@ public class SplittedApplicationTelegramsTable {
 	/** Die Tabelle wo je nach Datum eine Liste der zerstückelten Telegramme gehalten wird. */
 	private Hashtable dataTable;
 
+	/** Anzahl der Datensätze, von denen bisher nur ein Teil der Telegramme empfangen wurde */
+	private final AtomicInteger _pendingDataSets = new AtomicInteger();
+
+	/** Anzahl der gespeicherten Teiltelegramme unvollständiger Datensätze */
+	private final AtomicInteger _pendingTelegrams = new AtomicInteger();
+
 	/** Erzeugt ein Objekt dieser Klasse. */
 	public SplittedApplicationTelegramsTable() {
 		dataTable = new Hashtable();
@@ -84,6 +91,8 @@ public class SplittedApplicationTelegramsTable {
 			list[index] = telegram;
 			table.put(subKey, list);
 			dataTable.put(key, table);
+			_pendingDataSets.incrementAndGet();
+			_pendingTelegrams.incrementAndGet();
 			return null;
 		}
 		else {
@@ -92,6 +101,8 @@ public class SplittedApplicationTelegramsTable {
 				list = new ApplicationDataTelegram[totalTelegramCount];
 				list[index] = telegram;
 				table.put(subKey, list);
+				_pendingDataSets.incrementAndGet();
+				_pendingTelegrams.incrementAndGet();
 				return null;
 			}
 			else {
@@ -100,6 +111,7 @@ public class SplittedApplicationTelegramsTable {
 					for(int i = 0; i < list.length; ++i) {
 						ApplicationDataTelegram tmpTelegram = list[i];
 						if(tmpTelegram == null) {
+							_pendingTelegrams.incrementAndGet();
 							return null;
 						}
 						if(i == tmpTelegram.getTelegramNumber()) {
@@ -114,8 +126,28 @@ public class SplittedApplicationTelegramsTable {
 				if(table.size() == 0) {
 					dataTable.remove(key);
 				}
+				_pendingDataSets.decrementAndGet();
+				_pendingTelegrams.addAndGet(1 - list.length);
 				return list;
 			}
 		}
 	}
+
+	/**
+	 * Bestimmt die Anzahl der Datensätze, die gerade zusammengebaut werden.
+	 *
+	 * @return Anzahl der Datensätze, von denen bisher nur ein Teil der Telegramme empfangen wurde
+	 */
+	public int getPendingDataSetCount() {
+		return _pendingDataSets.get();
+	}
+
+	/**
+	 * Bestimmt die Anzahl der zwischengespeicherten Teiltelegramme.
+	 *
+	 * @return Anzahl der gespeicherten Teiltelegramme unvollständiger Datensätze
+	 */
+	public int getPendingTelegramCount() {
+		return _pendingTelegrams.get();
+	}
 }
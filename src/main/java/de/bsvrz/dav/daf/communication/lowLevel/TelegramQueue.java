@@ -28,6 +28,7 @@ package de.bsvrz.dav.daf.communication.lowLevel;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Klasse, die zum gepufferten Austausch von Telegrammen zwischen verschiedenen Threads verwendet werden kann. Die Gesamtgröße der gepufferten Telegramme ist
@@ -54,8 +55,17 @@ public class TelegramQueue<Telegram extends QueueableTelegram> {
 	 */
 	final private LinkedList<Telegram>[] _priorityLists;
 
+	/** Einfügezeitpunkte der Telegramme je Priorität in derselben Reihenfolge wie in {@link #_priorityLists} */
+	final private QueuedTimes[] _queuedTimes;
+
 	private boolean _closed = false;
 
+	/** Histogramm der Gesamtgröße in Bytes nach dem Speichern eines Telegramms oder <code>null</code> */
+	private volatile Log2Histogram _sizeHistogram = null;
+
+	/** Histogramm der Verweildauer der Telegramme in Mikrosekunden oder <code>null</code>, wenn die Verweildauer nicht gemessen wird */
+	private volatile Log2Histogram _waitTimeHistogram = null;
+
 	/**
 	 * Erzeugt eine neue Queue mit den angegebenen Eigenschaften.
 	 *
@@ -69,9 +79,41 @@ public class TelegramQueue<Telegram extends QueueableTelegram> {
 		_capacity = capacity;
 		_size = 0;
 		_priorityLists = (LinkedList<Telegram>[])new LinkedList[maximumPriority + 1]; // Compiler-Warnung nicht vermeidbar
+		_queuedTimes = new QueuedTimes[maximumPriority + 1];
 		for(int i = 0; i < _priorityLists.length; i++) {
 			_priorityLists[i] = new LinkedList<Telegram>();
+			_queuedTimes[i] = new QueuedTimes();
+		}
+	}
+
+	/**
+	 * Legt Histogramme fest, in denen die Belegung der Queue und die Verweildauer der Telegramme erfasst werden.
+	 *
+	 * @param sizeHistogram     Histogramm der Gesamtgröße in Bytes nach jedem Speichern eines Telegramms oder <code>null</code>
+	 * @param waitTimeHistogram Histogramm der Verweildauer der Telegramme in Mikrosekunden oder <code>null</code>. Nur wenn ein Histogramm angegeben ist, wird
+	 *                          beim Speichern eines Telegramms die Uhrzeit abgefragt.
+	 */
+	public void setHistograms(final Log2Histogram sizeHistogram, final Log2Histogram waitTimeHistogram) {
+		_sizeHistogram = sizeHistogram;
+		_waitTimeHistogram = waitTimeHistogram;
+	}
+
+	/**
+	 * Entnimmt das älteste Telegramm aus der Liste und erfasst seine Verweildauer. Der Aufrufer muss die Sperre auf die Queue halten.
+	 *
+	 * @param priority Priorität mit nicht leerer Liste
+	 *
+	 * @return Telegramm
+	 */
+	private Telegram removeFirst(final int priority) {
+		final Telegram telegram = _priorityLists[priority].removeFirst();
+		final long queuedTime = _queuedTimes[priority].removeFirst();
+		final Log2Histogram waitTimeHistogram = _waitTimeHistogram;
+		// 0, wenn die Verweildauer beim Speichern des Telegramms noch nicht gemessen wurde
+		if(waitTimeHistogram != null && queuedTime != 0) {
+			waitTimeHistogram.record((System.nanoTime() - queuedTime) / 1000);
 		}
+		return telegram;
 	}
 
 	/**
@@ -94,7 +136,7 @@ public class TelegramQueue<Telegram extends QueueableTelegram> {
 			for(int i = _priorityLists.length - 1; i >= 0; i--) {
 				LinkedList<Telegram> priorityList = _priorityLists[i];
 				if(!priorityList.isEmpty()) {
-					final Telegram telegram = priorityList.removeFirst();
+					final Telegram telegram = removeFirst(i);
 					_size -= telegram.getSize();
 					notifyAll();
 					return telegram;
@@ -114,19 +156,43 @@ public class TelegramQueue<Telegram extends QueueableTelegram> {
 	 * @throws InterruptedException
 	 */
 	public int takeMultiple(int sizeLimit, final Collection<Telegram> result) throws InterruptedException {
+		return takeMultiple(sizeLimit, result, false, 0);
+	}
+
+	/**
+	 * Wie {@link #takeMultiple(int, Collection)}, wartet aber höchstens die angegebene Zeit auf ein Telegramm.
+	 * @param sizeLimit    Anzahl Bytes, die diese Methode versucht mindestens zurückzugeben (solange in der Queue genug Daten da sind)
+	 * @param result       Liste in der die Telegramme zurückgegeben werden. Die Liste wird beim Aufruf der Methode geleert.
+	 * @param timeoutNanos Maximale Wartezeit in Nanosekunden
+	 * @return Anzahl Bytes der zurückgegebenen Telegramme, 0 wenn innerhalb der Wartezeit kein Telegramm verfügbar war, oder -1 wenn die Queue geschlossen wurde
+	 * @throws InterruptedException Wenn der Thread während des Wartens unterbrochen wurde.
+	 */
+	public int takeMultiple(int sizeLimit, final Collection<Telegram> result, long timeoutNanos) throws InterruptedException {
+		return takeMultiple(sizeLimit, result, true, timeoutNanos);
+	}
+
+	private int takeMultiple(int sizeLimit, final Collection<Telegram> result, boolean timed, long timeoutNanos) throws InterruptedException {
 		result.clear();
 		int aggregatedSize = 0;
 		synchronized(this) {
+			final long deadline = System.nanoTime() + timeoutNanos;
 			while(_size == 0) {
 				// Wenn die Queue leer ist und geschlossen wurde, wird -1 zurückgegeben
 				if(_closed) return -1;
 				// Wenn die Queue leer ist und nicht geschlossen wurde, wird gewartet
-				wait();
+				if(timed) {
+					final long remaining = deadline - System.nanoTime();
+					if(remaining <= 0) return 0;
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+				else {
+					wait();
+				}
 			}
 			for(int i = _priorityLists.length - 1; i >= 0; i--) {
 				LinkedList<Telegram> priorityList = _priorityLists[i];
 				while(!priorityList.isEmpty()) {
-					final Telegram telegram = priorityList.removeFirst();
+					final Telegram telegram = removeFirst(i);
 					_size -= telegram.getSize();
 					aggregatedSize += telegram.getSize();
 					notifyAll();
@@ -168,7 +234,10 @@ public class TelegramQueue<Telegram extends QueueableTelegram> {
 			}
 			if(_closed) return;
 			_priorityLists[priority].add(telegram);
+			_queuedTimes[priority].add(_waitTimeHistogram == null ? 0 : System.nanoTime());
 			_size += length;
+			final Log2Histogram sizeHistogram = _sizeHistogram;
+			if(sizeHistogram != null) sizeHistogram.record(_size);
 			notifyAll();
 		}
 	}
@@ -220,4 +289,38 @@ public class TelegramQueue<Telegram extends QueueableTelegram> {
 			}
 		}
 	}
+
+	/**
+	 * Ringpuffer mit den Zeitpunkten, zu denen die Telegramme einer Priorität gespeichert wurden (in Nanosekunden, siehe {@link System#nanoTime()}), oder 0, wenn
+	 * die Verweildauer nicht gemessen wurde. Der Puffer wächst bei Bedarf und wird nicht verkleinert, so dass im Betrieb keine Objekte je Telegramm entstehen.
+	 */
+	private static final class QueuedTimes {
+
+		private long[] _times = new long[16];
+
+		/** Index des ältesten Eintrags */
+		private int _head = 0;
+
+		private int _count = 0;
+
+		void add(final long time) {
+			if(_count == _times.length) {
+				final long[] times = new long[_times.length * 2];
+				final int firstPart = _times.length - _head;
+				System.arraycopy(_times, _head, times, 0, firstPart);
+				System.arraycopy(_times, 0, times, firstPart, _head);
+				_times = times;
+				_head = 0;
+			}
+			_times[(_head + _count) % _times.length] = time;
+			_count++;
+		}
+
+		long removeFirst() {
+			final long time = _times[_head];
+			_head = (_head + 1) % _times.length;
+			_count--;
+			return time;
+		}
+	}
 }
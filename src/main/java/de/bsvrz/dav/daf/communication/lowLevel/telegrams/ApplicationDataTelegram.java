@@ -27,6 +27,7 @@
 
 package de.bsvrz.dav.daf.communication.lowLevel.telegrams;
 
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.communication.lowLevel.TelegramUtility;
 import de.bsvrz.sys.funclib.debug.Debug;
 
@@ -82,6 +83,9 @@ public class ApplicationDataTelegram extends DataTelegram implements DataTelegra
 
 	private byte data[];
 
+	/** Zeitstempel der Latenzmessung oder <code>null</code>, falls das Telegramm nicht erfasst wird. Wird nicht übertragen. */
+	private LatencyTrace _latencyTrace = null;
+
 	public ApplicationDataTelegram() {
 		type = APPLICATION_DATA_TELEGRAM_TYPE;
 	}
@@ -282,6 +286,24 @@ public class ApplicationDataTelegram extends DataTelegram implements DataTelegra
 		dataNumber = _dataNumber;
 	}
 
+	/**
+	 * Liefert die Zeitstempel der Latenzmessung dieses empfangenen Telegramms.
+	 *
+	 * @return Zeitstempel oder <code>null</code>, falls das Telegramm nicht erfasst wird
+	 */
+	public final LatencyTrace getLatencyTrace() {
+		return _latencyTrace;
+	}
+
+	/**
+	 * Setzt die Zeitstempel der Latenzmessung dieses empfangenen Telegramms.
+	 *
+	 * @param latencyTrace Zeitstempel oder <code>null</code>
+	 */
+	public final void setLatencyTrace(final LatencyTrace latencyTrace) {
+		_latencyTrace = latencyTrace;
+	}
+
 	public String toShortDebugParamString() {
 		return "tn: " + telegramNumber + "/" + totalTelegramCount + ", " + " dataNumber: " + (dataNumber >>> 32) + "#" + ((dataNumber & 0xffffffffL) >> 2) + "#"
 		       + (dataNumber & 3) + ", ef: " + errorFlag + ", " + baseSubscriptionInfo.toString();
@@ -94,17 +94,24 @@ public class ClientConnectionProperties extends ConnectionProperties {
 				throw new InitialisationNotCompleteException("Unbekannter Kommunikationsprotokollname.");
 			}
 			ConnectionInterface connection = (ConnectionInterface)aClass.newInstance();
-			setLowLevelCommunication(
-					new LowLevelCommunication(
-							connection,
-							clientDavParameters.getAdjustedOutputBufferSize(),
-							clientDavParameters.getAdjustedInputBufferSize(),
-							clientDavParameters.getCommunicationParameters().getSendKeepAliveTimeout(),
-							clientDavParameters.getCommunicationParameters().getReceiveKeepAliveTimeout(),
-							LowLevelCommunication.HANDLE_CONFIG_RESPONCES_MODE,
-							false
-					)
+			final LowLevelCommunication lowLevelCommunication = new LowLevelCommunication(
+					connection,
+					clientDavParameters.getAdjustedOutputBufferSize(),
+					clientDavParameters.getAdjustedInputBufferSize(),
+					clientDavParameters.getCommunicationParameters().getSendKeepAliveTimeout(),
+					clientDavParameters.getCommunicationParameters().getReceiveKeepAliveTimeout(),
+					LowLevelCommunication.HANDLE_CONFIG_RESPONCES_MODE,
+					false
 			);
+			lowLevelCommunication.setSendCoalescing(
+					clientDavParameters.getSendCoalescingMode(),
+					clientDavParameters.getSendCoalescingThreshold(),
+					clientDavParameters.getSendCoalescingMaxDelay()
+			);
+			lowLevelCommunication.getMetrics().getLatencyTracer().setSampleInterval(clientDavParameters.getLatencySampleInterval());
+			lowLevelCommunication.getMetrics().setQueueWaitTimeEnabled(clientDavParameters.isQueueWaitTimeMeasurement());
+			lowLevelCommunication.setReceivePipeline(clientDavParameters.getReceivePipelineWeight());
+			setLowLevelCommunication(lowLevelCommunication);
 
 			String authentificationName = clientDavParameters.getAuthentificationProcessName();
 			if(authentificationName == null) {
@@ -42,10 +42,10 @@ import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
 import de.bsvrz.dav.daf.main.impl.ConfigurationManager;
 import de.bsvrz.dav.daf.main.impl.SubscriptionManager;
 import de.bsvrz.dav.daf.main.impl.config.AttributeGroupUsageIdentifications;
-import de.bsvrz.sys.funclib.concurrent.UnboundedQueue;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Das Modul Protokollsteuerung ist das Bindeglied der Komponente Kommunikation zwischen den Modulen Telegrammverwaltung und Verwaltung. Es stellt für die
@@ -179,6 +179,10 @@ public class ClientHighLevelCommunication implements HighLevelCommunicationCallb
 		_sendControlNotifier = new SendControlNotifier();
 
 		lowLevelCommunication = properties.getLowLevelCommunication();
+		final ConnectionMetrics metrics = lowLevelCommunication.getMetrics();
+		if(metrics != null) {
+			metrics.addReassemblyTable(splittedTelegramsTable);
+		}
 		String ip = properties.getCommunicationAddress();
 		int port = properties.getCommunicationSubAddress();
 		lowLevelCommunication.connect(ip, port);
@@ -219,21 +223,37 @@ public class ClientHighLevelCommunication implements HighLevelCommunicationCallb
 		return properties.getLowLevelCommunication().getEncryptionStatus();
 	}
 
+	/**
+	 * Gibt die Kennzahlen der zugrundeliegenden Verbindung zurück
+	 * @return Kennzahlen oder <code>null</code>, falls die Verbindung keine Kennzahlen erfasst
+	 */
+	public ConnectionMetrics getConnectionMetrics() {
+		return properties.getLowLevelCommunication().getMetrics();
+	}
+
 	public AuthenticationStatus getAuthenticationStatus() {
 		return _authenticationStatus;
 	}
 
 	/**
 	 * Asynchrone Verarbeitung von empfangenen Sendsteuerungstelegrammen. Speichert mit put übergebene Sendesteuerungstelegramme in einer internen Queue, aus der
-	 * die Telegramme asynchron von einem eigenen Thread ausgelesen und zur Weiterverarbeitung an den SubscriptionsManager weitergegeben werden.
+	 * die Telegramme asynchron von einem eigenen Thread ausgelesen und zur Weiterverarbeitung an den SubscriptionsManager weitergegeben werden. Alle bereits
+	 * vorliegenden Telegramme (maximal {@link #MAX_BATCH_SIZE}) werden gemeinsam weitergegeben, damit Sender, die {@link ClientSenderBatchInterface}
+	 * implementieren, gesammelt benachrichtigt werden können.
 	 */
 	private class SendControlNotifier implements Runnable {
 
-		private UnboundedQueue<RequestSenderDataTelegram> _telegrams;
+		/** Maximale Anzahl von Telegrammen, die gemeinsam an den SubscriptionsManager weitergegeben werden */
+		private static final int MAX_BATCH_SIZE = 10000;
+
+		private final LinkedBlockingQueue<RequestSenderDataTelegram> _telegrams;
+
+		/** Markierung in der Queue, die das Ende der Verarbeitung signalisiert */
+		private final RequestSenderDataTelegram _closeMarker = new RequestSenderDataTelegram();
 
 		/** Der Konstruktor erzeugt die interne Queue. Der Thread zur Verarbeitung der Telegramme wird erst später bei Aufruf der start()-Methode angelegt und gestartet. */
 		public SendControlNotifier() {
-			_telegrams = new UnboundedQueue<RequestSenderDataTelegram>();
+			_telegrams = new LinkedBlockingQueue<RequestSenderDataTelegram>();
 		}
 
 		/** Erzeugt und startet einen separaten Thread zur Verarbeitung der Telegramme. */
@@ -249,27 +269,33 @@ public class ClientHighLevelCommunication implements HighLevelCommunicationCallb
 		 * @param telegram Zu verarbeitendes Sendesteuerungstelegramm.
 		 */
 		public void put(RequestSenderDataTelegram telegram) {
-			_telegrams.put(telegram);
+			_telegrams.add(telegram);
 		}
 
 		/** Signalisiert dem Thread zur Verarbeitung der Telegramme, dass keine weiteren Telegramme verarbeitet werden müssen und der Thread sich beenden kann. */
 		public void close() {
-			_telegrams.put(null);
+			_telegrams.add(_closeMarker);
 		}
 
 		/** Methode zur asynchronen Verarbeitung von gespeicherten Telegrammen durch einen eigenen Thread. */
 		@Override
 		public void run() {
 			try {
-				RequestSenderDataTelegram telegram;
-				while((telegram = _telegrams.take()) != null) {
-					if(_disconnecting) return;
-					try {
-						_subscriptionManager.notifySenderApplication(telegram.getDataToSendInfo(), telegram.getState());
+				final List<RequestSenderDataTelegram> telegrams = new ArrayList<RequestSenderDataTelegram>();
+				boolean closed = false;
+				while(!closed) {
+					telegrams.add(_telegrams.take());
+					_telegrams.drainTo(telegrams, MAX_BATCH_SIZE - 1);
+					final int closeIndex = telegrams.indexOf(_closeMarker);
+					if(closeIndex >= 0) {
+						telegrams.subList(closeIndex, telegrams.size()).clear();
+						closed = true;
 					}
-					catch(RuntimeException e) {
-						_debug.error("Fehler bei der Verarbeitung der Sendesteuerung", e);
+					if(_disconnecting) return;
+					if(!telegrams.isEmpty()) {
+						_subscriptionManager.notifySenderApplications(telegrams);
 					}
+					telegrams.clear();
 				}
 			}
 			catch(InterruptedException e) {
@@ -710,6 +736,8 @@ public class ClientHighLevelCommunication implements HighLevelCommunicationCallb
 					}
 				}
 				if(receivedData != null) {
+					// Bei zerlegten Datensätzen wird die Latenz ab dem Empfang des letzten Teiltelegramms gemessen
+					receivedData.setLatencyTrace(applicationDataTelegram.getLatencyTrace());
 					BaseSubscriptionInfo baseSubscriptionInfo = receivedData.getBaseSubscriptionInfo();
 					if(AttributeGroupUsageIdentifications.isConfigurationReply(baseSubscriptionInfo.getUsageIdentification())) {
 						// Antworten der Konfiguration werden direkt an den Konfigurationsmanager weitergeleitet.
@@ -977,7 +1005,12 @@ public class ClientHighLevelCommunication implements HighLevelCommunicationCallb
 		if(telegramTimeAnswer == null) {
 			return -1;
 		}
-		return telegramTimeAnswer.getRoundTripTime();
+		final long roundTripTime = telegramTimeAnswer.getRoundTripTime();
+		final ConnectionMetrics metrics = lowLevelCommunication.getMetrics();
+		if(metrics != null) {
+			metrics.recordRoundTripTime(roundTripTime);
+		}
+		return roundTripTime;
 	}
 
 	/**
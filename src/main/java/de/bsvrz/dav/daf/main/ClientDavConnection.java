@@ -29,9 +29,8 @@
 
 package de.bsvrz.dav.daf.main;
 
-import de.bsvrz.dav.daf.communication.dataRepresentation.AttributeBaseValueDataFactory;
-import de.bsvrz.dav.daf.communication.dataRepresentation.AttributeHelper;
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.DataFactory;
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionMetrics;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.SendSubscriptionInfo;
 import de.bsvrz.dav.daf.communication.protocol.ClientConnectionProperties;
@@ -115,15 +114,6 @@ public class ClientDavConnection implements ClientDavInterface {
 	/** Enthält die Beobachter, die eine Mitteilung erhalten wollen, wenn die Verbindung zum Datenverteiler terminiert wird. */
 	private List<DavConnectionListener> _connectionListeners = new CopyOnWriteArrayList<DavConnectionListener>();
 
-	/**
-	 * Diese Map speichert zu einer Attributgruppe, den dazugehörigen "leeren" Datensatz, der vom Datenverteiler zur Verfügung gestellt wurde. Alle Attribute des
-	 * Datensatzes enthalten entweder den "Default-Wert", falls dieser definiert wurde, oder den sogenannten "undefiniert Wert". Der Datensatz der Map ist nicht
-	 * änderbar und wird nicht zurückgegeben. Falls der Datensatz gebraucht wird, wird eine "modifizierbare" Kopie angelegt und diese zurückgegeben. <p> Die Map
-	 * ist nicht synchronisiert. <p> Als Schlüssel dient die Attributgruppe, als Value wird ein nicht modifizierbarer Datensatz gespeichert der benutzt wird um
-	 * eine modifizierbare Kopie zu erzeugen.
-	 */
-	private Map<AttributeGroup, Data> _defaultData = new HashMap<AttributeGroup, Data>();
-
 	/**
 	 * Hält fest, ob sich eine Applikation explizit selbst um die Fertigmeldung kümmert oder nicht. Aus Kompatibilitätsgründen wird angenommen, dass die
 	 * Applikation sich nicht um eine Fertigmeldung kümmert. Das Flag kann mit der Methode {@link #enableExplicitApplicationReadyMessage()} gesetzt werden.
@@ -159,6 +149,21 @@ public class ClientDavConnection implements ClientDavInterface {
 	/** Klasse zum Ausbremsen von Login-Versuchen über {@link #checkLoggedUserNameAndPassword(String, String)} */
 	private final Throttler _throttler = new Throttler(Duration.ofSeconds(1), Duration.ofSeconds(5));
 
+	/** Bei der letzten Authentifizierung verwendete Anmeldeinformationen, die für die automatische Wiederverbindung benötigt werden */
+	private ClientCredentials _reconnectCredentials = null;
+
+	/** <code>true</code>, wenn die Verbindung auf Wunsch der Applikation mit {@link #disconnect(boolean, String)} geschlossen wird */
+	private volatile boolean _disconnectRequested = false;
+
+	/** Thread, der eine unerwartet verlorene Verbindung wiederherstellt oder <code>null</code>, wenn keine Wiederverbindung läuft */
+	private volatile Reconnector _reconnector = null;
+
+	/** <code>true</code>, wenn zuletzt eine Noch-nicht-Fertigmeldung verschickt wurde, <code>false</code> wenn eine Fertigmeldung verschickt wurde */
+	private boolean _lastReadyMessageNotReadyYet = false;
+
+	/** <code>true</code>, wenn die Fertigmeldung nach einer Wiederverbindung erneut verschickt werden muss */
+	private boolean _resendReadyMessage = false;
+
 	/**
 	 * Erzeugt eine neue logische Datenverteilerverbindung mit Default-Parametern.
 	 *
@@ -209,7 +214,7 @@ public class ClientDavConnection implements ClientDavInterface {
 	protected ClientDavConnection(ClientDavParameters parameters, DataModel dataModel, final Object lock) throws MissingParameterException {
 		_lock = lock;
 
-		if(parameters == null || !parameters.isSecondConnection()) {
+		if(parameters == null || !(parameters.isSecondConnection() || parameters.isShardConnection())) {
 
 			// Release-Info, bei 2. Verbindung unterdrücken
 
@@ -265,6 +270,17 @@ public class ClientDavConnection implements ClientDavInterface {
 		Runtime.getRuntime().addShutdownHook(new ConnectionShutdownHook(this));
 	}
 
+	/**
+	 * Bestimmt, ob diese Verbindung das von ihr benutzte {@link DafDataModel} selbst verwaltet, also initialisiert und beim Verbindungsabbau schließt. Das ist
+	 * nicht der Fall, wenn eine zweite Verbindung für Konfigurationsanfragen verwendet wird oder wenn es sich um eine zusätzliche Verbindung einer {@link
+	 * ShardedClientDavConnection} handelt, die das Datenmodell der ersten Verbindung mitbenutzt.
+	 *
+	 * @return <tt>true</tt>, wenn das Datenmodell von dieser Verbindung verwaltet wird, sonst <tt>false</tt>
+	 */
+	private boolean ownsDataModel() {
+		return _dataModel instanceof DafDataModel && _dataModelConnection == null && !_clientDavParameters.isShardConnection();
+	}
+
 	private void createDataModel() {
 		ClientDavParameters secondConnectionParameters = _clientDavParameters.getSecondConnectionParameters();
 		if(secondConnectionParameters != null){
@@ -399,7 +415,7 @@ public class ClientDavConnection implements ClientDavInterface {
 				((DafDataModel)this._dataModel).setPublicConnection(this);
 			}
 			if(_reinitializeOnConnect) {
-				if(_dataModel instanceof DafDataModel && _dataModelConnection == null) {
+				if(ownsDataModel()) {
 					createDataModel();
 				}
 				_closeHandler.reset();
@@ -419,7 +435,6 @@ public class ClientDavConnection implements ClientDavInterface {
 				_implicitSubscriptions = new Hashtable<BaseSubscriptionInfo, ImplicitSubscriptionNote>();
 				_implicitUnsubscriber = null;
 				_streamedRequestManager = null;
-				_defaultData = new HashMap<AttributeGroup, Data>();
 				_readyMessageSender = null;
 			}
 			
@@ -427,15 +442,9 @@ public class ClientDavConnection implements ClientDavInterface {
 			if(_highLevelCommunication != null) {
 				_highLevelCommunication.terminate(false, "Verbindung soll erneut aufgebaut werden");
 			}
+			_disconnectRequested = false;
 			_highLevelCommunication = new ClientHighLevelCommunication(_clientDavParameters, _closeHandler);
-			_highLevelCommunication.setConnectionListener(
-					new DavConnectionListener() {
-						@Override
-						public void connectionClosed(ClientDavInterface nullConnection) {
-							notifyConnectionClosed();
-						}
-					}
-			);
+			_highLevelCommunication.setConnectionListener(createConnectionListener(_highLevelCommunication));
 			_isConnected = true;
 			_isLoggedIn = false;
 			if(_implicitUnsubscriber == null) {
@@ -450,6 +459,13 @@ public class ClientDavConnection implements ClientDavInterface {
 		// Diese Methode nicht synchonisiert ausführen, da es sonst zu (beinahe-)Deadlocks kommt, wenn andere synchronisierte Methoden
 		// wie login() gleichzeitig laufen.
 		// Länger dauernde Aufräumarbeiten können in notifyConnectionClosed() durchgeführt werden
+		_disconnectRequested = true;
+		final Reconnector reconnector = _reconnector;
+		if(reconnector != null) {
+			// Die Verbindung ist bereits verloren, der Wiederverbindungs-Thread führt die Aufräumarbeiten durch
+			reconnector.interrupt();
+			return;
+		}
 		ClientHighLevelCommunication highLevelCommunication = _highLevelCommunication;
 		if(highLevelCommunication != null) {
 			String terminateMessage;
@@ -495,6 +511,7 @@ public class ClientDavConnection implements ClientDavInterface {
 				}
 				
 				_highLevelCommunication.login(clientCredentials);
+				_reconnectCredentials = clientCredentials;
 				
 				long configurationId = _highLevelCommunication.getConfigurationId();
 				_subscriptionManager = new SubscriptionManager(_clientDavParameters);
@@ -513,7 +530,8 @@ public class ClientDavConnection implements ClientDavInterface {
 				_cacheManager = new CacheManager(_subscriptionManager, _configurationManager);
 				//			archiveManager = new ArchiveManager(subscriptionManager, configurationManager, cacheManager, configurationId);
 				_highLevelCommunication.completeInitialisation(_configurationManager, _cacheManager, _subscriptionManager);
-				_subscriptionManager.completeInitialisation(_dataModelConnection != null);
+				final boolean sharedDataModel = _dataModelConnection != null || _clientDavParameters.isShardConnection();
+				_subscriptionManager.completeInitialisation(sharedDataModel);
 				long time = System.currentTimeMillis();
 				long sleepTime = 10;
 				while(!_subscriptionManager.isInitialisationComplete()) {
@@ -533,7 +551,8 @@ public class ClientDavConnection implements ClientDavInterface {
 						throw new CommunicationError("Konfiguration ist nicht erreichbar.");
 					}
 				}
-				if(_dataModelConnection != null) {
+				if(sharedDataModel) {
+					// Das Datenmodell wird von einer anderen Verbindung initialisiert und verwaltet
 					_subscriptionManager.setConfigurationManager(_configurationManager);
 				}
 				else {
@@ -547,7 +566,7 @@ public class ClientDavConnection implements ClientDavInterface {
 				_isLoggedIn = true;
 
 				// Auf Meta-Seite wird die Verbindung zur Konfiguration hergestellt
-				if(_dataModel instanceof DafDataModel && _dataModelConnection == null) {
+				if(ownsDataModel()) {
 					((DafDataModel)_dataModel).createRequester();
 					((DafDataModel)_dataModel).loadLocalConfigurationCache();
 				}
@@ -622,17 +641,11 @@ public class ClientDavConnection implements ClientDavInterface {
 	 * @return Den zu verwendenden Aspekt, falls es eine Aspektumleitung gibt, sonst den übergebenen Aspekt.
 	 */
 	private Aspect aspectToSubstitute(AttributeGroup attributeGroup, Aspect aspect) {
-		String oldAspectPid = aspect.getPid();
-		String newAspectPid = _clientDavParameters.aspectToSubstitute(attributeGroup.getPid(), oldAspectPid);
-		if(!oldAspectPid.equals(newAspectPid)) {
-			if(_configurationManager != null && _dataModel != null) {
-				final Aspect asp = _dataModel.getAspect(newAspectPid);
-				if(asp != null) {
-					return asp;
-				}
-			}
+		final DataModel dataModel = _dataModel;
+		if(_configurationManager == null || dataModel == null) {
+			return aspect;
 		}
-		return aspect;
+		return _clientDavParameters.getAspectRedirections(dataModel).aspectToSubstitute(attributeGroup, aspect);
 	}
 
 	/**
@@ -764,7 +777,7 @@ public class ClientDavConnection implements ClientDavInterface {
 							list.add(
 									new ResultData(
 											object, dataDescription, cachedObject.getDelayedDataFlag(), cachedObject.getDataNumber(), cachedObject
-											.getDataTime(), cachedObject.getErrorFlag(), cachedObject.getData()
+											.getDataTime(), cachedObject.getErrorFlag(), cachedObject.getDataBytes(), cachedObject::getData
 									)
 							);
 						}
@@ -882,7 +895,8 @@ public class ClientDavConnection implements ClientDavInterface {
 					cachedObject.getDataNumber(),
 					cachedObject.getDataTime(),
 					cachedObject.getErrorFlag(),
-					cachedObject.getData()
+					cachedObject.getDataBytes(),
+					cachedObject::getData
 			);
 		}
 	}
@@ -1381,31 +1395,10 @@ public class ClientDavConnection implements ClientDavInterface {
 	public Data createData(AttributeGroup attributeGroup) {
 		// Es soll ein neuer Datensatz erzeugt werden. In dem Datensatz muss jedes Attribut entweder auf den Default-Wert
 		// gesetzt werden oder aber auf den "undefiniert Wert", wenn kein Default-Wert definiert wurde.
-		// Damit diese Prozedure nicht immer wiederholt werden muss (Datensatz anfordern, Default-Werte setzen)
-		// wird diese einmal gemacht und dieser Datensatz gespeichert. Wird erneut ein Datensatz angefordert, wird
-		// der gespeicherte Datensatz kopiert und diese Kopie zurückgegeben.
-
-		// Speichert den Datensatz, der nicht geändert werden darf und als Kopiervorlage dienen soll
-		Data masterCopy;
-
-		synchronized(_defaultData) {
-			masterCopy = _defaultData.get(attributeGroup);
-			if(masterCopy == null) {
-				// Es gibt keinen Datensatz, der alle Werte enthält. Also muss dieser erzeugt werden
-
-				// Datensatz anfordern
-				final Data firstData = AttributeBaseValueDataFactory.createAdapter(attributeGroup, AttributeHelper.getAttributesValues(attributeGroup));
-				// Default und undefiniert Werte setzen
-				firstData.setToDefault();
-				// ein nicht änderbare Kopie erzeugen und in der Map speichern
-				masterCopy = firstData.createUnmodifiableCopy();
-				// Datensatz speichern, dieser dient nun immer als Kopiervorlage
-				_defaultData.put(attributeGroup, masterCopy);
-			}
-		} // synchronized
-
-		// Die Kopiervorlage steht nun zur Verfügung. Eine modifizierbare Kopie anlegen und zurückgeben
-		return masterCopy.createModifiableCopy();
+		// Damit diese Prozedur nicht immer wiederholt werden muss, hält die DataFactory den serialisierten Datensatz
+		// je Attributgruppe vor. Für jeden Aufruf wird nur noch das Byte-Array kopiert. Der Zwischenspeicher wird beim
+		// Schließen der Verbindung über DataFactory.forget(DataModel) freigegeben.
+		return DataFactory.forVersion(1).createDefaultData(attributeGroup);
 	}
 
 	@Override
@@ -1422,6 +1415,7 @@ public class ClientDavConnection implements ClientDavInterface {
 	 */
 	private void sendApplicationReadyMessage(boolean sendNotReadyYet) {
 		synchronized(_lock) {
+			_lastReadyMessageNotReadyYet = sendNotReadyYet;
 
 			// Datenmodell erfragen
 			final DataModel configuration = getDataModel();
@@ -1581,6 +1575,15 @@ public class ClientDavConnection implements ClientDavInterface {
 		return _subscriptionManager.getTimeStampFromSenderSubscription(info);
 	}
 
+	@Override
+	public ConnectionMetrics getConnectionMetrics() {
+		final ClientHighLevelCommunication highLevelCommunication = _highLevelCommunication;
+		if(highLevelCommunication != null) {
+			return highLevelCommunication.getConnectionMetrics();
+		}
+		return null;
+	}
+
 	@Override
 	public EncryptionStatus getEncryptionStatus(){
 		if(_highLevelCommunication != null){
@@ -1750,6 +1753,210 @@ public class ClientDavConnection implements ClientDavInterface {
 		}
 	}
 
+	/**
+	 * Erzeugt den Beobachter, der von der übergebenen Kommunikationsschicht beim Terminieren der Verbindung benachrichtigt wird. Wenn die automatische
+	 * Wiederverbindung aktiviert ist und die Verbindung nicht auf Wunsch der Applikation geschlossen wurde, wird eine Wiederverbindung gestartet, ansonsten werden
+	 * die Aufräumarbeiten in {@link #notifyConnectionClosed()} durchgeführt.
+	 *
+	 * @param highLevelCommunication Kommunikationsschicht der Verbindung
+	 *
+	 * @return Beobachter
+	 */
+	private DavConnectionListener createConnectionListener(final ClientHighLevelCommunication highLevelCommunication) {
+		return new DavConnectionListener() {
+			@Override
+			public void connectionClosed(ClientDavInterface nullConnection) {
+				if(startReconnect(highLevelCommunication)) return;
+				notifyConnectionClosed();
+			}
+		};
+	}
+
+	/**
+	 * Startet nach einem unerwarteten Verbindungsverlust die automatische Wiederverbindung, falls sie mit {@link ClientDavParameters#setReconnectInterval(int)}
+	 * aktiviert wurde. Nicht unterstützt wird die Wiederverbindung bei Verwendung einer zweiten Verbindung für Konfigurationsanfragen und bei Authentifizierung
+	 * mit einem Einmalpasswort.
+	 *
+	 * @param highLevelCommunication Kommunikationsschicht der verlorenen Verbindung
+	 *
+	 * @return <code>true</code>, wenn die Wiederverbindung gestartet wurde, <code>false</code>, wenn die Verbindung geschlossen werden muss
+	 */
+	private boolean startReconnect(final ClientHighLevelCommunication highLevelCommunication) {
+		synchronized(_lock) {
+			if(_clientDavParameters.getReconnectInterval() <= 0 || _disconnectRequested || !_isLoggedIn || _reconnectCredentials == null
+			   || _dataModelConnection != null || _subscriptionManager == null || highLevelCommunication != _highLevelCommunication
+			   || highLevelCommunication.getConnectionProperties().getPasswordIndex() != -1) {
+				return false;
+			}
+			// Der CloseHandler der Applikation soll nicht aufgerufen werden, weil die Verbindung wiederhergestellt wird
+			highLevelCommunication.setCloseHandler(null);
+			_reconnector = new Reconnector(_clientDavParameters.getReconnectInterval() * 1000L);
+			_reconnector.start();
+			return true;
+		}
+	}
+
+	/**
+	 * Prüft, ob die Verbindung zum Datenverteiler unerwartet verloren wurde und gerade automatisch wiederhergestellt wird. Während der Wiederverbindung bleiben
+	 * alle Anmeldungen erhalten, Datensätze werden aber weder empfangen noch versendet.
+	 *
+	 * @return <code>true</code>, wenn gerade eine automatische Wiederverbindung läuft, sonst <code>false</code>
+	 *
+	 * @see ClientDavParameters#setReconnectInterval(int)
+	 */
+	public boolean isReconnecting() {
+		return _reconnector != null;
+	}
+
+	/**
+	 * Bereitet die Anmeldungen auf die Wiederverbindung vor. Die Sendeanmeldung der Fertigmeldung bezieht sich auf das bisherige Applikationsobjekt und wird
+	 * deshalb abgemeldet, damit sie nach der Wiederverbindung für das neue Applikationsobjekt erneut angemeldet werden kann.
+	 */
+	private void prepareReconnect() {
+		synchronized(_lock) {
+			_resendReadyMessage = false;
+			if(_readyMessageSender != null) {
+				try {
+					final SystemObject application = _dataModel.getObject(getLocalApplicationObjectId());
+					final AttributeGroup attributeGroup = _dataModel.getAttributeGroup("atg.applikationsFertigmeldung");
+					if(application != null && attributeGroup != null) {
+						_subscriptionManager.unsubscribeSender(
+								_readyMessageSender, new SystemObject[]{application}, new DataDescription(attributeGroup, _dataModel.getAspect("asp.standard"))
+						);
+					}
+				}
+				catch(RuntimeException e) {
+					_debug.warning("Die Sendeanmeldung der Fertigmeldung konnte nicht abgemeldet werden", e);
+				}
+				_readyMessageSender = null;
+				_resendReadyMessage = true;
+			}
+		}
+		_subscriptionManager.connectionLost();
+	}
+
+	/**
+	 * Baut eine neue Verbindung zum Datenverteiler auf, authentifiziert sich mit den zuletzt verwendeten Anmeldeinformationen und überträgt alle bestehenden
+	 * Anmeldungen. Die Komponenten der bisherigen Verbindung (Anmeldungsverwaltung, Cache und Konfigurationsverwaltung) werden weiterverwendet.
+	 *
+	 * @return <code>true</code>, wenn die neue Verbindung übernommen wurde, <code>false</code>, wenn die Verbindung inzwischen auf Wunsch der Applikation
+	 *         geschlossen wurde
+	 *
+	 * @throws CommunicationError        Wenn bei der initialen Kommunikation mit dem Datenverteiler Fehler aufgetreten sind.
+	 * @throws ConnectionException       Wenn die Verbindung nicht aufgebaut werden konnte.
+	 * @throws InconsistentLoginException Wenn die Authentifizierung fehlgeschlagen ist.
+	 * @throws InterruptedException      Wenn der Thread während der Wiederverbindung unterbrochen wurde.
+	 */
+	private boolean reconnect() throws CommunicationError, ConnectionException, InconsistentLoginException, InterruptedException {
+		final ClientConnectionProperties oldProperties = _highLevelCommunication.getConnectionProperties();
+		// Ohne CloseHandler, damit ein Fehler beim Verbindungsaufbau nicht zum Beenden der Applikation führt
+		final ClientHighLevelCommunication highLevelCommunication = new ClientHighLevelCommunication(_clientDavParameters, null);
+		boolean installed = false;
+		try {
+			highLevelCommunication.getConnectionProperties().setUserName(oldProperties.getUserName());
+			highLevelCommunication.login(_reconnectCredentials);
+			highLevelCommunication.completeInitialisation(_configurationManager, _cacheManager, _subscriptionManager);
+			_subscriptionManager.completeInitialisation(_clientDavParameters.isShardConnection());
+			final long time = System.currentTimeMillis();
+			long sleepTime = 10;
+			while(!_subscriptionManager.isInitialisationComplete()) {
+				if(highLevelCommunication.isDisconnecting()) {
+					throw new CommunicationError("Verbindung zum Datenverteiler wurde unterbrochen");
+				}
+				else if(System.currentTimeMillis() - time < CommunicationConstant.MAX_WAITING_TIME_FOR_SYNC_RESPONCE) {
+					Thread.sleep(sleepTime);
+					if(sleepTime < 1000) sleepTime *= 2;
+				}
+				else {
+					throw new CommunicationError("Konfiguration ist nicht erreichbar.");
+				}
+			}
+			synchronized(_lock) {
+				if(_disconnectRequested) return false;
+				highLevelCommunication.setCloseHandler(_closeHandler);
+				highLevelCommunication.setConnectionListener(createConnectionListener(highLevelCommunication));
+				_highLevelCommunication = highLevelCommunication;
+				installed = true;
+			}
+			// Die neue Protokollsteuerung darf erst nach dieser Bestätigung Online-Datensätze an die Anmeldungsverwaltung weitergeben
+			_subscriptionManager.setConfigurationManager(_configurationManager);
+			final int count = _subscriptionManager.resubscribe();
+			if(ownsDataModel()) {
+				// Die Kanäle für Konfigurationsanfragen sind an das bisherige Applikationsobjekt gebunden
+				try {
+					((DafDataModel)_dataModel).reinitRequester();
+				}
+				catch(CommunicationError e) {
+					_debug.warning("Konfigurationsanfragen konnten nach der Wiederverbindung nicht angemeldet werden", e);
+					// Startet über den ConnectionListener einen neuen Versuch der Wiederverbindung
+					highLevelCommunication.terminate(false, "Konfiguration nach der Wiederverbindung nicht erreichbar");
+					return true;
+				}
+			}
+			_debug.info("Verbindung zum Datenverteiler wiederhergestellt, Anmeldungen übertragen: " + count);
+			synchronized(_lock) {
+				if(_resendReadyMessage) {
+					_resendReadyMessage = false;
+					sendApplicationReadyMessage(_lastReadyMessageNotReadyYet);
+				}
+			}
+			return true;
+		}
+		finally {
+			if(!installed) highLevelCommunication.terminate(false, "Wiederverbindung abgebrochen");
+		}
+	}
+
+	/** Thread, der eine unerwartet verlorene Verbindung zum Datenverteiler in festen Abständen wiederherzustellen versucht. */
+	private class Reconnector extends Thread {
+
+		private final long _interval;
+
+		Reconnector(final long interval) {
+			super("Wiederverbindung");
+			setDaemon(true);
+			_interval = interval;
+		}
+
+		@Override
+		public void run() {
+			boolean reconnected = false;
+			try {
+				prepareReconnect();
+				while(!_disconnectRequested) {
+					sleep(_interval);
+					if(_disconnectRequested) break;
+					try {
+						_debug.info("Versuche, die Verbindung zum Datenverteiler wiederherzustellen");
+						reconnected = reconnect();
+						break;
+					}
+					catch(InterruptedException e) {
+						throw e;
+					}
+					catch(Exception e) {
+						_debug.warning("Die Verbindung zum Datenverteiler konnte nicht wiederhergestellt werden", e);
+					}
+				}
+			}
+			catch(InterruptedException ignored) {
+			}
+			finally {
+				synchronized(_lock) {
+					// Bei einem erneuten Verbindungsverlust kann bereits eine neue Wiederverbindung gestartet worden sein
+					if(_reconnector == this) _reconnector = null;
+				}
+			}
+			if(!reconnected) {
+				notifyConnectionClosed();
+			}
+			else if(_disconnectRequested) {
+				// disconnect() wurde während der Übernahme der neuen Verbindung aufgerufen
+				_highLevelCommunication.terminate(false, "Verbindung wird auf Wunsch der Applikation geschlossen");
+			}
+		}
+	}
+
 	private void notifyConnectionClosed() {
 		if(_dataModelConnection != null){
 			// hierdurch werden laufende Operationen in der 2. Verbindung unterbrochen, die die folgenden Aktionen blockieren können.
@@ -1772,7 +1979,7 @@ public class ClientDavConnection implements ClientDavInterface {
 			}
 			_isConnected = false;
 			_isLoggedIn = false;
-			if(_dataModel instanceof DafDataModel && _dataModelConnection == null) {
+			if(ownsDataModel()) {
 				((DafDataModel) _dataModel).close();
 			}
 			if(_subscriptionManager != null) {
@@ -1855,7 +2062,7 @@ public class ClientDavConnection implements ClientDavInterface {
 		public void run() {
 			ClientDavConnection connection = _conn.get();
 			if(connection != null) {
-				if(connection.isConnected() && connection._dataModelConnection == null) {
+				if(connection.isConnected() && connection.ownsDataModel()) {
 					DataModel dataModel = connection.getDataModel();
 					if(dataModel instanceof DafDataModel) {
 						DafDataModel dafDataModel = (DafDataModel) dataModel;
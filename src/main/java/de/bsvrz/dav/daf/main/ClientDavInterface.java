@@ -28,6 +28,7 @@
 
 package de.bsvrz.dav.daf.main;
 
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionMetrics;
 import de.bsvrz.dav.daf.main.archive.ArchiveRequestManager;
 import de.bsvrz.dav.daf.main.authentication.ClientCredentials;
 import de.bsvrz.dav.daf.main.config.*;
@@ -679,6 +680,17 @@ public interface ClientDavInterface {
 	 */
 	ArchiveRequestManager getArchive(SystemObject archiveSystem);
 
+	/**
+	 * Liefert die Kennzahlen der Verbindung zum Datenverteiler, z.B. übertragene Telegramme und Bytes je Priorität, Belegung und Verweildauer der Sende- und
+	 * Empfangs-Queue, Übertragungsgrößen, Verschlüsselungszeiten und Telegrammlaufzeiten. Die Kennzahlen können mit {@link
+	 * ConnectionMetrics#registerMBean(String)} per JMX veröffentlicht werden.
+	 *
+	 * @return Kennzahlen oder <code>null</code>, wenn keine Verbindung besteht oder keine Kennzahlen erfasst werden
+	 */
+	default ConnectionMetrics getConnectionMetrics() {
+		return null;
+	}
+
 	/**
 	 * Liefert den aktuellen Zustand der Verschlüsselung zurück
 	 * @return Zustand der Verschlüsselung
@@ -34,15 +34,19 @@ import de.bsvrz.dav.daf.main.authentication.AuthenticationFile;
 import de.bsvrz.dav.daf.main.authentication.ClientCredentials;
 import de.bsvrz.dav.daf.main.authentication.InteractiveAuthentication;
 import de.bsvrz.dav.daf.main.authentication.UserProperties;
+import de.bsvrz.dav.daf.main.config.DataModel;
 import de.bsvrz.dav.daf.main.impl.ArgumentParser;
+import de.bsvrz.dav.daf.main.impl.AspectRedirections;
 import de.bsvrz.dav.daf.main.impl.CommunicationConstant;
 import de.bsvrz.dav.daf.main.impl.InvalidArgumentException;
 import de.bsvrz.sys.funclib.commandLineArgs.ArgumentList;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.regex.Matcher;
@@ -152,6 +156,9 @@ public class ClientDavParameters implements Cloneable{
 	/** Tabelle der Informationen über Umleitungen der Aspekte */
 	private Hashtable<AttributeGroupAspectObject, AttributeGroupAspectObject> _substituteToAspectTable = new Hashtable<AttributeGroupAspectObject, AttributeGroupAspectObject>();
 
+	/** Zuletzt im Datenmodell aufgelöste Aspektumleitungen oder <code>null</code>, falls sie neu bestimmt werden müssen */
+	private volatile AspectRedirections _aspectRedirections = AspectRedirections.NONE;
+
 	////////////////////////////////////////////////////////////////
 	/// Parameter, die von der Applikation gesetzt werden können ///
 	////////////////////////////////////////////////////////////////
@@ -227,6 +234,15 @@ public class ClientDavParameters implements Cloneable{
 	 */
 	private boolean _isSecondConnection = false;
 
+	/**
+	 * Index dieser Verbindung innerhalb einer {@link ShardedClientDavConnection} oder -1, wenn es sich nicht um eine zusätzliche Verbindung einer
+	 * Verbindungsgruppe handelt.
+	 */
+	private int _shardIndex = -1;
+
+	/** Anzahl der Verbindungen der Verbindungsgruppe, zu der diese Verbindung gehört, oder 0, wenn keine Verbindungsgruppe verwendet wird. */
+	private int _shardCount = 0;
+
 	/**
 	 * Falls eine zweite Verbindung für Konfigurationsanfragen verwendet wird: Anteil der zweiten Verbindung
 	 * an der Gesamtpuffergröße
@@ -242,6 +258,39 @@ public class ClientDavParameters implements Cloneable{
 	 * Bevorzugte Konfiguration der Verschlüsselung
 	 */
 	private EncryptionConfiguration _encryptionPreference = EncryptionConfiguration.AlwaysEncrypted;
+
+	/** Modus für die Bündelung von zu versendenden Telegrammen */
+	private SendCoalescingMode _sendCoalescingMode = SendCoalescingMode.LOW_LATENCY;
+
+	/** Anzahl Bytes, ab der gebündelte Telegramme sofort übertragen werden */
+	private int _sendCoalescingThreshold = 16384;
+
+	/** Maximale Verzögerung in Millisekunden, um die die Übertragung eines Telegramms zur Bündelung hinausgezögert wird */
+	private long _sendCoalescingMaxDelay = 5;
+
+	/** Jeder wievielte empfangene Datensatz bei der Latenzmessung erfasst wird, 0 deaktiviert die Latenzmessung */
+	private int _latencySampleInterval = 0;
+
+	/** <code>true</code>, wenn die Verweildauer der Telegramme in den Sende- und Empfangs-Queues gemessen wird */
+	private boolean _queueWaitTimeMeasurement = false;
+
+	/**
+	 * Gewichtung der Online-Datensätze bei der nach Klassen getrennten Verarbeitung empfangener Telegramme, 0 bedeutet, dass alle Telegramme von einem Thread
+	 * verarbeitet werden
+	 */
+	private int _receivePipelineWeight = 0;
+
+	/**
+	 * Wartezeit in Sekunden vor einem Versuch, eine unerwartet verlorene Verbindung zum Datenverteiler automatisch wiederherzustellen, 0 deaktiviert die
+	 * automatische Wiederverbindung
+	 */
+	private int _reconnectInterval = 0;
+
+	/** Maximaler Speicherbedarf des Sendepuffers im Dateisystem in Bytes, 0 deaktiviert die Pufferung während einer Verbindungsunterbrechung */
+	private long _outboundBufferCapacity = 0;
+
+	/** Maximale Anzahl gepufferter Datensätze, die nach einer Wiederverbindung pro Sekunde nachgeliefert werden */
+	private int _outboundBufferReplayRate = 1000;
 	
 	/**
 	 * True falls das Objekt schreibgeschützt ist. Die ClientDavConnection erstellt eine schreibgeschütze Kopie
@@ -728,6 +777,17 @@ public class ClientDavParameters implements Cloneable{
 			
 			_encryptionPreference = argumentList.fetchArgument("-verschluesselung=immer").asEnum(EncryptionConfiguration.class);
 
+			_sendCoalescingMode = argumentList.fetchArgument("-sendeBuendelung=latenz").asEnum(SendCoalescingMode.class);
+			_sendCoalescingThreshold = argumentList.fetchArgument("-sendeBuendelungBytes=16384").intValueBetween(1, Integer.MAX_VALUE);
+			_sendCoalescingMaxDelay = argumentList.fetchArgument("-sendeBuendelungVerzoegerung=5").longValueBetween(0, 1000);
+			_latencySampleInterval = argumentList.fetchArgument("-latenzMessung=0").intValueBetween(0, Integer.MAX_VALUE);
+			_queueWaitTimeMeasurement = argumentList.fetchArgument("-verweildauerMessung=nein").booleanValue();
+			_receivePipelineWeight = argumentList.fetchArgument("-empfangsPipeline=0").intValueBetween(0, 1000);
+
+			_reconnectInterval = argumentList.fetchArgument("-wiederverbinden=0").intValueBetween(0, 3600);
+			_outboundBufferCapacity = argumentList.fetchArgument("-sendePuffer=0").longValueBetween(0, Long.MAX_VALUE);
+			_outboundBufferReplayRate = argumentList.fetchArgument("-sendePufferRate=1000").intValueBetween(1, Integer.MAX_VALUE);
+
 			//Durchsatzprüfung
 			float throughputControlSendBufferFactor;
 			int throughputControlInterval;
@@ -1577,6 +1637,9 @@ public class ClientDavParameters implements Cloneable{
 		if(isSecondConnection()){
 			bufferSize = configBufferSize + 100000;
 		}
+		else if(isShardConnection()){
+			bufferSize = _inputBufferSize / _shardCount;
+		}
 		else if(_useSecondConnection){
 			bufferSize = _inputBufferSize - configBufferSize;
 		}
@@ -1596,6 +1659,9 @@ public class ClientDavParameters implements Cloneable{
 		if(isSecondConnection()){
 			bufferSize = configBufferSize + 100000;
 		}
+		else if(isShardConnection()){
+			bufferSize = _outputBufferSize / _shardCount;
+		}
 		else if(_useSecondConnection){
 			bufferSize = _outputBufferSize - configBufferSize;
 		}
@@ -1669,6 +1735,182 @@ public class ClientDavParameters implements Cloneable{
 		return _encryptionPreference;
 	}
 
+	/**
+	 * Gibt den Modus für die Bündelung von zu versendenden Telegrammen zurück.
+	 * @return Modus der Bündelung
+	 */
+	public SendCoalescingMode getSendCoalescingMode() {
+		return _sendCoalescingMode;
+	}
+
+	/**
+	 * Setzt den Modus für die Bündelung von zu versendenden Telegrammen. In den Modi {@link SendCoalescingMode#THROUGHPUT} und
+	 * {@link SendCoalescingMode#ADAPTIVE} werden Telegramme gesammelt, bis {@link #getSendCoalescingThreshold()} Bytes erreicht sind oder
+	 * {@link #getSendCoalescingMaxDelay()} Millisekunden vergangen sind.
+	 * @param sendCoalescingMode Modus der Bündelung
+	 */
+	public void setSendCoalescingMode(final SendCoalescingMode sendCoalescingMode) {
+		checkReadonly();
+		if(sendCoalescingMode == null) throw new IllegalArgumentException("sendCoalescingMode darf nicht null sein");
+		_sendCoalescingMode = sendCoalescingMode;
+	}
+
+	/**
+	 * Gibt die Anzahl Bytes zurück, ab der gebündelte Telegramme sofort übertragen werden.
+	 * @return Anzahl Bytes
+	 */
+	public int getSendCoalescingThreshold() {
+		return _sendCoalescingThreshold;
+	}
+
+	/**
+	 * Setzt die Anzahl Bytes, ab der gebündelte Telegramme sofort übertragen werden.
+	 * @param sendCoalescingThreshold Anzahl Bytes, muss positiv sein
+	 */
+	public void setSendCoalescingThreshold(final int sendCoalescingThreshold) {
+		checkReadonly();
+		if(sendCoalescingThreshold <= 0) throw new IllegalArgumentException("Die Anzahl Bytes muss positiv sein: " + sendCoalescingThreshold);
+		_sendCoalescingThreshold = sendCoalescingThreshold;
+	}
+
+	/**
+	 * Gibt die maximale Verzögerung zurück, um die die Übertragung eines Telegramms zur Bündelung hinausgezögert wird.
+	 * @return Verzögerung in Millisekunden
+	 */
+	public long getSendCoalescingMaxDelay() {
+		return _sendCoalescingMaxDelay;
+	}
+
+	/**
+	 * Setzt die maximale Verzögerung, um die die Übertragung eines Telegramms zur Bündelung hinausgezögert wird.
+	 * @param sendCoalescingMaxDelay Verzögerung in Millisekunden, darf nicht negativ sein
+	 */
+	public void setSendCoalescingMaxDelay(final long sendCoalescingMaxDelay) {
+		checkReadonly();
+		if(sendCoalescingMaxDelay < 0) throw new IllegalArgumentException("Die Verzögerung darf nicht negativ sein: " + sendCoalescingMaxDelay);
+		_sendCoalescingMaxDelay = sendCoalescingMaxDelay;
+	}
+
+	/**
+	 * Gibt zurück, jeder wievielte empfangene Datensatz bei der Latenzmessung erfasst wird.
+	 * @return Intervall der Stichproben, 0 falls die Latenzmessung deaktiviert ist
+	 * @see de.bsvrz.dav.daf.communication.lowLevel.LatencyTracer
+	 */
+	public int getLatencySampleInterval() {
+		return _latencySampleInterval;
+	}
+
+	/**
+	 * Legt fest, jeder wievielte empfangene Datensatz bei der Latenzmessung erfasst wird.
+	 * @param latencySampleInterval Intervall der Stichproben, 0 deaktiviert die Latenzmessung, darf nicht negativ sein
+	 */
+	public void setLatencySampleInterval(final int latencySampleInterval) {
+		checkReadonly();
+		if(latencySampleInterval < 0) throw new IllegalArgumentException("Das Intervall darf nicht negativ sein: " + latencySampleInterval);
+		_latencySampleInterval = latencySampleInterval;
+	}
+
+	/**
+	 * Gibt zurück, ob die Verweildauer der Telegramme in den Sende- und Empfangs-Queues gemessen wird.
+	 * @return <code>true</code>, wenn die Verweildauer gemessen wird, sonst <code>false</code>
+	 * @see de.bsvrz.dav.daf.communication.lowLevel.ConnectionMetrics#setQueueWaitTimeEnabled(boolean)
+	 */
+	public boolean isQueueWaitTimeMeasurement() {
+		return _queueWaitTimeMeasurement;
+	}
+
+	/**
+	 * Legt fest, ob die Verweildauer der Telegramme in den Sende- und Empfangs-Queues gemessen wird. Die Messung erfordert eine Zeitabfrage je Telegramm.
+	 * @param queueWaitTimeMeasurement <code>true</code>, wenn die Verweildauer gemessen werden soll, sonst <code>false</code>
+	 */
+	public void setQueueWaitTimeMeasurement(final boolean queueWaitTimeMeasurement) {
+		checkReadonly();
+		_queueWaitTimeMeasurement = queueWaitTimeMeasurement;
+	}
+
+	/**
+	 * Gibt zurück, ob empfangene Telegramme nach Klassen getrennt von eigenen Threads verarbeitet werden.
+	 * @return 0, wenn alle Telegramme von einem Thread verarbeitet werden, sonst die Anzahl Online-Datensätze, die bei gleichzeitigem Bedarf je nachgeliefertem
+	 * oder simuliertem Datensatz verarbeitet werden
+	 * @see de.bsvrz.dav.daf.communication.lowLevel.LowLevelCommunication#setReceivePipeline(int)
+	 */
+	public int getReceivePipelineWeight() {
+		return _receivePipelineWeight;
+	}
+
+	/**
+	 * Legt fest, ob empfangene Telegramme nach Klassen getrennt von eigenen Threads verarbeitet werden. Systemtelegramme, Online-Datensätze sowie nachgelieferte
+	 * und simulierte Datensätze werden dann getrennt gepuffert und verarbeitet.
+	 * @param receivePipelineWeight 0, wenn alle Telegramme von einem Thread verarbeitet werden sollen, sonst die Anzahl Online-Datensätze, die bei
+	 * gleichzeitigem Bedarf je nachgeliefertem oder simuliertem Datensatz verarbeitet werden, darf nicht negativ sein
+	 */
+	public void setReceivePipelineWeight(final int receivePipelineWeight) {
+		checkReadonly();
+		if(receivePipelineWeight < 0) throw new IllegalArgumentException("Die Gewichtung darf nicht negativ sein: " + receivePipelineWeight);
+		_receivePipelineWeight = receivePipelineWeight;
+	}
+
+	/**
+	 * Gibt die Wartezeit vor einem Versuch zurück, eine unerwartet verlorene Verbindung zum Datenverteiler automatisch wiederherzustellen.
+	 * @return Wartezeit in Sekunden, 0, wenn die automatische Wiederverbindung deaktiviert ist
+	 * @see ClientDavConnection#isReconnecting()
+	 */
+	public int getReconnectInterval() {
+		return _reconnectInterval;
+	}
+
+	/**
+	 * Legt fest, ob und nach welcher Wartezeit eine unerwartet verlorene Verbindung zum Datenverteiler automatisch wiederhergestellt wird. Bei der
+	 * Wiederverbindung bleiben alle Anmeldungen erhalten und werden mit der neuen Verbindung erneut übertragen.
+	 * @param reconnectInterval Wartezeit in Sekunden, 0 deaktiviert die automatische Wiederverbindung, darf nicht negativ sein
+	 */
+	public void setReconnectInterval(final int reconnectInterval) {
+		checkReadonly();
+		if(reconnectInterval < 0) throw new IllegalArgumentException("Die Wartezeit darf nicht negativ sein: " + reconnectInterval);
+		_reconnectInterval = reconnectInterval;
+	}
+
+	/**
+	 * Gibt den maximalen Speicherbedarf des Sendepuffers zurück. Während die Verbindung zum Datenverteiler unterbrochen ist, werden versendete Datensätze in
+	 * diesem Puffer abgelegt und nach der Wiederverbindung als nachgelieferte Datensätze übertragen.
+	 * @return Speicherbedarf im Dateisystem in Bytes, 0, wenn nicht gepuffert wird
+	 * @see #setReconnectInterval(int)
+	 */
+	public long getOutboundBufferCapacity() {
+		return _outboundBufferCapacity;
+	}
+
+	/**
+	 * Legt fest, ob und mit welchem maximalen Speicherbedarf Datensätze, die während einer Unterbrechung der Verbindung zum Datenverteiler versendet werden,
+	 * gepuffert und nach der Wiederverbindung als nachgelieferte Datensätze übertragen werden. Die Pufferung ist nur zusammen mit der automatischen
+	 * Wiederverbindung sinnvoll. Ist der Puffer voll, wird beim Versand eine {@link SendSubscriptionNotConfirmed}-Exception erzeugt.
+	 * @param outboundBufferCapacity Speicherbedarf im Dateisystem in Bytes, 0 deaktiviert die Pufferung, darf nicht negativ sein
+	 */
+	public void setOutboundBufferCapacity(final long outboundBufferCapacity) {
+		checkReadonly();
+		if(outboundBufferCapacity < 0) throw new IllegalArgumentException("Die Kapazität darf nicht negativ sein: " + outboundBufferCapacity);
+		_outboundBufferCapacity = outboundBufferCapacity;
+	}
+
+	/**
+	 * Gibt zurück, wie viele gepufferte Datensätze nach einer Wiederverbindung maximal pro Sekunde übertragen werden.
+	 * @return Anzahl Datensätze pro Sekunde
+	 */
+	public int getOutboundBufferReplayRate() {
+		return _outboundBufferReplayRate;
+	}
+
+	/**
+	 * Legt fest, wie viele gepufferte Datensätze nach einer Wiederverbindung maximal pro Sekunde übertragen werden. Die Begrenzung verhindert, dass die
+	 * Nachlieferung den Datenverteiler überlastet und aktuelle Datensätze verzögert.
+	 * @param outboundBufferReplayRate Anzahl Datensätze pro Sekunde, muss größer 0 sein
+	 */
+	public void setOutboundBufferReplayRate(final int outboundBufferReplayRate) {
+		checkReadonly();
+		if(outboundBufferReplayRate < 1) throw new IllegalArgumentException("Die Rate muss größer 0 sein: " + outboundBufferReplayRate);
+		_outboundBufferReplayRate = outboundBufferReplayRate;
+	}
+
 	/**
 	 * Setzt, ob die alte Hmac-Authentifizierugn erlaubt sein soll
 	 * @param allowHmacAuthentication
@@ -1708,6 +1950,53 @@ public class ClientDavParameters implements Cloneable{
 		);
 		_aspectToSubstituteTable.put(attributeGroupAspect, attributeGroupAspectSubstitute);
 		_substituteToAspectTable.put(attributeGroupAspectSubstitute, attributeGroupAspect);
+		_aspectRedirections = null;
+	}
+
+	/**
+	 * Liefert die im angegebenen Datenmodell aufgelösten Aspektumleitungen. Die Auflösung erfolgt nur beim ersten Aufruf und nach Änderungen der
+	 * Aspektumleitungen, so dass beim Versand und Empfang von Datensätzen keine Zugriffe auf die Tabellen dieses Objekts erforderlich sind.
+	 *
+	 * @param dataModel Datenmodell, in dem die Pids der Aspektumleitungen aufgelöst werden.
+	 *
+	 * @return Unveränderliche Tabelle der Aspektumleitungen
+	 *
+	 * @see #addAspectRedirection
+	 */
+	public final AspectRedirections getAspectRedirections(DataModel dataModel) {
+		final AspectRedirections aspectRedirections = _aspectRedirections;
+		// Eine in einem anderen Datenmodell aufgelöste Tabelle darf nicht wiederverwendet werden, auch wenn sie leer ist
+		if(aspectRedirections != null && (aspectRedirections == AspectRedirections.NONE || aspectRedirections.getDataModel() == dataModel)) {
+			return aspectRedirections;
+		}
+		final AspectRedirections newAspectRedirections;
+		synchronized(_aspectToSubstituteTable) {
+			if(_aspectToSubstituteTable.isEmpty()) {
+				newAspectRedirections = AspectRedirections.NONE;
+			}
+			else {
+				newAspectRedirections = AspectRedirections.create(
+						dataModel, toPidMap(_aspectToSubstituteTable), toPidMap(_substituteToAspectTable)
+				);
+			}
+		}
+		_aspectRedirections = newAspectRedirections;
+		return newAspectRedirections;
+	}
+
+	private static Map<String, Map<String, String>> toPidMap(final Hashtable<AttributeGroupAspectObject, AttributeGroupAspectObject> table) {
+		final Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>();
+		synchronized(table) {
+			for(Map.Entry<AttributeGroupAspectObject, AttributeGroupAspectObject> entry : table.entrySet()) {
+				Map<String, String> aspectMap = result.get(entry.getKey().attributeGroupPid);
+				if(aspectMap == null) {
+					aspectMap = new HashMap<String, String>();
+					result.put(entry.getKey().attributeGroupPid, aspectMap);
+				}
+				aspectMap.put(entry.getKey().aspectPid, entry.getValue().aspectPid);
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -1813,6 +2102,52 @@ public class ClientDavParameters implements Cloneable{
 		return _isSecondConnection;
 	}
 
+	/**
+	 * Gibt <tt>true</tt> zurück, wenn es sich um die Parameter einer zusätzlichen Verbindung einer {@link ShardedClientDavConnection} handelt. Eine solche
+	 * Verbindung benutzt das Datenmodell der ersten Verbindung der Gruppe mit und verwaltet es nicht selbst.
+	 *
+	 * @return <tt>true</tt>, wenn es sich um eine zusätzliche Verbindung einer Verbindungsgruppe handelt, sonst <tt>false</tt>
+	 */
+	public boolean isShardConnection() {
+		return _shardIndex > 0;
+	}
+
+	/**
+	 * Gibt den Index der Verbindung innerhalb einer {@link ShardedClientDavConnection} zurück.
+	 *
+	 * @return Index der Verbindung (ab 1) oder -1, wenn es sich nicht um eine zusätzliche Verbindung einer Verbindungsgruppe handelt
+	 */
+	public int getShardIndex() {
+		return _shardIndex;
+	}
+
+	/**
+	 * Erzeugt die Parameter für eine zusätzliche Verbindung einer {@link ShardedClientDavConnection}. Analog zu {@link #getSecondConnectionParameters()}
+	 * wird eine Kopie dieser Parameter erzeugt, deren Applikationsname um <code>#</code> und den Index der Verbindung ergänzt wird. Die zusätzliche Verbindung
+	 * verwendet keine eigene zweite Verbindung für Konfigurationsanfragen und erhält den Anteil <code>1/shardCount</code> der Puffergrößen.
+	 *
+	 * @param shardIndex Index der zusätzlichen Verbindung (1 bis <code>shardCount - 1</code>, die erste Verbindung der Gruppe hat den Index 0)
+	 * @param shardCount Anzahl der Verbindungen der Gruppe
+	 *
+	 * @return Parameter der zusätzlichen Verbindung oder <code>null</code>, wenn ein Einmalpasswort verwendet wird und deshalb keine weiteren Verbindungen
+	 *         aufgebaut werden können
+	 */
+	public ClientDavParameters getShardConnectionParameters(final int shardIndex, final int shardCount) {
+		if(shardIndex < 1 || shardIndex >= shardCount) {
+			throw new IllegalArgumentException("Ungültiger Verbindungsindex " + shardIndex + " bei " + shardCount + " Verbindungen");
+		}
+		if(_passwordIndex != -1) {
+			_debug.warning("Kann keine zusätzlichen Verbindungen verwenden, weil ein Einmalpasswort benutzt wird");
+			return null;
+		}
+		ClientDavParameters result = clone(false);
+		result.setApplicationName(result.getApplicationName() + "#" + shardIndex);
+		result._useSecondConnection = false;
+		result._shardIndex = shardIndex;
+		result._shardCount = shardCount;
+		return result;
+	}
+
 	public ClientDavParameters getSecondConnectionParameters() {
 		if(!_useSecondConnection) return null;
 		if(_passwordIndex != -1){
@@ -1957,5 +2292,14 @@ public class ClientDavParameters implements Cloneable{
 		System.out.println("-zweiteVerbindung=ja/nein");
 		System.out.println("-erlaubeHmacAuthentifizierung=ja/nein");
 		System.out.println("-verschluesselung=immer/automatisch/nein");
+		System.out.println("-sendeBuendelung=latenz/durchsatz/adaptiv");
+		System.out.println("-sendeBuendelungBytes=Anzahl(Zahl)");
+		System.out.println("-sendeBuendelungVerzoegerung=time(Zahl in Millisekunden)");
+		System.out.println("-latenzMessung=Intervall(Zahl, 0 = aus)");
+		System.out.println("-verweildauerMessung=ja/nein");
+		System.out.println("-empfangsPipeline=Gewichtung(Zahl, 0 = aus)");
+		System.out.println("-wiederverbinden=time(Zahl in Sekunden, 0 = aus)");
+		System.out.println("-sendePuffer=Anzahl(Zahl in Bytes, 0 = aus)");
+		System.out.println("-sendePufferRate=Anzahl(Zahl in Datensätzen pro Sekunde)");
 	}
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.main;
+
+import java.util.List;
+
+/**
+ * Erweiterung von {@link ClientSenderInterface} für Sender und Quellen mit sehr vielen Anmeldungen. Sendesteuerungen, die der Datenverteiler kurz
+ * nacheinander verschickt (zum Beispiel nach einem Neustart des Datenverteilers), werden gesammelt und mit einem Aufruf von {@link #dataRequests(List)}
+ * übergeben, statt für jede Datenidentifikation einzeln {@link #dataRequest} aufzurufen.
+ * <p>
+ * Die Sendesteuerungen einer Datenidentifikation werden in der Reihenfolge übergeben, in der sie vom Datenverteiler empfangen wurden. Die Methode
+ * {@link #dataRequest} wird von den Datenverteiler-Applikationsfunktionen für Sender, die diese Schnittstelle implementieren, nicht mehr aufgerufen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ * @see ClientDavInterface#subscribeSender
+ */
+public interface ClientSenderBatchInterface extends ClientSenderInterface {
+
+	/**
+	 * Sendesteuerung des Datenverteilers an die Applikation für mehrere Datenidentifikationen. Für die Implementierung gelten dieselben Einschränkungen wie
+	 * für {@link #dataRequest}.
+	 *
+	 * @param requests Nicht leere Liste der Sendesteuerungen in Empfangsreihenfolge
+	 */
+	void dataRequests(List<SenderDataRequest> requests);
+}
@@ -32,7 +32,11 @@ import de.bsvrz.dav.daf.main.config.IntegerValueState;
 import de.bsvrz.dav.daf.main.config.ObjectLookup;
 import de.bsvrz.dav.daf.main.config.SystemObject;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * Schnittstelle zum generischen Zugriff auf Attributwerte in beliebig strukturierten Attributgruppen. Zum Erzeugen eines neuen Datensatzes kann die Methode
@@ -843,6 +847,24 @@ public interface Data extends Iterable<Data> {
 		 * @return Array von Zeitwerten in Millisekunden.
 		 */
 		long[] getMillisArray();
+
+		/**
+		 * Überträgt die Zeitwerte aller Elemente dieses Arrays in Millisekunden in ein vom Aufrufer bereitgestelltes Array.
+		 *
+		 * @param destination Zielarray, das mindestens {@link #getLength()} Elemente aufnehmen kann.
+		 *
+		 * @return Anzahl der übertragenen Werte.
+		 *
+		 * @throws IllegalArgumentException Wenn das Zielarray zu klein ist.
+		 */
+		default int getMillisArray(long[] destination) {
+			final int length = getLength();
+			if(destination.length < length) throw new IllegalArgumentException("Zielarray zu klein: " + destination.length + " < " + length);
+			for(int i = 0; i < length; ++i) {
+				destination[i] = getMillis(i);
+			}
+			return length;
+		}
 	}
 
 	/** Interface-Klasse für die Referenz-Array-Ansicht eines Datums. */
@@ -1079,7 +1101,87 @@ public interface Data extends Iterable<Data> {
 		 */
 		double[] getDoubleArray();
 
+		/**
+		 * Überträgt die Werte aller Elemente dieses Arrays als <code>int</code> in ein vom Aufrufer bereitgestelltes Array. Damit kann bei wiederholtem
+		 * Zugriff auf gleichartige Datensätze dasselbe Zielarray weiterverwendet werden.
+		 *
+		 * @param destination Zielarray, das mindestens {@link #getLength()} Elemente aufnehmen kann.
+		 *
+		 * @return Anzahl der übertragenen Werte.
+		 *
+		 * @throws IllegalArgumentException Wenn das Zielarray zu klein ist.
+		 */
+		default int getIntArray(int[] destination) {
+			final int length = getLength();
+			if(destination.length < length) throw new IllegalArgumentException("Zielarray zu klein: " + destination.length + " < " + length);
+			for(int i = 0; i < length; ++i) {
+				destination[i] = intValue(i);
+			}
+			return length;
+		}
+
+		/**
+		 * Überträgt die Werte aller Elemente dieses Arrays als <code>long</code> in ein vom Aufrufer bereitgestelltes Array.
+		 *
+		 * @param destination Zielarray, das mindestens {@link #getLength()} Elemente aufnehmen kann.
+		 *
+		 * @return Anzahl der übertragenen Werte.
+		 *
+		 * @throws IllegalArgumentException Wenn das Zielarray zu klein ist.
+		 */
+		default int getLongArray(long[] destination) {
+			final int length = getLength();
+			if(destination.length < length) throw new IllegalArgumentException("Zielarray zu klein: " + destination.length + " < " + length);
+			for(int i = 0; i < length; ++i) {
+				destination[i] = longValue(i);
+			}
+			return length;
+		}
 
+		/**
+		 * Überträgt die Werte aller Elemente dieses Arrays als <code>double</code> in ein vom Aufrufer bereitgestelltes Array.
+		 *
+		 * @param destination Zielarray, das mindestens {@link #getLength()} Elemente aufnehmen kann.
+		 *
+		 * @return Anzahl der übertragenen Werte.
+		 *
+		 * @throws IllegalArgumentException Wenn das Zielarray zu klein ist.
+		 */
+		default int getDoubleArray(double[] destination) {
+			final int length = getLength();
+			if(destination.length < length) throw new IllegalArgumentException("Zielarray zu klein: " + destination.length + " < " + length);
+			for(int i = 0; i < length; ++i) {
+				destination[i] = doubleValue(i);
+			}
+			return length;
+		}
+
+		/**
+		 * Liefert die Werte aller Elemente dieses Arrays als <code>IntStream</code>.
+		 *
+		 * @return Stream mit den Werten aus {@link #getIntArray()}.
+		 */
+		default IntStream intStream() {
+			return Arrays.stream(getIntArray());
+		}
+
+		/**
+		 * Liefert die Werte aller Elemente dieses Arrays als <code>LongStream</code>.
+		 *
+		 * @return Stream mit den Werten aus {@link #getLongArray()}.
+		 */
+		default LongStream longStream() {
+			return Arrays.stream(getLongArray());
+		}
+
+		/**
+		 * Liefert die Werte aller Elemente dieses Arrays als <code>DoubleStream</code>.
+		 *
+		 * @return Stream mit den Werten aus {@link #getDoubleArray()}.
+		 */
+		default DoubleStream doubleStream() {
+			return Arrays.stream(getDoubleArray());
+		}
 	}
 
 	/** Ausnahme, die ein fehlerhaften Zugriff oder eine nicht zugelassene Konvertierung von Elementen eines Datensatzes signalisiert. */
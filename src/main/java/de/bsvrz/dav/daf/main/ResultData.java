@@ -30,6 +30,7 @@ package de.bsvrz.dav.daf.main;
 import de.bsvrz.dav.daf.communication.dataRepresentation.AttributeBaseValue;
 import de.bsvrz.dav.daf.communication.dataRepresentation.AttributeBaseValueDataFactory;
 import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.DataValue;
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.main.archive.ArchiveDataKind;
 import de.bsvrz.dav.daf.main.config.SystemObject;
 
@@ -37,6 +38,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Ergebnisdatensatz zum Zugriff auf ein empfangenes Datentelegramm und zum Erzeugen eines zu versendenden Datentelegramms. Neben den konkreten Attributwerten
@@ -66,8 +68,17 @@ public class ResultData implements Dataset {
 	/** Liste der Attribute und Attributlisten-Werte */
 	private List attributeValues;
 
-	/** Der Datensatz. */
-	private Data _data;
+	/** Der Datensatz. Wird nach dem Dekodieren vor dem Zurücksetzen von {@link #_dataSupplier} gesetzt. */
+	private volatile Data _data;
+
+	/** Serialisierter Datensatz, falls der Datensatz empfangen wurde, sonst <code>null</code>. */
+	private byte[] _dataBytes;
+
+	/** Erzeugt den Datensatz beim ersten Zugriff, falls dieser noch nicht dekodiert wurde, sonst <code>null</code>. */
+	private volatile Supplier<Data> _dataSupplier;
+
+	/** Zeitstempel der Latenzmessung eines empfangenen Datensatzes oder <code>null</code> */
+	private LatencyTrace _latencyTrace = null;
 
 	/** Fehlerkennung der Anwendungsdaten. 0: Daten vorhanden (kein fehler). 1: Quelle vorhanden aber Daten noch nicht lieferbar. 2: Quelle nicht vorhanden. */
 	private byte errorFlag;
@@ -212,6 +223,46 @@ public class ResultData implements Dataset {
 		_data = data;
 	}
 
+	/**
+	 * Erzeugt ein neues Ergebnis zu einem empfangenen, serialisierten Datensatz. Der Datensatz wird erst beim ersten Aufruf von {@link #getData()} über den
+	 * übergebenen Supplier erzeugt. Empfänger, die nur die serialisierte Form benötigen, können diese mit {@link #getDataBytes()} ohne Dekodierung abfragen.
+	 *
+	 * @param object          Das System-Objekt zu dem die Daten gehören.
+	 * @param dataDescription Beschreibende Informationen der zu versendenden Daten
+	 * @param delayedData     <code>true</code>, wenn der im Ergebnis enthaltene Datensatz als nachgeliefert gekennzeichnet werden soll.
+	 * @param dataIndex       die laufende Nummer des Datensatzes
+	 * @param time            Zeitstempel dieses Datensatzes in Millisekunden seit 1970.
+	 * @param errorFlag       Fehlerkennung der Anwendungsdaten
+	 * @param dataBytes       Serialisierter Datensatz oder <code>null</code>, wenn kein Datensatz oder keine serialisierte Form zur Verfügung steht. Das Array
+	 *                        darf nicht verändert werden.
+	 * @param dataSupplier    Erzeugt den Datensatz beim ersten Zugriff. Wird höchstens einmal aufgerufen und darf nur bei einer Fehlerkennung ungleich 0
+	 *                        <code>null</code> sein.
+	 */
+	public ResultData(
+			SystemObject object,
+			DataDescription dataDescription,
+			boolean delayedData,
+			long dataIndex,
+			long time,
+			byte errorFlag,
+			byte[] dataBytes,
+			Supplier<Data> dataSupplier
+	) {
+		this.object = object;
+		this.dataDescription = dataDescription;
+		this.delayedData = delayedData;
+		this.dataIndex = dataIndex;
+		this.time = time;
+		this.errorFlag = errorFlag;
+		this.attributeValues = null;
+		if(errorFlag == 0 && dataSupplier == null) {
+			throw new IllegalArgumentException("Attributargument ist leer");
+		}
+		_data = null;
+		_dataBytes = dataBytes;
+		_dataSupplier = dataSupplier;
+	}
+
 	/**
 	 * Bestimmt das System-Objekt zu dem die im Ergebnis enthaltenen Daten gehören.
 	 *
@@ -293,10 +344,15 @@ public class ResultData implements Dataset {
 	@Deprecated
 	public final List getAttributeValueList() {
 		if(attributeValues != null) return attributeValues;
-		if(_data == null) {
+		final Data resultData = getData();
+		if(resultData == null) {
 			return null;
 		}
-		Data data = _data.createModifiableCopy();
+		Data data = resultData.createModifiableCopy();
+		if(!(data instanceof AttributeBaseValueDataFactory.AttributeGroupAdapter)) {
+			// Byte-Array basierte modifizierbare Datensätze werden über eine unveränderliche Kopie in die Attributwert-Liste überführt
+			data = data.createUnmodifiableCopy().createModifiableCopy();
+		}
 		return ((AttributeBaseValueDataFactory.AttributeGroupAdapter)data)._attributeBaseValueList;
 	}
 
@@ -306,11 +362,54 @@ public class ResultData implements Dataset {
 	 * @return Datensatz oder <code>null</code>, wenn kein Datensatz im Ergebnis enthalten ist.
 	 */
 	public final Data getData() {
-		if(_data != null) return _data;
+		final Data data = _data;
+		if(data != null) return data;
+		final Supplier<Data> dataSupplier = _dataSupplier;
+		if(dataSupplier != null) {
+			// Falls mehrere Threads gleichzeitig zugreifen, wird der Datensatz eventuell mehrfach dekodiert, was unkritisch ist
+			final Data decodedData = dataSupplier.get();
+			_data = decodedData;
+			_dataSupplier = null;
+			return decodedData;
+		}
+		// Ein anderer Thread kann den Datensatz inzwischen dekodiert haben. Da _data vor _dataSupplier geschrieben wird, ist er hier sichtbar.
+		final Data decodedData = _data;
+		if(decodedData != null) return decodedData;
 		if(attributeValues == null) return null;
 		return AttributeBaseValueDataFactory.createAdapter(dataDescription.getAttributeGroup(), attributeValues);
 	}
 
+	/**
+	 * Bestimmt den im Ergebnis enthaltenen Datensatz in serialisierter Form, so wie er vom Datenverteiler empfangen wurde. Damit können Datensätze z.B. zur
+	 * Weiterleitung oder Archivierung verarbeitet werden, ohne sie zu dekodieren. Das zurückgegebene Array darf nicht verändert werden.
+	 *
+	 * @return Serialisierter Datensatz oder <code>null</code>, wenn kein Datensatz im Ergebnis enthalten ist oder der Datensatz nicht empfangen, sondern lokal
+	 *         erzeugt wurde.
+	 */
+	public final byte[] getDataBytes() {
+		return _dataBytes;
+	}
+
+	/**
+	 * Liefert die Zeitstempel der Latenzmessung dieses Ergebnisses. Die Zeitstempel sind nur für Diagnosezwecke vorgesehen und nur bei empfangenen Datensätzen
+	 * vorhanden, die bei aktivierter Latenzmessung als Stichprobe ausgewählt wurden.
+	 *
+	 * @return Zeitstempel oder <code>null</code>, falls der Datensatz nicht erfasst wird
+	 * @see de.bsvrz.dav.daf.communication.lowLevel.LatencyTracer
+	 */
+	public final LatencyTrace getLatencyTrace() {
+		return _latencyTrace;
+	}
+
+	/**
+	 * Setzt die Zeitstempel der Latenzmessung dieses Ergebnisses. Wird von den Datenverteiler-Applikationsfunktionen beim Empfang von Datensätzen aufgerufen.
+	 *
+	 * @param latencyTrace Zeitstempel oder <code>null</code>
+	 */
+	public final void setLatencyTrace(final LatencyTrace latencyTrace) {
+		_latencyTrace = latencyTrace;
+	}
+
 	/**
 	 * Bestimmt ob keine Daten enthalten sind, weil die Quelle keine Daten ermitteln konnte.
 	 *
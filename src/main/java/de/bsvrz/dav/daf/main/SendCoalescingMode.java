@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.main;
+
+/**
+ * Legt fest, wie zu versendende Telegramme vor dem Schreiben auf die Verbindung zum Datenverteiler gebündelt werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public enum SendCoalescingMode {
+
+	/**
+	 * Nach jedem aus der Sende-Queue entnommenen Block wird sofort übertragen. Dies entspricht dem bisherigen Verhalten und führt zu den kürzesten
+	 * Übertragungszeiten.
+	 */
+	LOW_LATENCY("latenz"),
+
+	/**
+	 * Telegramme werden gesammelt, bis eine Mindestgröße erreicht ist oder die maximale Verzögerung abgelaufen ist. Dies führt zu wenigen großen
+	 * Übertragungen bei höherer Latenz.
+	 */
+	THROUGHPUT("durchsatz"),
+
+	/**
+	 * Bei gleichmäßigem oder geringem Datenaufkommen wird übertragen, sobald keine weiteren Telegramme vorliegen. Treffen Telegramme in schneller Folge ein,
+	 * wird wie bei {@link #THROUGHPUT} gebündelt.
+	 */
+	ADAPTIVE("adaptiv");
+
+	private final String _toStringValue;
+
+	SendCoalescingMode(final String toStringValue) {
+		_toStringValue = toStringValue;
+	}
+
+	@Override
+	public String toString() {
+		return _toStringValue;
+	}
+}
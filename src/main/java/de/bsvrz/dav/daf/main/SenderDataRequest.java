@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.main;
+
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Eine einzelne Sendesteuerung des Datenverteilers, die zusammen mit weiteren Sendesteuerungen an einen {@link ClientSenderBatchInterface} übergeben
+ * wird. Enthält dieselben Informationen wie die Parameter von {@link ClientSenderInterface#dataRequest(SystemObject, DataDescription, byte)}.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class SenderDataRequest {
+
+	private final SystemObject _object;
+
+	private final DataDescription _dataDescription;
+
+	private final byte _state;
+
+	/**
+	 * Erstellt eine neue Sendesteuerung
+	 *
+	 * @param object          Das in der zugehörigen Sendeanmeldung angegebene Objekt
+	 * @param dataDescription Beschreibende Informationen zu den angemeldeten Daten
+	 * @param state           Status der Sendesteuerung, siehe {@link ClientSenderInterface#START_SENDING} usw.
+	 */
+	public SenderDataRequest(final SystemObject object, final DataDescription dataDescription, final byte state) {
+		_object = object;
+		_dataDescription = dataDescription;
+		_state = state;
+	}
+
+	/**
+	 * Gibt das Objekt zurück, auf das sich die Sendesteuerung bezieht.
+	 *
+	 * @return Objekt
+	 */
+	public SystemObject getObject() {
+		return _object;
+	}
+
+	/**
+	 * Gibt die Datenbeschreibung zurück, auf die sich die Sendesteuerung bezieht.
+	 *
+	 * @return Datenbeschreibung
+	 */
+	public DataDescription getDataDescription() {
+		return _dataDescription;
+	}
+
+	/**
+	 * Gibt den Status der Sendesteuerung zurück.
+	 *
+	 * @return Einer der Werte <code>START_SENDING</code>, <code>STOP_SENDING</code>, <code>STOP_SENDING_NO_RIGHTS</code>,
+	 *         <code>STOP_SENDING_NOT_A_VALID_SUBSCRIPTION</code> aus {@link ClientSenderInterface}
+	 */
+	public byte getState() {
+		return _state;
+	}
+
+	@Override
+	public String toString() {
+		return "SenderDataRequest{" + (_object == null ? "null" : _object.getPidOrNameOrId()) + ", " + _dataDescription + ", state=" + _state + "}";
+	}
+}
@@ -0,0 +1,765 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+package de.bsvrz.dav.daf.main;
+
+import de.bsvrz.dav.daf.communication.lowLevel.ConnectionMetrics;
+import de.bsvrz.dav.daf.main.archive.ArchiveRequestManager;
+import de.bsvrz.dav.daf.main.authentication.ClientCredentials;
+import de.bsvrz.dav.daf.main.config.*;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+
+/**
+ * Gruppe von Datenverteilerverbindungen, die nach außen wie eine einzelne {@link ClientDavConnection} benutzt wird. Eine einzelne Verbindung überträgt
+ * alle Telegramme über eine TCP-Verbindung, eine Sende-Queue und einen Sende-Thread. Bei Applikationen mit sehr hohem Datenaufkommen ist dieser Thread
+ * der Engpass, lange bevor das Netzwerk oder der Datenverteiler ausgelastet sind. Diese Klasse baut deshalb neben der eigentlichen Verbindung weitere
+ * Verbindungen zum Datenverteiler auf und verteilt die Anmeldungen und Datensätze anhand der Datenidentifikation (Objekt, Attributgruppe, Aspekt,
+ * Simulationsvariante) auf die Verbindungen.
+ * <p>
+ * Die erste Verbindung der Gruppe wird wie gewohnt aus den übergebenen Parametern erzeugt und stellt das Datenmodell (gegebenenfalls über die zweite
+ * Verbindung für Konfigurationsanfragen) bereit. Die zusätzlichen Verbindungen werden mit {@link ClientDavParameters#getShardConnectionParameters(int,
+ * int)} erzeugt und benutzen dieses Datenmodell mit. Konfigurationsanfragen, Archivanfragen, Transaktionen usw. werden über die erste Verbindung
+ * abgewickelt.
+ * <p>
+ * Da eine Datenidentifikation immer derselben Verbindung zugeordnet wird, bleibt die Reihenfolge der Datensätze je Datenidentifikation erhalten. Über
+ * Datenidentifikationen hinweg gibt es keine Reihenfolgegarantie. Empfänger ({@link ClientReceiverInterface}) und Sender ({@link ClientSenderInterface}),
+ * die für Objekte auf mehreren Verbindungen angemeldet sind, werden aus den Empfangs-Threads mehrerer Verbindungen gleichzeitig aufgerufen und müssen
+ * deshalb threadsicher sein.
+ * <p>
+ * Wird eine der Verbindungen terminiert, dann werden auch alle anderen Verbindungen der Gruppe abgebaut. Wird beim Login ein Einmalpasswort verwendet,
+ * dann kann nur eine Verbindung aufgebaut werden; die zusätzlichen Verbindungen werden in diesem Fall nicht benutzt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class ShardedClientDavConnection implements ClientDavInterface {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Erste Verbindung der Gruppe, stellt das Datenmodell bereit */
+	private final ClientDavConnection _primaryConnection;
+
+	/** Gewünschte Anzahl der Verbindungen einschließlich der ersten Verbindung */
+	private final int _connectionCount;
+
+	/** Aktuell benutzte Verbindungen, Index 0 ist immer die erste Verbindung */
+	private volatile ClientDavConnection[] _connections;
+
+	/** Objekt zur Synchronisierung von Verbindungsaufbau, Login und Verbindungsabbau */
+	private final Object _lock = new Object();
+
+	/** Beim Schließen der Gruppe zu benachrichtigende Listener */
+	private final List<DavConnectionListener> _connectionListeners = new CopyOnWriteArrayList<DavConnectionListener>();
+
+	/** Wird beim Schließen einer der Verbindungen benachrichtigt und baut die anderen Verbindungen ab */
+	private final DavConnectionListener _memberListener = new DavConnectionListener() {
+		@Override
+		public void connectionClosed(final ClientDavInterface connection) {
+			closeAll(connection);
+		}
+	};
+
+	/** <code>true</code>, solange {@link #_memberListener} bei den Verbindungen angemeldet ist */
+	private boolean _membersObserved = false;
+
+	/** Stellt sicher, dass die Listener beim Schließen der Gruppe nur einmal benachrichtigt werden */
+	private final AtomicBoolean _closeNotified = new AtomicBoolean(false);
+
+	/** Close-Handler aller Verbindungen oder <code>null</code>, wenn die Default-Behandlung der Verbindungen benutzt werden soll */
+	private ApplicationCloseActionHandler _closeHandler = null;
+
+	/** <code>true</code>, wenn die Applikation die Fertigmeldung selbst versendet */
+	private boolean _explicitApplicationReadyMessage = false;
+
+	/**
+	 * Erzeugt eine neue Gruppe von Datenverteilerverbindungen. Die Verbindungen werden erst mit {@link #connect()} aufgebaut.
+	 *
+	 * @param parameters      Parameter für die Datenverteiler-Applikationsfunktionen.
+	 * @param connectionCount Anzahl der Verbindungen einschließlich der ersten Verbindung (mindestens 1).
+	 *
+	 * @throws MissingParameterException Wenn notwendige Informationen nicht in den übergebenen Parametern spezifiziert wurden.
+	 */
+	public ShardedClientDavConnection(final ClientDavParameters parameters, final int connectionCount) throws MissingParameterException {
+		if(connectionCount < 1) throw new IllegalArgumentException("Die Anzahl der Verbindungen muss mindestens 1 sein: " + connectionCount);
+		_connectionCount = connectionCount;
+		_primaryConnection = new ClientDavConnection(parameters);
+		_connections = new ClientDavConnection[]{_primaryConnection};
+	}
+
+	/**
+	 * Gibt die erste Verbindung der Gruppe zurück, über die Konfigurations- und Archivanfragen abgewickelt werden.
+	 *
+	 * @return Erste Verbindung
+	 */
+	public ClientDavConnection getPrimaryConnection() {
+		return _primaryConnection;
+	}
+
+	/**
+	 * Gibt die Anzahl der aktuell benutzten Verbindungen zurück. Vor dem Verbindungsaufbau und bei Verwendung eines Einmalpassworts ist das 1.
+	 *
+	 * @return Anzahl der Verbindungen
+	 */
+	public int getConnectionCount() {
+		return _connections.length;
+	}
+
+	/**
+	 * Bestimmt den Index der Verbindung, über die Anmeldungen und Datensätze der angegebenen Datenidentifikation abgewickelt werden.
+	 *
+	 * @param object          Objekt der Datenidentifikation
+	 * @param dataDescription Attributgruppe, Aspekt und Simulationsvariante der Datenidentifikation
+	 *
+	 * @return Index der Verbindung (0 bis {@link #getConnectionCount()} - 1)
+	 */
+	public int getConnectionIndex(final SystemObject object, final DataDescription dataDescription) {
+		return getConnectionIndex(_connections.length, object, dataDescription);
+	}
+
+	private int getConnectionIndex(final int connectionCount, final SystemObject object, final DataDescription dataDescription) {
+		// null-Objekte werden wie in der ClientDavConnection von der jeweiligen Methode behandelt
+		if(connectionCount == 1 || object == null) return 0;
+		// Nicht explizit vorgegebene Simulationsvarianten wie in der ClientDavConnection auflösen, damit Anmeldung und Versand mit und ohne
+		// explizite Simulationsvariante derselben Verbindung zugeordnet werden
+		short simulationVariant = dataDescription.getSimulationVariant();
+		if(simulationVariant == (short)-1) {
+			simulationVariant = _primaryConnection.getClientDavParameters().getSimulationVariant();
+		}
+		final AttributeGroup attributeGroup = dataDescription.getAttributeGroup();
+		final Aspect aspect = dataDescription.getAspect();
+		long hash = object.getId();
+		hash = hash * 31 + (attributeGroup == null ? 0 : attributeGroup.getId());
+		hash = hash * 31 + (aspect == null ? 0 : aspect.getId());
+		hash = hash * 31 + simulationVariant;
+		hash ^= (hash >>> 32);
+		hash *= 0x9E3779B97F4A7C15L;
+		return (int)((hash >>> 33) % connectionCount);
+	}
+
+	private ClientDavConnection getConnection(final SystemObject object, final DataDescription dataDescription) {
+		final ClientDavConnection[] connections = _connections;
+		return connections[getConnectionIndex(connections.length, object, dataDescription)];
+	}
+
+	/**
+	 * Teilt die angegebenen Objekte auf die Verbindungen auf.
+	 *
+	 * @param connections     Verbindungen
+	 * @param objects         Objekte
+	 * @param dataDescription Datenbeschreibung
+	 *
+	 * @return Liste der Objekte je Verbindung, die Reihenfolge der Objekte bleibt innerhalb jeder Liste erhalten
+	 */
+	private List<List<SystemObject>> split(final ClientDavConnection[] connections, final Collection<SystemObject> objects, final DataDescription dataDescription) {
+		final List<List<SystemObject>> result = new ArrayList<List<SystemObject>>(connections.length);
+		for(int i = 0; i < connections.length; i++) {
+			result.add(new ArrayList<SystemObject>());
+		}
+		for(SystemObject object : objects) {
+			result.get(getConnectionIndex(connections.length, object, dataDescription)).add(object);
+		}
+		return result;
+	}
+
+	@Override
+	public void connect() throws CommunicationError, ConnectionException {
+		synchronized(_lock) {
+			_primaryConnection.connect();
+			final List<ClientDavConnection> connections = new ArrayList<ClientDavConnection>(_connectionCount);
+			connections.add(_primaryConnection);
+			try {
+				for(int i = 1; i < _connectionCount; i++) {
+					final ClientDavParameters shardParameters = _primaryConnection.getClientDavParameters().getShardConnectionParameters(i, _connectionCount);
+					if(shardParameters == null) {
+						_debug.warning("Es wird nur eine Verbindung zum Datenverteiler verwendet");
+						break;
+					}
+					final ClientDavConnection connection = new ClientDavConnection(shardParameters, _primaryConnection.getDataModel());
+					if(_closeHandler != null) connection.setCloseHandler(_closeHandler);
+					if(_explicitApplicationReadyMessage) connection.enableExplicitApplicationReadyMessage();
+					connections.add(connection);
+					connection.connect();
+				}
+			}
+			catch(MissingParameterException e) {
+				// Sollte nicht vorkommen, da die zusätzlichen Verbindungen praktisch identische Parameter verwenden, wie die erste
+				disconnectAll(connections, true, e.getMessage());
+				throw new RuntimeException(e);
+			}
+			catch(CommunicationError | ConnectionException | RuntimeException e) {
+				disconnectAll(connections, true, e.getMessage());
+				throw e;
+			}
+			_closeNotified.set(false);
+			for(ClientDavConnection connection : connections) {
+				connection.addConnectionListener(_memberListener);
+			}
+			_membersObserved = true;
+			_connections = connections.toArray(new ClientDavConnection[connections.size()]);
+		}
+	}
+
+	private static void disconnectAll(final List<ClientDavConnection> connections, final boolean error, final String message) {
+		// Zusätzliche Verbindungen zuerst abbauen, damit das gemeinsame Datenmodell bis zuletzt verfügbar ist
+		for(int i = connections.size() - 1; i >= 0; i--) {
+			final ClientDavConnection connection = connections.get(i);
+			if(connection.isConnected()) {
+				connection.disconnect(error, message);
+			}
+		}
+	}
+
+	@Override
+	public void disconnect(final boolean error, final String message) {
+		final ClientDavConnection[] connections;
+		synchronized(_lock) {
+			connections = _connections;
+			stopObservingMembers();
+		}
+		disconnectAll(Arrays.asList(connections), error, message);
+		notifyConnectionClosed();
+	}
+
+	/**
+	 * Wird aufgerufen, wenn eine Verbindung der Gruppe geschlossen wurde, und baut die anderen Verbindungen ohne Fehler ab. Der Close-Handler der
+	 * terminierten Verbindung wurde bereits von dieser selbst aufgerufen.
+	 *
+	 * @param closedConnection Geschlossene Verbindung
+	 */
+	private void closeAll(final ClientDavInterface closedConnection) {
+		final ClientDavConnection[] connections;
+		synchronized(_lock) {
+			// Bereits von disconnect() oder einer anderen Verbindung behandelt
+			if(!_membersObserved) return;
+			connections = _connections;
+			stopObservingMembers();
+		}
+		disconnectAll(Arrays.asList(connections), false, "");
+		notifyConnectionClosed();
+	}
+
+	private void stopObservingMembers() {
+		if(_membersObserved) {
+			for(ClientDavConnection connection : _connections) {
+				connection.removeConnectionListener(_memberListener);
+			}
+			_membersObserved = false;
+		}
+		_connections = new ClientDavConnection[]{_primaryConnection};
+	}
+
+	private void notifyConnectionClosed() {
+		if(!_closeNotified.compareAndSet(false, true)) return;
+		for(DavConnectionListener listener : _connectionListeners) {
+			try {
+				listener.connectionClosed(this);
+			}
+			catch(Exception e) {
+				_debug.warning("Fehler beim Verarbeiten der connectionClosed-Meldung", e);
+			}
+		}
+	}
+
+	@Override
+	public void login() throws InconsistentLoginException, CommunicationError {
+		synchronized(_lock) {
+			for(ClientDavConnection connection : _connections) {
+				connection.login();
+			}
+		}
+	}
+
+	@Override
+	public void login(final String userName, final String password) throws InconsistentLoginException, CommunicationError {
+		login(userName, password.toCharArray());
+	}
+
+	@Override
+	public void login(final String userName, final char[] password) throws InconsistentLoginException, CommunicationError {
+		login(userName, ClientCredentials.ofPassword(password));
+	}
+
+	@Override
+	public void login(final String userName, final ClientCredentials clientCredentials) throws InconsistentLoginException, CommunicationError {
+		synchronized(_lock) {
+			final Matcher matcher = ClientDavParameters.USERNAME_PASSWORD_INDEX_PATTERN.matcher(userName);
+			if(matcher.matches() && _connections.length > 1) {
+				_debug.warning("Die zusätzlichen Verbindungen können nicht verwendet werden, da ein Einmalpasswort verwendet wird.");
+				final List<ClientDavConnection> shards = new ArrayList<ClientDavConnection>(Arrays.asList(_connections));
+				shards.remove(_primaryConnection);
+				for(ClientDavConnection shard : shards) {
+					shard.removeConnectionListener(_memberListener);
+				}
+				disconnectAll(shards, false, "");
+				_connections = new ClientDavConnection[]{_primaryConnection};
+			}
+			for(ClientDavConnection connection : _connections) {
+				connection.login(userName, clientCredentials);
+			}
+		}
+	}
+
+	@Override
+	public void subscribeReceiver(
+			final ClientReceiverInterface receiver,
+			final SystemObject[] objects,
+			final DataDescription dataDescription,
+			final ReceiveOptions options,
+			final ReceiverRole role,
+			final long cacheTime) {
+		subscribeReceiver(receiver, Arrays.asList(objects), dataDescription, options, role, cacheTime);
+	}
+
+	@Override
+	public void subscribeReceiver(
+			final ClientReceiverInterface receiver,
+			final SystemObject[] objects,
+			final DataDescription dataDescription,
+			final ReceiveOptions options,
+			final ReceiverRole role) {
+		subscribeReceiver(receiver, Arrays.asList(objects), dataDescription, options, role);
+	}
+
+	@Override
+	public void subscribeReceiver(
+			final ClientReceiverInterface receiver,
+			final SystemObject object,
+			final DataDescription dataDescription,
+			final ReceiveOptions options,
+			final ReceiverRole role,
+			final long cacheTime) {
+		getConnection(object, dataDescription).subscribeReceiver(receiver, object, dataDescription, options, role, cacheTime);
+	}
+
+	@Override
+	public void subscribeReceiver(
+			final ClientReceiverInterface receiver,
+			final SystemObject object,
+			final DataDescription dataDescription,
+			final ReceiveOptions options,
+			final ReceiverRole role) {
+		getConnection(object, dataDescription).subscribeReceiver(receiver, object, dataDescription, options, role);
+	}
+
+	@Override
+	public void subscribeReceiver(
+			final ClientReceiverInterface receiver,
+			final Collection<SystemObject> objects,
+			final DataDescription dataDescription,
+			final ReceiveOptions options,
+			final ReceiverRole role,
+			final long cacheTime) {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) {
+			connections[0].subscribeReceiver(receiver, objects, dataDescription, options, role, cacheTime);
+			return;
+		}
+		final List<List<SystemObject>> parts = split(connections, objects, dataDescription);
+		for(int i = 0; i < connections.length; i++) {
+			if(!parts.get(i).isEmpty()) connections[i].subscribeReceiver(receiver, parts.get(i), dataDescription, options, role, cacheTime);
+		}
+	}
+
+	@Override
+	public void subscribeReceiver(
+			final ClientReceiverInterface receiver,
+			final Collection<SystemObject> objects,
+			final DataDescription dataDescription,
+			final ReceiveOptions options,
+			final ReceiverRole role) {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) {
+			connections[0].subscribeReceiver(receiver, objects, dataDescription, options, role);
+			return;
+		}
+		final List<List<SystemObject>> parts = split(connections, objects, dataDescription);
+		for(int i = 0; i < connections.length; i++) {
+			if(!parts.get(i).isEmpty()) connections[i].subscribeReceiver(receiver, parts.get(i), dataDescription, options, role);
+		}
+	}
+
+	@Override
+	public void subscribeSender(
+			final ClientSenderInterface sender, final Collection<SystemObject> objects, final DataDescription dataDescription, final SenderRole role)
+			throws OneSubscriptionPerSendData {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) {
+			connections[0].subscribeSender(sender, objects, dataDescription, role);
+			return;
+		}
+		final List<List<SystemObject>> parts = split(connections, objects, dataDescription);
+		for(int i = 0; i < connections.length; i++) {
+			if(!parts.get(i).isEmpty()) connections[i].subscribeSender(sender, parts.get(i), dataDescription, role);
+		}
+	}
+
+	@Override
+	public void subscribeSender(
+			final ClientSenderInterface sender, final SystemObject[] objects, final DataDescription dataDescription, final SenderRole role)
+			throws OneSubscriptionPerSendData {
+		subscribeSender(sender, Arrays.asList(objects), dataDescription, role);
+	}
+
+	@Override
+	public void subscribeSender(
+			final ClientSenderInterface sender, final SystemObject object, final DataDescription dataDescription, final SenderRole role)
+			throws OneSubscriptionPerSendData {
+		getConnection(object, dataDescription).subscribeSender(sender, object, dataDescription, role);
+	}
+
+	@Override
+	public void subscribeSource(final ClientSenderInterface sender, final ResultData initialData) throws OneSubscriptionPerSendData {
+		getConnection(initialData.getObject(), initialData.getDataDescription()).subscribeSource(sender, initialData);
+	}
+
+	@Override
+	public void unsubscribeReceiver(final ClientReceiverInterface receiver, final SystemObject[] objects, final DataDescription dataDescription) {
+		unsubscribeReceiver(receiver, Arrays.asList(objects), dataDescription);
+	}
+
+	@Override
+	public void unsubscribeReceiver(final ClientReceiverInterface receiver, final Collection<SystemObject> objects, final DataDescription dataDescription) {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) {
+			connections[0].unsubscribeReceiver(receiver, objects, dataDescription);
+			return;
+		}
+		final List<List<SystemObject>> parts = split(connections, objects, dataDescription);
+		for(int i = 0; i < connections.length; i++) {
+			if(!parts.get(i).isEmpty()) connections[i].unsubscribeReceiver(receiver, parts.get(i), dataDescription);
+		}
+	}
+
+	@Override
+	public void unsubscribeReceiver(final ClientReceiverInterface receiver, final SystemObject object, final DataDescription dataDescription) {
+		getConnection(object, dataDescription).unsubscribeReceiver(receiver, object, dataDescription);
+	}
+
+	@Override
+	public void unsubscribeSender(final ClientSenderInterface sender, final Collection<SystemObject> objects, final DataDescription dataDescription) {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) {
+			connections[0].unsubscribeSender(sender, objects, dataDescription);
+			return;
+		}
+		final List<List<SystemObject>> parts = split(connections, objects, dataDescription);
+		for(int i = 0; i < connections.length; i++) {
+			if(!parts.get(i).isEmpty()) connections[i].unsubscribeSender(sender, parts.get(i), dataDescription);
+		}
+	}
+
+	@Override
+	public void unsubscribeSender(final ClientSenderInterface sender, final SystemObject[] objects, final DataDescription dataDescription) {
+		unsubscribeSender(sender, Arrays.asList(objects), dataDescription);
+	}
+
+	@Override
+	public void unsubscribeSender(final ClientSenderInterface sender, final SystemObject object, final DataDescription dataDescription) {
+		getConnection(object, dataDescription).unsubscribeSender(sender, object, dataDescription);
+	}
+
+	@Override
+	public DataModel getDataModel() {
+		return _primaryConnection.getDataModel();
+	}
+
+	@Override
+	public DataModel getDataModel(final SystemObject configAuthority) throws ConfigurationTaskException {
+		return _primaryConnection.getDataModel(configAuthority);
+	}
+
+	@Override
+	public DataModel getDataModel(final String configAuthority) throws ConfigurationTaskException {
+		return _primaryConnection.getDataModel(configAuthority);
+	}
+
+	@Override
+	public DataModel getDataModel(final long configAuthority) throws ConfigurationTaskException {
+		return _primaryConnection.getDataModel(configAuthority);
+	}
+
+	@Override
+	public DavApplication getLocalDav() {
+		return _primaryConnection.getLocalDav();
+	}
+
+	@Override
+	public ClientApplication getLocalApplicationObject() {
+		return _primaryConnection.getLocalApplicationObject();
+	}
+
+	@Override
+	public DynamicObject getLocalUser() {
+		return _primaryConnection.getLocalUser();
+	}
+
+	@Override
+	public ConfigurationAuthority getLocalConfigurationAuthority() {
+		return _primaryConnection.getLocalConfigurationAuthority();
+	}
+
+	@Override
+	public long getDavRoundTripTime() {
+		return _primaryConnection.getDavRoundTripTime();
+	}
+
+	@Override
+	public ResultData[] getCachedData(
+			final SystemObject[] objects, final DataDescription dataDescription, final ReceiveOptions options, final HistorySpecification history) {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) return connections[0].getCachedData(objects, dataDescription, options, history);
+		// Aufeinanderfolgende Objekte derselben Verbindung gemeinsam abfragen, damit die Reihenfolge des Ergebnisses erhalten bleibt
+		final List<ResultData> result = new ArrayList<ResultData>();
+		int start = 0;
+		while(start < objects.length) {
+			final int index = getConnectionIndex(connections.length, objects[start], dataDescription);
+			int end = start + 1;
+			while(end < objects.length && getConnectionIndex(connections.length, objects[end], dataDescription) == index) {
+				end++;
+			}
+			result.addAll(Arrays.asList(connections[index].getCachedData(Arrays.copyOfRange(objects, start, end), dataDescription, options, history)));
+			start = end;
+		}
+		return result.toArray(new ResultData[result.size()]);
+	}
+
+	@Override
+	public ResultData getData(final SystemObject object, final DataDescription dataDescription, final long unsubscriptionTime) {
+		return getConnection(object, dataDescription).getData(object, dataDescription, unsubscriptionTime);
+	}
+
+	@Override
+	public ResultData[] getData(final SystemObject[] objects, final DataDescription dataDescription, final long unsubscriptionTime) {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1 || objects == null || dataDescription == null) return connections[0].getData(objects, dataDescription, unsubscriptionTime);
+		final ResultData[] result = new ResultData[objects.length];
+		final List<List<SystemObject>> parts = split(connections, Arrays.asList(objects), dataDescription);
+		final int[] positions = new int[connections.length];
+		final ResultData[][] partResults = new ResultData[connections.length][];
+		for(int i = 0; i < connections.length; i++) {
+			final List<SystemObject> part = parts.get(i);
+			if(!part.isEmpty()) partResults[i] = connections[i].getData(part.toArray(new SystemObject[part.size()]), dataDescription, unsubscriptionTime);
+		}
+		for(int i = 0; i < objects.length; i++) {
+			final int index = getConnectionIndex(connections.length, objects[i], dataDescription);
+			result[i] = partResults[index][positions[index]++];
+		}
+		return result;
+	}
+
+	@Override
+	public Data createData(final AttributeGroup attributeGroup) {
+		return _primaryConnection.createData(attributeGroup);
+	}
+
+	@Override
+	public void sendData(final ResultData result) throws DataNotSubscribedException, SendSubscriptionNotConfirmed {
+		getConnection(result.getObject(), result.getDataDescription()).sendData(result);
+	}
+
+	@Override
+	public void sendData(final ResultData[] results) throws DataNotSubscribedException, SendSubscriptionNotConfirmed {
+		final ClientDavConnection[] connections = _connections;
+		if(connections.length == 1) {
+			connections[0].sendData(results);
+			return;
+		}
+		final List<List<ResultData>> parts = new ArrayList<List<ResultData>>(connections.length);
+		for(int i = 0; i < connections.length; i++) {
+			parts.add(new ArrayList<ResultData>());
+		}
+		for(ResultData result : results) {
+			parts.get(getConnectionIndex(connections.length, result.getObject(), result.getDataDescription())).add(result);
+		}
+		for(int i = 0; i < connections.length; i++) {
+			final List<ResultData> part = parts.get(i);
+			if(!part.isEmpty()) connections[i].sendData(part.toArray(new ResultData[part.size()]));
+		}
+	}
+
+	@Override
+	public void setCloseHandler(final ApplicationCloseActionHandler closer) {
+		final AtomicBoolean called = new AtomicBoolean(false);
+		final ApplicationCloseActionHandler closeHandler = new ApplicationCloseActionHandler() {
+			@Override
+			public void close(final String error) {
+				// Nur die zuerst terminierte Verbindung meldet den Fehler
+				if(called.compareAndSet(false, true)) closer.close(error);
+			}
+		};
+		synchronized(_lock) {
+			_closeHandler = closeHandler;
+			for(ClientDavConnection connection : _connections) {
+				connection.setCloseHandler(closeHandler);
+			}
+		}
+	}
+
+	@Override
+	public long getTime() {
+		return _primaryConnection.getTime();
+	}
+
+	@Override
+	public void sleep(final long timeToSleep) {
+		_primaryConnection.sleep(timeToSleep);
+	}
+
+	@Override
+	public void sleepUntil(final long absoluteTime) {
+		_primaryConnection.sleepUntil(absoluteTime);
+	}
+
+	@Override
+	public ArchiveRequestManager getArchive() {
+		return _primaryConnection.getArchive();
+	}
+
+	@Override
+	public ArchiveRequestManager getArchive(final SystemObject archiveSystem) {
+		return _primaryConnection.getArchive(archiveSystem);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Liefert die Kennzahlen der ersten Verbindung der Gruppe. Die Kennzahlen der anderen Verbindungen können mit {@link #getConnectionMetrics(int)}
+	 * abgefragt werden.
+	 */
+	@Override
+	public ConnectionMetrics getConnectionMetrics() {
+		return _primaryConnection.getConnectionMetrics();
+	}
+
+	/**
+	 * Liefert die Kennzahlen einer Verbindung der Gruppe.
+	 *
+	 * @param connectionIndex Index der Verbindung (0 bis {@link #getConnectionCount()} - 1)
+	 *
+	 * @return Kennzahlen oder <code>null</code>, wenn keine Verbindung besteht
+	 */
+	public ConnectionMetrics getConnectionMetrics(final int connectionIndex) {
+		return _connections[connectionIndex].getConnectionMetrics();
+	}
+
+	@Override
+	public EncryptionStatus getEncryptionStatus() {
+		return _primaryConnection.getEncryptionStatus();
+	}
+
+	@Override
+	public AuthenticationStatus getAuthenticationStatus() {
+		return _primaryConnection.getAuthenticationStatus();
+	}
+
+	@Override
+	public ConfigurationArea getDefaultConfigurationArea(final DynamicObjectType dynamicObjectType) {
+		return _primaryConnection.getDefaultConfigurationArea(dynamicObjectType);
+	}
+
+	@Override
+	public ClientSubscriptionInfo getSubscriptionInfo(
+			final DavApplication davApplication, final SystemObject object, final AttributeGroupUsage usage, final short simulationVariant) throws IOException {
+		return _primaryConnection.getSubscriptionInfo(davApplication, object, usage, simulationVariant);
+	}
+
+	@Override
+	public ApplicationSubscriptionInfo getSubscriptionInfo(final DavApplication davApplication, final ClientApplication application) throws IOException {
+		return _primaryConnection.getSubscriptionInfo(davApplication, application);
+	}
+
+	@Override
+	public ClientDavParameters getClientDavParameters() {
+		return _primaryConnection.getClientDavParameters();
+	}
+
+	@Override
+	public void addConnectionListener(final DavConnectionListener davConnectionListener) {
+		_connectionListeners.add(davConnectionListener);
+	}
+
+	@Override
+	public void removeConnectionListener(final DavConnectionListener davConnectionListener) {
+		_connectionListeners.remove(davConnectionListener);
+	}
+
+	@Override
+	public void sendApplicationReadyMessage() {
+		for(ClientDavConnection connection : _connections) {
+			connection.sendApplicationReadyMessage();
+		}
+	}
+
+	@Override
+	public void enableExplicitApplicationReadyMessage() {
+		synchronized(_lock) {
+			_explicitApplicationReadyMessage = true;
+			for(ClientDavConnection connection : _connections) {
+				connection.enableExplicitApplicationReadyMessage();
+			}
+		}
+	}
+
+	@Override
+	public boolean checkLoggedUserNameAndPassword(final String userName, final String password) {
+		return _primaryConnection.checkLoggedUserNameAndPassword(userName, password);
+	}
+
+	@Override
+	public Transactions getTransactions() {
+		return _primaryConnection.getTransactions();
+	}
+
+	@Override
+	public boolean isConnected() {
+		for(ClientDavConnection connection : _connections) {
+			if(!connection.isConnected()) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isLoggedIn() {
+		for(ClientDavConnection connection : _connections) {
+			if(!connection.isLoggedIn()) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ShardedClientDavConnection{" + _primaryConnection.getClientDavParameters().getApplicationName() + ", " + _connections.length + " Verbindungen}";
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.main.impl;
+
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.DataModel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unveränderliche, für ein Datenmodell aufgelöste Tabelle der Aspektumleitungen einer Applikation. Die in den {@link
+ * de.bsvrz.dav.daf.main.ClientDavParameters} per Pid angegebenen Aspektumleitungen werden einmalig in Systemobjekte aufgelöst und pro Attributgruppe in einem
+ * kleinen Array abgelegt. Im Normalfall, dass keine Aspektumleitungen vorgegeben wurden, kommen die Abfragen ohne Map-Zugriffe und ohne Erzeugung von
+ * Hilfsobjekten aus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public final class AspectRedirections {
+
+	/** Tabelle ohne Aspektumleitungen */
+	public static final AspectRedirections NONE = new AspectRedirections(
+			null, Collections.<AttributeGroup, Aspect[]>emptyMap(), Collections.<AttributeGroup, Aspect[]>emptyMap()
+	);
+
+	/** Datenmodell, für das die Tabelle aufgelöst wurde */
+	private final DataModel _dataModel;
+
+	/**
+	 * Umleitungen vom Originalaspekt auf den ersetzenden Aspekt pro Attributgruppe. Jedes Array enthält abwechselnd den gesuchten und den zugeordneten Aspekt,
+	 * d.h. an geraden Indizes Originalaspekte und an ungeraden Indizes die ersetzenden Aspekte.
+	 */
+	private final Map<AttributeGroup, Aspect[]> _aspectToSubstitute;
+
+	/** Umleitungen vom ersetzenden Aspekt auf den Originalaspekt pro Attributgruppe, aufgebaut wie {@link #_aspectToSubstitute}. */
+	private final Map<AttributeGroup, Aspect[]> _substituteToAspect;
+
+	/** <code>true</code>, falls keine Aspektumleitungen vorhanden sind */
+	private final boolean _empty;
+
+	private AspectRedirections(
+			final DataModel dataModel, final Map<AttributeGroup, Aspect[]> aspectToSubstitute, final Map<AttributeGroup, Aspect[]> substituteToAspect) {
+		_dataModel = dataModel;
+		_aspectToSubstitute = aspectToSubstitute;
+		_substituteToAspect = substituteToAspect;
+		_empty = aspectToSubstitute.isEmpty() && substituteToAspect.isEmpty();
+	}
+
+	/**
+	 * Löst die angegebenen Aspektumleitungen im Datenmodell auf. Umleitungen, deren Attributgruppe oder Aspekte im Datenmodell nicht existieren, werden ignoriert.
+	 *
+	 * @param dataModel          Datenmodell
+	 * @param aspectToSubstitute Umleitungen als Map von Attributgruppen-Pid auf eine Map von Pid des Originalaspekts auf Pid des ersetzenden Aspekts
+	 * @param substituteToAspect Umleitungen als Map von Attributgruppen-Pid auf eine Map von Pid des ersetzenden Aspekts auf Pid des Originalaspekts
+	 *
+	 * @return Aufgelöste Aspektumleitungen
+	 */
+	public static AspectRedirections create(
+			final DataModel dataModel,
+			final Map<String, Map<String, String>> aspectToSubstitute,
+			final Map<String, Map<String, String>> substituteToAspect) {
+		return new AspectRedirections(dataModel, resolve(dataModel, aspectToSubstitute), resolve(dataModel, substituteToAspect));
+	}
+
+	private static Map<AttributeGroup, Aspect[]> resolve(final DataModel dataModel, final Map<String, Map<String, String>> redirections) {
+		final Map<AttributeGroup, Aspect[]> result = new HashMap<AttributeGroup, Aspect[]>();
+		for(Map.Entry<String, Map<String, String>> atgEntry : redirections.entrySet()) {
+			final AttributeGroup attributeGroup = dataModel.getAttributeGroup(atgEntry.getKey());
+			if(attributeGroup == null) continue;
+			Aspect[] aspects = new Aspect[0];
+			for(Map.Entry<String, String> aspectEntry : atgEntry.getValue().entrySet()) {
+				final Aspect from = dataModel.getAspect(aspectEntry.getKey());
+				final Aspect to = dataModel.getAspect(aspectEntry.getValue());
+				if(from == null || to == null) continue;
+				aspects = Arrays.copyOf(aspects, aspects.length + 2);
+				aspects[aspects.length - 2] = from;
+				aspects[aspects.length - 1] = to;
+			}
+			if(aspects.length > 0) result.put(attributeGroup, aspects);
+		}
+		if(result.isEmpty()) return Collections.emptyMap();
+		return result;
+	}
+
+	/**
+	 * Liefert das Datenmodell, für das die Aspektumleitungen aufgelöst wurden.
+	 *
+	 * @return Datenmodell oder <code>null</code> bei {@link #NONE}
+	 */
+	public DataModel getDataModel() {
+		return _dataModel;
+	}
+
+	/**
+	 * Gibt an, ob keine Aspektumleitungen vorhanden sind.
+	 *
+	 * @return <code>true</code>, falls keine Aspektumleitungen vorhanden sind, sonst <code>false</code>
+	 */
+	public boolean isEmpty() {
+		return _empty;
+	}
+
+	/**
+	 * Bestimmt den Aspekt, der statt des angegebenen Aspekts beim Datenverteiler verwendet werden soll.
+	 *
+	 * @param attributeGroup Attributgruppe
+	 * @param aspect         Originalaspekt
+	 *
+	 * @return Ersetzender Aspekt oder der übergebene Aspekt, falls keine Umleitung besteht
+	 */
+	public Aspect aspectToSubstitute(final AttributeGroup attributeGroup, final Aspect aspect) {
+		return lookup(_aspectToSubstitute, attributeGroup, aspect);
+	}
+
+	/**
+	 * Bestimmt den Originalaspekt zu einem ersetzenden Aspekt.
+	 *
+	 * @param attributeGroup Attributgruppe
+	 * @param aspect         Ersetzender Aspekt
+	 *
+	 * @return Originalaspekt oder der übergebene Aspekt, falls keine Umleitung besteht
+	 */
+	public Aspect substituteToAspect(final AttributeGroup attributeGroup, final Aspect aspect) {
+		return lookup(_substituteToAspect, attributeGroup, aspect);
+	}
+
+	/**
+	 * Bestimmt die Datenbeschreibung mit dem Originalaspekt zu einer Datenbeschreibung mit ersetzendem Aspekt.
+	 *
+	 * @param dataDescription Datenbeschreibung mit ersetzendem Aspekt
+	 *
+	 * @return Datenbeschreibung mit Originalaspekt oder die übergebene Datenbeschreibung, falls keine Umleitung besteht
+	 */
+	public DataDescription substituteToAspect(final DataDescription dataDescription) {
+		if(_empty || dataDescription == null) return dataDescription;
+		final AttributeGroup attributeGroup = dataDescription.getAttributeGroup();
+		final Aspect aspect = dataDescription.getAspect();
+		if(attributeGroup == null || aspect == null) return dataDescription;
+		final Aspect originalAspect = substituteToAspect(attributeGroup, aspect);
+		if(originalAspect == aspect) return dataDescription;
+		return dataDescription.getRedirectedDescription(originalAspect);
+	}
+
+	private Aspect lookup(final Map<AttributeGroup, Aspect[]> redirections, final AttributeGroup attributeGroup, final Aspect aspect) {
+		if(_empty) return aspect;
+		final Aspect[] aspects = redirections.get(attributeGroup);
+		if(aspects == null) return aspect;
+		for(int i = 0; i < aspects.length; i += 2) {
+			if(aspects[i].equals(aspect)) return aspects[i + 1];
+		}
+		return aspect;
+	}
+}
@@ -28,10 +28,9 @@
 
 package de.bsvrz.dav.daf.main.impl;
 
-import de.bsvrz.dav.daf.communication.dataRepresentation.data.DataFactory;
 import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.SendDataObject;
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
-import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.config.*;
 import de.bsvrz.sys.funclib.debug.Debug;
 
@@ -95,7 +94,7 @@ public class CacheManager {
 
 	/**
 	 * Diese Methode wird von der Protokollsteuerung DaV-DAF aufgerufen, wenn ein aktuelles Datum angekommen ist. Die Datensätze, die als Bytestrom ankommen,
-	 * werden zuerst in Attribute umgewandelt, und ein neues CachedObject wird gebildet. Dieses wird nach dem Datensatzindex sortiert in den Cache eingefügt, und
+	 * werden in einem neuen CachedObject abgelegt und erst beim ersten Zugriff dekodiert. Dieses wird nach dem Datensatzindex sortiert in den Cache eingefügt, und
 	 * die SubscriptionManager- Subkomponente wird über das Ankommen des aktuellen Datums benachrichtigt.
 	 *
 	 * @param newData Neuer Datensatz
@@ -109,47 +108,19 @@ public class CacheManager {
 		if(baseSubscriptionInfo == null) {
 			return;
 		}
-		// Get the Datavalues out of the stream
-		byte attributesIndicator[] = newData.getAttributesIndicator();
-//		DataValue values[] = null;
-		final byte[] dataBytes = newData.getData();
-		final Data data;
-//		final DataModel configuration = configurationManager.getDataModel();
-		if(dataBytes == null) {
-			data = null;
-		}
-		else {
-			try {
-				final AttributeGroup atg = _dataModel.getAttributeGroupUsage(baseSubscriptionInfo.getUsageIdentification()).getAttributeGroup();
-				if(attributesIndicator != null) {
-					throw new RuntimeException(
-							"Anmeldungen auf einzelne Attribute der Attributgruppe werden nicht unterstützt. " + "atg: " + atg.getPid()
-					);
-				}
-				data = DataFactory.forVersion(1).createUnmodifiableData(atg, dataBytes);
-
-//				DataInputStream in = new DataInputStream(new BufferedInputStream(new ByteArrayInputStream(data)));
-//				values = StreamFetcher.getInstance().getDataValuesFromStream(
-//				        configurationManager.getDataModel(),
-//				        baseSubscriptionInfo.getAttributeGroupCode(),
-//				        in,
-//				        attributesIndicator
-//				);
-			}
-//			catch(IOException ex) {
-//				ex.printStackTrace();
-//				return;
-//			}
-			catch(ConfigurationException e) {
-				e.printStackTrace();
-				throw new RuntimeException(e);
-			}
+		// Die Datensätze werden nicht sofort dekodiert, sondern erst beim ersten Zugriff über CachedObject.getData()
+		final byte attributesIndicator[] = newData.getAttributesIndicator();
+		if(attributesIndicator != null) {
+			throw new RuntimeException(
+					"Anmeldungen auf einzelne Attribute der Attributgruppe werden nicht unterstützt. " + "Anmeldung: " + baseSubscriptionInfo
+			);
 		}
+		final byte[] dataBytes = newData.getData();
 
 		boolean delayedDataFlag = newData.getDalayedDataFlag();
 		byte errorFlag = newData.getErrorFlag();
 		long dataIndex = newData.getDataNumber();
-		boolean dataInside = ((errorFlag == 0x00) && ((dataIndex & 0x0000000000000003) == 0) && (data != null));
+		boolean dataInside = ((errorFlag == 0x00) && ((dataIndex & 0x0000000000000003) == 0) && (dataBytes != null));
 		LinkedList list = (LinkedList)cache.get(baseSubscriptionInfo);
 //		System.out.println("++++++++++++list:" + (list == null ? "null" : list.size() + " entries") + "+++++++++++");
 		CachedObject cachedObject = null;
@@ -161,7 +132,7 @@ public class CacheManager {
 					baseSubscriptionInfo, delayedDataFlag, dataIndex, newData.getDataTime(), errorFlag, _dataModel
 			);
 			if(dataInside) {
-				cachedObject.update(attributesIndicator, data, delayedDataFlag);
+				cachedObject.updateSerialized(dataBytes, delayedDataFlag);
 			}
 			cachedObject.setActionTime(System.currentTimeMillis());
 			list.add(cachedObject);
@@ -181,7 +152,7 @@ public class CacheManager {
 								baseSubscriptionInfo, delayedDataFlag, dataIndex, newData.getDataTime(), errorFlag, _dataModel
 						);
 						if(dataInside) {
-							cachedObject.update(attributesIndicator, data, delayedDataFlag);
+							cachedObject.updateSerialized(dataBytes, delayedDataFlag);
 						}
 						cachedObject.setActionTime(System.currentTimeMillis());
 						_iterator.set(cachedObject);
@@ -194,7 +165,7 @@ public class CacheManager {
 								baseSubscriptionInfo, delayedDataFlag, dataIndex, newData.getDataTime(), errorFlag, _dataModel
 						);
 						if(dataInside) {
-							cachedObject.update(attributesIndicator, data, delayedDataFlag);
+							cachedObject.updateSerialized(dataBytes, delayedDataFlag);
 						}
 						cachedObject.setActionTime(System.currentTimeMillis());
 
@@ -234,7 +205,7 @@ public class CacheManager {
 									baseSubscriptionInfo, delayedDataFlag, dataIndex, newData.getDataTime(), errorFlag, _dataModel
 							);
 							if(dataInside) {
-								cachedObject.update(attributesIndicator, data, delayedDataFlag);
+								cachedObject.updateSerialized(dataBytes, delayedDataFlag);
 							}
 							cachedObject.setActionTime(System.currentTimeMillis());
 
@@ -254,7 +225,12 @@ public class CacheManager {
 				}
 			}
 		}
-		if(cachedObject != null) subscriptionManager.actualDataUpdate(cachedObject);
+		if(cachedObject != null) {
+			final LatencyTrace latencyTrace = newData.getLatencyTrace();
+			if(latencyTrace != null) latencyTrace.stamp(LatencyTrace.CACHED);
+			cachedObject.setLatencyTrace(latencyTrace);
+			subscriptionManager.actualDataUpdate(cachedObject);
+		}
 	}
 
 	/** Schliesst diese Komponente und beendet den Thread <code>CacheCleaner</code> */
@@ -273,6 +249,24 @@ public class CacheManager {
 		return cleaner;
 	}
 
+	/**
+	 * Markiert alle im Cache gespeicherten Datensätze als veraltet. Diese Methode wird vom SubscriptionManager nach einem Verlust der Verbindung zum
+	 * Datenverteiler aufgerufen. Die Datensätze bleiben erhalten, damit sie nach der Wiederverbindung bis zum Empfang neuer Datensätze weiterhin abgefragt werden
+	 * können.
+	 *
+	 * @see CachedObject#isStale()
+	 */
+	final void markStale() {
+		for(Object entry : cache.values().toArray()) {
+			final List<?> list = (List<?>)entry;
+			synchronized(list) {
+				for(Object object : list) {
+					if(object != null) ((CachedObject)object).setStale();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Diese Methode wird vom SubscriptionManager aufgerufen. Wenn keine Anmeldung der spezifizierten Daten (mehr) vorliegt, bewirkt der Aufruf dieser Methode,
 	 * dass die entsprechenden Datensätze aus dem Cache entfernt werden.
@@ -27,8 +27,12 @@
 
 package de.bsvrz.dav.daf.main.impl;
 
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.DataFactory;
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
 import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.ConfigurationException;
 import de.bsvrz.dav.daf.main.config.DataModel;
 
 /**
@@ -60,8 +64,20 @@ public class CachedObject {
 	 */
 	private byte errorFlag;
 
-	/** Datensatz */
-	private Data _data;
+	/** Datenmodell, mit dem die Attributgruppe des serialisierten Datensatzes bestimmt wird */
+	private final DataModel _dataModel;
+
+	/** Serialisierter Datensatz oder <code>null</code>, falls der Datensatz nicht in serialisierter Form übergeben wurde */
+	private byte[] _dataBytes;
+
+	/** Datensatz. Bei serialisiert übergebenen Datensätzen wird das Data-Objekt erst beim ersten Zugriff erzeugt. */
+	private volatile Data _data;
+
+	/** Zeitstempel der Latenzmessung des zuletzt übernommenen Datensatzes oder <code>null</code> */
+	private LatencyTrace _latencyTrace;
+
+	/** <code>true</code>, wenn der Datensatz vor einem Verbindungsverlust empfangen und seitdem nicht aktualisiert wurde */
+	private volatile boolean _stale;
 
 	/**
 	 * @param _baseSubscriptionInfo Anmeldeinformationen
@@ -86,7 +102,8 @@ public class CachedObject {
 		if(dataModel == null) {
 			throw new IllegalArgumentException("Falsche Übergabeparameter");
 		}
-
+		_dataModel = dataModel;
+		_dataBytes = null;
 		_data = null;
 	}
 
@@ -154,6 +171,39 @@ public class CachedObject {
 		return errorFlag;
 	}
 
+	/**
+	 * Liefert die Zeitstempel der Latenzmessung dieses Datensatzes.
+	 *
+	 * @return Zeitstempel oder <code>null</code>, falls der Datensatz nicht erfasst wird
+	 */
+	public final LatencyTrace getLatencyTrace() {
+		return _latencyTrace;
+	}
+
+	/**
+	 * Setzt die Zeitstempel der Latenzmessung dieses Datensatzes.
+	 *
+	 * @param latencyTrace Zeitstempel oder <code>null</code>
+	 */
+	public final void setLatencyTrace(final LatencyTrace latencyTrace) {
+		_latencyTrace = latencyTrace;
+	}
+
+	/**
+	 * Prüft, ob dieser Datensatz veraltet ist. Ein Datensatz ist veraltet, wenn er vor einem Verlust der Verbindung zum Datenverteiler empfangen und seit der
+	 * Wiederverbindung nicht aktualisiert wurde.
+	 *
+	 * @return <code>true</code>, wenn der Datensatz veraltet ist
+	 */
+	public final boolean isStale() {
+		return _stale;
+	}
+
+	/** Markiert diesen Datensatz als veraltet. Die Markierung wird mit der nächsten Aktualisierung des Datensatzes entfernt. */
+	final void setStale() {
+		_stale = true;
+	}
+
 	/**
 	 * Diese Methode wird von {@link CacheManager} aufgerufen und setzt die übergebenen Parameter im Objekt neu.
 	 *
@@ -169,7 +219,24 @@ public class CachedObject {
 		}
 
 		delayedDataFlag = _delayedDataFlag;
+		_dataBytes = null;
 		_data = data;
+		_stale = false;
+	}
+
+	/**
+	 * Diese Methode wird von {@link CacheManager} aufgerufen und setzt einen empfangenen, serialisierten Datensatz. Der Datensatz wird erst beim ersten Aufruf
+	 * von {@link #getData()} in ein Data-Objekt umgewandelt, so dass Empfänger, die nur die serialisierte Form benötigen, keine Kosten für die Dekodierung
+	 * haben.
+	 *
+	 * @param dataBytes        Serialisierter Datensatz, der mit {@link #getDataBytes()} angefordert werden kann. Das Array darf nicht mehr verändert werden.
+	 * @param _delayedDataFlag true = Die übergenenen Daten sind nachgeliefert
+	 */
+	public void updateSerialized(byte[] dataBytes, boolean _delayedDataFlag) {
+		delayedDataFlag = _delayedDataFlag;
+		_dataBytes = dataBytes;
+		_data = null;
+		_stale = false;
 	}
 
 	public final void debug() {
@@ -178,15 +245,41 @@ public class CachedObject {
 		System.out.println("Number: " + dataNumber);
 		System.out.println("Delayed: " + delayedDataFlag);
 		System.out.println("ErrorFlag: " + errorFlag);
-		System.out.println("_data: " + _data);
+		System.out.println("_data: " + getData());
 	}
 
 	/**
-	 * Gepufferter Datensatz.
+	 * Gepufferter Datensatz. Ein serialisiert übergebener Datensatz wird beim ersten Aufruf in ein nicht modifizierbares Data-Objekt umgewandelt.
 	 *
 	 * @return Datensatz
 	 */
 	public Data getData() {
-		return _data;
+		Data data = _data;
+		if(data == null && _dataBytes != null) {
+			// Bei gleichzeitigen Aufrufen wird der Datensatz eventuell mehrfach dekodiert, die Ergebnisse sind gleichwertig
+			data = decode(_dataBytes);
+			_data = data;
+		}
+		return data;
+	}
+
+	/**
+	 * Gepufferter Datensatz in serialisierter Form. Das zurückgegebene Array darf nicht verändert werden.
+	 *
+	 * @return Serialisierter Datensatz oder <code>null</code>, falls kein Datensatz vorhanden ist oder der Datensatz nicht serialisiert übergeben wurde
+	 */
+	public byte[] getDataBytes() {
+		return _dataBytes;
+	}
+
+	private Data decode(final byte[] dataBytes) {
+		try {
+			final AttributeGroup atg = _dataModel.getAttributeGroupUsage(baseSubscriptionInfo.getUsageIdentification()).getAttributeGroup();
+			return DataFactory.forVersion(1).createUnmodifiableData(atg, dataBytes);
+		}
+		catch(ConfigurationException e) {
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		}
 	}
 }
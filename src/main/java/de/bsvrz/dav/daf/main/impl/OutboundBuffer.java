@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.main.impl;
+
+import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
+import de.bsvrz.dav.daf.util.fileBackedQueue.FileBackedQueue;
+import de.bsvrz.dav.daf.util.fileBackedQueue.QueueSerializer;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Puffer für Datensätze, die während einer Unterbrechung der Verbindung zum Datenverteiler versendet werden sollen (Store-and-Forward). Die Datensätze werden
+ * in serialisierter Form in einer {@link FileBackedQueue} abgelegt, die bei Überschreiten des Arbeitsspeicher-Anteils ins Dateisystem ausgelagert wird. Nach
+ * der Wiederverbindung überträgt ein eigener Thread die gepufferten Datensätze in der ursprünglichen Reihenfolge als nachgelieferte Datensätze, sobald die
+ * jeweilige Sendeanmeldung wieder bestätigt ist. Die Übertragung ist auf eine feste Anzahl Datensätze pro Sekunde begrenzt, damit der Datenverteiler und die
+ * aktuellen Datensätze der Applikation nicht durch den Rückstau verdrängt werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ * @see SubscriptionManager#connectionLost()
+ */
+final class OutboundBuffer {
+
+	/** Debuglogger */
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Maximale Größe des im Arbeitsspeicher gehaltenen Anteils in Bytes */
+	private static final int MEMORY_CAPACITY = 1024 * 1024;
+
+	/** Zeit in Millisekunden, nach der ein gepufferter Datensatz verworfen wird, wenn seine Sendeanmeldung nicht bestätigt wird */
+	private static final long REPLAY_TIMEOUT = 60 * 1000;
+
+	/** Wartezeit in Millisekunden zwischen zwei Versuchen, einen Datensatz mit noch nicht bestätigter Sendeanmeldung zu übertragen */
+	private static final long RETRY_INTERVAL = 100;
+
+	/** Gepufferte Datensätze */
+	private final FileBackedQueue<Entry> _queue;
+
+	/** Anmeldungsverwaltung, über die die gepufferten Datensätze übertragen werden */
+	private final SubscriptionManager _subscriptionManager;
+
+	/** Mindestabstand zwischen zwei übertragenen Datensätzen in Nanosekunden */
+	private final long _replayPause;
+
+	/** Thread, der die gepufferten Datensätze überträgt */
+	private final Thread _replayThread;
+
+	/** <code>true</code>, wenn die Verbindung besteht und gepufferte Datensätze übertragen werden dürfen */
+	private boolean _active = true;
+
+	/** Anzahl der verworfenen Datensätze, weil der Puffer voll war */
+	private long _rejectedCount = 0;
+
+	/**
+	 * Erzeugt einen neuen Puffer und startet den Thread für die Übertragung der gepufferten Datensätze.
+	 *
+	 * @param subscriptionManager Anmeldungsverwaltung, über die die gepufferten Datensätze übertragen werden
+	 * @param capacity            Maximaler Speicherbedarf des Puffers im Dateisystem in Bytes
+	 * @param replayRate          Maximale Anzahl übertragener Datensätze pro Sekunde
+	 */
+	OutboundBuffer(final SubscriptionManager subscriptionManager, final long capacity, final int replayRate) {
+		if(capacity < 1) throw new IllegalArgumentException("Die Kapazität muss größer 0 sein: " + capacity);
+		if(replayRate < 1) throw new IllegalArgumentException("Die Übertragungsrate muss größer 0 sein: " + replayRate);
+		_subscriptionManager = subscriptionManager;
+		_queue = new FileBackedQueue<Entry>((int)Math.min(MEMORY_CAPACITY, capacity), capacity, new EntrySerializer());
+		_replayPause = 1000000000L / replayRate;
+		_replayThread = new Thread(new Replayer(), "Sendepuffer");
+		_replayThread.setDaemon(true);
+		_replayThread.start();
+	}
+
+	/**
+	 * Legt einen Datensatz im Puffer ab.
+	 *
+	 * @param info      Anmeldeinformationen des Datensatzes
+	 * @param dataTime  Zeitstempel des Datensatzes
+	 * @param errorFlag Fehlerkennung des Datensatzes
+	 * @param dataBytes Serialisierter Datensatz oder <code>null</code>
+	 *
+	 * @return <code>false</code>, wenn der Puffer voll ist und der Datensatz nicht abgelegt werden konnte, sonst <code>true</code>
+	 */
+	synchronized boolean store(final BaseSubscriptionInfo info, final long dataTime, final byte errorFlag, final byte[] dataBytes) {
+		if(!_queue.offer(new Entry(info, dataTime, errorFlag, dataBytes))) {
+			if(_rejectedCount++ == 0) {
+				_debug.warning("Der Sendepuffer ist voll, weitere Datensätze werden abgelehnt. Belegt im Dateisystem: " + _queue.getDiskUsed() + " Bytes");
+			}
+			return false;
+		}
+		_rejectedCount = 0;
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Legt fest, ob gepufferte Datensätze übertragen werden dürfen. Bei einer Unterbrechung der Verbindung wird die Übertragung angehalten und nach der
+	 * Wiederverbindung fortgesetzt.
+	 *
+	 * @param active <code>true</code>, wenn die Verbindung besteht
+	 */
+	synchronized void setActive(final boolean active) {
+		_active = active;
+		notifyAll();
+	}
+
+	/**
+	 * Gibt die Anzahl der gepufferten Datensätze zurück.
+	 *
+	 * @return Anzahl Datensätze
+	 */
+	int getSize() {
+		return _queue.size();
+	}
+
+	/** Beendet den Übertragungsthread und gibt den belegten Speicher im Dateisystem frei. Noch nicht übertragene Datensätze gehen verloren. */
+	void close() {
+		_replayThread.interrupt();
+		final int size = _queue.size();
+		if(size > 0) {
+			_debug.warning("Beim Schließen der Verbindung werden nicht übertragene Datensätze aus dem Sendepuffer verworfen: " + size);
+		}
+		_queue.clear();
+	}
+
+	/** Überträgt die gepufferten Datensätze in der ursprünglichen Reihenfolge mit begrenzter Rate. */
+	private class Replayer implements Runnable {
+
+		@Override
+		public void run() {
+			long nextTime = System.nanoTime();
+			long waitingSince = 0;
+			try {
+				while(!Thread.interrupted()) {
+					synchronized(OutboundBuffer.this) {
+						if(!_active || _queue.isEmpty()) {
+							waitingSince = 0;
+							while(!_active || _queue.isEmpty()) {
+								OutboundBuffer.this.wait();
+							}
+						}
+					}
+					final Entry entry = _queue.peek();
+					if(entry == null) continue;
+					final long delay = nextTime - System.nanoTime();
+					if(delay > 0) Thread.sleep(delay / 1000000, (int)(delay % 1000000));
+					if(_subscriptionManager.replayBufferedData(entry._info, entry._dataTime, entry._errorFlag, entry._dataBytes)) {
+						_queue.poll();
+						waitingSince = 0;
+						nextTime = Math.max(nextTime, System.nanoTime() - _replayPause) + _replayPause;
+					}
+					else if(waitingSince == 0) {
+						waitingSince = System.currentTimeMillis();
+						Thread.sleep(RETRY_INTERVAL);
+					}
+					else if(System.currentTimeMillis() - waitingSince > REPLAY_TIMEOUT) {
+						_debug.warning("Gepufferter Datensatz wird verworfen, da die Sendeanmeldung nicht bestätigt wurde: " + entry._info);
+						_queue.poll();
+						waitingSince = 0;
+					}
+					else {
+						Thread.sleep(RETRY_INTERVAL);
+					}
+				}
+			}
+			catch(InterruptedException ignored) {
+			}
+		}
+	}
+
+	/** Gepufferter Datensatz */
+	private static final class Entry {
+
+		private final BaseSubscriptionInfo _info;
+
+		private final long _dataTime;
+
+		private final byte _errorFlag;
+
+		private final byte[] _dataBytes;
+
+		private Entry(final BaseSubscriptionInfo info, final long dataTime, final byte errorFlag, final byte[] dataBytes) {
+			_info = info;
+			_dataTime = dataTime;
+			_errorFlag = errorFlag;
+			_dataBytes = dataBytes;
+		}
+	}
+
+	/** Serialisiert gepufferte Datensätze für die Auslagerung ins Dateisystem */
+	private static final class EntrySerializer implements QueueSerializer<Entry> {
+
+		@Override
+		public int getSize(final Entry entry) {
+			// Anmeldeinformationen (18), Zeitstempel (8), Fehlerkennung (1), Länge (4), Datensatz
+			return 31 + (entry._dataBytes == null ? 0 : entry._dataBytes.length);
+		}
+
+		@Override
+		public void serialize(final DataOutputStream outputStream, final Entry entry) throws IOException {
+			entry._info.write(outputStream);
+			outputStream.writeLong(entry._dataTime);
+			outputStream.writeByte(entry._errorFlag);
+			if(entry._dataBytes == null) {
+				outputStream.writeInt(-1);
+			}
+			else {
+				outputStream.writeInt(entry._dataBytes.length);
+				outputStream.write(entry._dataBytes);
+			}
+		}
+
+		@Override
+		public Entry deserialize(final DataInputStream inputStream) throws IOException {
+			final BaseSubscriptionInfo info = new BaseSubscriptionInfo();
+			info.read(inputStream);
+			final long dataTime = inputStream.readLong();
+			final byte errorFlag = inputStream.readByte();
+			final int length = inputStream.readInt();
+			final byte[] dataBytes;
+			if(length < 0) {
+				dataBytes = null;
+			}
+			else {
+				dataBytes = new byte[length];
+				inputStream.readFully(dataBytes);
+			}
+			return new Entry(info, dataTime, errorFlag, dataBytes);
+		}
+	}
+}
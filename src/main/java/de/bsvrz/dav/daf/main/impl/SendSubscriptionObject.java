@@ -26,12 +26,17 @@
 
 package de.bsvrz.dav.daf.main.impl;
 
+import de.bsvrz.dav.daf.main.ClientSenderBatchInterface;
 import de.bsvrz.dav.daf.main.ClientSenderInterface;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.SenderDataRequest;
+import de.bsvrz.dav.daf.main.config.SystemObject;
 import de.bsvrz.dav.daf.main.impl.subscription.SenderSubscription;
 import de.bsvrz.sys.funclib.debug.Debug;
 import de.bsvrz.sys.funclib.timeout.TimeoutTimer;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
@@ -83,6 +88,11 @@ public class SendSubscriptionObject {
 	 */
 	private byte _state = -1;
 
+	/**
+	 * <code>true</code>, wenn die Anmeldung nach einer Wiederverbindung erneut übertragen wurde und die Sendesteuerung des Datenverteilers dazu noch aussteht
+	 */
+	private volatile boolean _resyncPending = false;
+
 	public SendSubscriptionObject(SenderSubscription senderSubscription) {
 		_source = senderSubscription.isSource();
 		_senderSubscriptions.add(senderSubscription);
@@ -196,6 +206,7 @@ public class SendSubscriptionObject {
 	 */
 	public final void confirmSendDataRequest(byte state) {
 		_state = state;
+		_resyncPending = false;
 		if(state == 0) {
 			// Es liegt eine positive Sendesteuerung vor, falls jemand auf diese Nachricht wartet, wird er geweckt
 			synchronized(_requestLock) {
@@ -215,13 +226,32 @@ public class SendSubscriptionObject {
 	public void addSender(final SenderSubscription senderSubscription) {
 		if(_senderSubscriptions.add(senderSubscription) && _state != -1){
 			// Bereits bekannten Zustand als Sendesteuerung versenden
-			senderSubscription.getClientSender().dataRequest(
+			notifySender(
+					senderSubscription.getClientSender(),
 					senderSubscription.getSystemObject(),
 					senderSubscription.getDataDescription(),
 					_state);
 		}
 	}
 
+	/**
+	 * Leitet eine einzelne Sendesteuerung an einen Sender weiter. Sender, die {@link ClientSenderBatchInterface} implementieren, erhalten die
+	 * Sendesteuerung als Liste mit einem Element.
+	 *
+	 * @param client          Sender
+	 * @param object          Objekt der Anmeldung
+	 * @param dataDescription Datenbeschreibung der Anmeldung
+	 * @param state           Zustand der Sendesteuerung
+	 */
+	static void notifySender(final ClientSenderInterface client, final SystemObject object, final DataDescription dataDescription, final byte state) {
+		if(client instanceof ClientSenderBatchInterface) {
+			((ClientSenderBatchInterface)client).dataRequests(Collections.singletonList(new SenderDataRequest(object, dataDescription, state)));
+		}
+		else {
+			client.dataRequest(object, dataDescription, state);
+		}
+	}
+
 	public void removeSender(final ClientSenderInterface sender) {
 		for(SenderSubscription senderSubscription : _senderSubscriptions) {
 			if(senderSubscription.getClientSender() == sender){
@@ -237,4 +267,29 @@ public class SendSubscriptionObject {
 	public boolean isSource() {
 		return _source;
 	}
+
+	/**
+	 * Prüft ohne zu warten, ob Daten gesendet werden können. Das ist bei Quellen immer und bei Sendern nach einer positiven Sendesteuerung der Fall.
+	 *
+	 * @return <code>true</code>, wenn Daten gesendet werden können
+	 */
+	boolean isSendDataConfirmed() {
+		synchronized(_requestLock) {
+			return isSource() || (_requestAnswered && _state == 0);
+		}
+	}
+
+	/**
+	 * Prüft, ob nach einer Wiederverbindung noch auf die Sendesteuerung des Datenverteilers gewartet wird.
+	 *
+	 * @return <code>true</code>, wenn die Sendesteuerung noch aussteht
+	 */
+	boolean isResyncPending() {
+		return _resyncPending;
+	}
+
+	/** Vermerkt, dass die Anmeldung nach einer Wiederverbindung erneut übertragen wird und die Sendesteuerung des Datenverteilers abgewartet werden muss. */
+	void setResyncPending() {
+		if(!isSource()) _resyncPending = true;
+	}
 }
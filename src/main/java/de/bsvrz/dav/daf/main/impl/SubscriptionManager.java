@@ -30,6 +30,7 @@ package de.bsvrz.dav.daf.main.impl;
 
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray.ByteArrayData;
 import de.bsvrz.dav.daf.communication.dataRepresentation.datavalue.SendDataObject;
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.BaseSubscriptionInfo;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.ReceiveSubscriptionInfo;
 import de.bsvrz.dav.daf.communication.lowLevel.telegrams.RequestSenderDataTelegram;
@@ -111,6 +112,12 @@ public class SubscriptionManager {
 	/** Verwaltung der angemeldeten Receiver */
 	private CollectingReceiverManager _receiverManager;
 
+	/** Puffer für Datensätze, die während einer Verbindungsunterbrechung versendet werden, oder <code>null</code>, wenn nicht gepuffert wird */
+	private final OutboundBuffer _outboundBuffer;
+
+	/** <code>true</code> zwischen {@link #connectionLost()} und {@link #resubscribe()} */
+	private volatile boolean _connectionLost = false;
+
 	/** @param dafParameters Startparameter der Verbindung */
 	public SubscriptionManager(ClientDavParameters dafParameters) {
 		_receiverManager = new CollectingReceiverManager(dafParameters.getDeliveryBufferSize());
@@ -122,6 +129,12 @@ public class SubscriptionManager {
 
 		_initialisationComplete = false;
 		_dataDeliveryThread.start();
+		if(dafParameters.getOutboundBufferCapacity() > 0) {
+			_outboundBuffer = new OutboundBuffer(this, dafParameters.getOutboundBufferCapacity(), dafParameters.getOutboundBufferReplayRate());
+		}
+		else {
+			_outboundBuffer = null;
+		}
 	}
 
 	/**
@@ -238,32 +251,22 @@ public class SubscriptionManager {
 	}
 
 	/**
-	 * Realisiert eine Aspektumleitung, sofern dies über entsprechende Aufrufargumente der Applikation vorgegeben wurde. Gibt den Originalaspekt eines ersetzten
-	 * Aspekts einer Attributgruppe zurück. Wenn keine entsprechende Aspektumleitung besteht, wird der übergebene Aspekt unverändert zurückgegeben.
+	 * Realisiert eine Aspektumleitung, sofern dies über entsprechende Aufrufargumente der Applikation vorgegeben wurde. Gibt die Datenbeschreibung mit dem
+	 * Originalaspekt eines ersetzten Aspekts zurück. Wenn keine entsprechende Aspektumleitung besteht, wird die übergebene Datenbeschreibung unverändert
+	 * zurückgegeben.
 	 *
-	 * @param attributeGroup Umzuleitende Attributgruppe.
-	 * @param aspect         Ersetzer Aspekt.
+	 * @param dataDescription Datenbeschreibung mit ersetzendem Aspekt.
 	 *
-	 * @return Originalaspekt eines ersetzenden Aspekts. Wenn keine Aspektumleitung besteht, wird der übergebene Aspekt unverändert zurückgegeben.
+	 * @return Datenbeschreibung mit Originalaspekt. Wenn keine Aspektumleitung besteht, wird die übergebene Datenbeschreibung unverändert zurückgegeben.
 	 */
-	private final Aspect substituteToAspect(AttributeGroup attributeGroup, Aspect aspect) {
-		if(_configurationManager == null) {
-			throw new InitialisationNotCompleteException(
-					"Die Datenverteiler-Applikationsfunktionen sind noch nicht initialisiert."
-			);
-		}
-		String oldAspectPid = aspect.getPid();
-		String newAspectPid = _dafParameters.substituteToAspect(attributeGroup.getPid(), oldAspectPid);
-		if(!oldAspectPid.equals(newAspectPid)) {
-			DataModel model = _configurationManager.getDataModel();
-			if(model != null) {
-				Aspect _aspect = model.getAspect(newAspectPid);
-				if(_aspect != null) {
-					return _aspect;
-				}
-			}
-		}
-		return aspect;
+	private final DataDescription substituteToAspect(DataDescription dataDescription) {
+		// Ohne Konfiguration wird auch beim Anmelden keine Aspektumleitung durchgeführt (siehe ClientDavConnection)
+		final ConfigurationManager configurationManager = _configurationManager;
+		DataModel model = configurationManager == null ? null : configurationManager.getDataModel();
+		if(model == null) {
+			return dataDescription;
+		}
+		return _dafParameters.getAspectRedirections(model).substituteToAspect(dataDescription);
 	}
 
 	
@@ -315,26 +318,15 @@ public class SubscriptionManager {
 							baseSubscriptionInfo, receiverSubscription.getDelayedDataFlag()
 					);
 					if(cachedObject != null) {
-						DataDescription dataDescription = receiverSubscription.getDataDescription();
-						DataDescription _dataDescription = dataDescription;
-						if(_dataDescription != null) {
-							AttributeGroup attributeGroup = _dataDescription.getAttributeGroup();
-							Aspect aspect = _dataDescription.getAspect();
-							if((attributeGroup != null) && (aspect != null)) {
-								Aspect _aspect = substituteToAspect(attributeGroup, aspect);
-								if(!_aspect.equals(aspect)) {
-									_dataDescription = dataDescription.getRedirectedDescription(_aspect);
-								}
-							}
-						}
 						lastResult = new ResultData(
 								receiverSubscription.getSystemObject(),
-								_dataDescription,
+								receiverSubscription.getDeliveryDataDescription(),
 								cachedObject.getDelayedDataFlag(),
 								cachedObject.getDataNumber(),
 								cachedObject.getDataTime(),
 								cachedObject.getErrorFlag(),
-								cachedObject.getData()
+								cachedObject.getDataBytes(),
+								cachedObject::getData
 						);
 						if(receiver instanceof NonQueueingReceiver) {
 							receiver.update(new ResultData[]{lastResult});
@@ -395,9 +387,11 @@ public class SubscriptionManager {
 			externalSimulationVariant = _dafParameters.getSimulationVariant();
 		}
 
+		// Die Aspektumleitung wird einmalig bei der Anmeldung aufgelöst und nicht bei jedem empfangenen Datensatz
+		final DataDescription deliveryDataDescription = substituteToAspect(dataDescription);
 		for(int i = 0; i < objects.length; ++i) {
 			ReceiverSubscription subscription = new ReceiverSubscription(
-					receiver, objects[i], dataDescription, externalSimulationVariant, options, role, cacheTime
+					receiver, objects[i], dataDescription, deliveryDataDescription, externalSimulationVariant, options, role, cacheTime
 			);
 			subscribeReceiver(subscription);
 		}
@@ -734,7 +728,8 @@ public class SubscriptionManager {
 	 * @param result Ergebnis mit dem zu sendenden Datensatz.
 	 *
 	 * @throws DataNotSubscribedException Wenn die Daten nicht zum Senden angemeldet waren.
-	 * @throws de.bsvrz.dav.daf.main.SendSubscriptionNotConfirmed Wenn die Sendesteuerung abgewartet werden muss, bevor gesendet werden kann.
+	 * @throws de.bsvrz.dav.daf.main.SendSubscriptionNotConfirmed Wenn die Sendesteuerung abgewartet werden muss, bevor gesendet werden kann, oder wenn die
+	 * Verbindung unterbrochen und der Sendepuffer voll ist.
 	 */
 	public final void sendData(ResultData result) throws DataNotSubscribedException, SendSubscriptionNotConfirmed {
 		if(_highLevelCommunication == null) {
@@ -773,7 +768,9 @@ public class SubscriptionManager {
 			throw new DataNotSubscribedException("Der Datensatz kann nicht versendet werden. Er muss vorher angemeldet sein ("
 			        + systemObject.getPidOrNameOrId() + ", " + attributeGroup.getPidOrNameOrId() + ", " + aspect.getPidOrNameOrId() + ")");
 		}
-		if(!sendSubscriptionObject.canSendData()) {
+		final OutboundBuffer outboundBuffer = _outboundBuffer;
+		final boolean store = outboundBuffer != null && (_connectionLost || sendSubscriptionObject.isResyncPending());
+		if(!store && !sendSubscriptionObject.canSendData()) {
 			throw new SendSubscriptionNotConfirmed("Die Sendeanmeldung wurde noch nicht bestätigt ("
 			        + systemObject.getPidOrNameOrId() + ", " + attributeGroup.getPidOrNameOrId() + ", " + aspect.getPidOrNameOrId() + ")");
 		}
@@ -793,6 +790,14 @@ public class SubscriptionManager {
 		else {
 			dataBytes = null;
 		}
+		if(store) {
+			// Die Verbindung ist unterbrochen, der Datensatz wird nach der Wiederverbindung als nachgelieferter Datensatz übertragen
+			if(!outboundBuffer.store(baseSubscriptionInfo, result.getDataTime(), result.hasData() ? (byte)0 : (byte)1, dataBytes)) {
+				throw new SendSubscriptionNotConfirmed("Die Verbindung zum Datenverteiler ist unterbrochen und der Sendepuffer ist voll ("
+				        + systemObject.getPidOrNameOrId() + ", " + attributeGroup.getPidOrNameOrId() + ", " + aspect.getPidOrNameOrId() + ")");
+			}
+			return;
+		}
 		synchronized(sendSubscriptionObject) {
 			SendDataObject object = new SendDataObject(
 					baseSubscriptionInfo,
@@ -821,6 +826,46 @@ public class SubscriptionManager {
 	 * @param state Zustand der Sendesteuerung
 	 */
 	public synchronized void notifySenderApplication(BaseSubscriptionInfo info, byte state) {
+		notifySenderApplication(info, state, null);
+	}
+
+	/**
+	 * Verarbeitet mehrere Sendesteuerungen in der übergebenen Reihenfolge. Sender, die {@link ClientSenderBatchInterface} implementieren, werden nicht für
+	 * jede Sendesteuerung einzeln, sondern einmal mit allen sie betreffenden Sendesteuerungen benachrichtigt. Alle anderen Sender werden wie bei {@link
+	 * #notifySenderApplication(BaseSubscriptionInfo, byte)} einzeln benachrichtigt.
+	 *
+	 * @param telegrams Empfangene Sendesteuerungstelegramme
+	 */
+	public synchronized void notifySenderApplications(List<RequestSenderDataTelegram> telegrams) {
+		final Map<ClientSenderBatchInterface, List<SenderDataRequest>> batches = new IdentityHashMap<ClientSenderBatchInterface, List<SenderDataRequest>>();
+		for(RequestSenderDataTelegram telegram : telegrams) {
+			try {
+				notifySenderApplication(telegram.getDataToSendInfo(), telegram.getState(), batches);
+			}
+			catch(RuntimeException e) {
+				_debug.error("Fehler bei der Verarbeitung der Sendesteuerung", e);
+			}
+		}
+		for(Map.Entry<ClientSenderBatchInterface, List<SenderDataRequest>> entry : batches.entrySet()) {
+			try {
+				entry.getKey().dataRequests(entry.getValue());
+			}
+			catch(RuntimeException e) {
+				_debug.error("Fehler bei der Verarbeitung der Sendesteuerung", e);
+			}
+		}
+	}
+
+	/**
+	 * Verarbeitet eine Sendesteuerung.
+	 *
+	 * @param info    Anmeldeinfo, auf die sich die Sendesteuerung bezieht
+	 * @param state   Zustand der Sendesteuerung
+	 * @param batches Sammelt die Sendesteuerungen für Sender, die {@link ClientSenderBatchInterface} implementieren, oder <code>null</code>, wenn alle
+	 *                Sender sofort einzeln benachrichtigt werden sollen.
+	 */
+	private void notifySenderApplication(
+			final BaseSubscriptionInfo info, final byte state, final Map<ClientSenderBatchInterface, List<SenderDataRequest>> batches) {
 		if(info == null) {
 			return;
 		}
@@ -906,17 +951,19 @@ public class SubscriptionManager {
 							_debug.warning("Negative Sendesteuerung: " + warning + " (" + (object == null ? "null" : object.getPidOrNameOrId()) + " " + dataDescription);
 							warning = null;
 						}
-						if(dataDescription != null) {
-							AttributeGroup attributeGroup = dataDescription.getAttributeGroup();
-							Aspect aspect = dataDescription.getAspect();
-							if((attributeGroup != null) && (aspect != null)) {
-								Aspect _aspect = substituteToAspect(attributeGroup, aspect);
-								if(!_aspect.equals(aspect)) {
-									dataDescription = dataDescription.getRedirectedDescription(_aspect);
-								}
+						dataDescription = substituteToAspect(dataDescription);
+						if(batches != null && client instanceof ClientSenderBatchInterface) {
+							final ClientSenderBatchInterface batchClient = (ClientSenderBatchInterface)client;
+							List<SenderDataRequest> requests = batches.get(batchClient);
+							if(requests == null) {
+								requests = new ArrayList<SenderDataRequest>();
+								batches.put(batchClient, requests);
 							}
+							requests.add(new SenderDataRequest(object, dataDescription, state));
+						}
+						else {
+							SendSubscriptionObject.notifySender(client, object, dataDescription, state);
 						}
-						client.dataRequest(object, dataDescription, state);
 					}
 				}
 			}
@@ -971,6 +1018,7 @@ public class SubscriptionManager {
 				receiveSubscriptionObject.setActualDataAvaillable(true);
 				List<ReceiverSubscription> list = receiveSubscriptionObject.getReceiverSubscriptionList();
 				if(list != null) {
+					final LatencyTrace latencyTrace = cachedObject.getLatencyTrace();
 					final ReceiverSubscription[] receiverSubscriptions;
 					synchronized(list) {
 						receiverSubscriptions = list.toArray(new ReceiverSubscription[list.size()]);
@@ -978,28 +1026,20 @@ public class SubscriptionManager {
 					for(int i = 0; i < receiverSubscriptions.length; ++i) {
 						ReceiverSubscription receiverSubscription = receiverSubscriptions[i];
 						if(receiverSubscription != null) {
-							DataDescription dataDescription = receiverSubscription.getDataDescription();
-							if(dataDescription != null) {
-								AttributeGroup attributeGroup = dataDescription.getAttributeGroup();
-								Aspect aspect = dataDescription.getAspect();
-								if((attributeGroup != null) && (aspect != null)) {
-									Aspect _aspect = substituteToAspect(attributeGroup, aspect);
-									if(!_aspect.equals(aspect)) {
-										dataDescription = dataDescription.getRedirectedDescription(_aspect);
-									}
-								}
-							}
 							ResultData result = new ResultData(
 									receiverSubscription.getSystemObject(),
-									dataDescription,
+									receiverSubscription.getDeliveryDataDescription(),
 									cachedObject.getDelayedDataFlag(),
 									cachedObject.getDataNumber(),
 									cachedObject.getDataTime(),
 									cachedObject.getErrorFlag(),
-									cachedObject.getData()
+									cachedObject.getDataBytes(),
+									cachedObject::getData
 							);
+							if(latencyTrace != null) result.setLatencyTrace(latencyTrace);
 							ClientReceiverInterface receiver = receiverSubscription.getClientReceiver();
 							if(receiver instanceof NonQueueingReceiver) {
+								if(latencyTrace != null) latencyTrace.deliveredDirectly();
 								receiver.update(new ResultData[]{result});
 							}
 							else {
@@ -1010,6 +1050,7 @@ public class SubscriptionManager {
 							}
 						}
 					}
+					if(latencyTrace != null) latencyTrace.dispatched();
 				}
 			}
 		}
@@ -1032,11 +1073,185 @@ public class SubscriptionManager {
 		return 0;
 	}
 
+	/**
+	 * Bereitet die Anmeldungsverwaltung nach einem unerwarteten Verlust der Verbindung auf die automatische Wiederverbindung vor. Die Anmeldungen bleiben
+	 * erhalten und die im Cache gespeicherten Datensätze werden als veraltet markiert. Jeder Empfänger wird zusammengefasst für alle seine Anmeldungen mit einem
+	 * Datensatz ohne Quelle benachrichtigt, dessen Datensatzindex um 1 größer ist als der des zuletzt empfangenen Datensatzes. Damit wird der nach der
+	 * Wiederverbindung erneut empfangene aktuelle Datensatz wie nach einem Ausfall der Quelle akzeptiert. Sender erhalten die Sendesteuerung {@link
+	 * ClientSenderInterface#STOP_SENDING}.
+	 *
+	 * @see #resubscribe()
+	 */
+	public final void connectionLost() {
+		_connectionLost = true;
+		if(_outboundBuffer != null) _outboundBuffer.setActive(false);
+		_initialisationComplete = false;
+		synchronized(_configurationRequestStatus) {
+			for(ConfigurationRequestStatus configurationRequestStatus : _configurationRequestStatus.values()) {
+				configurationRequestStatus.setConfigurationReadRequestConfirmed(false);
+				configurationRequestStatus.setConfigurationWriteRequestConfirmed(false);
+			}
+		}
+		final CacheManager cacheManager = _cacheManager;
+		if(cacheManager != null) cacheManager.markStale();
+
+		final List<ReceiveSubscriptionObject> receiveSubscriptionObjects;
+		synchronized(_receiverObjectTable) {
+			receiveSubscriptionObjects = new ArrayList<ReceiveSubscriptionObject>(_receiverObjectTable.values());
+		}
+		final Map<ClientReceiverInterface, List<ResultData>> directUpdates = new IdentityHashMap<ClientReceiverInterface, List<ResultData>>();
+		final long now = System.currentTimeMillis();
+		synchronized(_receiverManager) {
+			for(ReceiveSubscriptionObject receiveSubscriptionObject : receiveSubscriptionObjects) {
+				receiveSubscriptionObject.setActualDataAvaillable(false);
+				final CachedObject lastCachedObject = cacheManager == null
+				                                      ? null
+				                                      : cacheManager.getLastValueOfCachedData(receiveSubscriptionObject.getBaseSubscriptionInfo(), true);
+				final long dataIndex = lastCachedObject == null ? 1 : lastCachedObject.getDataNumber() + 1;
+				final List<ReceiverSubscription> list = receiveSubscriptionObject.getReceiverSubscriptionList();
+				final ReceiverSubscription[] receiverSubscriptions;
+				synchronized(list) {
+					receiverSubscriptions = list.toArray(new ReceiverSubscription[list.size()]);
+				}
+				for(ReceiverSubscription receiverSubscription : receiverSubscriptions) {
+					final ResultData result = new ResultData(
+							receiverSubscription.getSystemObject(), receiverSubscription.getDeliveryDataDescription(), false, dataIndex, now, (byte)2, null, null
+					);
+					final ClientReceiverInterface receiver = receiverSubscription.getClientReceiver();
+					if(receiver instanceof NonQueueingReceiver) {
+						List<ResultData> results = directUpdates.get(receiver);
+						if(results == null) {
+							results = new ArrayList<ResultData>();
+							directUpdates.put(receiver, results);
+						}
+						results.add(result);
+					}
+					else {
+						final CollectingReceiver collectingReceiver = receiverSubscription.getCollectingReceiver();
+						if(collectingReceiver != null) {
+							_receiverManager.storeForDeliveryWithoutBlocking(collectingReceiver, result);
+						}
+					}
+				}
+			}
+		}
+		for(Map.Entry<ClientReceiverInterface, List<ResultData>> entry : directUpdates.entrySet()) {
+			final List<ResultData> results = entry.getValue();
+			entry.getKey().update(results.toArray(new ResultData[results.size()]));
+		}
+
+		final List<BaseSubscriptionInfo> senderInfos;
+		synchronized(_senderObjectTable) {
+			senderInfos = new ArrayList<BaseSubscriptionInfo>(_senderObjectTable.keySet());
+		}
+		final List<RequestSenderDataTelegram> telegrams = new ArrayList<RequestSenderDataTelegram>(senderInfos.size());
+		for(BaseSubscriptionInfo senderInfo : senderInfos) {
+			telegrams.add(new RequestSenderDataTelegram(senderInfo, RequestSenderDataTelegram.STOP_SENDING));
+		}
+		if(_configurationManager != null) notifySenderApplications(telegrams);
+		for(BaseSubscriptionInfo senderInfo : senderInfos) {
+			final SendSubscriptionObject sendSubscriptionObject = _senderObjectTable.get(senderInfo);
+			if(sendSubscriptionObject != null) sendSubscriptionObject.setResyncPending();
+		}
+	}
+
+	/**
+	 * Überträgt nach einer automatischen Wiederverbindung alle bestehenden Anmeldungen an die mit {@link #setHighLevelCommunication} gesetzte neue
+	 * Kommunikationsschicht. Zuerst werden die Anmeldungen von Konfigurationsanfragen an entfernte Konfigurationen übertragen, dann alle Sendeanmeldungen und
+	 * danach alle Empfangsanmeldungen. Die Telegramme werden ohne Rückfrage direkt hintereinander in die Sende-Queue eingetragen.
+	 *
+	 * @return Anzahl der übertragenen Anmeldungen
+	 *
+	 * @see #connectionLost()
+	 */
+	public final int resubscribe() {
+		final ClientHighLevelCommunication highLevelCommunication = _highLevelCommunication;
+		if(highLevelCommunication == null) {
+			throw new InitialisationNotCompleteException("Die Datenverteiler-Applikationsfunktionen sind noch nicht initialisiert.");
+		}
+		int count = 0;
+		for(ConfigurationManager configurationManager : _secondaryConfigurationManagers) {
+			final long configurationId = configurationManager.getConfigurationId();
+			highLevelCommunication.sendSendSubscription(
+					new SendSubscriptionInfo(
+							new BaseSubscriptionInfo(configurationId, AttributeGroupUsageIdentifications.CONFIGURATION_READ_REQUEST, (short)0),
+							SenderRole.sender(),
+							true
+					)
+			);
+			highLevelCommunication.sendSendSubscription(
+					new SendSubscriptionInfo(
+							new BaseSubscriptionInfo(configurationId, AttributeGroupUsageIdentifications.CONFIGURATION_WRITE_REQUEST, (short)0),
+							SenderRole.sender(),
+							true
+					)
+			);
+			count += 2;
+		}
+
+		final List<SendSubscriptionObject> sendSubscriptionObjects;
+		synchronized(_senderObjectTable) {
+			sendSubscriptionObjects = new ArrayList<SendSubscriptionObject>(_senderObjectTable.values());
+		}
+		for(SendSubscriptionObject sendSubscriptionObject : sendSubscriptionObjects) {
+			final Iterator<SenderSubscription> iterator = sendSubscriptionObject.getSenderSubscriptions().iterator();
+			if(!iterator.hasNext()) continue;
+			final SendSubscriptionInfo sendSubscriptionInfo = iterator.next().getSendSubscriptionInfo();
+			if(sendSubscriptionInfo == null) continue;
+			highLevelCommunication.sendSendSubscription(sendSubscriptionInfo);
+			count++;
+		}
+
+		final List<ReceiveSubscriptionObject> receiveSubscriptionObjects;
+		synchronized(_receiverObjectTable) {
+			receiveSubscriptionObjects = new ArrayList<ReceiveSubscriptionObject>(_receiverObjectTable.values());
+		}
+		for(ReceiveSubscriptionObject receiveSubscriptionObject : receiveSubscriptionObjects) {
+			final ReceiveSubscriptionInfo receiveSubscriptionInfo = receiveSubscriptionObject.getReceiveSubscriptionInfo();
+			if(receiveSubscriptionInfo == null) continue;
+			highLevelCommunication.sendReceiveSubscription(receiveSubscriptionInfo);
+			count++;
+		}
+		_connectionLost = false;
+		if(_outboundBuffer != null) _outboundBuffer.setActive(true);
+		return count;
+	}
+
+	/**
+	 * Überträgt einen während einer Verbindungsunterbrechung gepufferten Datensatz als nachgelieferten Datensatz. Diese Methode wird vom Übertragungsthread des
+	 * {@link OutboundBuffer} aufgerufen.
+	 *
+	 * @param info      Anmeldeinformationen des Datensatzes
+	 * @param dataTime  Zeitstempel des Datensatzes
+	 * @param errorFlag Fehlerkennung des Datensatzes
+	 * @param dataBytes Serialisierter Datensatz oder <code>null</code>
+	 *
+	 * @return <code>true</code>, wenn der Datensatz übertragen oder verworfen wurde, <code>false</code>, wenn die Sendeanmeldung noch nicht bestätigt ist
+	 */
+	boolean replayBufferedData(final BaseSubscriptionInfo info, final long dataTime, final byte errorFlag, final byte[] dataBytes) {
+		final SendSubscriptionObject sendSubscriptionObject = _senderObjectTable.get(info);
+		if(sendSubscriptionObject == null) {
+			_debug.fine("Gepufferter Datensatz wird verworfen, da die Sendeanmeldung nicht mehr besteht", info);
+			return true;
+		}
+		final ClientHighLevelCommunication highLevelCommunication = _highLevelCommunication;
+		if(_connectionLost || highLevelCommunication == null || !sendSubscriptionObject.isSendDataConfirmed()) return false;
+		synchronized(sendSubscriptionObject) {
+			highLevelCommunication.sendData(
+					new SendDataObject(info, true, sendSubscriptionObject.getSendDataIndex(), dataTime, errorFlag, null, dataBytes)
+			);
+		}
+		return true;
+	}
+
 	/** Schließt diese Subkomponente und terminiert den Aktualisierungsthread. */
 	public final void close() {
 		if(_dataDeliveryThread != null) {
 			_dataDeliveryThread.interrupt();
 		}
+		if(_outboundBuffer != null) {
+			_outboundBuffer.close();
+		}
 	}
 
 	/**
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.main.impl.config;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Spezielle Map-Implementierung mit Keys vom Typ <code>long</code>, die für die ID-Systemobjekt-Map im DafDataModel verwendet wird.
+ * <p>
+ * Die Map verwendet offene Adressierung mit linearer Sondierung auf einem Array von primitiven Keys, so dass beim Zugriff weder Keys geboxt noch
+ * Eintragsobjekte erzeugt werden müssen. Lesende Zugriffe ({@link #get(long)}) erfolgen ohne Sperren, schreibende Zugriffe sind synchronisiert. Der Key
+ * <code>0</code> kennzeichnet freie Plätze und kann nicht gespeichert werden.
+ * <p>
+ * Wie bei der bisherigen AutoExpireMap können bestimmte Werte bei Bedarf durch eine WeakReference ersetzt werden (ggf. nach einem Timeout). Abgeräumte
+ * Einträge werden bei schreibenden Zugriffen entfernt. Außerdem verkleinert sich die Map automatisch, wenn die Kapazität der Map mehr als 8 mal so groß ist,
+ * wie die aktuelle Elementanzahl.
+ * <p>
+ * Diese Klasse ist Threadsafe.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+class AutoExpireLongMap<V> {
+
+	private static final int MIN_CAPACITY = 64;
+
+	private static final Timer _timer = new Timer(true);
+
+	private final ReferenceQueue<Object> _queue = new ReferenceQueue<Object>();
+
+	/** Aktuelle Tabelle, wird beim Vergrößern und Verkleinern ersetzt */
+	private volatile Table _table = new Table(MIN_CAPACITY);
+
+	/** Anzahl der Einträge mit Wert */
+	private int _size = 0;
+
+	/** Anzahl der belegten Plätze inklusive gelöschter Einträge, deren Key noch in der Tabelle steht */
+	private int _used = 0;
+
+	/**
+	 * Leert die Map
+	 */
+	public synchronized void clear() {
+		drainQueue();
+		_table = new Table(MIN_CAPACITY);
+		_size = 0;
+		_used = 0;
+	}
+
+	/**
+	 * Bestimmt den Wert zu einem Key. Diese Methode benötigt keine Sperren.
+	 *
+	 * @param key Key
+	 *
+	 * @return Gespeicherter Wert oder <code>null</code>
+	 */
+	public V get(final long key) {
+		final Table table = _table;
+		final int index = table.find(key);
+		if(index < 0) return null;
+		return unpack(table._values.get(index));
+	}
+
+	/**
+	 * @see java.util.Map#containsKey(Object)
+	 */
+	public boolean containsKey(final long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Speichert einen Wert.
+	 *
+	 * @param key   Key (ungleich <code>0</code>)
+	 * @param value Wert, <code>null</code> entfernt den Eintrag
+	 *
+	 * @return Bisher gespeicherter Wert oder null
+	 */
+	public synchronized V put(final long key, final V value) {
+		if(key == 0) throw new IllegalArgumentException("Key 0 ist nicht zulässig");
+		drainQueue();
+		if(value == null) {
+			return remove(key);
+		}
+		Table table = _table;
+		int index = table.find(key);
+		if(index >= 0) {
+			final Object old = table._values.get(index);
+			table._values.set(index, value);
+			if(old == null) _size++;
+			return unpack(old);
+		}
+		if((_used + 1) * 2 > table.capacity()) {
+			table = resize(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(_size, 1)) * 4));
+		}
+		table.insert(key, value);
+		_size++;
+		_used++;
+		return null;
+	}
+
+	/**
+	 * Entfernt einen Eintrag sofort
+	 *
+	 * @param key Key
+	 *
+	 * @return Bisher gespeicherter Wert oder null
+	 */
+	public synchronized V remove(final long key) {
+		drainQueue();
+		final Table table = _table;
+		final int index = table.find(key);
+		if(index < 0) return null;
+		final Object old = table._values.getAndSet(index, null);
+		if(old != null) {
+			_size--;
+			shrinkIfNecessary();
+		}
+		return unpack(old);
+	}
+
+	/**
+	 * @see java.util.Map#isEmpty()
+	 */
+	public synchronized boolean isEmpty() {
+		drainQueue();
+		return _size == 0;
+	}
+
+	/**
+	 * @see java.util.Map#size()
+	 */
+	public synchronized int size() {
+		return _size;
+	}
+
+	/**
+	 * Gibt eine Kopie der enthaltenen Werte zurück.
+	 *
+	 * @return Werte
+	 */
+	public synchronized Collection<V> values() {
+		final List<V> result = new ArrayList<V>(_size);
+		final Table table = _table;
+		for(int i = 0; i < table.capacity(); i++) {
+			final V value = unpack(table._values.get(i));
+			if(value != null) {
+				result.add(value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sorgt dafür, dass ein Eintrag nach einer Zeit durch eine WeakReference ersetzt wird
+	 *
+	 * @param key     Key des Eintrags
+	 * @param val     Wert des Eintrags (muss angegeben werden um sicherzustellen, dass nicht zwischenzeitlich der Wert geändert wurde und dann irrtümlich
+	 *                entfernt wird, vgl. compareAndSwap-Technik)
+	 * @param timeout Anzahl Millisekunden, nach der der Eintrag ersetzt wird (> 0)
+	 */
+	public void expire(final long key, final V val, final long timeout) {
+		if(val == null) return;
+		_timer.schedule(
+				new TimerTask() {
+					@Override
+					public void run() {
+						expireNow(key, val);
+					}
+				}, timeout
+		);
+	}
+
+	/**
+	 * Sorgt dafür, dass ein Eintrag sofort durch eine WeakReference ersetzt wird
+	 *
+	 * @param key Key des Eintrags
+	 * @param val Wert des Eintrags (muss angegeben werden um sicherzustellen, dass nicht zwischenzeitlich der Wert geändert wurde und dann irrtümlich
+	 *            entfernt wird, vgl. compareAndSwap-Technik)
+	 */
+	public synchronized void expireNow(final long key, final V val) {
+		drainQueue();
+		final Table table = _table;
+		final int index = table.find(key);
+		if(index < 0) return;
+		final Object ref = table._values.get(index);
+		if(val != null && val.equals(ref)) {
+			table._values.set(index, new MyReference(key, val, _queue));
+		}
+	}
+
+	/**
+	 * Löst bei Bedarf WeakReferences auf, die gemischt mit normalen Objekten in der Map gespeichert sind
+	 *
+	 * @param ref Objekt oder Weakreference
+	 *
+	 * @return Ausgepacktes Objekt
+	 */
+	@SuppressWarnings("unchecked")
+	private V unpack(final Object ref) {
+		if(ref == null) return null;
+		if(ref instanceof MyReference) {
+			return (V)((MyReference)ref).get();
+		}
+		return (V)ref;
+	}
+
+	/**
+	 * Arbeitet die ReferenceQueue ab um abgeräumte Einträge zu entfernen
+	 */
+	private void drainQueue() {
+		// Muss synchronisiert ausgeführt werden
+		assert Thread.holdsLock(this);
+		boolean removed = false;
+		while(true) {
+			final MyReference ref = (MyReference)_queue.poll();
+			if(ref == null) break;
+			final Table table = _table;
+			final int index = table.find(ref.getKey());
+			if(index >= 0 && table._values.compareAndSet(index, ref, null)) {
+				_size--;
+				removed = true;
+			}
+		}
+		if(removed) shrinkIfNecessary();
+	}
+
+	private void shrinkIfNecessary() {
+		final int capacity = _table.capacity();
+		if(capacity > MIN_CAPACITY && (long)_size * 8 < capacity) {
+			resize(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(_size, 1)) * 4));
+		}
+	}
+
+	/**
+	 * Erzeugt eine neue Tabelle mit der angegebenen Kapazität, überträgt alle Einträge mit Wert und veröffentlicht die neue Tabelle für lesende Zugriffe.
+	 *
+	 * @param capacity Kapazität (Zweierpotenz)
+	 *
+	 * @return Neue Tabelle
+	 */
+	private Table resize(final int capacity) {
+		// Muss synchronisiert ausgeführt werden
+		assert Thread.holdsLock(this);
+		final Table oldTable = _table;
+		final Table newTable = new Table(capacity);
+		int size = 0;
+		for(int i = 0; i < oldTable.capacity(); i++) {
+			final Object value = oldTable._values.get(i);
+			if(value != null) {
+				newTable.insert(oldTable._keys.get(i), value);
+				size++;
+			}
+		}
+		_size = size;
+		_used = size;
+		_table = newTable;
+		return newTable;
+	}
+
+	/**
+	 * Tabelle mit offener Adressierung. Keys werden nach dem Einfügen nicht mehr entfernt, gelöschte Einträge behalten ihren Key und haben den Wert
+	 * <code>null</code>, damit lesende Zugriffe ohne Sperren immer eine konsistente Sondierungsfolge vorfinden.
+	 */
+	private static final class Table {
+
+		private final AtomicLongArray _keys;
+
+		private final AtomicReferenceArray<Object> _values;
+
+		private final int _mask;
+
+		private Table(final int capacity) {
+			_keys = new AtomicLongArray(capacity);
+			_values = new AtomicReferenceArray<Object>(capacity);
+			_mask = capacity - 1;
+		}
+
+		private int capacity() {
+			return _mask + 1;
+		}
+
+		private static int hash(final long key) {
+			final long h = key * 0x9E3779B97F4A7C15L;
+			return (int)(h ^ (h >>> 32));
+		}
+
+		/**
+		 * Sucht den Platz eines Keys.
+		 *
+		 * @param key Key
+		 *
+		 * @return Index oder -1, falls der Key nicht in der Tabelle enthalten ist
+		 */
+		private int find(final long key) {
+			int index = hash(key) & _mask;
+			while(true) {
+				final long k = _keys.get(index);
+				if(k == key) return index;
+				if(k == 0) return -1;
+				index = (index + 1) & _mask;
+			}
+		}
+
+		/**
+		 * Fügt einen neuen Key ein. Der Wert wird vor dem Key geschrieben, damit ein lesender Thread, der den Key sieht, auch den Wert sieht.
+		 *
+		 * @param key   Key, der noch nicht in der Tabelle enthalten ist
+		 * @param value Wert
+		 */
+		private void insert(final long key, final Object value) {
+			int index = hash(key) & _mask;
+			while(_keys.get(index) != 0) {
+				index = (index + 1) & _mask;
+			}
+			_values.set(index, value);
+			_keys.set(index, key);
+		}
+	}
+
+	/**
+	 * WeakReference-Implementierung, die sich den Key merkt
+	 */
+	private static class MyReference extends WeakReference<Object> {
+
+		private final long _key;
+
+		public MyReference(final long key, final Object value, final ReferenceQueue<Object> queue) {
+			super(value, queue);
+			_key = key;
+		}
+
+		public long getKey() {
+			return _key;
+		}
+	}
+}
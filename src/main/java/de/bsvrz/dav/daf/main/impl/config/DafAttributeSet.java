@@ -28,6 +28,7 @@
 
 package de.bsvrz.dav.daf.main.impl.config;
 
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.SystemObjectCache;
 import de.bsvrz.dav.daf.main.config.Attribute;
 import de.bsvrz.dav.daf.main.config.AttributeSet;
 import de.bsvrz.dav.daf.main.config.ObjectSet;
@@ -36,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Klasse, die den Zugriff auf Attributmengen seitens der Datenverteiler-Applikationsfunktionen ermöglicht.
@@ -43,11 +45,14 @@ import java.util.TreeMap;
  * @author Kappich Systemberatung
  * @version $Revision$
  */
-public class DafAttributeSet extends DafConfigurationObject implements AttributeSet {
+public class DafAttributeSet extends DafConfigurationObject implements AttributeSet, SystemObjectCache.Slots {
 
 	/** Liste der Attribute dieses Objektes */
 	private List<Attribute> _attributes;
 
+	/** Plätze für die von {@link SystemObjectCache}-Objekten zu diesem Objekt gespeicherten Beschreibungen für den Zugriff auf Datensätze */
+	private final AtomicReferenceArray<Object> _systemObjectCacheSlots = new AtomicReferenceArray<Object>(SystemObjectCache.SLOT_COUNT);
+
 	/**
 	 * Erzeugt ein neues Objekt dessen Eigenschaften im Anschluss mit der read-Methode eingelesen werden sollten.
 	 *
@@ -91,6 +96,10 @@ public class DafAttributeSet extends DafConfigurationObject implements Attribute
 		return str;
 	}
 
+	public final AtomicReferenceArray<Object> getSystemObjectCacheSlots() {
+		return _systemObjectCacheSlots;
+	}
+
 	public final List<Attribute> getAttributes() {
 		if((_attributes == null) || (_attributes.size() == 0)) {
 			final ArrayList<Attribute> attributes = new ArrayList<Attribute>();
@@ -27,12 +27,14 @@
 
 package de.bsvrz.dav.daf.main.impl.config;
 
+import de.bsvrz.dav.daf.communication.dataRepresentation.data.info.version1.SystemObjectCache;
 import de.bsvrz.dav.daf.main.config.AttributeType;
 import de.bsvrz.sys.funclib.dataSerializer.Deserializer;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
@@ -41,7 +43,7 @@ import java.io.IOException;
  * @author Kappich Systemberatung
  * @version $Revision$
  */
-public class DafAttributeType extends DafConfigurationObject implements AttributeType {
+public class DafAttributeType extends DafConfigurationObject implements AttributeType, SystemObjectCache.Slots {
 
 	/**
 	 * Typkennung des Attributwerts.
@@ -53,6 +55,9 @@ public class DafAttributeType extends DafConfigurationObject implements Attribut
 	/** Default-Attributwert oder <code>null</code> falls nicht definiert. */
 	private String _defaultAttributeValue;
 
+	/** Plätze für die von {@link SystemObjectCache}-Objekten zu diesem Objekt gespeicherten Beschreibungen für den Zugriff auf Datensätze */
+	private final AtomicReferenceArray<Object> _systemObjectCacheSlots = new AtomicReferenceArray<Object>(SystemObjectCache.SLOT_COUNT);
+
 	/**
 	 * Erzeugt ein neues Objekt dessen Eigenschaften im Anschluss mit der read-Methode eingelesen werden sollten.
 	 *
@@ -88,6 +93,10 @@ public class DafAttributeType extends DafConfigurationObject implements Attribut
 		return _defaultAttributeValue;
 	}
 
+	public final AtomicReferenceArray<Object> getSystemObjectCacheSlots() {
+		return _systemObjectCacheSlots;
+	}
+
 	public void write(DataOutputStream out) throws IOException {
 		super.write(out);
 		if(_defaultAttributeValue == null) {
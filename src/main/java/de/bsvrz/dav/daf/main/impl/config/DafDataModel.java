@@ -49,7 +49,6 @@ import de.bsvrz.sys.funclib.dataSerializer.Deserializer;
 import de.bsvrz.sys.funclib.dataSerializer.Serializer;
 import de.bsvrz.sys.funclib.dataSerializer.SerializingFactory;
 import de.bsvrz.sys.funclib.debug.Debug;
-import de.bsvrz.sys.funclib.filelock.FileLock;
 
 import java.io.*;
 import java.util.*;
@@ -78,7 +77,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 	private ClientDavInterface _publicConnection = null;
 
 	/** Map der zwischengespeicherten konfigurierenden oder dynamischen Systemobjekte, als Key dient die ID des Objekts */
-	private final AutoExpireMap<Long, DafSystemObject> _systemObjectsById;
+	private final AutoExpireLongMap<DafSystemObject> _systemObjectsById;
 
 	/** Map der zwischengespeicherten Objekte mit PID, als Key dient die PID des Objekts */
 	private HashMap<String, DafSystemObject> _systemObjectsByPid;
@@ -92,59 +91,55 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 	/** Objekt zur asynchronen Benachrichtigung der Listener für Änderungen der Elemente von dynamischen Zusammenstellungen. */
 	private NotifyingMutableCollectionChangeListener _notifyingMutableCollectionChangeListener;
 
-	private int _acceptedCachedAreas = 0;
-
-	private int _ignoredCachedAreas = 0;
-
-	private int _acceptedCachedSystemObjects = 0;
-
-	private int _ignoredCachedSystemObjects = 0;
-
-	private int _acceptedCachedConfigData = 0;
-
-	private int _ignoredCachedConfigData = 0;
-
+	/** Lokale Speicherung von Konfigurationsobjekten und konfigurierenden Datensätzen oder <code>null</code>, falls nicht gewünscht */
+	private volatile LocalConfigurationCache _localConfigurationCache = null;
 
 	/**
 	 * @return Liefert die Anzahl von Konfigurationsbereichen, die aus dem lokal gespeicherten Cache der Konfigurationsobjekte übernommen wurden.
 	 */
 	public int getAcceptedCachedAreas() {
-		return _acceptedCachedAreas;
+		final LocalConfigurationCache cache = _localConfigurationCache;
+		return cache == null ? 0 : cache.getAcceptedAreas();
 	}
 
 	/**
 	 * @return Liefert die Anzahl von Konfigurationsbereichen, die nicht aus dem lokal gespeicherten Cache der Konfigurationsobjekte übernommen wurden.
 	 */
 	public int getIgnoredCachedAreas() {
-		return _ignoredCachedAreas;
+		final LocalConfigurationCache cache = _localConfigurationCache;
+		return cache == null ? 0 : cache.getIgnoredAreas();
 	}
 
 	/**
 	 * @return Liefert die Anzahl von Konfigurationsobjekten, die aus dem lokal gespeicherten Cache der Konfigurationsobjekte übernommen wurden.
 	 */
 	public int getAcceptedCachedSystemObjects() {
-		return _acceptedCachedSystemObjects;
+		final LocalConfigurationCache cache = _localConfigurationCache;
+		return cache == null ? 0 : cache.getAcceptedSystemObjects();
 	}
 
 	/**
 	 * @return Liefert die Anzahl von Konfigurationsobjekten, die nicht aus dem lokal gespeicherten Cache der Konfigurationsobjekte übernommen wurden.
 	 */
 	public int getIgnoredCachedSystemObjects() {
-		return _ignoredCachedSystemObjects;
+		final LocalConfigurationCache cache = _localConfigurationCache;
+		return cache == null ? 0 : cache.getIgnoredSystemObjects();
 	}
 
 	/**
 	 * @return Liefert die Anzahl von konfigurierenden Datensätzen, die aus dem lokal gespeicherten Cache der Konfigurationsobjekte übernommen wurden.
 	 */
 	public int getAcceptedCachedConfigData() {
-		return _acceptedCachedConfigData;
+		final LocalConfigurationCache cache = _localConfigurationCache;
+		return cache == null ? 0 : cache.getAcceptedConfigData();
 	}
 
 	/**
 	 * @return Liefert die Anzahl von konfigurierenden Datensätzen, die nicht aus dem lokal gespeicherten Cache der Konfigurationsobjekte übernommen wurden.
 	 */
 	public int getIgnoredCachedConfigData() {
-		return _ignoredCachedConfigData;
+		final LocalConfigurationCache cache = _localConfigurationCache;
+		return cache == null ? 0 : cache.getIgnoredConfigData();
 	}
 
 	/**
@@ -200,12 +195,8 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 
 	private DavConnectionListener _davConnectionListener;
 
-	private Map<Long, ConfigurationAreaInfo> _areaInfos;
-
 	private DafSystemObject[] _configAreas;
 
-	private Set<SystemObjectType> _metaObjectTypes;
-
 	/**
 	 * Erzeugt ein neues Objekt zum Zugriff auf die Konfiguration über eine vorgegebene Datenverteilerverbindung.
 	 *
@@ -213,7 +204,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 	 */
 	public DafDataModel(ClientDavInterface connection) {
 		_connection = connection;
-		_systemObjectsById = new AutoExpireMap<Long, DafSystemObject>();
+		_systemObjectsById = new AutoExpireLongMap<DafSystemObject>();
 		_systemObjectsByPid = new HashMap<String, DafSystemObject>();
 		_configDataValuesTable = new Hashtable<ConfigDataKey, Object>();
 		_pendingResponses = new LinkedList<ConfigTelegram>();
@@ -276,59 +267,24 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		return _connectionClosed;
 	}
 	
-	/** Hilfsklasse zum Speichern von Informationen zu Konfigurationsbereichen. */
-	private class ConfigurationAreaInfo {
-
-		private DafConfigurationArea _area;
-
-		private short _activeVersion;
-
-		private long _dynamicObjectChangeTime;
-
-		private long _configurationObjectChangeTime;
-
-		private long _configurationDataChangeTime;
-
-		public ConfigurationAreaInfo(
-				final DafConfigurationArea area,
-				final short activeVersion,
-				final long dynamicObjectChangeTime,
-				final long configurationObjectChangeTime,
-				final long configurationDataChangeTime
-		) {
-			_area = area;
-			_activeVersion = activeVersion;
-			_dynamicObjectChangeTime = dynamicObjectChangeTime;
-			_configurationObjectChangeTime = configurationObjectChangeTime;
-			_configurationDataChangeTime = configurationDataChangeTime;
-		}
-	}
-
 	/**
 	 * Liest lokal zwischengespeicherte Konfigurationsobjekte und konfigurierende Datensätze ein, falls in dem entsprechenden Aufrufparameter ein Verzeichnis
-	 * angegeben wurde und dort eine passende Datei vorhanden ist.
-	 * Nach der Anzahl der relevanten Konfigurationsbereiche werden für jeden Konfigurationsbereich folgende Informationen in der Datei erwartet
-	 * <ul><li>die (long-)Id des Konfigurationsbereiches,</li> <li>die  (short-)Aktive Version des Konfigurationsbereiches,</li><li> der (long-) Zeitstempel der
-	 * letzen Änderung von dynamischen Objekten,</li><li> der (long-) Zeitsempel der letzten Änderung von konfigurierenden Objekten,</li><li> der Zeitstempel der
-	 * letzten Änderung von konfigurierenden Datensätzen</li></ul>
-	 * Diese Informationen werden mit den entsprechenden Werten in der Konfiguration verglichen. Nur wenn alle Werte übereinstimmen, werden Objekte des
-	 * jeweiligen Bereichs aus der Datei geladen.
-	 * Ein Konfigurationsobjekt wird seriell wie folgt aus der Datei gelesen: <ol> <li>byte: 1 (die eins kennzeichnet ein Konfigurationsobjekt und zeigt an, dass
-	 * ein solches folgt)</li> <li>byte: internType (gint an, um welchen Typ von Konfigurationsobjekt es sich handelt)</li> <li>Object: object(serielles
-	 * Objekt)</li> </ol> Ein konfigurierender Datensatz wird seriell aus der Datei wie folgt gelesen: <ol> <li> byte: 2 (die zwei kennzeichnet einen
-	 * konfigurierenden Datensatz und zeigt an das ein solcher folgt)</li> <li> long: Objekt-ID(Die ID des Objektes zu dem der konfiguriende Datensatz gehört)</li>
-	 * <li> long: AtgV-ID(Die ID der Atributgruppenverwedung des konfigurienden Datensatzes)</li> <li> boolean: true-> Datensatz enthält Daten, false-> Datensatz
-	 * enthält keine Daten</li> <li> Data: serialisierte Daten des Datensatzes</li> </ol> Abschließend wird eine byte-0 geschrieben, das anzeigt, dass das Ende der
-	 * Datei erreicht ist.
+	 * angegeben wurde und dort eine passende Datei vorhanden ist. Dazu werden zunächst für alle Konfigurationsbereiche die aktive Version und die Zeitstempel der
+	 * letzten Änderungen von dynamischen Objekten, Konfigurationsobjekten und konfigurierenden Datensätzen von der Konfiguration ermittelt. Gespeicherte Objekte
+	 * und Datensätze werden getrennt nach Bereich und Art nur übernommen, wenn die jeweils relevanten Werte übereinstimmen. Zur Laufzeit geladene Objekte und
+	 * Datensätze werden an ein Journal angehängt und im Hintergrund mit der Datei verdichtet. Das Dateiformat ist bei {@link LocalConfigurationCache}
+	 * beschrieben.
 	 */
 	public void loadLocalConfigurationCache() {
 		String configurationPath = _configurationManager.getConfigurationPath();
 
+		final Map<Long, LocalConfigurationCache.AreaInfo> areaInfos;
+		final Set<SystemObjectType> metaObjectTypes;
 		try {
 			if(configurationPath == null) {
 				return;
 			}
-			Map<Long, ConfigurationAreaInfo> areaInfos = new HashMap<Long, ConfigurationAreaInfo>();
+			areaInfos = new HashMap<Long, LocalConfigurationCache.AreaInfo>();
 			final Data[] datas = getConfigurationData(_configAreas, getAttributeGroup("atg.konfigurationsBereichÄnderungsZeiten"));
 			for(int i = 0; i < _configAreas.length; i++) {
 				DafSystemObject configArea = _configAreas[i];
@@ -344,14 +300,12 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 						configurationObjectChangeTime = datas[i].getTimeValue("LetzteÄnderungszeitKonfigurationsObjekt").getMillis();
 						configurationDataChangeTime = datas[i].getTimeValue("LetzteÄnderungszeitDatensatz").getMillis();
 					}
-					final ConfigurationAreaInfo info;
-					info = new ConfigurationAreaInfo(
+					final LocalConfigurationCache.AreaInfo info = new LocalConfigurationCache.AreaInfo(
 							configurationArea, activeVersion, dynamicObjectChangeTime, configurationObjectChangeTime, configurationDataChangeTime
 					);
 					areaInfos.put(areaId, info);
 				}
 			}
-			_areaInfos = areaInfos;
 
 			String[] metaTypePids = {
 					"typ.aspekt", "typ.attribut", "typ.attributgruppe", "typ.attributgruppenVerwendung", "typ.attributTyp", "typ.konfigurationsBereich",
@@ -359,7 +313,6 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 					"menge.attribute", "menge.attributgruppen", "menge.attributgruppenVerwendungen", "menge.mengenVerwendungen", "menge.objektTypen",
 					"menge.werteZustaende"
 			};
-			Set<SystemObjectType> metaObjectTypes;
 			metaObjectTypes = new HashSet<SystemObjectType>();
 			final List<SystemObjectType> typesToAdd = new LinkedList<SystemObjectType>();
 			for(int i = 0; i < metaTypePids.length; i++) {
@@ -374,7 +327,6 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 					typesToAdd.addAll(typeToAdd.getSubTypes());
 				}
 			}
-			_metaObjectTypes = metaObjectTypes;
 		}
 		catch(Exception e) {
 			_debug.warning("Vorbereitung zum Laden der lokalen Konfigurationsdatei fehlgeschlagen ", e);
@@ -382,325 +334,56 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		}
 		try {
 			final File localConfigurationFile = getLocalConfigurationCacheFile(configurationPath);
-			if(!localConfigurationFile.exists()) {
-				_debug.info("Lokale Konfigurationsdatei ist nicht vorhanden", localConfigurationFile);
-				return;
-			}
-			if(!localConfigurationFile.canRead()) {
-				_debug.warning("Lesender Zugriff auf lokale Konfigurationsdatei nicht erlaubt", localConfigurationFile);
-				return;
-			}
-			FileLock fileLock = new FileLock(localConfigurationFile);
-			DataInputStream in = null;
-			fileLock.lock();
-			try {
-				_debug.info("Lokale Konfiguration wird gelesen", localConfigurationFile);
-				in = new DataInputStream(new BufferedInputStream(new FileInputStream(localConfigurationFile)));
-
-				// Fester String zur Kennzeichnung der Datei
-				if(in.readUTF().equals("LokaleKonfigurationsCacheDatei") == false) {
-					throw new IllegalArgumentException("Dateikopf Fehlerhaft; Datei ist keine lokale Konfigurationsdatei");
-				}
-
-				// Versionsnummer
-				if(in.readByte() != 1) {
-					throw new IllegalArgumentException("Version der lokalen Konfigurationsdatei ist nicht wie erwartet 1");
-				}
-
-				Set<Long> acceptableAreas = new HashSet<Long>();
-
-				// Anzahl der folgenden Blöcke, die jeweils Informationen zu einem Konfigurationsbereich aufweisen
-				int numberOfAreas = in.readInt();
-
-				_acceptedCachedAreas = 0;
-
-				_ignoredCachedAreas = 0;
-
-
-				for(int i = 0; i < numberOfAreas; i++) {
-
-					// Id des Bereichs
-					long areaId = in.readLong();
-
-					// Aktive Version des Bereichs
-					short activeVersion = in.readShort();
-
-					// Zeitstempel der letzten Änderung an dynamischen Objekten des Bereichs
-					final long dynamicObjectChangeTime = in.readLong();
-
-					// Zeitstempel der letzten Änderung an Konfigurationsobjekten des Bereichs
-					final long configurationObjectChangeTime = in.readLong();
-
-					// Zeitstempel der letzten Änderung an konfigurierenden Datensätzen
-					final long configurationDataChangeTime = in.readLong();
-
-					final DafDataModel.ConfigurationAreaInfo info = _areaInfos.get(areaId);
-
-					if(info == null) continue;
-
-					if(info._activeVersion == activeVersion && info._dynamicObjectChangeTime == dynamicObjectChangeTime
-					   && info._configurationObjectChangeTime == configurationObjectChangeTime
-					   && info._configurationDataChangeTime == configurationDataChangeTime) {
-						_acceptedCachedAreas++;
-						acceptableAreas.add(areaId);
-						_debug.finer("Objekte des folgenden Bereichs werden akzeptiert", info._area.getPid());
-					}
-					else {
-						_ignoredCachedAreas++;
-						_debug.info(
-								"Da sich der folgende Konfigurationsbereich geändert hat, werden lokal gespeicherte Objekte dieses Bereichs verworfen",
-								info._area.getPid()
-						);
-					}
-				}
-
-				_acceptedCachedSystemObjects = 0;
-				_ignoredCachedSystemObjects = 0;
-
-				_acceptedCachedConfigData = 0;
-				_ignoredCachedConfigData = 0;
-
-				//deserialisieren
-				Deserializer deserializer = SerializingFactory.createDeserializer(in);
-
-				while(true) {
-					// Kennung, 1 heisst: es folgt ein Objekt, 2 heisst: es folgt ein konfigurierender Datensatz,  0 heisst: Ende
-					byte token = in.readByte();
-
-					if(token == 1) {
-
-						// Typkennung des Objekts
-						byte objectTypeByte = in.readByte();
-
-						DafSystemObject object = DafSystemObject.getObject(objectTypeByte, this);
-						if(object == null) {
-							throw new RuntimeException("Fehlerhafter Dateiaufbau, Objekttypkennung " + objectTypeByte);
-						}
-
-						// Serialisiertes Objekt
-						object.read(in);
-						if(acceptableAreas.contains(object.getConfigurationAreaId())) {
-							_acceptedCachedSystemObjects++;
-							// Objekt in interne Tabellen eintragen
-							updateInternalDataStructure(object, false);
-						}
-						else {
-							_ignoredCachedSystemObjects++;
-						}
-					}
-					else if(token == 2) {
-						long objectID = deserializer.readLong();
-						long atgUsageID = deserializer.readLong();
-
-						SystemObject object = this.getObject(objectID);
-						AttributeGroupUsage atgUsage = this.getAttributeGroupUsage(atgUsageID);
-						if(object == null || atgUsage == null) {
-							throw new IllegalStateException("unbekannte gespeicherte Datenidentifikation: Objekt-ID: " + objectID + ", objekt: " + object + ", atgUsageID: " + atgUsageID + ", atgUsage: " + atgUsage);
-						}
-
-						ConfigDataKey dataKey = new ConfigDataKey(object, atgUsage);
-
-						boolean dataExists = deserializer.readBoolean();
-						boolean accepted = acceptableAreas.contains(object.getConfigurationArea().getId());
-						Data data;
-
-						//Existiert der Datensatz ?
-						if(dataExists) {
-
-							AttributeGroup atg = atgUsage.getAttributeGroup();
-
-							try {
-								data = deserializer.readData(atg, this);
-							}
-							catch(Exception e) {
-								//beim Lesen des Datensatzes ist ein Fehler aufgetreten,
-								//ab hier werden alle konfigurierenden Datensätze aus der Datei ignoriert
-								_debug.warning("Fehler beim Lesen eines Zwischengespeicherten Datensatzes", e);
-								break;
-							}
-						}
-						else {
-							data = null;
-						}
-
-						if(accepted) {
-							_acceptedCachedConfigData++;
-
-							if(data != null) {
-								_configDataValuesTable.put(dataKey, data);
-							}
-							else {
-								//es existiert kein Datensatz
-								_configDataValuesTable.put(dataKey, _noDataMarker);
-							}
-						}
-						else {
-							_ignoredCachedConfigData++;
-						}
-					}
-					else if(token == 0) {
-						break;
-					}
-					else {
-						throw new RuntimeException("Fehlerhafter Dateiaufbau, Token " + token);
-					}
-				}
-				_debug.fine("Anzahl akzeptierter Konfigurationsbereiche", _acceptedCachedAreas);
-				_debug.fine("Anzahl verworfener Konfigurationsbereiche", _ignoredCachedAreas);
-				_debug.fine("Anzahl akzeptierter SystemObjekte", _acceptedCachedSystemObjects);
-				_debug.fine("Anzahl verworfener SystemObjekte", _ignoredCachedSystemObjects);
-				_debug.fine("Anzahl akzeptierte konfigurierende Datensätze", _acceptedCachedConfigData);
-				_debug.fine("Anzahl verworfene konfigurierende Datensätze", _ignoredCachedConfigData);
-
-				_debug.info("lokale Konfigurationsdatei wurde erfolgreich eingelesen");
-			}
-			finally {
-				if(in != null) {
-					in.close();
-				}
-				fileLock.unlock();
-			}
+			final LocalConfigurationCache cache = new LocalConfigurationCache(this, localConfigurationFile, areaInfos, metaObjectTypes);
+			cache.load();
+			_localConfigurationCache = cache;
 		}
 		catch(Exception e) {
 			_debug.warning("Fehler beim Laden der lokalen Konfigurationsdatei aus dem Verzeichnis " + configurationPath, e);
-			return;
 		}
 	}
 
 	/**
-	 * Speichert Konfigurationsobjekte und konfigurierende Datensätze in einer lokalen Konfigurationsdatei, falls im entsprechenden Aufrufparameter ein Verzeichnis
-	 * angegeben wurde. Vor den Konfigurationsobjekten und deren Datensätzen wird folgendes geschrieben: <ul><li>die (long-)Id des Konfigurationsbereiches,</li>
-	 * <li>die  (short-)Aktive Version des Konfigurationsbereiches,</li><li> der (long-) Zeitstempel der letzen Änderung von dynamischen Objekten,</li><li> der
-	 * (long-) Zeitsempel der letzten Änderung von konfigurierenden Objekten,</li><li> der Zeitstempel der letzten Änderung von konfigurierenden
-	 * Datensätzen</li></ul>
-	 * EinkonfigurationsObjekt wird seriell wie folgt in der Datei abgelegt: <ol> <li>byte: 1 (die eins kennzeichnet ein Konfigurationsobjekt und zeigt an, dass
-	 * ein solches folgt)</li> <li>byte: internType (gint an, um welchen Typ von Konfigurationsobjekt es sich handelt)</li> <li>Object: object(serielles
-	 * Objekt)</li> </ol> Ein konfigurierender Datensatz wird seriell in der Datei wie folgt abgelegt: <ol> <li> byte: 2 (die zwei kennzeichnet einen
-	 * konfigurierenden Datensatz und zeigt an das ein solcher folgt)</li> <li> long: Objekt-ID(Die ID des Objektes zu dem der konfiguriende Datensatz gehört)</li>
-	 * <li> long: AtgV-ID(Die ID der Atributgruppenverwedung des konfigurienden Datensatzes)</li> <li> boolean: true-> Datensatz enthält Daten, false-> Datensatz
-	 * enthält keine Daten</li> <li> Data: serialisierte Daten des Datensatzes</li> </ol> Abschließend wird eine byte-0 geschrieben, die anzeigt, dass das Ende der
-	 * Datei erreicht ist.
+	 * Liefert alle zwischengespeicherten Systemobjekte für die lokale Speicherung.
+	 *
+	 * @return Array mit den zwischengespeicherten Objekten
 	 */
-	private void saveLocalConfigurationCache() {
-		String configurationPath = null;
-		if(_configurationManager != null) {
-			configurationPath = _configurationManager.getConfigurationPath();
-		}
-		if(configurationPath == null) {
-			return;
-		}
-		if(_areaInfos == null) {
-			_debug.warning(
-					"Lokale Konfigurationsdatei kann nicht gespeichert werden, weil die dazu erforderlichen Konfigurationsbereichsinformationen "
-					+ "nicht ermittelt werden konnten"
-			);
-			return;
-		}
-		try {
-			final File localConfigurationFile = getLocalConfigurationCacheFile(configurationPath);
-			if(localConfigurationFile.exists() && !localConfigurationFile.canWrite()) {
-				_debug.warning("Schreibender Zugriff auf vorhandene lokale Konfigurationsdatei nicht erlaubt", localConfigurationFile);
-				return;
-			}
-			boolean saveWasSuccessful = false;
-			DataOutputStream out = null;
-			FileLock fileLock = new FileLock(localConfigurationFile);
-			fileLock.lock();
-			try {
-				_debug.info("Lokale Konfiguration wird geschrieben", localConfigurationFile);
-				out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(localConfigurationFile)));
-				// Fester String zur Kennzeichnung der Datei
-				out.writeUTF("LokaleKonfigurationsCacheDatei");
-				// Versionsnummer
-				out.writeByte(1);
-				// Anzahl der folgenden Blöcke, die jeweils Informationen zu einem Konfigurationsbereich aufweisen
-				out.writeInt(_areaInfos.size());
-				for(Map.Entry<Long, ConfigurationAreaInfo> entry : _areaInfos.entrySet()) {
-					final long areaId = entry.getKey();
-					final DafDataModel.ConfigurationAreaInfo info = entry.getValue();
-					// Id des Bereichs
-					out.writeLong(areaId);
-					// Aktive Version des Bereichs
-					out.writeShort(info._activeVersion);
-					// Zeitstempel der letzten Änderung an dynamischen Objekten des Bereichs
-					out.writeLong(info._dynamicObjectChangeTime);
-					// Zeitstempel der letzten Änderung an Konfigurationsobjekten des Bereichs
-					out.writeLong(info._configurationObjectChangeTime);
-					// Zeitstempel der letzten Änderung an konfigurierenden Datensätzen
-					out.writeLong(info._configurationDataChangeTime);
-				}
-
-				DafSystemObject[] objects;
-				synchronized(_systemObjectsById) {
-					objects = _systemObjectsById.values().toArray(new DafSystemObject[0]);
-				}
-				int systemObjectsWritten = 0;
-				for(int i = 0; i < objects.length; i++) {
-
-					DafSystemObject object = objects[i];
-					if(object.isValid() && !_metaObjectTypes.contains(object.getType())) {
-
-						// Kennung 1 heisst: es folgt ein Objekt
-						out.writeByte(1);
-
-						// Typkennung des Objekts
-						out.writeByte(object.getInternType());
-
-						// Serialisiertes Objekt
-						object.write(out);
-
-						systemObjectsWritten++;
-					}
-				}
-
-				//Konfigurierende Datensätze schreiben
-				int configDataSetsWritten = 0;
-				final Serializer serializer = SerializingFactory.createSerializer(out);
-				final Set<Map.Entry<ConfigDataKey, Object>> entries = _configDataValuesTable.entrySet();
-				for(Map.Entry<ConfigDataKey, Object> entry : entries) {
-
-					// Kennung 2 heisst: es folgt ein konfigurierender Datensatz
-					// Aufbau => 2-> Long:ID-Objekt-> Long:ID-AtgV-> Boolean-Data-> Data
-					serializer.writeByte(2);
-
-					final ConfigDataKey key = entry.getKey();
-					serializer.writeLong(key._object.getId());
-					serializer.writeLong(key._atgUsage.getId());
-
-					if(entry.getValue() instanceof Data) {
-						Data data = (Data)entry.getValue();
-						serializer.writeBoolean(true);
-						serializer.writeData(data);
-					}
-					else {
-						// Kein Datensatz in der Konfiguration
-						serializer.writeBoolean(false);
-					}
+	DafSystemObject[] getCachedObjects() {
+		return _systemObjectsById.values().toArray(new DafSystemObject[0]);
+	}
 
-					configDataSetsWritten++;
-				}
-				_debug.fine("Anzahl geschriebener Systemobjekte", systemObjectsWritten);
-				_debug.fine("Anzahl geschriebener konfigurierender Datensätze", configDataSetsWritten);
+	/**
+	 * Liefert eine Kopie aller zwischengespeicherten konfigurierenden Datensätze für die lokale Speicherung. Der Wert eines Eintrags ist ein {@link Data}-Objekt
+	 * oder ein Platzhalter, falls es keinen Datensatz gibt.
+	 *
+	 * @return Liste mit den zwischengespeicherten Datensätzen
+	 */
+	List<Map.Entry<ConfigDataKey, Object>> getCachedConfigData() {
+		synchronized(_configDataValuesTable) {
+			return new ArrayList<Map.Entry<ConfigDataKey, Object>>(_configDataValuesTable.entrySet());
+		}
+	}
 
-				// Kennung 0 heisst: Ende
-				out.writeByte(0);
+	/**
+	 * Übernimmt einen lokal gespeicherten konfigurierenden Datensatz in den Zwischenspeicher.
+	 *
+	 * @param dataKey Identifikation des Datensatzes
+	 * @param data    Datensatz oder <code>null</code>, wenn es keinen Datensatz gibt
+	 */
+	void putCachedConfigData(final ConfigDataKey dataKey, final Data data) {
+		_configDataValuesTable.put(dataKey, data == null ? _noDataMarker : data);
+	}
 
-				saveWasSuccessful = true;
-				_debug.info("lokale Konfigurationsdatei wurde erfolgreich geschrieben");
-			}
-			finally {
-				if(out != null) {
-					out.close();
-				}
-				if(saveWasSuccessful == false) {
-					localConfigurationFile.delete();
-				}
-				fileLock.unlock();
-			}
-		}
-		catch(Exception e) {
-			_debug.warning("Fehler beim Speichern der lokalen Konfigurationsdatei in das Verzeichnis " + configurationPath, e);
-		}
+	/**
+	 * Fragt die Änderungszeitstempel von Konfigurationsbereichen ohne Berücksichtigung des Zwischenspeichers bei der Konfiguration ab.
+	 *
+	 * @param areas Konfigurationsbereiche
+	 *
+	 * @return Datensätze der Attributgruppe <code>atg.konfigurationsBereichÄnderungsZeiten</code> zu den Bereichen
+	 */
+	Data[] getConfigurationAreaChangeTimes(final SystemObject[] areas) {
+		final AttributeGroup atg = getAttributeGroup("atg.konfigurationsBereichÄnderungsZeiten");
+		return getConfigurationDataRemote(Arrays.asList(areas), atg.getAttributeGroupUsage(_defaultConfigurationDataAspect));
 	}
 
 	/**
@@ -739,8 +422,8 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		}
 		_connection.removeConnectionListener(_davConnectionListener);
 
-		if(_configurationManager != null) {
-			saveLocalConfigurationCache();
+		if(_localConfigurationCache != null) {
+			_localConfigurationCache.close();
 		}
 		if(_notifyingMutableCollectionChangeListener != null) {
 			_notifyingMutableCollectionChangeListener.stop();
@@ -779,6 +462,21 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		return _remoteRequester;
 	}
 
+	/**
+	 * Initialisiert die Konfigurationsanfragen nach einer Wiederverbindung zum Datenverteiler für das neue Applikationsobjekt der Verbindung.
+	 *
+	 * @throws CommunicationError Wenn keine Verbindung zur Konfiguration aufgenommen werden konnte
+	 * @see ConfigurationRequester#reinit(long)
+	 */
+	public void reinitRequester() throws CommunicationError {
+		if(_connection instanceof ClientDavConnection) {
+			getRequester().reinit(((ClientDavConnection)_connection).getLocalApplicationObjectId());
+		}
+		else {
+			getRequester().reinit(_connection.getLocalApplicationObject().getId());
+		}
+	}
+
 	/**
 	 * Gibt die aktuelle Verbindung zum Datenverteiler zurück.
 	 *
@@ -807,12 +505,16 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 	 */
 	DafSystemObject updateInternalDataStructure(DafSystemObject systemObject, boolean cachePidWhenDynamic) {
 
-		Long id = systemObject.getId();
+		long id = systemObject.getId();
+		boolean changedInCache = false;
 		synchronized(_systemObjectsById) {
 			final byte objectState = systemObject.getState();
 			if(objectState == DafSystemObject.OBJECT_EXISTS || objectState == DafSystemObject.OBJECT_INVALID) {
 				DafSystemObject oldObject = _systemObjectsById.put(id, systemObject);
-				if(oldObject != null) {
+				if(oldObject == null) {
+					changedInCache = true;
+				}
+				else {
 					if(oldObject != systemObject) {
 						// Ein älteres Java-Objekt ist bereits vorhanden, also dieses verwenden
 						systemObject = oldObject;
@@ -846,10 +548,15 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 						// Konfiguration gelöscht).
 						_systemObjectsById.expire(id, oldObject, 5 * 60000);
 					}
+					changedInCache = true;
 				}
 
 			}
 		}
+		final LocalConfigurationCache localConfigurationCache = _localConfigurationCache;
+		if(changedInCache && localConfigurationCache != null) {
+			localConfigurationCache.appendObject(systemObject);
+		}
 		return systemObject;
 	}
 
@@ -958,7 +665,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		final List<Integer> origPositions = new ArrayList<Integer>(ids.length);
 		final List<SystemObject> result = new ArrayList<SystemObject>(ids.length);
 		for(int i = 0; i < ids.length; i++) {
-			final Long id = ids[i];
+			final long id = ids[i];
 			final SystemObject systemObject;
 			if(id == 0) {
 				systemObject = null;
@@ -1315,6 +1022,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		if(dynamicType != null) {
 			dynamicType.updateName(objectId, newName);
 		}
+		dynamicObjectsChanged(objectId);
 	}
 
 	public void updateNotValidSince(final long objectId, final long typeId, final long invalidTime) {
@@ -1324,6 +1032,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		if(dynamicType != null) {
 			dynamicType.updateNotValidSince(objectId, invalidTime);
 		}
+		dynamicObjectsChanged(objectId);
 	}
 
 	public void newDynamicObjectCreated(final long objectId, final long typeId) {
@@ -1333,6 +1042,24 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		if(dynamicType != null) {
 			dynamicType.updateObjectCreated(objectId);
 		}
+		dynamicObjectsChanged(0);
+	}
+
+	/**
+	 * Informiert die lokale Speicherung über eine von der Konfiguration gemeldete Änderung an dynamischen Objekten.
+	 *
+	 * @param objectId Id des geänderten Objekts oder 0, wenn kein zwischengespeichertes Objekt geändert wurde.
+	 */
+	private void dynamicObjectsChanged(final long objectId) {
+		final LocalConfigurationCache localConfigurationCache = _localConfigurationCache;
+		if(localConfigurationCache == null) return;
+		if(objectId != 0) {
+			final DafSystemObject object = getObjectFromCache(objectId);
+			if(object != null) {
+				localConfigurationCache.appendObject(object);
+			}
+		}
+		localConfigurationCache.dynamicObjectsChanged();
 	}
 
 	/**
@@ -1343,9 +1070,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 	 * @return SystemObjekt aus dem Cache oder <code>null</code>, falls es sich nicht im Cache befindet.
 	 */
 	DafSystemObject getObjectFromCache(final long objectId) {
-		synchronized(_systemObjectsById) {
-			return _systemObjectsById.get(objectId);
-		}
+		return _systemObjectsById.get(objectId);
 	}
 
 	/** Identifikation eines konfigurierenden Datensatzes, die das zugehörige Systemobjekt und die zugehörige Attributgruppenverwendung speichert. */
@@ -1525,6 +1250,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 				if(bytes == null) {
 					datas[i] = null;
 					_configDataValuesTable.put(configDataKey, _noDataMarker);
+					appendConfigDataToLocalCache(configDataKey, null);
 				}
 				else {
 					try {
@@ -1532,6 +1258,7 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 						final Deserializer deserializer = SerializingFactory.createDeserializer(2, in);
 						final Data data = deserializer.readData(atg).createUnmodifiableCopy();
 						_configDataValuesTable.put(configDataKey, data);
+						appendConfigDataToLocalCache(configDataKey, data);
 						datas[i] = data;
 					}
 					catch(Exception ex) {
@@ -1896,9 +1623,11 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 			if(data != null) {
 				final Data dataCopy = data.createUnmodifiableCopy();
 				_configDataValuesTable.put(configDataKey, dataCopy);
+				appendConfigDataToLocalCache(configDataKey, dataCopy);
 			}
 			else {
 				_configDataValuesTable.put(configDataKey, _noDataMarker);
+				appendConfigDataToLocalCache(configDataKey, null);
 			}
 		}
 		catch(IOException e) {
@@ -1914,6 +1643,19 @@ public class DafDataModel implements DataModel, UpdateDynamicObjects {
 		}
 	}
 
+	/**
+	 * Hängt einen neu in den Zwischenspeicher übernommenen konfigurierenden Datensatz an das Journal der lokalen Speicherung an.
+	 *
+	 * @param configDataKey Identifikation des Datensatzes
+	 * @param data          Datensatz oder <code>null</code>, wenn es keinen Datensatz gibt
+	 */
+	private void appendConfigDataToLocalCache(final ConfigDataKey configDataKey, final Data data) {
+		final LocalConfigurationCache localConfigurationCache = _localConfigurationCache;
+		if(localConfigurationCache != null) {
+			localConfigurationCache.appendConfigData(configDataKey, data);
+		}
+	}
+
 	public AttributeGroupUsage getAttributeGroupUsage(final long usageIdentification) {
 		if(usageIdentification == AttributeGroupUsageIdentifications.CONFIGURATION_READ_REQUEST) {
 			return _configurationReadRequestUsage;
@@ -0,0 +1,918 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.main.impl.config;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.dav.daf.main.config.SystemObjectType;
+import de.bsvrz.sys.funclib.dataSerializer.Deserializer;
+import de.bsvrz.sys.funclib.dataSerializer.Serializer;
+import de.bsvrz.sys.funclib.dataSerializer.SerializingFactory;
+import de.bsvrz.sys.funclib.debug.Debug;
+import de.bsvrz.sys.funclib.filelock.FileLock;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Lokale Speicherung von Konfigurationsobjekten und konfigurierenden Datensätzen, damit diese beim nächsten Start der Applikation nicht erneut von der
+ * Konfiguration angefordert werden müssen.
+ * <p>
+ * Die Speicherung besteht aus zwei Dateien:
+ * <ul>
+ * <li>Einer Abbilddatei (Endung <code>.configcache</code>), die nach Konfigurationsbereichen segmentiert ist. Für jeden Bereich gibt es getrennte Segmente
+ * für Konfigurationsobjekte, dynamische Objekte und konfigurierende Datensätze. Jedes Segment wird beim Laden einzeln anhand der Änderungszeitstempel des
+ * Bereichs geprüft und ggf. ohne Deserialisierung übersprungen. So führt z.B. eine Änderung an dynamischen Objekten nicht mehr dazu, dass auch die
+ * Konfigurationsobjekte des Bereichs verworfen werden.</li>
+ * <li>Einem Journal (Endung <code>.configcache.journal</code>), an das zur Laufzeit neu geladene Objekte, Änderungen an dynamischen Objekten und
+ * konfigurierende Datensätze angehängt werden. Das Journal gehört zu genau einem Abbild (gleiche Generationsnummer) und wird beim Laden nach dem Abbild
+ * eingelesen.</li>
+ * </ul>
+ * Ein Hintergrund-Thread verdichtet Abbild und Journal regelmäßig zu einem neuen Abbild. Nachdem Änderungen an dynamischen Objekten gemeldet wurden, werden
+ * dabei die Zeitstempel der letzten Änderung an dynamischen Objekten neu von der Konfiguration abgefragt und übernommen, weil die zwischengespeicherten
+ * dynamischen Objekte durch die Benachrichtigungen der Konfiguration auf dem aktuellen Stand gehalten werden. Dadurch werden diese Objekte beim nächsten
+ * Start trotz der Änderungen akzeptiert.
+ * <p>
+ * Aufbau der Abbilddatei: <ol> <li>String: "LokaleKonfigurationsCacheDatei"</li> <li>byte: Version (2)</li> <li>long: Generationsnummer</li> <li>int: Anzahl
+ * Bereiche, danach je Bereich: long Id, short aktive Version, long Zeitstempel der letzten Änderung von dynamischen Objekten, long Zeitstempel der letzten
+ * Änderung von Konfigurationsobjekten, long Zeitstempel der letzten Änderung von konfigurierenden Datensätzen</li> <li>int: Anzahl Segmente, danach je Segment:
+ * long Bereichs-Id, byte Art (1: Konfigurationsobjekte, 2: dynamische Objekte, 3: konfigurierende Datensätze), int Länge, Inhalt</li> </ol> Alle
+ * Objektsegmente stehen vor den Datensatzsegmenten. Ein Objektsegment enthält die Anzahl der Objekte (int) und je Objekt die Typkennung (byte) und das
+ * serialisierte Objekt. Ein Datensatzsegment enthält die Anzahl der Datensätze (int) und je Datensatz Objekt-Id (long), Id der Attributgruppenverwendung
+ * (long), ein boolean, ob Daten vorhanden sind, und ggf. die serialisierten Daten.
+ * <p>
+ * Aufbau des Journals: <ol> <li>String: "LokaleKonfigurationsCacheJournal"</li> <li>byte: Version (1)</li> <li>long: Generationsnummer des zugehörigen
+ * Abbilds</li> <li>Bereichsinformationen wie in der Abbilddatei</li> <li>beliebig viele Einträge, jeweils: int Länge, byte Art, long Bereichs-Id und ein
+ * Objekt bzw. Datensatz wie in den Segmenten der Abbilddatei</li> </ol> Ein unvollständig geschriebener letzter Eintrag (z.B. nach einem Absturz) wird beim
+ * Lesen ignoriert.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+class LocalConfigurationCache {
+
+	/** DebugLogger für Debug-Ausgaben */
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Fester String zur Kennzeichnung der Abbilddatei */
+	private static final String SNAPSHOT_HEADER = "LokaleKonfigurationsCacheDatei";
+
+	/** Version der Abbilddatei */
+	private static final byte SNAPSHOT_VERSION = 2;
+
+	/** Fester String zur Kennzeichnung des Journals */
+	private static final String JOURNAL_HEADER = "LokaleKonfigurationsCacheJournal";
+
+	/** Version des Journals */
+	private static final byte JOURNAL_VERSION = 1;
+
+	/** Segmentart für Konfigurationsobjekte */
+	private static final byte CONFIGURATION_OBJECTS = 1;
+
+	/** Segmentart für dynamische Objekte */
+	private static final byte DYNAMIC_OBJECTS = 2;
+
+	/** Segmentart für konfigurierende Datensätze */
+	private static final byte CONFIGURATION_DATA = 3;
+
+	/** Maximale Länge eines Segments oder Journaleintrags, größere Längenangaben werden als Dateifehler interpretiert. */
+	private static final int MAX_RECORD_LENGTH = 1 << 30;
+
+	/** Anzahl Journaleinträge, ab der eine Verdichtung angestoßen wird */
+	private static final int COMPACTION_JOURNAL_RECORDS = 10000;
+
+	/** Zeit in Millisekunden ohne weitere Änderungen an dynamischen Objekten, nach der die Verdichtung mit neuen Zeitstempeln durchgeführt wird */
+	private static final long DYNAMIC_OBJECTS_SETTLE_TIME = 30000;
+
+	/** Maximale Zeit in Millisekunden, die angehängte Journaleinträge ungeschrieben im Puffer verbleiben */
+	private static final long JOURNAL_FLUSH_INTERVAL = 1000;
+
+	private final DafDataModel _dataModel;
+
+	private final File _snapshotFile;
+
+	private final File _journalFile;
+
+	/** Typen von Metaobjekten, die immer von der Konfiguration geladen und deshalb nicht lokal gespeichert werden */
+	private final Set<SystemObjectType> _metaObjectTypes;
+
+	/** Schützt Journal und Zustandsvariablen */
+	private final Object _lock = new Object();
+
+	/** Sorgt dafür, dass Verdichtungen nicht gleichzeitig ablaufen */
+	private final Object _compactionMutex = new Object();
+
+	private final Random _random = new Random();
+
+	/** Bereichsinformationen, die dem aktuellen Journal und dem nächsten Abbild zugrunde liegen */
+	private Map<Long, AreaInfo> _areaInfos;
+
+	/** Stream des aktuellen Journals oder <code>null</code>, solange noch keine Verdichtung durchgeführt wurde */
+	private DataOutputStream _journal = null;
+
+	/** Anzahl Einträge im aktuellen Journal */
+	private int _journalRecords = 0;
+
+	/** <code>true</code>, wenn das Journal noch nicht geschriebene Einträge enthält */
+	private boolean _journalDirty = false;
+
+	/** <code>true</code>, wenn eine Verdichtung durchgeführt werden soll */
+	private boolean _compactionRequested = false;
+
+	/** Zeitpunkt der letzten gemeldeten Änderung an dynamischen Objekten seit der letzten Verdichtung oder 0 */
+	private long _dynamicObjectsChangeTime = 0;
+
+	private boolean _closed = false;
+
+	private Thread _compactionThread;
+
+	private int _acceptedAreas = 0;
+
+	private int _ignoredAreas = 0;
+
+	private int _acceptedSystemObjects = 0;
+
+	private int _ignoredSystemObjects = 0;
+
+	private int _acceptedConfigData = 0;
+
+	private int _ignoredConfigData = 0;
+
+	/**
+	 * Erzeugt ein neues Objekt zur lokalen Speicherung.
+	 *
+	 * @param dataModel       Datenmodell, dessen Objekte gespeichert werden
+	 * @param snapshotFile    Abbilddatei, das Journal wird im selben Verzeichnis mit der zusätzlichen Endung <code>.journal</code> abgelegt
+	 * @param areaInfos       Aktuelle Informationen der Konfiguration zu den Konfigurationsbereichen
+	 * @param metaObjectTypes Typen von Objekten, die nicht gespeichert werden sollen
+	 */
+	LocalConfigurationCache(
+			final DafDataModel dataModel, final File snapshotFile, final Map<Long, AreaInfo> areaInfos, final Set<SystemObjectType> metaObjectTypes) {
+		_dataModel = dataModel;
+		_snapshotFile = snapshotFile;
+		_journalFile = new File(snapshotFile.getPath() + ".journal");
+		_areaInfos = areaInfos;
+		_metaObjectTypes = metaObjectTypes;
+	}
+
+	public int getAcceptedAreas() {
+		return _acceptedAreas;
+	}
+
+	public int getIgnoredAreas() {
+		return _ignoredAreas;
+	}
+
+	public int getAcceptedSystemObjects() {
+		return _acceptedSystemObjects;
+	}
+
+	public int getIgnoredSystemObjects() {
+		return _ignoredSystemObjects;
+	}
+
+	public int getAcceptedConfigData() {
+		return _acceptedConfigData;
+	}
+
+	public int getIgnoredConfigData() {
+		return _ignoredConfigData;
+	}
+
+	/**
+	 * Liest Abbild und Journal ein und übernimmt alle Objekte und Datensätze, deren Bereichsinformationen zu den aktuellen Informationen der Konfiguration
+	 * passen. Anschließend wird der Hintergrund-Thread gestartet, der als erstes ein neues Abbild mit den aktuellen Bereichsinformationen erstellt.
+	 */
+	void load() {
+		try {
+			loadFiles();
+		}
+		catch(Exception e) {
+			_debug.warning("Fehler beim Laden der lokalen Konfigurationsdatei " + _snapshotFile, e);
+		}
+		synchronized(_lock) {
+			_compactionRequested = true;
+		}
+		_compactionThread = new Thread(new CompactionWorker(), "LocalConfigurationCacheCompaction");
+		_compactionThread.setDaemon(true);
+		_compactionThread.start();
+	}
+
+	private void loadFiles() throws IOException {
+		if(!_snapshotFile.exists()) {
+			_debug.info("Lokale Konfigurationsdatei ist nicht vorhanden", _snapshotFile);
+			return;
+		}
+		if(!_snapshotFile.canRead()) {
+			_debug.warning("Lesender Zugriff auf lokale Konfigurationsdatei nicht erlaubt", _snapshotFile);
+			return;
+		}
+		// Objekte werden erst gesammelt, damit Einträge im Journal ältere Einträge im Abbild ersetzen können
+		final Map<Long, DafSystemObject> objects = new LinkedHashMap<Long, DafSystemObject>();
+		final List<byte[]> dataSegments = new ArrayList<byte[]>();
+		final FileLock fileLock = new FileLock(_snapshotFile);
+		fileLock.lock();
+		try {
+			_debug.info("Lokale Konfiguration wird gelesen", _snapshotFile);
+			final long generation;
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(_snapshotFile)));
+			try {
+				if(!in.readUTF().equals(SNAPSHOT_HEADER)) {
+					throw new IllegalArgumentException("Dateikopf Fehlerhaft; Datei ist keine lokale Konfigurationsdatei");
+				}
+				final byte version = in.readByte();
+				if(version != SNAPSHOT_VERSION) {
+					_debug.info("Lokale Konfigurationsdatei mit veralteter Version " + version + " wird verworfen", _snapshotFile);
+					return;
+				}
+				generation = in.readLong();
+				final Map<Long, AreaInfo> storedAreaInfos = readAreaInfos(in);
+				countAreas(storedAreaInfos);
+				final int numberOfSegments = in.readInt();
+				for(int i = 0; i < numberOfSegments; i++) {
+					final long areaId = in.readLong();
+					final byte kind = in.readByte();
+					final int length = readLength(in);
+					if(!isAccepted(storedAreaInfos, areaId, kind)) {
+						// Jedes Segment beginnt mit der Anzahl der enthaltenen Elemente
+						final int count = in.readInt();
+						if(kind == CONFIGURATION_DATA) {
+							_ignoredConfigData += count;
+						}
+						else {
+							_ignoredSystemObjects += count;
+						}
+						skipFully(in, length - 4);
+						continue;
+					}
+					final byte[] segment = new byte[length];
+					in.readFully(segment);
+					if(kind == CONFIGURATION_DATA) {
+						dataSegments.add(segment);
+					}
+					else {
+						readObjects(new DataInputStream(new ByteArrayInputStream(segment)), objects);
+					}
+				}
+			}
+			finally {
+				in.close();
+			}
+			loadJournal(generation, objects, dataSegments);
+		}
+		finally {
+			fileLock.unlock();
+		}
+
+		for(DafSystemObject object : objects.values()) {
+			_dataModel.updateInternalDataStructure(object, false);
+		}
+		_acceptedSystemObjects += objects.size();
+
+		for(byte[] dataSegment : dataSegments) {
+			readConfigData(new DataInputStream(new ByteArrayInputStream(dataSegment)));
+		}
+
+		_debug.fine("Anzahl akzeptierter Konfigurationsbereiche", _acceptedAreas);
+		_debug.fine("Anzahl verworfener Konfigurationsbereiche", _ignoredAreas);
+		_debug.fine("Anzahl akzeptierter SystemObjekte", _acceptedSystemObjects);
+		_debug.fine("Anzahl verworfener SystemObjekte", _ignoredSystemObjects);
+		_debug.fine("Anzahl akzeptierte konfigurierende Datensätze", _acceptedConfigData);
+		_debug.fine("Anzahl verworfene konfigurierende Datensätze", _ignoredConfigData);
+		_debug.info("lokale Konfigurationsdatei wurde erfolgreich eingelesen");
+	}
+
+	/**
+	 * Liest das Journal, falls es zum gelesenen Abbild gehört. Objekte werden in die übergebene Map übernommen, Datensätze werden in der übergebenen Liste
+	 * gesammelt, weil sie erst nach der Übernahme aller Objekte deserialisiert werden können.
+	 */
+	private void loadJournal(final long generation, final Map<Long, DafSystemObject> objects, final List<byte[]> dataSegments) throws IOException {
+		if(!_journalFile.exists()) {
+			return;
+		}
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(_journalFile)));
+		try {
+			if(!in.readUTF().equals(JOURNAL_HEADER) || in.readByte() != JOURNAL_VERSION || in.readLong() != generation) {
+				_debug.info("Journal der lokalen Konfigurationsdatei passt nicht zur Konfigurationsdatei und wird verworfen", _journalFile);
+				return;
+			}
+			final Map<Long, AreaInfo> journalAreaInfos = readAreaInfos(in);
+			int records = 0;
+			while(true) {
+				final byte[] record;
+				try {
+					record = new byte[readLength(in)];
+					in.readFully(record);
+				}
+				catch(EOFException e) {
+					// Ende des Journals oder unvollständig geschriebener letzter Eintrag
+					break;
+				}
+				final DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+				final byte kind = recordIn.readByte();
+				final long areaId = recordIn.readLong();
+				if(!isAccepted(journalAreaInfos, areaId, kind)) {
+					if(kind == CONFIGURATION_DATA) {
+						_ignoredConfigData++;
+					}
+					else {
+						_ignoredSystemObjects++;
+					}
+				}
+				else if(kind == CONFIGURATION_DATA) {
+					// Datensatzeinträge haben das gleiche Format wie ein Datensatzsegment mit einem Element
+					final ByteArrayOutputStream segment = new ByteArrayOutputStream(record.length);
+					new DataOutputStream(segment).writeInt(1);
+					segment.write(record, 9, record.length - 9);
+					dataSegments.add(segment.toByteArray());
+				}
+				else {
+					final DafSystemObject object = readObject(recordIn);
+					if(object.isValid()) {
+						objects.put(object.getId(), object);
+					}
+					else if(objects.remove(object.getId()) != null) {
+						// Ein zwischenzeitlich gelöschtes dynamisches Objekt wird nicht übernommen
+						_ignoredSystemObjects++;
+					}
+				}
+				records++;
+			}
+			_debug.fine("Anzahl gelesener Journaleinträge", records);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private void countAreas(final Map<Long, AreaInfo> storedAreaInfos) {
+		_acceptedAreas = 0;
+		_ignoredAreas = 0;
+		for(AreaInfo storedInfo : storedAreaInfos.values()) {
+			final AreaInfo info = _areaInfos.get(storedInfo._areaId);
+			if(info == null) continue;
+			if(info.equals(storedInfo)) {
+				_acceptedAreas++;
+				_debug.finer("Objekte des folgenden Bereichs werden akzeptiert", info._area.getPid());
+			}
+			else {
+				_ignoredAreas++;
+				_debug.info(
+						"Da sich der folgende Konfigurationsbereich geändert hat, werden lokal gespeicherte Objekte dieses Bereichs teilweise verworfen",
+						info._area.getPid()
+				);
+			}
+		}
+	}
+
+	/**
+	 * Prüft, ob gespeicherte Objekte bzw. Datensätze einer Segmentart eines Bereichs übernommen werden können.
+	 *
+	 * @param storedAreaInfos Bereichsinformationen, mit denen die Objekte gespeichert wurden
+	 * @param areaId          Id des Bereichs
+	 * @param kind            Segmentart
+	 *
+	 * @return <code>true</code>, wenn die relevanten Zeitstempel mit den aktuellen Informationen der Konfiguration übereinstimmen
+	 */
+	private boolean isAccepted(final Map<Long, AreaInfo> storedAreaInfos, final long areaId, final byte kind) {
+		final AreaInfo storedInfo = storedAreaInfos.get(areaId);
+		final AreaInfo info = _areaInfos.get(areaId);
+		if(storedInfo == null || info == null || info._activeVersion != storedInfo._activeVersion) return false;
+		switch(kind) {
+			case CONFIGURATION_OBJECTS:
+				return info._configurationObjectChangeTime == storedInfo._configurationObjectChangeTime;
+			case DYNAMIC_OBJECTS:
+				return info._dynamicObjectChangeTime == storedInfo._dynamicObjectChangeTime;
+			case CONFIGURATION_DATA:
+				return info._configurationDataChangeTime == storedInfo._configurationDataChangeTime;
+			default:
+				throw new IllegalArgumentException("Fehlerhafter Dateiaufbau, Segmentart " + kind);
+		}
+	}
+
+	private void readObjects(final DataInputStream in, final Map<Long, DafSystemObject> objects) throws IOException {
+		final int count = in.readInt();
+		for(int i = 0; i < count; i++) {
+			final DafSystemObject object = readObject(in);
+			objects.put(object.getId(), object);
+		}
+	}
+
+	private DafSystemObject readObject(final DataInputStream in) throws IOException {
+		final byte objectTypeByte = in.readByte();
+		final DafSystemObject object = DafSystemObject.getObject(objectTypeByte, _dataModel);
+		if(object == null) {
+			throw new IOException("Fehlerhafter Dateiaufbau, Objekttypkennung " + objectTypeByte);
+		}
+		object.read(in);
+		return object;
+	}
+
+	private void readConfigData(final DataInputStream in) throws IOException {
+		final Deserializer deserializer = SerializingFactory.createDeserializer(in);
+		final int count = deserializer.readInt();
+		for(int i = 0; i < count; i++) {
+			final long objectId = deserializer.readLong();
+			final long atgUsageId = deserializer.readLong();
+			final boolean dataExists = deserializer.readBoolean();
+
+			// Es werden nur Datensätze von bereits übernommenen Objekten akzeptiert, damit hier keine einzelnen Konfigurationsanfragen entstehen.
+			final SystemObject object = _dataModel.getObjectFromCache(objectId);
+			final AttributeGroupUsage atgUsage = object == null ? null : _dataModel.getAttributeGroupUsage(atgUsageId);
+			if(atgUsage == null) {
+				if(dataExists) {
+					// Ohne Attributgruppe kann der Datensatz nicht übersprungen werden, deshalb wird der Rest des Segments verworfen
+					_ignoredConfigData += count - i;
+					return;
+				}
+				_ignoredConfigData++;
+				continue;
+			}
+			Data data = null;
+			if(dataExists) {
+				try {
+					data = deserializer.readData(atgUsage.getAttributeGroup(), _dataModel);
+				}
+				catch(Exception e) {
+					// Der Rest des Segments wird ignoriert
+					_debug.warning("Fehler beim Lesen eines Zwischengespeicherten Datensatzes", e);
+					_ignoredConfigData += count - i;
+					return;
+				}
+			}
+			_dataModel.putCachedConfigData(new DafDataModel.ConfigDataKey(object, atgUsage), data);
+			_acceptedConfigData++;
+		}
+	}
+
+	/**
+	 * Hängt ein zwischengespeichertes Objekt an das Journal an.
+	 *
+	 * @param object Neu geladenes oder geändertes Objekt
+	 */
+	void appendObject(final DafSystemObject object) {
+		if(_metaObjectTypes.contains(object.getType())) return;
+		final byte kind = object instanceof DafDynamicObject ? DYNAMIC_OBJECTS : CONFIGURATION_OBJECTS;
+		try {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(kind);
+			out.writeLong(object.getConfigurationAreaId());
+			out.writeByte(object.getInternType());
+			object.write(out);
+			appendRecord(bytes.toByteArray());
+		}
+		catch(IOException e) {
+			_debug.warning("Objekt konnte nicht an das Journal der lokalen Konfigurationsdatei angehängt werden", e);
+		}
+	}
+
+	/**
+	 * Hängt einen zwischengespeicherten konfigurierenden Datensatz an das Journal an.
+	 *
+	 * @param key  Identifikation des Datensatzes
+	 * @param data Datensatz oder <code>null</code>, wenn es keinen Datensatz gibt
+	 */
+	void appendConfigData(final DafDataModel.ConfigDataKey key, final Data data) {
+		if(!(key._object instanceof DafSystemObject)) return;
+		try {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(CONFIGURATION_DATA);
+			out.writeLong(((DafSystemObject)key._object).getConfigurationAreaId());
+			writeConfigData(SerializingFactory.createSerializer(out), key, data);
+			appendRecord(bytes.toByteArray());
+		}
+		catch(IOException e) {
+			_debug.warning("Datensatz konnte nicht an das Journal der lokalen Konfigurationsdatei angehängt werden", e);
+		}
+	}
+
+	private void appendRecord(final byte[] record) throws IOException {
+		synchronized(_lock) {
+			// Ohne Journal wird der Eintrag bei der anstehenden Verdichtung aus dem Speicher übernommen
+			if(_journal == null) return;
+			_journal.writeInt(record.length);
+			_journal.write(record);
+			_journalDirty = true;
+			_journalRecords++;
+			if(_journalRecords >= COMPACTION_JOURNAL_RECORDS) {
+				_compactionRequested = true;
+			}
+			_lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Meldet eine Änderung an dynamischen Objekten. Nach einer Ruhephase werden Abbild und Journal verdichtet und dabei die neuen Änderungszeitstempel
+	 * übernommen.
+	 */
+	void dynamicObjectsChanged() {
+		synchronized(_lock) {
+			_dynamicObjectsChangeTime = System.currentTimeMillis();
+			_lock.notifyAll();
+		}
+	}
+
+	/** Beendet den Hintergrund-Thread und schreibt ein abschließendes Abbild, falls sich seit der letzten Verdichtung etwas geändert hat. */
+	void close() {
+		final boolean needsCompaction;
+		synchronized(_lock) {
+			if(_closed) return;
+			_closed = true;
+			needsCompaction = _journal == null || _journalRecords > 0 || _compactionRequested || _dynamicObjectsChangeTime != 0;
+			_lock.notifyAll();
+		}
+		if(_compactionThread != null) {
+			_compactionThread.interrupt();
+		}
+		synchronized(_compactionMutex) {
+			if(needsCompaction) {
+				compact(_areaInfos);
+			}
+			synchronized(_lock) {
+				closeJournal();
+			}
+		}
+	}
+
+	private void flushJournal() {
+		if(_journal != null && _journalDirty) {
+			try {
+				_journal.flush();
+				_journalDirty = false;
+			}
+			catch(IOException e) {
+				_debug.warning("Journal der lokalen Konfigurationsdatei konnte nicht geschrieben werden", e);
+				closeJournal();
+			}
+		}
+	}
+
+	private void closeJournal() {
+		if(_journal != null) {
+			try {
+				_journal.close();
+			}
+			catch(IOException e) {
+				_debug.warning("Journal der lokalen Konfigurationsdatei konnte nicht geschlossen werden", e);
+			}
+			_journal = null;
+		}
+	}
+
+	/**
+	 * Fragt die aktuellen Zeitstempel der letzten Änderung an dynamischen Objekten ab und übernimmt sie in eine Kopie der Bereichsinformationen.
+	 *
+	 * @return Neue Bereichsinformationen
+	 */
+	private Map<Long, AreaInfo> refreshDynamicObjectChangeTimes(final Map<Long, AreaInfo> areaInfos) {
+		final List<AreaInfo> infos = new ArrayList<AreaInfo>(areaInfos.values());
+		final SystemObject[] areas = new SystemObject[infos.size()];
+		for(int i = 0; i < areas.length; i++) {
+			areas[i] = infos.get(i)._area;
+		}
+		final Data[] datas = _dataModel.getConfigurationAreaChangeTimes(areas);
+		final Map<Long, AreaInfo> result = new HashMap<Long, AreaInfo>(areaInfos);
+		for(int i = 0; i < datas.length; i++) {
+			if(datas[i] == null) continue;
+			final AreaInfo info = infos.get(i);
+			final long dynamicObjectChangeTime = datas[i].getTimeValue("LetzteÄnderungszeitDynamischesObjekt").getMillis();
+			result.put(
+					info._areaId,
+					new AreaInfo(
+							info._area,
+							info._activeVersion,
+							dynamicObjectChangeTime,
+							info._configurationObjectChangeTime,
+							info._configurationDataChangeTime
+					)
+			);
+		}
+		return result;
+	}
+
+	/**
+	 * Schreibt ein neues Abbild mit allen zwischengespeicherten Objekten und Datensätzen und beginnt ein neues Journal. Muss mit <code>_compactionMutex</code>
+	 * aufgerufen werden.
+	 *
+	 * @param areaInfos Bereichsinformationen für das neue Abbild
+	 */
+	private void compact(final Map<Long, AreaInfo> areaInfos) {
+		final long generation = _random.nextLong();
+		final DafSystemObject[] objects;
+		final List<Map.Entry<DafDataModel.ConfigDataKey, Object>> configData;
+		synchronized(_lock) {
+			// Die Inhalte werden zusammen mit dem Wechsel des Journals ermittelt. Alles was danach an das Journal angehängt wird, ist nicht im Abbild enthalten.
+			objects = _dataModel.getCachedObjects();
+			configData = _dataModel.getCachedConfigData();
+			_areaInfos = areaInfos;
+			closeJournal();
+			if(!_closed) {
+				try {
+					_journal = createJournal(generation, areaInfos);
+				}
+				catch(IOException e) {
+					_debug.warning("Journal der lokalen Konfigurationsdatei konnte nicht angelegt werden", e);
+				}
+			}
+			_journalRecords = 0;
+			_journalDirty = false;
+		}
+		try {
+			writeSnapshot(generation, areaInfos, objects, configData);
+		}
+		catch(Exception e) {
+			_debug.warning("Fehler beim Speichern der lokalen Konfigurationsdatei " + _snapshotFile, e);
+		}
+	}
+
+	private DataOutputStream createJournal(final long generation, final Map<Long, AreaInfo> areaInfos) throws IOException {
+		final DataOutputStream journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_journalFile)));
+		journal.writeUTF(JOURNAL_HEADER);
+		journal.writeByte(JOURNAL_VERSION);
+		journal.writeLong(generation);
+		writeAreaInfos(journal, areaInfos);
+		journal.flush();
+		return journal;
+	}
+
+	private void writeSnapshot(
+			final long generation,
+			final Map<Long, AreaInfo> areaInfos,
+			final DafSystemObject[] objects,
+			final List<Map.Entry<DafDataModel.ConfigDataKey, Object>> configData) throws IOException {
+
+		// Objekte und Datensätze nach Bereich und Segmentart gruppieren
+		final Map<Long, List<DafSystemObject>> configurationObjects = new HashMap<Long, List<DafSystemObject>>();
+		final Map<Long, List<DafSystemObject>> dynamicObjects = new HashMap<Long, List<DafSystemObject>>();
+		final Map<Long, List<Map.Entry<DafDataModel.ConfigDataKey, Object>>> configDataByArea =
+				new HashMap<Long, List<Map.Entry<DafDataModel.ConfigDataKey, Object>>>();
+		for(DafSystemObject object : objects) {
+			if(!object.isValid() || _metaObjectTypes.contains(object.getType()) || !areaInfos.containsKey(object.getConfigurationAreaId())) continue;
+			addToGroup(object instanceof DafDynamicObject ? dynamicObjects : configurationObjects, object.getConfigurationAreaId(), object);
+		}
+		for(Map.Entry<DafDataModel.ConfigDataKey, Object> entry : configData) {
+			final SystemObject object = entry.getKey()._object;
+			if(!(object instanceof DafSystemObject) || !areaInfos.containsKey(((DafSystemObject)object).getConfigurationAreaId())) continue;
+			addToGroup(configDataByArea, ((DafSystemObject)object).getConfigurationAreaId(), entry);
+		}
+
+		final File tempFile = new File(_snapshotFile.getPath() + ".tmp");
+		final FileLock fileLock = new FileLock(_snapshotFile);
+		fileLock.lock();
+		try {
+			_debug.info("Lokale Konfiguration wird geschrieben", _snapshotFile);
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeUTF(SNAPSHOT_HEADER);
+				out.writeByte(SNAPSHOT_VERSION);
+				out.writeLong(generation);
+				writeAreaInfos(out, areaInfos);
+				out.writeInt(configurationObjects.size() + dynamicObjects.size() + configDataByArea.size());
+
+				final ByteArrayOutputStream segment = new ByteArrayOutputStream();
+				final DataOutputStream segmentOut = new DataOutputStream(segment);
+				for(int i = 0; i < 2; i++) {
+					final byte kind = i == 0 ? CONFIGURATION_OBJECTS : DYNAMIC_OBJECTS;
+					for(Map.Entry<Long, List<DafSystemObject>> group : (i == 0 ? configurationObjects : dynamicObjects).entrySet()) {
+						segment.reset();
+						segmentOut.writeInt(group.getValue().size());
+						for(DafSystemObject object : group.getValue()) {
+							segmentOut.writeByte(object.getInternType());
+							object.write(segmentOut);
+						}
+						writeSegment(out, group.getKey(), kind, segment);
+					}
+				}
+				for(Map.Entry<Long, List<Map.Entry<DafDataModel.ConfigDataKey, Object>>> group : configDataByArea.entrySet()) {
+					segment.reset();
+					final Serializer serializer = SerializingFactory.createSerializer(segmentOut);
+					serializer.writeInt(group.getValue().size());
+					for(Map.Entry<DafDataModel.ConfigDataKey, Object> entry : group.getValue()) {
+						final Object value = entry.getValue();
+						writeConfigData(serializer, entry.getKey(), value instanceof Data ? (Data)value : null);
+					}
+					writeSegment(out, group.getKey(), CONFIGURATION_DATA, segment);
+				}
+			}
+			finally {
+				out.close();
+			}
+			Files.move(tempFile.toPath(), _snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			_debug.fine("Anzahl geschriebener Systemobjekte", objects.length);
+			_debug.fine("Anzahl geschriebener konfigurierender Datensätze", configData.size());
+			_debug.info("lokale Konfigurationsdatei wurde erfolgreich geschrieben");
+		}
+		finally {
+			tempFile.delete();
+			fileLock.unlock();
+		}
+	}
+
+	private static <T> void addToGroup(final Map<Long, List<T>> groups, final long areaId, final T element) {
+		List<T> group = groups.get(areaId);
+		if(group == null) {
+			group = new ArrayList<T>();
+			groups.put(areaId, group);
+		}
+		group.add(element);
+	}
+
+	private static void writeSegment(final DataOutputStream out, final long areaId, final byte kind, final ByteArrayOutputStream segment)
+			throws IOException {
+		out.writeLong(areaId);
+		out.writeByte(kind);
+		out.writeInt(segment.size());
+		segment.writeTo(out);
+	}
+
+	private static void writeConfigData(final Serializer serializer, final DafDataModel.ConfigDataKey key, final Data data) throws IOException {
+		serializer.writeLong(key._object.getId());
+		serializer.writeLong(key._atgUsage.getId());
+		serializer.writeBoolean(data != null);
+		if(data != null) {
+			serializer.writeData(data);
+		}
+	}
+
+	private Map<Long, AreaInfo> readAreaInfos(final DataInputStream in) throws IOException {
+		final int numberOfAreas = in.readInt();
+		final Map<Long, AreaInfo> result = new HashMap<Long, AreaInfo>();
+		for(int i = 0; i < numberOfAreas; i++) {
+			final long areaId = in.readLong();
+			final short activeVersion = in.readShort();
+			final long dynamicObjectChangeTime = in.readLong();
+			final long configurationObjectChangeTime = in.readLong();
+			final long configurationDataChangeTime = in.readLong();
+			result.put(areaId, new AreaInfo(areaId, activeVersion, dynamicObjectChangeTime, configurationObjectChangeTime, configurationDataChangeTime));
+		}
+		return result;
+	}
+
+	private static void writeAreaInfos(final DataOutputStream out, final Map<Long, AreaInfo> areaInfos) throws IOException {
+		out.writeInt(areaInfos.size());
+		for(AreaInfo info : areaInfos.values()) {
+			out.writeLong(info._areaId);
+			out.writeShort(info._activeVersion);
+			out.writeLong(info._dynamicObjectChangeTime);
+			out.writeLong(info._configurationObjectChangeTime);
+			out.writeLong(info._configurationDataChangeTime);
+		}
+	}
+
+	private static int readLength(final DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if(length < 0 || length > MAX_RECORD_LENGTH) {
+			throw new IOException("Fehlerhafter Dateiaufbau, Länge " + length);
+		}
+		return length;
+	}
+
+	private static void skipFully(final DataInputStream in, int length) throws IOException {
+		while(length > 0) {
+			final int skipped = in.skipBytes(length);
+			if(skipped <= 0) {
+				throw new EOFException();
+			}
+			length -= skipped;
+		}
+	}
+
+	/** Hintergrund-Thread, der das Journal regelmäßig schreibt und Verdichtungen durchführt. */
+	private final class CompactionWorker implements Runnable {
+
+		public void run() {
+			try {
+				while(true) {
+					final boolean refreshDynamicObjectTimes;
+					synchronized(_lock) {
+						while(true) {
+							if(_closed) return;
+							flushJournal();
+							if(_compactionRequested) break;
+							if(_dynamicObjectsChangeTime != 0 && System.currentTimeMillis() - _dynamicObjectsChangeTime >= DYNAMIC_OBJECTS_SETTLE_TIME) break;
+							_lock.wait(JOURNAL_FLUSH_INTERVAL);
+						}
+						_compactionRequested = false;
+						refreshDynamicObjectTimes = _dynamicObjectsChangeTime != 0;
+						_dynamicObjectsChangeTime = 0;
+					}
+					Map<Long, AreaInfo> areaInfos = _areaInfos;
+					if(refreshDynamicObjectTimes) {
+						try {
+							areaInfos = refreshDynamicObjectChangeTimes(areaInfos);
+						}
+						catch(RuntimeException e) {
+							_debug.fine("Änderungszeitstempel der Konfigurationsbereiche konnten nicht abgefragt werden", e);
+						}
+					}
+					synchronized(_compactionMutex) {
+						synchronized(_lock) {
+							if(_closed) return;
+							if(_dynamicObjectsChangeTime != 0) {
+								// Während der Abfrage wurden weitere Änderungen gemeldet, die evtl. in den abgefragten Zeitstempeln enthalten, aber noch
+								// nicht verarbeitet sind. Die neuen Zeitstempel werden deshalb erst bei der nächsten Verdichtung übernommen.
+								areaInfos = _areaInfos;
+							}
+						}
+						compact(areaInfos);
+					}
+				}
+			}
+			catch(InterruptedException e) {
+				// Thread wird beendet
+			}
+			catch(RuntimeException e) {
+				_debug.warning("Fehler bei der Verdichtung der lokalen Konfigurationsdatei", e);
+			}
+		}
+	}
+
+	/** Informationen zu einem Konfigurationsbereich, die zur Prüfung der Gültigkeit von lokal gespeicherten Objekten verwendet werden. */
+	static final class AreaInfo {
+
+		private final DafConfigurationArea _area;
+
+		private final long _areaId;
+
+		private final short _activeVersion;
+
+		private final long _dynamicObjectChangeTime;
+
+		private final long _configurationObjectChangeTime;
+
+		private final long _configurationDataChangeTime;
+
+		AreaInfo(
+				final DafConfigurationArea area,
+				final short activeVersion,
+				final long dynamicObjectChangeTime,
+				final long configurationObjectChangeTime,
+				final long configurationDataChangeTime) {
+			_area = area;
+			_areaId = area.getId();
+			_activeVersion = activeVersion;
+			_dynamicObjectChangeTime = dynamicObjectChangeTime;
+			_configurationObjectChangeTime = configurationObjectChangeTime;
+			_configurationDataChangeTime = configurationDataChangeTime;
+		}
+
+		private AreaInfo(
+				final long areaId,
+				final short activeVersion,
+				final long dynamicObjectChangeTime,
+				final long configurationObjectChangeTime,
+				final long configurationDataChangeTime) {
+			_area = null;
+			_areaId = areaId;
+			_activeVersion = activeVersion;
+			_dynamicObjectChangeTime = dynamicObjectChangeTime;
+			_configurationObjectChangeTime = configurationObjectChangeTime;
+			_configurationDataChangeTime = configurationDataChangeTime;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if(this == o) return true;
+			if(!(o instanceof AreaInfo)) return false;
+			final AreaInfo other = (AreaInfo)o;
+			return _areaId == other._areaId && _activeVersion == other._activeVersion && _dynamicObjectChangeTime == other._dynamicObjectChangeTime
+			       && _configurationObjectChangeTime == other._configurationObjectChangeTime
+			       && _configurationDataChangeTime == other._configurationDataChangeTime;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int)(_areaId ^ (_areaId >>> 32)) ^ _activeVersion;
+		}
+	}
+}
@@ -54,6 +54,15 @@ public interface ConfigurationRequester {
 	 */
 	void init(long localApplicationId) throws CommunicationError;
 
+	/**
+	 * Initialisiert den Requester nach einer Wiederverbindung zum Datenverteiler für das neue Applikationsobjekt. Die Kanäle für Konfigurationsanfragen des
+	 * bisherigen Applikationsobjekts werden geschlossen, ein mit {@link #setMutableCollectionChangeListener(MutableCollectionChangeListener)} gesetzter
+	 * Listener wird übernommen.
+	 * @param localApplicationId Eigene Applikations-ID nach der Wiederverbindung
+	 * @throws CommunicationError Wenn keine Verbindung zur Konfiguration aufgenommen werden konnte
+	 */
+	void reinit(long localApplicationId) throws CommunicationError;
+
 	/**
 	 * Liefert die System-Objekte mit den angegebenen PIDs zurück.
 	 *
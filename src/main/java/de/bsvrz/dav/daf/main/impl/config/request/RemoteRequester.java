@@ -64,19 +64,19 @@ class RemoteRequester implements ConfigurationRequester {
 	 * Objekt, das Konfigurationsanfragen stellt und die Antwort der Konfigurations verarbeitet und zur Verfügung stellt. Es werden nur Konfigurationsanfragen
 	 * gestellt, die lesenden Zugriff auf die Konfigurations erlauben.
 	 */
-	SenderReceiverCommunication _senderReadConfigObjects;
+	volatile SenderReceiverCommunication _senderReadConfigObjects;
 
 	/**
 	 * Objekt, das Konfigurationsanfragen erstellt und die Antwort der Konfiguration zur Verfügung stellt. Es werden Konfigurationsanfragen gestellt, die die
 	 * Konfigurations veranlassen Objekt in der Konfiguration zu ändern.
 	 */
-	SenderReceiverCommunication _senderWriteConfigObjects;
+	volatile SenderReceiverCommunication _senderWriteConfigObjects;
 
 	/** Objekt, das es ermöglicht die Benutzer einer Konfigurations zu verwalten (Benutzer erstellen, Passwörter ändern, usw.). */
-	SenderReceiverCommunication _senderUserAdministration;
+	volatile SenderReceiverCommunication _senderUserAdministration;
 
 	/** Beauftragt die Konfiguration bestimmte Bereiche zu modifizieren/prüfen */
-	SenderReceiverCommunication _senderConfigAreaTask;
+	volatile SenderReceiverCommunication _senderConfigAreaTask;
 
 	/** Verbidung zum Datenverteiler. Wird benötigt um die Verbindung zum Datenverteiler abzumelden, falls es bei Anfragen zu schweren Fehlern gekommen ist. */
 	protected final ClientDavInterface _connection;
@@ -84,7 +84,10 @@ class RemoteRequester implements ConfigurationRequester {
 	private int _systemModelVersion;
 
 	/** Implementierung der Benutzerverwaltung */
-	private UserAdministration _userAdministration;
+	private volatile UserAdministration _userAdministration;
+
+	/** Listener für Änderungen dynamischer Zusammenstellungen, wird bei {@link #reinit(long)} an den neuen Kanal übergeben */
+	private volatile MutableCollectionChangeListener _mutableCollectionChangeListener;
 
 	public RemoteRequester(
 			ClientDavInterface connection, DataModel localConfiguration, ConfigurationAuthority configurationAuthority
@@ -158,6 +161,22 @@ class RemoteRequester implements ConfigurationRequester {
 		}
 	}
 
+	@Override
+	public void reinit(final long localApplicationId) throws CommunicationError {
+		final SenderReceiverCommunication[] oldChannels = {_senderConfigAreaTask, _senderReadConfigObjects, _senderUserAdministration, _senderWriteConfigObjects};
+		try {
+			init(localApplicationId);
+			final MutableCollectionChangeListener listener = _mutableCollectionChangeListener;
+			if(listener != null) {
+				_senderReadConfigObjects.setMutableCollectionChangeListener(listener);
+			}
+		}
+		finally {
+			// Die bisherigen Kanäle sind an das abgemeldete Applikationsobjekt gebunden und werden nicht mehr benötigt
+			close(oldChannels);
+		}
+	}
+
 	private boolean canUseSrpAdministration(final DafDataModel dafDataModel) {
 		if(dafDataModel.getProtocolVersion() < 2) {
 			_debug.warning("Verwende unverschlüsselte Benutzerverwaltung, da die Konfiguration veraltet ist und auf Version 3.9.0 aktualisiert werden muss");
@@ -194,7 +213,10 @@ class RemoteRequester implements ConfigurationRequester {
 
 	/** Teilt einem Request mit, dass er sich beenden soll */
 	public void close() {
-		SenderReceiverCommunication[] channels = {_senderConfigAreaTask, _senderReadConfigObjects, _senderUserAdministration, _senderWriteConfigObjects};
+		close(new SenderReceiverCommunication[]{_senderConfigAreaTask, _senderReadConfigObjects, _senderUserAdministration, _senderWriteConfigObjects});
+	}
+
+	private static void close(final SenderReceiverCommunication[] channels) {
 		for(final SenderReceiverCommunication channel : channels) {
 			Thread thread = new Thread(new Runnable() {
 				public void run() {
@@ -1570,6 +1592,7 @@ class RemoteRequester implements ConfigurationRequester {
 	}
 
 	public void setMutableCollectionChangeListener(final MutableCollectionChangeListener notifyingMutableCollectionChangeListener) {
+		_mutableCollectionChangeListener = notifyingMutableCollectionChangeListener;
 		_senderReadConfigObjects.setMutableCollectionChangeListener(notifyingMutableCollectionChangeListener);
 	}
 
@@ -27,6 +27,7 @@
 package de.bsvrz.dav.daf.main.impl.subscription;
 
 import de.bsvrz.dav.daf.communication.dataRepresentation.data.byteArray.ByteArrayData;
+import de.bsvrz.dav.daf.communication.lowLevel.LatencyTrace;
 import de.bsvrz.dav.daf.main.ClientReceiverInterface;
 import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.ResultData;
@@ -110,6 +111,10 @@ public class CollectingReceiver {
 			catch(Exception e){
 				_debug.warning("Fehler beim Auflösen der in einem Datensatz enthaltenen Konfigurationsobjekte", e);
 			}
+			for(ResultData result : results) {
+				final LatencyTrace latencyTrace = result.getLatencyTrace();
+				if(latencyTrace != null) latencyTrace.delivered();
+			}
 			_receiver.update(results);
 		}
 		return (deliveredSize);
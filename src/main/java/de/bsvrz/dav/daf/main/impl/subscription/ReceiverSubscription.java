@@ -51,6 +51,9 @@ public class ReceiverSubscription {
 	/** Beschreibende Informationen der zu versendenden Daten */
 	private DataDescription _dataDescription;
 
+	/** Beschreibende Informationen, mit denen empfangene Daten an den Empfänger ausgeliefert werden (nach Rückgängigmachen einer Aspektumleitung) */
+	private DataDescription _deliveryDataDescription;
+
 	/** Empfangsanmeldeinformationen */
 	private ReceiveSubscriptionInfo _receiveSubscriptionInfo;
 
@@ -82,9 +85,35 @@ public class ReceiverSubscription {
 			ReceiveOptions options,
 			ReceiverRole role,
 			long timeInCache) {
+		this(client, systemObject, dataDescription, dataDescription, externalSimulationVariant, options, role, timeInCache);
+	}
+
+	/**
+	 * Erzeugt ein neues Objekt mit den gegebenen Parametern.
+	 *
+	 * @param client                    Empfänger
+	 * @param systemObject              Objekt der Anmeldung
+	 * @param dataDescription           Informationen zur Beschreibung der Anmeldung
+	 * @param deliveryDataDescription   Informationen zur Beschreibung der an den Empfänger ausgelieferten Daten. Weicht bei einer Aspektumleitung im Aspekt
+	 *                                  von <code>dataDescription</code> ab.
+	 * @param externalSimulationVariant Simulationsvariante
+	 * @param options                   Optionen
+	 * @param role                      Rolle
+	 * @param timeInCache               mindestverweilzeit im Cache
+	 */
+	public ReceiverSubscription(
+			ClientReceiverInterface client,
+			SystemObject systemObject,
+			DataDescription dataDescription,
+			DataDescription deliveryDataDescription,
+			final short externalSimulationVariant,
+			ReceiveOptions options,
+			ReceiverRole role,
+			long timeInCache) {
 		_clientReceiver = client;
 		_systemObject = systemObject;
 		_dataDescription = dataDescription;
+		_deliveryDataDescription = deliveryDataDescription;
 		if(timeInCache < 0) {
 			_timeInCache = 0;
 		}
@@ -125,6 +154,16 @@ public class ReceiverSubscription {
 		return _dataDescription;
 	}
 
+	/**
+	 * Gibt die beschreibenden Informationen zurück, mit denen empfangene Datensätze an den Empfänger ausgeliefert werden. Bei einer Aspektumleitung enthält
+	 * diese den ursprünglich von der Applikation angegebenen Aspekt.
+	 *
+	 * @return beschreibende Informationen der ausgelieferten Datensätze
+	 */
+	public final DataDescription getDeliveryDataDescription() {
+		return _deliveryDataDescription;
+	}
+
 	/**
 	 * Gibt an, ob Interesse an nachgelieferten oder an aktuellen Datensätzen besteht.
 	 *
@@ -30,8 +30,10 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.*;
 
 /**
  * Implementierung eines gepufferten {@link java.io.RandomAccessFile}. Diese Klasse implementiert die Interfaces
@@ -41,6 +43,9 @@ import java.nio.channels.SeekableByteChannel;
  * Diese Klasse ist (anders als {@link java.nio.channels.FileChannel}) nicht für die Verwendung durch mehrere unsynchronisierte
  * Threads geeignet.
  *
+ * Für Lesezugriffe kann mit {@link ReadMode} ein Speicherabbild der Datei oder ein asynchrones Vorauslesen gewählt werden. Das
+ * Verhalten der Methoden ändert sich dadurch nicht.
+ *
  * @author Kappich Systemberatung
  * @version $Revision$
  */
@@ -75,6 +80,36 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	/** Standardpuffergröße */
 	private static final int defaultBufferSize = 512;
 
+	/** Mindestgröße der Blöcke beim asynchronen Vorauslesen */
+	private static final int minReadAheadBlockSize = 64 * 1024;
+
+	/**
+	 * Strategie für Lesezugriffe
+	 */
+	public enum ReadMode {
+		/** Lesen über einen Puffer, der bei jedem Sprung außerhalb des Puffers verworfen und synchron neu gefüllt wird */
+		BUFFERED,
+		/**
+		 * Lesen aus einem Speicherabbild der Datei. Nur für Dateien, die nur gelesen werden ("r") und deren Größe sich nicht
+		 * ändert, da nur die beim Öffnen vorhandenen Bytes abgebildet werden. Sprünge innerhalb der Datei sind ohne
+		 * Dateizugriff möglich. Nach {@link BufferedRandomAccessFile#close()} wird das Speicherabbild nicht mehr referenziert,
+		 * Java gibt es aber erst frei, wenn es von der Garbage Collection abgeräumt wird. Bis dahin kann die Datei unter
+		 * Windows nicht gelöscht oder umbenannt werden. Für Dateien, die direkt nach dem Lesen gelöscht oder umbenannt werden,
+		 * sollte deshalb ein anderer Modus verwendet werden.
+		 */
+		MEMORY_MAPPED,
+		/**
+		 * Lesen in Blöcken der Puffergröße (mindestens 64 KiB), wobei bei sequentiellem Lesen der jeweils folgende Block im
+		 * Hintergrund gelesen wird, während der aktuelle Block verarbeitet wird. Der aktuelle und der vorherige Block bleiben
+		 * erhalten, so dass kurze Rücksprünge keinen Dateizugriff erfordern. Nach einem weiten Sprung wird zunächst nur ein
+		 * Block der Puffergröße gelesen. Geeignet für überwiegend sequentielles Lesen.
+		 */
+		READ_AHEAD
+	}
+
+	/** Lesefenster im Modus {@link ReadMode#MEMORY_MAPPED} oder {@link ReadMode#READ_AHEAD}, sonst <code>null</code> */
+	private final WindowSource _windowSource;
+
 	/**
 	 * Erstellt ein neues gepuffertes BufferedFile als gepufferten Ersatz eines {@link java.io.RandomAccessFile}.
 	 * @param file Datei
@@ -116,6 +151,18 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 		this(new RandomAccessFile(file, mode), bufferSize);
 	}
 
+	/**
+	 * Erstellt ein neues gepuffertes BufferedFile als gepufferten Ersatz eines {@link java.io.RandomAccessFile}.
+	 * @param file Datei
+	 * @param mode "r" wenn nur gelesen werden soll, "rw" zum Lesen und schreiben. Siehe {@link java.io.RandomAccessFile}
+	 * @param bufferSize Größe des Lese und Schreibpuffers in Byte
+	 * @param readMode Strategie für Lesezugriffe. {@link ReadMode#MEMORY_MAPPED} ist nur im Modus "r" möglich.
+	 * @throws IOException Falls Datei nicht gefunden oder das Speicherabbild nicht erstellt werden konnte
+	 */
+	public BufferedRandomAccessFile(final File file, final String mode, final int bufferSize, final ReadMode readMode) throws IOException {
+		this(new RandomAccessFile(file, mode), bufferSize, readMode, "r".equals(mode));
+	}
+
 	private BufferedRandomAccessFile(final RandomAccessFile randomAccessFile, final int bufferSize) {
 		if(bufferSize <= 0){
 			throw new IllegalArgumentException("Buffer size <= 0");
@@ -124,10 +171,44 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 		_channel = randomAccessFile.getChannel();
 		_rawInStream = Channels.newInputStream(_channel);
 		_rawOutStream = Channels.newOutputStream(_channel);
+		_windowSource = null;
 	}
 
-	private DataOutputStream getDataOutStream() {
+	private BufferedRandomAccessFile(final RandomAccessFile randomAccessFile, final int bufferSize, final ReadMode readMode, final boolean readOnly)
+			throws IOException {
+		if(bufferSize <= 0){
+			randomAccessFile.close();
+			throw new IllegalArgumentException("Buffer size <= 0");
+		}
+		if(readMode == ReadMode.MEMORY_MAPPED && !readOnly){
+			randomAccessFile.close();
+			throw new IllegalArgumentException("Speicherabbild nur im Modus \"r\" möglich");
+		}
+		_bufferSize = bufferSize;
+		_channel = randomAccessFile.getChannel();
+		_rawInStream = Channels.newInputStream(_channel);
+		_rawOutStream = Channels.newOutputStream(_channel);
+		switch(readMode) {
+			case MEMORY_MAPPED:
+				try {
+					_windowSource = new MappedWindows(_channel);
+				}
+				catch(IOException e) {
+					_channel.close();
+					throw e;
+				}
+				break;
+			case READ_AHEAD:
+				_windowSource = new ReadAheadWindows(_channel, bufferSize, Math.max(bufferSize, minReadAheadBlockSize));
+				break;
+			default:
+				_windowSource = null;
+		}
+	}
+
+	private DataOutputStream getDataOutStream() throws IOException {
 		flushInStream(); // Vor dem Schreiben Leseoperationen abschließen und Lesepuffer löschen (um FilePointer abschließend zu setzen)
+		if(_windowSource != null) _windowSource.invalidate();
 		if(_dataOutStream == null) {
 			_dataOutStream = new DataOutputStream(new BufferedOutputStream(_rawOutStream, _bufferSize));
 		}
@@ -137,14 +218,24 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	private DataInputStream getDataInStream() throws IOException {
 		flushOutStream(); // Vor dem Lesen Schreiboperationen abschließen und Schreibpuffer löschen (um FilePointer abschließend zu setzen)
 		if(_dataInStream == null) {
-			_dataInStream = new DataInputStream(new BufferedInputStream(_rawInStream, _bufferSize));
+			if(_windowSource != null) {
+				// Das Lesefenster puffert bereits, ein weiterer Puffer ist nicht nötig
+				_dataInStream = new DataInputStream(new WindowInputStream(_position));
+			}
+			else {
+				_dataInStream = new DataInputStream(new BufferedInputStream(_rawInStream, _bufferSize));
+			}
 		}
 		return _dataInStream;
 	}
 
-	private void flushInStream() {
+	private void flushInStream() throws IOException {
 		// Eingabestream verwerfen, flushen nicht möglich und nicht nötig
-		_dataInStream = null;
+		if(_dataInStream != null) {
+			_dataInStream = null;
+			// Der Puffer hat ggf. über die logische Position hinaus gelesen
+			_channel.position(_position);
+		}
 	}
 
 	private void flushOutStream() throws IOException {
@@ -164,6 +255,7 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	public void close() throws IOException {
 		if(_dataInStream != null) _dataInStream.close();
 		if(_dataOutStream != null) _dataOutStream.close();
+		if(_windowSource != null) _windowSource.close();
 		_channel.close();
 	}
 
@@ -285,14 +377,14 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	@Override
 	public float readFloat() throws IOException {
 		float readFloat = getDataInStream().readFloat();
-		_position += 8;
+		_position += 4;
 		return readFloat;
 	}
 
 	@Override
 	public double readDouble() throws IOException {
 		double readDouble = getDataInStream().readDouble();
-		_position += 16;
+		_position += 8;
 		return readDouble;
 	}
 
@@ -369,13 +461,13 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	@Override
 	public void writeFloat(final float v) throws IOException {
 		getDataOutStream().writeFloat(v);
-		_position += 8;
+		_position += 4;
 	}
 
 	@Override
 	public void writeDouble(final double v) throws IOException {
 		getDataOutStream().writeDouble(v);
-		_position += 16;
+		_position += 8;
 	}
 
 	@Override
@@ -414,6 +506,7 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	public int write(final ByteBuffer src) throws IOException {
 		flushOutStream();
 		flushInStream();
+		if(_windowSource != null) _windowSource.invalidate();
 		int write = _channel.write(src);
 		_position += write;
 		return write;
@@ -453,6 +546,7 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	public BufferedRandomAccessFile truncate(final long size) throws IOException {
 		flushOutStream();
 		flushInStream();
+		if(_windowSource != null) _windowSource.invalidate();
 		_channel.truncate(size);
 		return this;
 	}
@@ -487,6 +581,7 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	public void setLength(final long len) throws IOException {
 		flushOutStream();
 		flushInStream();
+		if(_windowSource != null) _windowSource.invalidate();
 		_channel.truncate(len);
 	}
 
@@ -494,4 +589,324 @@ public class BufferedRandomAccessFile implements DataInput, DataOutput, Seekable
 	public String toString() {
 		return "[BufferedFile, pos=" + position() + "]";
 	}
+
+	/**
+	 * Liefert Ausschnitte der Datei für Lesezugriffe
+	 */
+	private interface WindowSource {
+
+		/**
+		 * Gibt einen Ausschnitt der Datei zurück, der die angegebene Position enthält.
+		 * @param position Dateiposition
+		 * @return Puffer, dessen Position der angegebenen Dateiposition entspricht, oder <code>null</code> am Dateiende
+		 * @throws IOException Falls beim Lesen ein Fehler auftritt
+		 */
+		ByteBuffer window(long position) throws IOException;
+
+		/**
+		 * Gibt die Dateigröße zurück
+		 * @return Dateigröße in Bytes
+		 * @throws IOException Falls die Größe nicht ermittelt werden kann
+		 */
+		long size() throws IOException;
+
+		/**
+		 * Verwirft zwischengespeicherte Ausschnitte, weil die Datei verändert wurde
+		 */
+		void invalidate();
+
+		/**
+		 * Gibt alle Ausschnitte frei, weil die Datei geschlossen wird. Danach führt jeder Zugriff zu einer {@link ClosedChannelException}.
+		 */
+		void close();
+	}
+
+	/**
+	 * Ausschnitte aus einem Speicherabbild der Datei. Dateien über 1 GiB werden in mehreren Bereichen abgebildet.
+	 */
+	private static final class MappedWindows implements WindowSource {
+
+		private static final long regionSize = 1L << 30;
+
+		/** Abgebildete Bereiche oder <code>null</code>, nachdem die Datei geschlossen wurde */
+		private ByteBuffer[] _regions;
+
+		private final long _size;
+
+		private MappedWindows(final FileChannel channel) throws IOException {
+			_size = channel.size();
+			_regions = new ByteBuffer[(int) ((_size + regionSize - 1) / regionSize)];
+			for(int i = 0; i < _regions.length; i++) {
+				final long start = i * regionSize;
+				_regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, _size - start));
+			}
+		}
+
+		@Override
+		public ByteBuffer window(final long position) throws ClosedChannelException {
+			final ByteBuffer[] regions = _regions;
+			if(regions == null) throw new ClosedChannelException();
+			if(position < 0 || position >= _size) return null;
+			final int region = (int) (position / regionSize);
+			final ByteBuffer window = regions[region].duplicate();
+			window.position((int) (position - region * regionSize));
+			return window;
+		}
+
+		@Override
+		public long size() {
+			return _size;
+		}
+
+		@Override
+		public void invalidate() {
+			// Nur lesend geöffnet, es gibt nichts zu verwerfen
+		}
+
+		@Override
+		public void close() {
+			// Das Speicherabbild kann nicht explizit freigegeben werden, sondern erst, wenn es nicht mehr referenziert wird
+			_regions = null;
+		}
+	}
+
+	/**
+	 * Ausschnitte in Blöcken fester Größe, wobei bei sequentiellem Lesen der auf den aktuellen Block folgende Block asynchron
+	 * gelesen wird. Nach einem Sprung wird nur ein kleiner Block gelesen, damit wahlfreie Zugriffe nicht unnötig viele Daten lesen.
+	 */
+	private static final class ReadAheadWindows implements WindowSource {
+
+		/** Gemeinsamer Thread-Pool für das Vorauslesen aller Dateien */
+		private static final ExecutorService _executor = Executors.newCachedThreadPool(
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r, "BufferedRandomAccessFile-ReadAhead");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+		);
+
+		private final FileChannel _channel;
+
+		private final int _jumpBlockSize;
+
+		private final int _blockSize;
+
+		private ByteBuffer _current = null;
+
+		private long _currentStart;
+
+		private ByteBuffer _previous = null;
+
+		private long _previousStart;
+
+		private Future<ByteBuffer> _next = null;
+
+		private long _nextStart;
+
+		private ReadAheadWindows(final FileChannel channel, final int jumpBlockSize, final int blockSize) {
+			_channel = channel;
+			_jumpBlockSize = jumpBlockSize;
+			_blockSize = blockSize;
+		}
+
+		@Override
+		public ByteBuffer window(final long position) throws IOException {
+			if(position < 0) return null;
+			ByteBuffer window = view(_current, _currentStart, position);
+			if(window != null) return window;
+			window = view(_previous, _previousStart, position);
+			if(window != null) return window;
+			if(_next != null && position >= _nextStart && position < _nextStart + _blockSize) {
+				final ByteBuffer next = await(_next);
+				_next = null;
+				window = view(next, _nextStart, position);
+				if(window != null) {
+					setCurrent(next, _nextStart, true);
+					return window;
+				}
+			}
+			else if(_current != null && _next == null && position == _currentStart + _current.limit()) {
+				// Sequentielles Lesen nach einem Sprung, ab jetzt vorauslesen
+				final ByteBuffer block = readBlock(_channel, position, _blockSize);
+				window = view(block, position, position);
+				if(window == null) return null;
+				setCurrent(block, position, true);
+				return window;
+			}
+			// Sprung außerhalb der gepufferten Blöcke, synchron einen kleinen Block lesen
+			invalidate();
+			final ByteBuffer block = readBlock(_channel, position, _jumpBlockSize);
+			window = view(block, position, position);
+			if(window == null) return null;
+			setCurrent(block, position, false);
+			return window;
+		}
+
+		private void setCurrent(final ByteBuffer block, final long start, final boolean readAhead) {
+			_previous = _current;
+			_previousStart = _currentStart;
+			_current = block;
+			_currentStart = start;
+			if(readAhead && block.limit() == _blockSize) {
+				// Kein Dateiende, den nächsten Block im Hintergrund lesen
+				final long nextStart = start + _blockSize;
+				_nextStart = nextStart;
+				_next = _executor.submit(
+						new Callable<ByteBuffer>() {
+							@Override
+							public ByteBuffer call() throws IOException {
+								return readBlock(_channel, nextStart, _blockSize);
+							}
+						}
+				);
+			}
+		}
+
+		private static ByteBuffer view(final ByteBuffer block, final long start, final long position) {
+			if(block == null || position < start || position >= start + block.limit()) return null;
+			final ByteBuffer window = block.duplicate();
+			window.position((int) (position - start));
+			return window;
+		}
+
+		private static ByteBuffer readBlock(final FileChannel channel, final long position, final int blockSize) throws IOException {
+			final ByteBuffer block = ByteBuffer.allocate(blockSize);
+			long readPosition = position;
+			while(block.hasRemaining()) {
+				final int read = channel.read(block, readPosition);
+				if(read < 0) break;
+				readPosition += read;
+			}
+			block.flip();
+			return block;
+		}
+
+		private static ByteBuffer await(final Future<ByteBuffer> future) throws IOException {
+			try {
+				return future.get();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Unterbrochen beim Warten auf vorausgelesene Daten");
+			}
+			catch(ExecutionException e) {
+				if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+				throw new IOException("Fehler beim Vorauslesen", e.getCause());
+			}
+		}
+
+		@Override
+		public long size() throws IOException {
+			return _channel.size();
+		}
+
+		@Override
+		public void invalidate() {
+			if(_next != null) {
+				_next.cancel(false);
+				_next = null;
+			}
+			_current = null;
+			_previous = null;
+		}
+
+		@Override
+		public void close() {
+			invalidate();
+		}
+	}
+
+	/**
+	 * Eingabestream über die Ausschnitte einer {@link WindowSource}, beginnend an einer Dateiposition.
+	 */
+	private final class WindowInputStream extends InputStream {
+
+		private long _streamPosition;
+
+		private long _mark;
+
+		/** Aktueller Ausschnitt oder <code>null</code> */
+		private ByteBuffer _window = null;
+
+		/** Dateiposition des Anfangs von {@link #_window} */
+		private long _windowStart;
+
+		private WindowInputStream(final long position) {
+			_streamPosition = position;
+			_mark = position;
+		}
+
+		/**
+		 * Gibt den Ausschnitt an der aktuellen Position zurück
+		 * @return Ausschnitt mit mindestens einem verbleibenden Byte oder <code>null</code> am Dateiende
+		 */
+		private ByteBuffer window() throws IOException {
+			if(_window != null) {
+				final long offset = _streamPosition - _windowStart;
+				if(offset >= 0 && offset < _window.limit()) {
+					_window.position((int) offset);
+					return _window;
+				}
+			}
+			_window = _windowSource.window(_streamPosition);
+			if(_window != null) _windowStart = _streamPosition - _window.position();
+			return _window;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final ByteBuffer window = window();
+			if(window == null) return -1;
+			_streamPosition++;
+			return window.get() & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if(len == 0) return 0;
+			final ByteBuffer window = window();
+			if(window == null) return -1;
+			final int n = Math.min(len, window.remaining());
+			window.get(b, off, n);
+			_streamPosition += n;
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			if(n <= 0) return 0;
+			final long skipped = Math.max(0, Math.min(n, _windowSource.size() - _streamPosition));
+			_streamPosition += skipped;
+			return skipped;
+		}
+
+		@Override
+		public void close() {
+			// Der Ausschnitt kann ein Speicherabbild referenzieren
+			_window = null;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.max(0, Math.min(Integer.MAX_VALUE, _windowSource.size() - _streamPosition));
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(final int readlimit) {
+			_mark = _streamPosition;
+		}
+
+		@Override
+		public synchronized void reset() {
+			_streamPosition = _mark;
+		}
+	}
 }
@@ -48,6 +48,7 @@ import java.util.Queue;
  * @see FileBackedShortQueue
  * @see FileBackedByteQueue
  * @see FileBackedStringQueue
+ * @see SegmentFileQueue
  */
 public class FileBackedQueue<E> extends AbstractQueue<E> {
 
@@ -0,0 +1,805 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.util.fileBackedQueue;
+
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Eine dauerhafte Queue, die ihre Elemente in Segmentdateien eines Verzeichnisses speichert und nach einem Neustart aus diesen Dateien wiederhergestellt werden
+ * kann. Im Gegensatz zur {@link FileBackedQueue} werden die Elemente nicht byteweise über temporäre Dateien ausgelagert, sondern als Datensätze mit
+ * Längenangabe und CRC32-Prüfsumme blockweise über einen {@link FileChannel} geschrieben und gelesen.
+ * <p>
+ * Neue Elemente werden an das letzte Segment angehängt. Überschreitet es die Segmentgröße, wird ein neues Segment begonnen. Vollständig gelesene Segmente
+ * werden entfernt, wobei jeweils eine Segmentdatei für das nächste neue Segment wiederverwendet wird. Die Leseposition wird nach jeder Entnahme in einer
+ * kleinen Positionsdatei vermerkt. Beim Öffnen eines Verzeichnisses werden die Segmente ab dieser Position geprüft; ein unvollständig geschriebener oder
+ * beschädigter Datensatz am Ende eines Segments wird abgeschnitten.
+ * <p>
+ * Geschriebene Elemente werden zunächst in einem Blockpuffer gesammelt und erst bei vollem Puffer, bei Bedarf eines Lesers, bei {@link #sync()} und bei
+ * {@link #close()} in die Datei übertragen. Nach einem Absturz des Prozesses sind nur die bis dahin übertragenen Elemente vorhanden; {@link #sync()} schreibt
+ * sie zusätzlich in allen Segmenten, die seit dem letzten Aufruf geändert wurden, auf das Speichermedium. Elemente, deren Entnahme vor einem Absturz nicht mehr vermerkt werden konnte, werden nach dem Neustart erneut
+ * geliefert.
+ * <p>
+ * Diese Queue ist threadsicher und implementiert {@link BlockingQueue}. Die Kapazität ist nicht auf eine Anzahl Elemente, sondern auf die Größe der
+ * gespeicherten Datensätze in Bytes begrenzt. Fehler beim Zugriff auf die Dateien werden als {@link IllegalStateException} gemeldet, damit sie nicht mit
+ * einer vollen Queue verwechselt werden. Nach {@link #close()} wartende Threads werden ebenfalls mit einer {@link IllegalStateException} beendet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class SegmentFileQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private static final Debug _debug = Debug.getLogger();
+
+	/** Standardgröße eines Segments in Bytes */
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	/** Standardgröße des Schreib- und Lesepuffers in Bytes */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	/** Größe des Kopfes eines Datensatzes (Länge und Prüfsumme) in Bytes */
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	/** Präfix der Segmentdateien */
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	/** Endung der Segmentdateien */
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	/** Name der Datei mit der Leseposition */
+	private static final String HEAD_FILE = "head.dat";
+
+	/** Name der zur Wiederverwendung vorgehaltenen Segmentdatei */
+	private static final String SPARE_FILE = "spare.dat";
+
+	private final File _directory;
+
+	private final long _capacity;
+
+	private final int _segmentSize;
+
+	private final QueueSerializer<E> _queueSerializer;
+
+	/** Segmente in aufsteigender Reihenfolge, das erste Segment wird gelesen, das letzte beschrieben */
+	private final ArrayDeque<Segment> _segments = new ArrayDeque<Segment>();
+
+	/** Puffer für noch nicht in das letzte Segment geschriebene Datensätze */
+	private final ByteBuffer _writeBuffer;
+
+	/** Lesepuffer */
+	private final ByteBuffer _readBuffer;
+
+	/** Segment, dessen Inhalt sich im Lesepuffer befindet, oder <code>null</code> */
+	private Segment _readBufferSegment = null;
+
+	/** Position des Lesepuffers im Segment */
+	private long _readBufferStart = 0;
+
+	/** Leseposition im ersten Segment */
+	private long _readPosition = 0;
+
+	/** Nutzdaten des Datensatzes an der Leseposition oder <code>null</code>, wenn er noch nicht gelesen wurde */
+	private byte[] _headPayload = null;
+
+	private final FileChannel _headChannel;
+
+	private final ByteBuffer _headBuffer = ByteBuffer.allocate(20);
+
+	private final ByteArrayOutputStream _serializeBuffer = new ByteArrayOutputStream();
+
+	private final DataOutputStream _serializeStream = new DataOutputStream(_serializeBuffer);
+
+	private final CRC32 _crc = new CRC32();
+
+	/** Anzahl Elemente */
+	private int _size = 0;
+
+	/** Größe der noch nicht entnommenen Datensätze in Bytes */
+	private long _diskUsed = 0;
+
+	private boolean _closed = false;
+
+	/**
+	 * Öffnet eine Queue in dem angegebenen Verzeichnis mit Standardwerten für Segment- und Blockgröße. Bereits im Verzeichnis vorhandene Elemente werden
+	 * übernommen.
+	 *
+	 * @param directory       Verzeichnis der Segmentdateien. Es wird bei Bedarf angelegt und darf nur von dieser Queue benutzt werden.
+	 * @param capacity        Maximale Größe der gespeicherten Datensätze in Bytes. Es handelt sich um einen Richtwert, der um die Größe eines Segments
+	 *                        überschritten werden kann, weil gelesene Datensätze erst mit ihrem Segment entfernt werden.
+	 * @param queueSerializer Klasse, die die Elemente serialisiert und deserialisiert
+	 *
+	 * @throws IOException Wenn das Verzeichnis nicht angelegt oder die vorhandenen Dateien nicht gelesen werden konnten
+	 */
+	public SegmentFileQueue(final File directory, final long capacity, final QueueSerializer<E> queueSerializer) throws IOException {
+		this(directory, capacity, DEFAULT_SEGMENT_SIZE, DEFAULT_BLOCK_SIZE, queueSerializer);
+	}
+
+	/**
+	 * Öffnet eine Queue in dem angegebenen Verzeichnis. Bereits im Verzeichnis vorhandene Elemente werden übernommen.
+	 *
+	 * @param directory       Verzeichnis der Segmentdateien. Es wird bei Bedarf angelegt und darf nur von dieser Queue benutzt werden.
+	 * @param capacity        Maximale Größe der gespeicherten Datensätze in Bytes. Es handelt sich um einen Richtwert, der um die Größe eines Segments
+	 *                        überschritten werden kann, weil gelesene Datensätze erst mit ihrem Segment entfernt werden.
+	 * @param segmentSize     Größe, ab der ein neues Segment begonnen wird, in Bytes. Ein einzelner größerer Datensatz wird in einem eigenen Segment
+	 *                        gespeichert.
+	 * @param blockSize       Größe des Schreib- und Lesepuffers in Bytes
+	 * @param queueSerializer Klasse, die die Elemente serialisiert und deserialisiert
+	 *
+	 * @throws IOException Wenn das Verzeichnis nicht angelegt oder die vorhandenen Dateien nicht gelesen werden konnten
+	 */
+	public SegmentFileQueue(
+			final File directory, final long capacity, final int segmentSize, final int blockSize, final QueueSerializer<E> queueSerializer) throws IOException {
+		if(directory == null) throw new IllegalArgumentException("directory ist null.");
+		if(capacity < 1) throw new IllegalArgumentException("capacity muss > 0 sein.");
+		if(segmentSize < RECORD_HEADER_SIZE) throw new IllegalArgumentException("segmentSize muss >= " + RECORD_HEADER_SIZE + " sein.");
+		if(blockSize < RECORD_HEADER_SIZE) throw new IllegalArgumentException("blockSize muss >= " + RECORD_HEADER_SIZE + " sein.");
+		if(queueSerializer == null) throw new IllegalArgumentException("queueSerializer ist null.");
+		if(!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Verzeichnis konnte nicht angelegt werden: " + directory);
+		_directory = directory;
+		_capacity = capacity;
+		_segmentSize = segmentSize;
+		_queueSerializer = queueSerializer;
+		_writeBuffer = ByteBuffer.allocate(blockSize);
+		_readBuffer = ByteBuffer.allocate(blockSize);
+		_headChannel = new RandomAccessFile(new File(directory, HEAD_FILE), "rw").getChannel();
+		recover();
+	}
+
+	/**
+	 * Stellt den Inhalt der Queue aus den Dateien des Verzeichnisses wieder her.
+	 *
+	 * @throws IOException Wenn die Dateien nicht gelesen werden konnten
+	 */
+	private void recover() throws IOException {
+		long headSequence = 0;
+		long headPosition = 0;
+		_headBuffer.clear();
+		if(_headChannel.read(_headBuffer, 0) == _headBuffer.capacity()) {
+			_headBuffer.flip();
+			headSequence = _headBuffer.getLong();
+			headPosition = _headBuffer.getLong();
+			final int checksum = _headBuffer.getInt();
+			_crc.reset();
+			_crc.update(_headBuffer.array(), 0, 16);
+			if(checksum != (int)_crc.getValue()) {
+				_debug.warning("Die Leseposition der Queue ist beschädigt, alle vorhandenen Elemente werden erneut gelesen: " + _directory);
+				headSequence = 0;
+				headPosition = 0;
+			}
+		}
+		new File(_directory, SPARE_FILE).delete();
+
+		final File[] files = _directory.listFiles(
+				new FilenameFilter() {
+					@Override
+					public boolean accept(final File dir, final String name) {
+						return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+					}
+				}
+		);
+		final TreeMap<Long, File> segmentFiles = new TreeMap<Long, File>();
+		if(files != null) {
+			for(File file : files) {
+				final String name = file.getName();
+				try {
+					segmentFiles.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+				}
+				catch(NumberFormatException e) {
+					_debug.warning("Unbekannte Datei im Verzeichnis der Queue wird ignoriert: " + file);
+				}
+			}
+		}
+
+		for(Map.Entry<Long, File> entry : segmentFiles.entrySet()) {
+			final long sequence = entry.getKey();
+			if(sequence < headSequence) {
+				// Vollständig gelesen, aber vor dem Absturz nicht mehr entfernt
+				entry.getValue().delete();
+				continue;
+			}
+			final Segment segment = new Segment(sequence, entry.getValue());
+			final long start = sequence == headSequence ? Math.min(headPosition, segment._length) : 0;
+			if(_segments.isEmpty()) _readPosition = start;
+			_segments.addLast(segment);
+			scan(segment, start);
+		}
+		if(_segments.isEmpty()) {
+			_segments.addLast(new Segment(Math.max(headSequence, 1), segmentFile(Math.max(headSequence, 1))));
+			_readPosition = 0;
+		}
+		writeHead();
+	}
+
+	/**
+	 * Prüft die Datensätze eines Segments ab der angegebenen Position und zählt sie. Das Segment wird beim ersten unvollständigen oder beschädigten Datensatz
+	 * abgeschnitten.
+	 *
+	 * @param segment Segment
+	 * @param start   Position des ersten Datensatzes
+	 *
+	 * @throws IOException Wenn das Segment nicht gelesen werden konnte
+	 */
+	private void scan(final Segment segment, final long start) throws IOException {
+		final byte[] header = new byte[RECORD_HEADER_SIZE];
+		long position = start;
+		while(position < segment._length) {
+			final long recordSize = checkRecord(segment, position, header);
+			if(recordSize < 0) {
+				_debug.warning(
+						"Unvollständiger oder beschädigter Datensatz in " + segment._file + " an Position " + position + ", " + (segment._length - position)
+						+ " Bytes werden verworfen"
+				);
+				segment._channel.truncate(position);
+				segment._length = position;
+				segment._flushedLength = position;
+				_readBufferSegment = null;
+				break;
+			}
+			position += recordSize;
+			_size++;
+			_diskUsed += recordSize;
+		}
+	}
+
+	/**
+	 * Prüft Länge und Prüfsumme des Datensatzes an der angegebenen Position.
+	 *
+	 * @return Größe des Datensatzes einschließlich Kopf oder -1, wenn der Datensatz unvollständig oder beschädigt ist
+	 */
+	private long checkRecord(final Segment segment, final long position, final byte[] header) throws IOException {
+		if(position + RECORD_HEADER_SIZE > segment._length) return -1;
+		readFully(segment, position, header);
+		final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+		final int length = headerBuffer.getInt();
+		final int checksum = headerBuffer.getInt();
+		if(length < 0 || position + RECORD_HEADER_SIZE + length > segment._length) return -1;
+		final byte[] payload = new byte[length];
+		readFully(segment, position + RECORD_HEADER_SIZE, payload);
+		if(checksum != checksum(payload, length)) return -1;
+		return RECORD_HEADER_SIZE + length;
+	}
+
+	private File segmentFile(final long sequence) {
+		return new File(_directory, String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+	}
+
+	private int checksum(final byte[] bytes, final int length) {
+		_crc.reset();
+		_crc.update(bytes, 0, length);
+		return (int)_crc.getValue();
+	}
+
+	/**
+	 * Liest Bytes aus einem Segment. Kleine Datensätze werden über den Lesepuffer blockweise gelesen.
+	 *
+	 * @param segment  Segment
+	 * @param position Position im Segment
+	 * @param target   Zielarray, das vollständig gefüllt wird
+	 *
+	 * @throws IOException Wenn die Bytes nicht gelesen werden konnten
+	 */
+	private void readFully(final Segment segment, final long position, final byte[] target) throws IOException {
+		if(segment == _segments.peekLast() && position + target.length > segment._flushedLength) {
+			flushWriteBuffer();
+		}
+		if(target.length > _readBuffer.capacity()) {
+			readFully(segment._channel, position, ByteBuffer.wrap(target));
+			return;
+		}
+		if(segment != _readBufferSegment || position < _readBufferStart || position + target.length > _readBufferStart + _readBuffer.limit()) {
+			_readBuffer.clear();
+			_readBufferSegment = null;
+			long readPosition = position;
+			while(_readBuffer.hasRemaining()) {
+				final int read = segment._channel.read(_readBuffer, readPosition);
+				if(read < 0) break;
+				readPosition += read;
+			}
+			_readBuffer.flip();
+			_readBufferSegment = segment;
+			_readBufferStart = position;
+			if(target.length > _readBuffer.limit()) throw new EOFException("Unerwartetes Dateiende in " + segment._file + " an Position " + position);
+		}
+		_readBuffer.position((int)(position - _readBufferStart));
+		_readBuffer.get(target);
+	}
+
+	private static void readFully(final FileChannel channel, final long position, final ByteBuffer buffer) throws IOException {
+		long readPosition = position;
+		while(buffer.hasRemaining()) {
+			final int read = channel.read(buffer, readPosition);
+			if(read < 0) throw new EOFException("Unerwartetes Dateiende an Position " + readPosition);
+			readPosition += read;
+		}
+	}
+
+	/** Überträgt den Inhalt des Schreibpuffers in das letzte Segment. */
+	private void flushWriteBuffer() throws IOException {
+		if(_writeBuffer.position() == 0) return;
+		final Segment tail = _segments.peekLast();
+		_writeBuffer.flip();
+		while(_writeBuffer.hasRemaining()) {
+			tail._flushedLength += tail._channel.write(_writeBuffer, tail._flushedLength);
+		}
+		tail._unsynced = true;
+		_writeBuffer.clear();
+	}
+
+	/** Vermerkt die aktuelle Leseposition in der Positionsdatei. */
+	private void writeHead() throws IOException {
+		_headBuffer.clear();
+		_headBuffer.putLong(_segments.peekFirst()._sequence);
+		_headBuffer.putLong(_readPosition);
+		_headBuffer.putInt(checksum(_headBuffer.array(), 16));
+		_headBuffer.flip();
+		while(_headBuffer.hasRemaining()) {
+			_headChannel.write(_headBuffer, _headBuffer.position());
+		}
+	}
+
+	/** Beginnt ein neues Segment. Falls vorhanden, wird die vorgehaltene Datei eines vollständig gelesenen Segments wiederverwendet. */
+	private void rollSegment() throws IOException {
+		flushWriteBuffer();
+		final long sequence = _segments.peekLast()._sequence + 1;
+		final File file = segmentFile(sequence);
+		final File spare = new File(_directory, SPARE_FILE);
+		if(spare.exists() && !spare.renameTo(file)) spare.delete();
+		final Segment segment = new Segment(sequence, file);
+		if(segment._length > 0) {
+			segment._channel.truncate(0);
+			segment._length = 0;
+			segment._flushedLength = 0;
+		}
+		_segments.addLast(segment);
+	}
+
+	/** Entfernt das vollständig gelesene erste Segment. Die Datei wird zur Wiederverwendung vorgehalten, falls noch keine andere vorgehalten wird. */
+	private void dropHeadSegment() throws IOException {
+		final Segment head = _segments.removeFirst();
+		if(_readBufferSegment == head) _readBufferSegment = null;
+		head._channel.close();
+		final File spare = new File(_directory, SPARE_FILE);
+		if(spare.exists() || !head._file.renameTo(spare)) head._file.delete();
+		_readPosition = 0;
+		writeHead();
+	}
+
+	/**
+	 * Liest die Nutzdaten des ersten Datensatzes, ohne ihn zu entnehmen.
+	 *
+	 * @return Nutzdaten oder <code>null</code>, wenn die Queue leer ist
+	 */
+	private byte[] readHead() throws IOException {
+		if(_headPayload != null) return _headPayload;
+		if(_size == 0) return null;
+		while(_readPosition >= _segments.peekFirst()._length) {
+			dropHeadSegment();
+		}
+		final Segment head = _segments.peekFirst();
+		final byte[] header = new byte[RECORD_HEADER_SIZE];
+		readFully(head, _readPosition, header);
+		final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+		final int length = headerBuffer.getInt();
+		final int checksum = headerBuffer.getInt();
+		final byte[] payload = new byte[length];
+		readFully(head, _readPosition + RECORD_HEADER_SIZE, payload);
+		if(checksum != checksum(payload, length)) {
+			throw new IOException("Prüfsummenfehler in " + head._file + " an Position " + _readPosition);
+		}
+		_headPayload = payload;
+		return payload;
+	}
+
+	/** Entnimmt den mit {@link #readHead()} gelesenen Datensatz, ohne die Positionsdatei zu aktualisieren. */
+	private void removeHead() {
+		final long recordSize = RECORD_HEADER_SIZE + _headPayload.length;
+		_readPosition += recordSize;
+		_diskUsed -= recordSize;
+		_size--;
+		_headPayload = null;
+	}
+
+	private E deserialize(final byte[] payload) throws IOException {
+		return _queueSerializer.deserialize(new DataInputStream(new ByteArrayInputStream(payload)));
+	}
+
+	private void checkOpen() {
+		if(_closed) throw new IllegalStateException("Die Queue wurde geschlossen: " + _directory);
+	}
+
+	/**
+	 * Inserts the specified element into this queue if it is possible to do so immediately without violating capacity restrictions.
+	 *
+	 * @param e the element to add
+	 *
+	 * @return <tt>true</tt> if the element was added to this queue, else <tt>false</tt>
+	 */
+	@Override
+	public synchronized boolean offer(final E e) {
+		if(e == null) throw new NullPointerException();
+		checkOpen();
+		try {
+			return store(e);
+		}
+		catch(IOException ioException) {
+			throw new IllegalStateException("Konnte SegmentFileQueue nicht schreiben. Betroffenes Verzeichnis: " + _directory, ioException);
+		}
+	}
+
+	/**
+	 * Speichert ein Element, falls die Kapazität es zulässt.
+	 *
+	 * @param e Element
+	 *
+	 * @return <code>true</code>, wenn das Element gespeichert wurde, <code>false</code>, wenn die Queue voll ist
+	 *
+	 * @throws IOException Wenn das Element nicht geschrieben werden konnte
+	 */
+	private boolean store(final E e) throws IOException {
+		_serializeBuffer.reset();
+		_queueSerializer.serialize(_serializeStream, e);
+		_serializeStream.flush();
+		final int length = _serializeBuffer.size();
+		final long recordSize = RECORD_HEADER_SIZE + length;
+		if(_size > 0 && _diskUsed + recordSize > _capacity) return false;
+		final byte[] payload = _serializeBuffer.toByteArray();
+		final int checksum = checksum(payload, length);
+
+		Segment tail = _segments.peekLast();
+		if(tail._length > 0 && tail._length + recordSize > _segmentSize) {
+			rollSegment();
+			tail = _segments.peekLast();
+		}
+		if(_writeBuffer.remaining() < recordSize) flushWriteBuffer();
+		if(_writeBuffer.remaining() >= recordSize) {
+			_writeBuffer.putInt(length);
+			_writeBuffer.putInt(checksum);
+			_writeBuffer.put(payload, 0, length);
+		}
+		else {
+			// Größer als der Schreibpuffer, direkt schreiben
+			final ByteBuffer record = ByteBuffer.allocate((int)recordSize);
+			record.putInt(length);
+			record.putInt(checksum);
+			record.put(payload, 0, length);
+			record.flip();
+			while(record.hasRemaining()) {
+				tail._flushedLength += tail._channel.write(record, tail._flushedLength);
+			}
+			tail._unsynced = true;
+		}
+		tail._length += recordSize;
+		_diskUsed += recordSize;
+		_size++;
+		notifyAll();
+		return true;
+	}
+
+	@Override
+	public synchronized boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException {
+		long remaining = unit.toNanos(timeout);
+		final long deadline = System.nanoTime() + remaining;
+		while(!offer(e)) {
+			if(remaining <= 0) return false;
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			remaining = deadline - System.nanoTime();
+		}
+		return true;
+	}
+
+	/**
+	 * Speichert ein Element und wartet dafür bei Bedarf, bis genügend Kapazität frei ist.
+	 *
+	 * @param e Element
+	 *
+	 * @throws InterruptedException  Wenn der Thread während des Wartens unterbrochen wurde
+	 * @throws IllegalStateException Wenn das Element nicht geschrieben werden konnte oder die Queue geschlossen wurde
+	 */
+	@Override
+	public synchronized void put(final E e) throws InterruptedException {
+		while(!offer(e)) {
+			wait();
+		}
+	}
+
+	@Override
+	public synchronized E poll() {
+		checkOpen();
+		try {
+			final byte[] payload = readHead();
+			if(payload == null) return null;
+			final E result = deserialize(payload);
+			removeHead();
+			writeHead();
+			notifyAll();
+			return result;
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("Fehler beim Lesen eines Objekts aus dem Dateisystem", e);
+		}
+	}
+
+	@Override
+	public synchronized E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+		long remaining = unit.toNanos(timeout);
+		final long deadline = System.nanoTime() + remaining;
+		while(_size == 0) {
+			checkOpen();
+			if(remaining <= 0) return null;
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			remaining = deadline - System.nanoTime();
+		}
+		return poll();
+	}
+
+	/**
+	 * Entnimmt das erste Element und wartet dafür bei Bedarf, bis ein Element verfügbar ist.
+	 *
+	 * @return Element
+	 *
+	 * @throws InterruptedException  Wenn der Thread während des Wartens unterbrochen wurde
+	 * @throws IllegalStateException Wenn das Element nicht gelesen werden konnte oder die Queue geschlossen wurde
+	 */
+	@Override
+	public synchronized E take() throws InterruptedException {
+		while(_size == 0) {
+			checkOpen();
+			wait();
+		}
+		return poll();
+	}
+
+	@Override
+	public synchronized E peek() {
+		checkOpen();
+		try {
+			final byte[] payload = readHead();
+			return payload == null ? null : deserialize(payload);
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("Fehler beim Lesen eines Objekts aus dem Dateisystem", e);
+		}
+	}
+
+	@Override
+	public int drainTo(final Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Entnimmt bis zu <code>maxElements</code> Elemente und fügt sie der angegebenen Collection hinzu. Die Leseposition wird dabei nur einmal vermerkt, so dass
+	 * die Entnahme vieler Elemente deutlich günstiger ist als einzelne Aufrufe von {@link #poll()}.
+	 *
+	 * @param c           Ziel der entnommenen Elemente
+	 * @param maxElements Maximale Anzahl zu entnehmender Elemente
+	 *
+	 * @return Anzahl entnommener Elemente
+	 */
+	@Override
+	public synchronized int drainTo(final Collection<? super E> c, final int maxElements) {
+		if(c == null) throw new NullPointerException();
+		if(c == this) throw new IllegalArgumentException();
+		checkOpen();
+		int count = 0;
+		try {
+			while(count < maxElements) {
+				final byte[] payload = readHead();
+				if(payload == null) break;
+				c.add(deserialize(payload));
+				removeHead();
+				count++;
+			}
+			return count;
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("Fehler beim Lesen eines Objekts aus dem Dateisystem", e);
+		}
+		finally {
+			if(count > 0) {
+				try {
+					writeHead();
+				}
+				catch(IOException e) {
+					_debug.warning("Leseposition der SegmentFileQueue konnte nicht gespeichert werden: " + _directory, e);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Gibt die noch freie Kapazität zurück. Da die Kapazität nicht auf eine Anzahl Elemente, sondern auf eine Größe begrenzt ist, wird die Anzahl freier Bytes
+	 * zurückgegeben.
+	 *
+	 * @return Anzahl freier Bytes, höchstens <code>Integer.MAX_VALUE</code>
+	 */
+	@Override
+	public synchronized int remainingCapacity() {
+		return (int)Math.min(Integer.MAX_VALUE, Math.max(0, _capacity - _diskUsed));
+	}
+
+	@Override
+	public synchronized int size() {
+		return _size;
+	}
+
+	/**
+	 * Gibt die Größe der gespeicherten, noch nicht entnommenen Datensätze zurück.
+	 *
+	 * @return Größe in Bytes
+	 */
+	public synchronized long getDiskUsed() {
+		return _diskUsed;
+	}
+
+	/**
+	 * Gibt die Kapazität der Queue zurück.
+	 *
+	 * @return Maximale Größe der gespeicherten Datensätze in Bytes
+	 */
+	public long getDiskCapacity() {
+		return _capacity;
+	}
+
+	/**
+	 * Returns an iterator over the elements contained in this collection. Der Iterator arbeitet auf einer Kopie der zum Zeitpunkt des Aufrufs enthaltenen
+	 * Elemente, die dafür vollständig gelesen werden, und unterstützt kein Entfernen.
+	 *
+	 * @return an iterator over the elements contained in this collection
+	 */
+	@Override
+	public synchronized Iterator<E> iterator() {
+		checkOpen();
+		final List<E> result = new ArrayList<E>(_size);
+		try {
+			final byte[] header = new byte[RECORD_HEADER_SIZE];
+			boolean first = true;
+			for(Segment segment : _segments) {
+				long position = first ? _readPosition : 0;
+				first = false;
+				final long length = segment._length;
+				while(position < length) {
+					readFully(segment, position, header);
+					final byte[] payload = new byte[ByteBuffer.wrap(header).getInt()];
+					readFully(segment, position + RECORD_HEADER_SIZE, payload);
+					result.add(deserialize(payload));
+					position += RECORD_HEADER_SIZE + payload.length;
+				}
+			}
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("Fehler beim Lesen eines Objekts aus dem Dateisystem", e);
+		}
+		return Collections.unmodifiableList(result).iterator();
+	}
+
+	/** Entfernt alle Elemente und löscht die Segmentdateien. */
+	@Override
+	public synchronized void clear() {
+		checkOpen();
+		try {
+			final long sequence = _segments.peekLast()._sequence + 1;
+			_writeBuffer.clear();
+			for(Segment segment : _segments) {
+				segment._channel.close();
+				segment._file.delete();
+			}
+			_segments.clear();
+			_readBufferSegment = null;
+			_headPayload = null;
+			_segments.addLast(new Segment(sequence, segmentFile(sequence)));
+			_readPosition = 0;
+			_size = 0;
+			_diskUsed = 0;
+			writeHead();
+			notifyAll();
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("Fehler beim Löschen der Segmentdateien in " + _directory, e);
+		}
+	}
+
+	/**
+	 * Überträgt alle gepufferten Elemente in die Segmentdatei und schreibt alle seit dem letzten Aufruf geänderten Segmente sowie die Leseposition auf das
+	 * Speichermedium.
+	 *
+	 * @throws IOException Wenn beim Schreiben ein Fehler auftritt
+	 */
+	public synchronized void sync() throws IOException {
+		checkOpen();
+		flushWriteBuffer();
+		for(Segment segment : _segments) {
+			if(segment._unsynced) {
+				segment._channel.force(false);
+				segment._unsynced = false;
+			}
+		}
+		_headChannel.force(false);
+	}
+
+	/**
+	 * Schließt die Queue. Gepufferte Elemente werden in die Segmentdatei übertragen, die Dateien bleiben erhalten und können mit einer neuen Queue im selben
+	 * Verzeichnis wieder geöffnet werden.
+	 *
+	 * @throws IOException Wenn beim Schreiben oder Schließen ein Fehler auftritt
+	 */
+	public synchronized void close() throws IOException {
+		if(_closed) return;
+		try {
+			sync();
+		}
+		finally {
+			_closed = true;
+			for(Segment segment : _segments) {
+				segment._channel.close();
+			}
+			_headChannel.close();
+			notifyAll();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SegmentFileQueue{" + _directory + ", " + size() + " Entries, " + getDiskUsed() + " bytes}";
+	}
+
+	/** Eine Segmentdatei */
+	private static final class Segment {
+
+		private final long _sequence;
+
+		private final File _file;
+
+		private final FileChannel _channel;
+
+		/** Länge einschließlich der Datensätze im Schreibpuffer */
+		private long _length;
+
+		/** Länge der in die Datei geschriebenen Daten */
+		private long _flushedLength;
+
+		/** <code>true</code>, wenn seit dem letzten {@link SegmentFileQueue#sync()} Daten in die Datei geschrieben wurden */
+		private boolean _unsynced = false;
+
+		@SuppressWarnings({"IOResourceOpenedButNotSafelyClosed"})
+		private Segment(final long sequence, final File file) throws IOException {
+			_sequence = sequence;
+			_file = file;
+			_channel = new RandomAccessFile(file, "rw").getChannel();
+			_length = _channel.size();
+			_flushedLength = _length;
+		}
+	}
+}
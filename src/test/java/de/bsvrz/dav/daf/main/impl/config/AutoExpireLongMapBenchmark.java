@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.main.impl.config;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Einfacher Benchmark der {@link AutoExpireLongMap} mit 2 Millionen gespeicherten Objekten. Verglichen wird mit dem Zugriffsweg der früheren
+ * AutoExpireMap (synchronisiertes <code>get</code> auf einer <code>ConcurrentHashMap&lt;Long, Object&gt;</code> mit Abarbeitung der ReferenceQueue bei
+ * jedem Zugriff).
+ * <p>
+ * Aufruf: <code>java de.bsvrz.dav.daf.main.impl.config.AutoExpireLongMapBenchmark [Anzahl Objekte] [Anzahl Threads]</code>
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class AutoExpireLongMapBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	private static final int LOOKUPS_PER_THREAD = 10000000;
+
+	public static void main(String[] args) throws Exception {
+		final int objectCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		final int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		final long[] ids = new long[objectCount];
+		final Random random = new Random(4711);
+		for(int i = 0; i < ids.length; i++) {
+			// Ids von Konfigurationsobjekten sind nicht fortlaufend
+			ids[i] = (random.nextLong() & 0x7fffffffffffL) | 1L;
+		}
+
+		final AutoExpireLongMap<Object> longMap = new AutoExpireLongMap<Object>();
+		final SynchronizedBoxedMap boxedMap = new SynchronizedBoxedMap();
+		long start = System.nanoTime();
+		for(long id : ids) {
+			longMap.put(id, Long.valueOf(id));
+		}
+		System.out.printf("AutoExpireLongMap: %d Objekte eingefügt in %d ms%n", objectCount, (System.nanoTime() - start) / 1000000);
+		start = System.nanoTime();
+		for(long id : ids) {
+			boxedMap.put(id, Long.valueOf(id));
+		}
+		System.out.printf("Bisheriger Zugriffsweg: %d Objekte eingefügt in %d ms%n", objectCount, (System.nanoTime() - start) / 1000000);
+
+		for(int round = 0; round < ROUNDS; round++) {
+			for(int threads : threadCount > 1 ? new int[]{1, threadCount} : new int[]{1}) {
+				final double longMapNanos = measure(threads, ids, new Lookup() {
+					@Override
+					public Object get(final long id) {
+						return longMap.get(id);
+					}
+				});
+				final double boxedMapNanos = measure(threads, ids, new Lookup() {
+					@Override
+					public Object get(final long id) {
+						return boxedMap.get(id);
+					}
+				});
+				System.out.printf(
+						"Runde %d, %d Thread(s): AutoExpireLongMap %.1f ns/get, bisheriger Zugriffsweg %.1f ns/get%n",
+						round + 1, threads, longMapNanos, boxedMapNanos
+				);
+			}
+		}
+	}
+
+	/**
+	 * Führt in jedem Thread {@link #LOOKUPS_PER_THREAD} Zugriffe auf zufällige Ids aus.
+	 *
+	 * @return Mittlere Dauer eines Zugriffs aus Sicht eines Threads in Nanosekunden
+	 */
+	private static double measure(final int threadCount, final long[] ids, final Lookup lookup) throws InterruptedException {
+		final Thread[] threads = new Thread[threadCount];
+		final AtomicLong totalNanos = new AtomicLong();
+		final AtomicLong misses = new AtomicLong();
+		for(int t = 0; t < threadCount; t++) {
+			final int seed = t;
+			threads[t] = new Thread(
+					new Runnable() {
+						@Override
+						public void run() {
+							final Random random = new Random(seed);
+							long missCount = 0;
+							final long start = System.nanoTime();
+							for(int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+								if(lookup.get(ids[random.nextInt(ids.length)]) == null) missCount++;
+							}
+							totalNanos.addAndGet(System.nanoTime() - start);
+							misses.addAndGet(missCount);
+						}
+					}
+			);
+		}
+		for(Thread thread : threads) thread.start();
+		for(Thread thread : threads) thread.join();
+		if(misses.get() != 0) throw new IllegalStateException(misses.get() + " Objekte nicht gefunden");
+		return (double)totalNanos.get() / threadCount / LOOKUPS_PER_THREAD;
+	}
+
+	private interface Lookup {
+
+		Object get(long id);
+	}
+
+	/** Nachbildung des Zugriffswegs der früheren AutoExpireMap */
+	private static final class SynchronizedBoxedMap {
+
+		private final ConcurrentHashMap<Long, Object> _delegate = new ConcurrentHashMap<Long, Object>();
+
+		private final ReferenceQueue<Object> _queue = new ReferenceQueue<Object>();
+
+		public synchronized void put(final long key, final Object value) {
+			update();
+			_delegate.put(key, value);
+		}
+
+		public synchronized Object get(final long key) {
+			update();
+			return _delegate.get(key);
+		}
+
+		private void update() {
+			while(_queue.poll() != null) {
+				// Abgeräumte Einträge würden hier entfernt
+			}
+		}
+	}
+}
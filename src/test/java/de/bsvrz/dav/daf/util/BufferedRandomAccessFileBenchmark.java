@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.bsvrz.dav.daf.
+ * 
+ * de.bsvrz.dav.daf is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.bsvrz.dav.daf is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with de.bsvrz.dav.daf; If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+
+
+package de.bsvrz.dav.daf.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Einfacher Benchmark der Lesestrategien von {@link BufferedRandomAccessFile}. Gemessen wird ein sequentielles Lesen einer Datei mit kurzen Rücksprüngen
+ * (wie bei Index-Zugriffen) sowie ein Lesen an zufälligen Positionen, jeweils für alle {@link BufferedRandomAccessFile.ReadMode}s. {@link
+ * BufferedRandomAccessFile.ReadMode#BUFFERED} entspricht der bisherigen Pufferstrategie.
+ * <p>
+ * Aufruf: <code>java de.bsvrz.dav.daf.util.BufferedRandomAccessFileBenchmark [Dateigröße in MiB] [Puffergröße in Bytes]</code>
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision: 0000 $
+ */
+public class BufferedRandomAccessFileBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	private static final int RANDOM_READS = 200000;
+
+	/** Nach so vielen gelesenen Werten springt der sequentielle Durchlauf 64 Bytes zurück */
+	private static final int BACK_SEEK_INTERVAL = 1024;
+
+	public static void main(String[] args) throws IOException {
+		final int fileSizeMiB = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+		final int bufferSize = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+		final int longCount = fileSizeMiB * 1024 * 1024 / 8;
+
+		final File file = File.createTempFile("BufferedRandomAccessFileBenchmark", ".bin");
+		try {
+			final long start = System.nanoTime();
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+			try {
+				for(int i = 0; i < longCount; i++) {
+					out.writeLong(i);
+				}
+			}
+			finally {
+				out.close();
+			}
+			System.out.printf("Datei mit %d MiB geschrieben in %d ms%n", fileSizeMiB, (System.nanoTime() - start) / 1000000);
+
+			for(int round = 0; round < ROUNDS; round++) {
+				for(BufferedRandomAccessFile.ReadMode readMode : BufferedRandomAccessFile.ReadMode.values()) {
+					final long sequentialNanos = readSequential(file, bufferSize, readMode, longCount);
+					final long randomNanos = readRandom(file, bufferSize, readMode, longCount);
+					System.out.printf(
+							"Runde %d, %s: sequentiell %d ms, zufällig %.2f µs/Zugriff%n",
+							round + 1, readMode, sequentialNanos / 1000000, (double)randomNanos / RANDOM_READS / 1000
+					);
+				}
+			}
+		}
+		finally {
+			if(!file.delete()) file.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Liest die Datei vollständig sequentiell und springt nach jeweils {@link #BACK_SEEK_INTERVAL} Werten 64 Bytes zurück.
+	 *
+	 * @return Dauer in Nanosekunden
+	 */
+	private static long readSequential(final File file, final int bufferSize, final BufferedRandomAccessFile.ReadMode readMode, final int longCount)
+			throws IOException {
+		final long start = System.nanoTime();
+		final BufferedRandomAccessFile in = new BufferedRandomAccessFile(file, "r", bufferSize, readMode);
+		try {
+			long expected = 0;
+			for(int i = 0; i < longCount; i++) {
+				final long value = in.readLong();
+				if(value != expected) throw new IllegalStateException(readMode + ": Wert " + value + " statt " + expected + " gelesen");
+				expected++;
+				if(i % BACK_SEEK_INTERVAL == BACK_SEEK_INTERVAL - 1) {
+					in.skip(-64);
+					expected -= 8;
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Liest {@link #RANDOM_READS} Werte an zufälligen Positionen.
+	 *
+	 * @return Dauer in Nanosekunden
+	 */
+	private static long readRandom(final File file, final int bufferSize, final BufferedRandomAccessFile.ReadMode readMode, final int longCount)
+			throws IOException {
+		final Random random = new Random(4711);
+		final long start = System.nanoTime();
+		final BufferedRandomAccessFile in = new BufferedRandomAccessFile(file, "r", bufferSize, readMode);
+		try {
+			for(int i = 0; i < RANDOM_READS; i++) {
+				final int index = random.nextInt(longCount);
+				in.position(8L * index);
+				final long value = in.readLong();
+				if(value != index) throw new IllegalStateException(readMode + ": Wert " + value + " statt " + index + " gelesen");
+			}
+		}
+		finally {
+			in.close();
+		}
+		return System.nanoTime() - start;
+	}
+}